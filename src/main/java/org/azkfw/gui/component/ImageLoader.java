@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.event.IIOReadUpdateListener;
+
+/**
+ * このクラスは、イメージをバックグラウンドで読み込むクラスです。
+ * <p>
+ * イメージのサイズを読み込んだ後、表示サイズ以上になる範囲で間引いてデコードします。
+ * プログレッシブJPEGやインターレースPNGは、パスごとに読み込み途中のイメージを{@link Listener}に通知します。
+ * {@link #cancel()}で読み込み中のデコードを中断します。
+ * リーダーによっては他のスレッドからの{@link ImageReader#abort()}を受け付けないため、中断はデコード中の進捗の通知を受けたスレッドで行います。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/17
+ * @author kawakicchi
+ */
+final class ImageLoader implements Callable<BufferedImage> {
+
+	/** パスの途中で読み込み途中のイメージを通知する間隔(ミリ秒) */
+	private static final long UPDATE_INTERVAL_MILLIS = 200;
+
+	/** イメージファイル(ストリームから読み込む場合、<code>null</code>) */
+	private final Path file;
+	/** ストリーム(ファイルから読み込む場合、<code>null</code>) */
+	private final InputStream stream;
+	/** 表示サイズ(間引かない場合、<code>null</code>) */
+	private final Dimension size;
+	/** リスナー */
+	private final Listener listener;
+
+	/** キャンセルされた場合、<code>true</code> */
+	private volatile boolean cancelled;
+
+	/** 読み込んだイメージの元のイメージ */
+	private volatile ImageSource source;
+	/** デコード時の間引き間隔 */
+	private volatile int subsampling;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aFile イメージファイル
+	 * @param aSize 表示サイズ。<code>null</code>の場合、間引かない
+	 * @param aListener リスナー
+	 */
+	public ImageLoader(final Path aFile, final Dimension aSize, final Listener aListener) {
+		this(aFile, null, aSize, aListener);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aStream ストリーム
+	 * @param aSize 表示サイズ。<code>null</code>の場合、間引かない
+	 * @param aListener リスナー
+	 */
+	public ImageLoader(final InputStream aStream, final Dimension aSize, final Listener aListener) {
+		this(null, aStream, aSize, aListener);
+	}
+
+	private ImageLoader(final Path aFile, final InputStream aStream, final Dimension aSize, final Listener aListener) {
+		file = aFile;
+		stream = aStream;
+		size = aSize;
+		listener = aListener;
+	}
+
+	/**
+	 * 読み込みをキャンセルする。
+	 * <p>
+	 * デコード中の場合は、次の進捗の通知で{@link ImageReader#abort()}により中断します。
+	 * </p>
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * 読み込みがキャンセルされたか判断する。
+	 * 
+	 * @return キャンセルされた場合、<code>true</code>
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * 読み込んだイメージの元のイメージを取得する。
+	 * 
+	 * @return 元のイメージ。読み込みが完了していない場合、<code>null</code>
+	 */
+	public ImageSource getSource() {
+		return source;
+	}
+
+	/**
+	 * デコード時の間引き間隔を取得する。
+	 * 
+	 * @return 間引き間隔
+	 */
+	public int getSubsampling() {
+		return subsampling;
+	}
+
+	@Override
+	public BufferedImage call() throws Exception {
+		try {
+			return load();
+		} catch (CancellationException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			if (!cancelled) {
+				listener.imageLoadFailed(this, ex);
+			}
+			throw ex;
+		}
+	}
+
+	private BufferedImage load() throws IOException {
+		ImageSource s = (null != file) ? new ImageSource(file) : new ImageSource(stream);
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		int sub = (null != size) ? s.getSubsampling(size.width, size.height) : 1;
+
+		BufferedImage image;
+		ImageReader r = s.createReader();
+		try {
+			if (cancelled) {
+				throw new CancellationException();
+			}
+			UpdateListener l = new UpdateListener();
+			r.addIIOReadUpdateListener(l);
+			r.addIIOReadProgressListener(l);
+			ImageReadParam param = r.getDefaultReadParam();
+			param.setSourceSubsampling(sub, sub, 0, 0);
+			image = r.read(0, param);
+		} finally {
+			ImageSource.dispose(r);
+		}
+		if (cancelled || null == image) {
+			throw new CancellationException();
+		}
+		source = s;
+		subsampling = sub;
+		listener.imageLoadCompleted(this, image);
+		return image;
+	}
+
+	/**
+	 * このクラスは、読み込み途中のイメージを通知し、キャンセルされたデコードを中断するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/17
+	 * @author kawakicchi
+	 */
+	private class UpdateListener implements IIOReadUpdateListener, IIOReadProgressListener {
+
+		private long lastUpdate = System.currentTimeMillis();
+
+		@Override
+		public void passStarted(final ImageReader aSource, final BufferedImage aImage, final int aPass, final int aMinPass,
+				final int aMaxPass, final int aMinX, final int aMinY, final int aPeriodX, final int aPeriodY, final int[] aBands) {
+		}
+
+		@Override
+		public void imageUpdate(final ImageReader aSource, final BufferedImage aImage, final int aMinX, final int aMinY,
+				final int aWidth, final int aHeight, final int aPeriodX, final int aPeriodY, final int[] aBands) {
+			// パスの途中でも一定間隔で通知し、プログレッシブでないイメージも上から順に表示する
+			long now = System.currentTimeMillis();
+			if (now - lastUpdate >= UPDATE_INTERVAL_MILLIS) {
+				update(aImage, now);
+			}
+		}
+
+		@Override
+		public void passComplete(final ImageReader aSource, final BufferedImage aImage) {
+			update(aImage, System.currentTimeMillis());
+		}
+
+		@Override
+		public void thumbnailPassStarted(final ImageReader aSource, final BufferedImage aThumbnail, final int aPass,
+				final int aMinPass, final int aMaxPass, final int aMinX, final int aMinY, final int aPeriodX, final int aPeriodY,
+				final int[] aBands) {
+		}
+
+		@Override
+		public void thumbnailUpdate(final ImageReader aSource, final BufferedImage aThumbnail, final int aMinX, final int aMinY,
+				final int aWidth, final int aHeight, final int aPeriodX, final int aPeriodY, final int[] aBands) {
+		}
+
+		@Override
+		public void thumbnailPassComplete(final ImageReader aSource, final BufferedImage aThumbnail) {
+		}
+
+		@Override
+		public void sequenceStarted(final ImageReader aSource, final int aMinIndex) {
+		}
+
+		@Override
+		public void sequenceComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void imageStarted(final ImageReader aSource, final int aImageIndex) {
+			abortIfCancelled(aSource);
+		}
+
+		@Override
+		public void imageProgress(final ImageReader aSource, final float aPercentageDone) {
+			abortIfCancelled(aSource);
+		}
+
+		@Override
+		public void imageComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void thumbnailStarted(final ImageReader aSource, final int aImageIndex, final int aThumbnailIndex) {
+		}
+
+		@Override
+		public void thumbnailProgress(final ImageReader aSource, final float aPercentageDone) {
+		}
+
+		@Override
+		public void thumbnailComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void readAborted(final ImageReader aSource) {
+		}
+
+		private void abortIfCancelled(final ImageReader aSource) {
+			if (cancelled) {
+				aSource.abort();
+			}
+		}
+
+		private void update(final BufferedImage aImage, final long aNow) {
+			lastUpdate = aNow;
+			if (!cancelled) {
+				listener.imageLoadProgressed(ImageLoader.this, aImage);
+			}
+		}
+	}
+
+	/**
+	 * このインターフェースは、イメージの読み込みを通知するリスナーです。
+	 * <p>
+	 * 通知は読み込みスレッドから行われます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/17
+	 * @author kawakicchi
+	 */
+	static interface Listener {
+
+		/**
+		 * 読み込み途中のイメージを通知する。
+		 * <p>
+		 * イメージは読み込み完了まで同じインスタンスに書き込まれます。
+		 * </p>
+		 * 
+		 * @param aLoader ローダー
+		 * @param aImage 読み込み途中のイメージ
+		 */
+		void imageLoadProgressed(ImageLoader aLoader, BufferedImage aImage);
+
+		/**
+		 * 読み込みの完了を通知する。
+		 * 
+		 * @param aLoader ローダー
+		 * @param aImage イメージ
+		 */
+		void imageLoadCompleted(ImageLoader aLoader, BufferedImage aImage);
+
+		/**
+		 * 読み込みの失敗を通知する。
+		 * <p>
+		 * キャンセルされた場合は通知しません。
+		 * </p>
+		 * 
+		 * @param aLoader ローダー
+		 * @param aCause 原因
+		 */
+		void imageLoadFailed(ImageLoader aLoader, Exception aCause);
+	}
+}
@@ -18,14 +18,63 @@
 package org.azkfw.gui.component;
 
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 /**
  * このクラスは、イメージの表示を行うパネルクラスです。
+ * <p>
+ * イメージはパネルに収まるように縮小して表示します。
+ * パネルのサイズが変わった直後は直前の縮小イメージ(ない場合、元のイメージ)を補間して即座に表示し、
+ * サイズが{@link #SCALE_DELAY_MILLIS}ミリ秒変わらなかった時点でバックグラウンドで高品質に縮小したイメージに置き換えます。
+ * 縮小中にサイズが変わった場合、古い縮小はキャンセルされます。
+ * </p>
+ * <p>
+ * {@link #setZoom(double)}で表示倍率を指定すると拡大・縮小表示になり、ドラッグで表示位置を、マウスホイールで表示倍率を変更できます。
+ * 拡大・縮小表示では{@link ImagePyramid}から表示倍率に近い解像度のイメージを選び、表示範囲のみを描画します。
+ * 表示倍率や表示位置の変更中は最近傍補間で描画し、{@link #SCALE_DELAY_MILLIS}ミリ秒変更がなかった時点でバイリニア補間で描画し直します。
+ * ダブルクリックでパネルに収まる表示と等倍表示を切り替えます。
+ * </p>
+ * <p>
+ * {@link #setImage(Path)}、{@link #setImage(InputStream)}で設定したイメージは、パネルのサイズ以上になる範囲で間引いてデコードします。
+ * パネルが大きくなり解像度が足りなくなった場合のみ、バックグラウンドで高い解像度でデコードし直します。
+ * </p>
+ * <p>
+ * {@link #loadImage(Path)}、{@link #loadImage(InputStream)}はイメージをバックグラウンドで読み込みます。
+ * 読み込み中はプレースホルダーを表示し、プログレッシブJPEGやインターレースPNGはパスごとに読み込み途中のイメージを表示します。
+ * 読み込み中に次のイメージを設定した場合、読み込み中のデコードは中断され、待機中の読み込みは破棄されます。
+ * </p>
+ * <p>
+ * {@link #setTiledImage(Path)}で設定したイメージファイルは全体をデコードせず、{@link ImageTileCache}で表示範囲のタイルのみを読み込みます。
+ * 巨大なイメージを少ないメモリで表示する場合に使用します。
+ * </p>
  * 
  * @since 1.0.0
  * @version 1.0.0 2014/10/16
@@ -36,12 +85,45 @@ public class ImagePanel extends JPanel {
 	/** serialVersionUID */
 	private static final long serialVersionUID = -7505623591121959405L;
 
+	/** 高品質な縮小を開始するまでの待ち時間(ミリ秒) */
+	public static final int SCALE_DELAY_MILLIS = 100;
+
+	/** 表示倍率: パネルに収まるように表示 */
+	public static final double ZOOM_FIT = 0.0;
+	/** 表示倍率の最小値 */
+	public static final double MIN_ZOOM = 1.0 / 256.0;
+	/** 表示倍率の最大値 */
+	public static final double MAX_ZOOM = 32.0;
+	/** マウスホイール1段階あたりの表示倍率の変化 */
+	private static final double ZOOM_STEP = 1.25;
+
+	/** 縮小したイメージを保持する推定メモリ量の上限の既定値(byte) */
+	public static final long DEFAULT_PYRAMID_BUDGET = 128L * 1024L * 1024L;
+
+	/** タイルを保持する推定メモリ量の上限の既定値(byte) */
+	public static final long DEFAULT_TILE_BUDGET = 64L * 1024L * 1024L;
+
+	/** 背景の市松模様の升目のサイズ(pixel) */
+	private static final int BACKGROUND_SIZE = 12;
+	/** 背景の市松模様(透過を含むイメージの背面にタイル状に並べる) */
+	private static final BufferedImage BACKGROUND_TILE = createBackgroundTile(BACKGROUND_SIZE, 20);
+
+	/** 縮小用のエグゼキューター */
+	private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor("ImagePanel-scale", Thread.MIN_PRIORITY);
+	/** 読み込み用のエグゼキューター */
+	private static final ScheduledThreadPoolExecutor LOADER = createExecutor("ImagePanel-load", Thread.NORM_PRIORITY);
+
+	/** 読み込み中に表示する文字列 */
+	private static final String PLACEHOLDER_TEXT = "Loading...";
+
 	/** image */
 	private Image image;
 	/** image width (pixel) */
 	private int imageWidth;
 	/** image height (pixel) */
 	private int imageHeight;
+	/** 透過を含むイメージの場合、<code>true</code> */
+	private boolean imageAlpha;
 
 	/** cash image */
 	private Image cashImage;
@@ -50,8 +132,48 @@ public class ImagePanel extends JPanel {
 	/** cash image height (pixel) */
 	private int cashImageHeight;
 
-	/** background image */
-	private Image backgroundImage;
+	/** 縮小中のタスク */
+	private Future<?> scaleTask;
+	/** 縮小中のサイズ (pixel) */
+	private int scaleWidth;
+	/** 縮小中のサイズ (pixel) */
+	private int scaleHeight;
+
+	/** 表示倍率 */
+	private double zoom;
+	/** 表示範囲の中心 (イメージ上の座標) */
+	private double viewX;
+	/** 表示範囲の中心 (イメージ上の座標) */
+	private double viewY;
+	/** 拡大・縮小表示用のイメージ */
+	private ImagePyramid pyramid;
+	/** 縮小したイメージを保持する推定メモリ量の上限(byte) */
+	private long pyramidBudget;
+	/** 間引いてデコードしたイメージの元のイメージ */
+	private ImageSource imageSource;
+	/** デコード時の間引き間隔 */
+	private int imageSubsampling;
+	/** デコード中のタスク */
+	private Future<?> decodeTask;
+	/** デコード中の間引き間隔 */
+	private int decodeSubsampling;
+
+	/** 読み込み中のローダー */
+	private ImageLoader loader;
+	/** 読み込み中のタスク */
+	private Future<BufferedImage> loadTask;
+
+	/** タイルごとに読み込むイメージ */
+	private ImageTileCache tiles;
+	/** タイルを保持する推定メモリ量の上限(byte) */
+	private long tileBudget;
+
+	/** ドラッグの開始位置 */
+	private Point dragPoint;
+	/** 表示倍率や表示位置の変更中の場合、<code>true</code> */
+	private boolean interacting;
+	/** 変更が止まった後に描画し直すタイマー */
+	private final Timer smoothTimer;
 
 	/**
 	 * コンストラクタ
@@ -66,6 +188,58 @@ public class ImagePanel extends JPanel {
 		cashImage = null;
 		cashImageWidth = -1;
 		cashImageHeight = -1;
+
+		zoom = ZOOM_FIT;
+		pyramidBudget = DEFAULT_PYRAMID_BUDGET;
+		tileBudget = DEFAULT_TILE_BUDGET;
+
+		smoothTimer = new Timer(SCALE_DELAY_MILLIS, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				interacting = false;
+				repaint();
+			}
+		});
+		smoothTimer.setRepeats(false);
+
+		MouseAdapter adapter = new MouseAdapter() {
+			@Override
+			public void mousePressed(final MouseEvent event) {
+				dragPoint = event.getPoint();
+			}
+
+			@Override
+			public void mouseReleased(final MouseEvent event) {
+				dragPoint = null;
+			}
+
+			@Override
+			public void mouseDragged(final MouseEvent event) {
+				if (null != dragPoint && ZOOM_FIT < zoom) {
+					Point point = event.getPoint();
+					setViewCenter(viewX - (point.x - dragPoint.x) / zoom, viewY - (point.y - dragPoint.y) / zoom);
+					dragPoint = point;
+				}
+			}
+
+			@Override
+			public void mouseWheelMoved(final MouseWheelEvent event) {
+				if (hasImage()) {
+					double base = (ZOOM_FIT < zoom) ? zoom : getFitZoom();
+					setZoom(base * Math.pow(ZOOM_STEP, -event.getWheelRotation()), event.getPoint());
+				}
+			}
+
+			@Override
+			public void mouseClicked(final MouseEvent event) {
+				if (2 == event.getClickCount() && hasImage()) {
+					setZoom((ZOOM_FIT < zoom) ? ZOOM_FIT : 1.0, event.getPoint());
+				}
+			}
+		};
+		addMouseListener(adapter);
+		addMouseMotionListener(adapter);
+		addMouseWheelListener(adapter);
 	}
 
 	/**
@@ -74,6 +248,7 @@ public class ImagePanel extends JPanel {
 	 * @param aImage イメージ
 	 */
 	public ImagePanel(final Image aImage) {
+		this();
 		setImage(aImage);
 	}
 
@@ -83,64 +258,901 @@ public class ImagePanel extends JPanel {
 	 * @param aImage イメージ
 	 */
 	public void setImage(final Image aImage) {
+		cancelLoad();
+		cancelDecode();
+		imageSource = null;
+		applyImage(aImage);
+	}
+
+	/**
+	 * イメージファイルを設定する。
+	 * <p>
+	 * イメージのサイズを読み込んだ後、パネルのサイズ(パネルのサイズが決まっていない場合、画面のサイズ)以上になる範囲で間引いてデコードします。
+	 * </p>
+	 * 
+	 * @param aFile イメージファイル
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public void setImage(final Path aFile) throws IOException {
+		cancelLoad();
+		cancelDecode();
+		setImageSource(new ImageSource(aFile));
+	}
+
+	/**
+	 * ストリームからイメージを設定する。
+	 * <p>
+	 * デコードし直すためにストリームの内容(デコード前のバイト列)を保持します。ストリームはクローズしません。
+	 * イメージのサイズを読み込んだ後、パネルのサイズ(パネルのサイズが決まっていない場合、画面のサイズ)以上になる範囲で間引いてデコードします。
+	 * </p>
+	 * 
+	 * @param aStream ストリーム
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public void setImage(final InputStream aStream) throws IOException {
+		cancelLoad();
+		cancelDecode();
+		setImageSource(new ImageSource(aStream));
+	}
+
+	/**
+	 * デコードしたイメージを設定する。
+	 * <p>
+	 * 読み込み中・デコード中のイメージは、デコードを始める前に呼び出し元でキャンセルします。
+	 * </p>
+	 * 
+	 * @param aSource イメージの読み込み元
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	private void setImageSource(final ImageSource aSource) throws IOException {
+		Dimension target = getDecodeSize();
+		int subsampling = (null != target) ? aSource.getSubsampling(target.width, target.height) : 1;
+		BufferedImage decoded = aSource.decode(subsampling);
+
+		imageSource = aSource;
+		imageSubsampling = subsampling;
+		applyImage(decoded);
+	}
+
+	/**
+	 * イメージファイルをバックグラウンドで読み込んで設定する。
+	 * <p>
+	 * {@link #setImage(Path)}と同様に間引いてデコードします。読み込みが完了するまでプレースホルダー、または読み込み途中のイメージを表示します。
+	 * 読み込み中に再度イメージを設定した場合、この読み込みはキャンセルされます。
+	 * </p>
+	 * 
+	 * @param aFile イメージファイル
+	 * @return 読み込みの結果。読み込みに失敗した場合は{@link java.util.concurrent.ExecutionException}を、キャンセルされた場合は
+	 *         {@link java.util.concurrent.CancellationException}をスローします
+	 */
+	public Future<BufferedImage> loadImage(final Path aFile) {
+		return load(new ImageLoader(aFile, getDecodeSize(), createLoaderListener()));
+	}
+
+	/**
+	 * ストリームからイメージをバックグラウンドで読み込んで設定する。
+	 * <p>
+	 * {@link #setImage(InputStream)}と同様に間引いてデコードします。読み込みが完了するまでプレースホルダー、または読み込み途中のイメージを表示します。
+	 * ストリームは読み込みスレッドで読み込むため、読み込みが完了するまでクローズしないでください。
+	 * 読み込み中に再度イメージを設定した場合、この読み込みはキャンセルされます。
+	 * </p>
+	 * 
+	 * @param aStream ストリーム
+	 * @return 読み込みの結果。読み込みに失敗した場合は{@link java.util.concurrent.ExecutionException}を、キャンセルされた場合は
+	 *         {@link java.util.concurrent.CancellationException}をスローします
+	 */
+	public Future<BufferedImage> loadImage(final InputStream aStream) {
+		return load(new ImageLoader(aStream, getDecodeSize(), createLoaderListener()));
+	}
+
+	/**
+	 * 読み込み中か判断する。
+	 * 
+	 * @return 読み込み中の場合、<code>true</code>
+	 */
+	public boolean isLoading() {
+		return null != loader;
+	}
+
+	private Future<BufferedImage> load(final ImageLoader aLoader) {
+		cancelLoad();
+		cancelDecode();
+		cancelScale();
+		disposeSource();
+		imageSource = null;
+		image = null;
+		cashImage = null;
+		cashImageWidth = -1;
+		cashImageHeight = -1;
+
+		loader = aLoader;
+		loadTask = LOADER.submit(aLoader);
+		repaint();
+		return loadTask;
+	}
+
+	private void cancelLoad() {
+		if (null != loader) {
+			loader.cancel();
+			loadTask.cancel(true);
+			loader = null;
+			loadTask = null;
+		}
+	}
+
+	private ImageLoader.Listener createLoaderListener() {
+		return new ImageLoader.Listener() {
+			@Override
+			public void imageLoadProgressed(final ImageLoader aLoader, final BufferedImage aImage) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (aLoader == loader) {
+							showLoadingImage(aImage);
+						}
+					}
+				});
+			}
+
+			@Override
+			public void imageLoadCompleted(final ImageLoader aLoader, final BufferedImage aImage) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (aLoader != loader) {
+							return;
+						}
+						loader = null;
+						loadTask = null;
+						imageSource = aLoader.getSource();
+						imageSubsampling = aLoader.getSubsampling();
+						showLoadingImage(aImage);
+					}
+				});
+			}
+
+			@Override
+			public void imageLoadFailed(final ImageLoader aLoader, final Exception aCause) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (aLoader == loader) {
+							loader = null;
+							loadTask = null;
+							repaint();
+						}
+					}
+				});
+			}
+		};
+	}
+
+	/**
+	 * 読み込み途中、または読み込みが完了したイメージを表示する。
+	 * <p>
+	 * 読み込み途中のイメージは同じインスタンスに書き込まれるため、2回目以降は縮小したイメージのみを作成し直します。
+	 * </p>
+	 * 
+	 * @param aImage イメージ
+	 */
+	private void showLoadingImage(final BufferedImage aImage) {
+		if (aImage != image) {
+			applyImage(aImage);
+			return;
+		}
+		// 直前の縮小イメージは高品質な縮小が終わるまでの表示に使用する
+		cashImageWidth = -1;
+		cashImageHeight = -1;
+		cancelScale();
+		if (null != pyramid) {
+			pyramid.dispose();
+			pyramid = null;
+		}
+		repaint();
+	}
+
+	private void applyImage(final Image aImage) {
 		image = aImage;
 		imageWidth = image.getWidth(this);
 		imageHeight = image.getHeight(this);
+		imageAlpha = hasAlpha(image);
+
+		cashImage = null;
+		cashImageWidth = -1;
+		cashImageHeight = -1;
+		cancelScale();
+
+		disposeSource();
+		viewX = imageWidth / 2.0;
+		viewY = imageHeight / 2.0;
 
+		repaint();
+	}
+
+	/**
+	 * イメージファイルをタイルごとに読み込んで表示するように設定する。
+	 * <p>
+	 * このメソッドではイメージのサイズのみを読み込み、タイルは描画時に表示範囲のものだけをバックグラウンドで読み込みます。
+	 * </p>
+	 * 
+	 * @param aFile イメージファイル
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public void setTiledImage(final Path aFile) throws IOException {
+		cancelLoad();
+		cancelDecode();
+		ImageTileCache cache = new ImageTileCache(new ImageSource(aFile), Math.max(2, Runtime.getRuntime().availableProcessors()),
+				tileBudget, this);
+
+		imageSource = null;
+		image = null;
 		cashImage = null;
 		cashImageWidth = -1;
 		cashImageHeight = -1;
+		cancelScale();
+
+		disposeSource();
+		tiles = cache;
+		imageWidth = cache.getImageWidth();
+		imageHeight = cache.getImageHeight();
+		imageAlpha = cache.hasAlpha();
+		viewX = imageWidth / 2.0;
+		viewY = imageHeight / 2.0;
 
 		repaint();
 	}
 
+	/**
+	 * タイルを保持する推定メモリ量の上限を設定する。
+	 * <p>
+	 * 上限がパネルを覆うタイル(512×512pixel)の合計より小さい場合、表示のたびにタイルを読み込み直します。
+	 * </p>
+	 * 
+	 * @param aBudget 上限(byte)
+	 */
+	public void setTileBudget(final long aBudget) {
+		tileBudget = aBudget;
+		if (null != tiles) {
+			tiles.setBudget(aBudget);
+		}
+	}
+
+	/**
+	 * タイルを保持する推定メモリ量の上限を取得する。
+	 * 
+	 * @return 上限(byte)
+	 */
+	public long getTileBudget() {
+		return tileBudget;
+	}
+
+	/**
+	 * タイルを保持している推定メモリ量を取得する。
+	 * 
+	 * @return メモリ量(byte)
+	 */
+	public long getTileUsedBytes() {
+		return (null != tiles) ? tiles.getUsedBytes() : 0;
+	}
+
+	/**
+	 * タイルを読み込んだ回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public long getTileDecodeCount() {
+		return (null != tiles) ? tiles.getDecodeCount() : 0;
+	}
+
+	private boolean hasImage() {
+		return null != image || null != tiles;
+	}
+
+	private void disposeSource() {
+		if (null != pyramid) {
+			pyramid.dispose();
+			pyramid = null;
+		}
+		if (null != tiles) {
+			tiles.dispose();
+			tiles = null;
+		}
+	}
+
+	/**
+	 * 表示倍率を設定する。
+	 * <p>
+	 * パネルの中心の位置を保ったまま表示倍率を変更します。
+	 * </p>
+	 * 
+	 * @param aZoom 表示倍率。{@link #ZOOM_FIT}の場合、パネルに収まるように表示する
+	 */
+	public void setZoom(final double aZoom) {
+		setZoom(aZoom, new Point(getWidth() / 2, getHeight() / 2));
+	}
+
+	/**
+	 * 表示倍率を設定する。
+	 * <p>
+	 * パネル上の指定した位置に表示されているイメージの位置を保ったまま表示倍率を変更します。
+	 * </p>
+	 * 
+	 * @param aZoom 表示倍率。{@link #ZOOM_FIT}の場合、パネルに収まるように表示する
+	 * @param aAnchor 位置を保つパネル上の座標
+	 */
+	public void setZoom(final double aZoom, final Point aAnchor) {
+		if (ZOOM_FIT >= aZoom) {
+			zoom = ZOOM_FIT;
+		} else {
+			double current = zoom;
+			if (ZOOM_FIT >= current) {
+				current = getFitZoom();
+				viewX = imageWidth / 2.0;
+				viewY = imageHeight / 2.0;
+			}
+			double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, aZoom));
+			double dx = aAnchor.x - getWidth() / 2.0;
+			double dy = aAnchor.y - getHeight() / 2.0;
+			if (0.0 < current) {
+				viewX += dx / current - dx / newZoom;
+				viewY += dy / current - dy / newZoom;
+			}
+			zoom = newZoom;
+			interact();
+		}
+		repaint();
+	}
+
+	/**
+	 * 表示倍率を取得する。
+	 * 
+	 * @return 表示倍率。パネルに収まるように表示している場合、{@link #ZOOM_FIT}
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * 表示範囲の中心を設定する。
+	 * <p>
+	 * 拡大・縮小表示の場合のみ有効です。
+	 * </p>
+	 * 
+	 * @param aX イメージ上のX座標
+	 * @param aY イメージ上のY座標
+	 */
+	public void setViewCenter(final double aX, final double aY) {
+		viewX = aX;
+		viewY = aY;
+		interact();
+		repaint();
+	}
+
+	/**
+	 * 表示範囲の中心を取得する。
+	 * 
+	 * @return イメージ上の座標
+	 */
+	public Point2D getViewCenter() {
+		return new Point2D.Double(viewX, viewY);
+	}
+
+	/**
+	 * 拡大・縮小表示で縮小したイメージを保持する推定メモリ量の上限を設定する。
+	 * 
+	 * @param aBudget 上限(byte)
+	 */
+	public void setPyramidBudget(final long aBudget) {
+		pyramidBudget = aBudget;
+		if (null != pyramid) {
+			pyramid.setBudget(aBudget);
+		}
+	}
+
+	/**
+	 * 拡大・縮小表示で縮小したイメージを保持する推定メモリ量の上限を取得する。
+	 * 
+	 * @return 上限(byte)
+	 */
+	public long getPyramidBudget() {
+		return pyramidBudget;
+	}
+
+	/**
+	 * 拡大・縮小表示で縮小したイメージを保持している推定メモリ量を取得する。
+	 * 
+	 * @return メモリ量(byte)
+	 */
+	public long getPyramidUsedBytes() {
+		return (null != pyramid) ? pyramid.getUsedBytes() : 0;
+	}
+
 	@Override
 	public void paint(final Graphics g) {
-		if (null != image) {
-			int width = getWidth();
-			int height = getHeight();
+		if (null != tiles) {
+			paintTiled(g, getWidth(), getHeight());
+		} else if (null != image) {
+			if (ZOOM_FIT < zoom) {
+				paintZoom(g, getWidth(), getHeight());
+			} else {
+				paintFit(g, getWidth(), getHeight());
+			}
+		} else if (null != loader) {
+			paintPlaceholder(g, getWidth(), getHeight());
+		}
+	}
 
-			double perX = (double) imageWidth / (double) width;
-			double perY = (double) imageHeight / (double) height;
-			double per = Math.max(perX, perY);
+	/**
+	 * 読み込み中のプレースホルダーを描画する。
+	 * <p>
+	 * 読み込み途中のイメージがない間に呼び出されます。
+	 * </p>
+	 * 
+	 * @param g グラフィックス
+	 * @param width パネルの幅
+	 * @param height パネルの高さ
+	 */
+	protected void paintPlaceholder(final Graphics g, final int width, final int height) {
+		g.setColor(Color.black);
+		g.fillRect(0, 0, width, height);
 
-			int sWidth = (int) (imageWidth / per);
-			int sHeight = (int) (imageHeight / per);
+		g.setColor(Color.gray);
+		FontMetrics metrics = g.getFontMetrics();
+		g.drawString(PLACEHOLDER_TEXT, (width - metrics.stringWidth(PLACEHOLDER_TEXT)) / 2,
+				(height - metrics.getHeight()) / 2 + metrics.getAscent());
+	}
+
+	private void paintFit(final Graphics g, final int width, final int height) {
+		double perX = (double) imageWidth / (double) width;
+		double perY = (double) imageHeight / (double) height;
+		double per = Math.max(perX, perY);
+
+		int sWidth = (int) (imageWidth / per);
+		int sHeight = (int) (imageHeight / per);
+
+		g.setColor(Color.black);
+		g.fillRect(0, 0, width, height);
 
-			if (sWidth != cashImageWidth || sHeight != cashImageHeight) {
-				cashImageWidth = sWidth;
-				cashImageHeight = sHeight;
-				cashImage = image.getScaledInstance(sWidth, sHeight, Image.SCALE_SMOOTH);
+		int x = (width - sWidth) / 2;
+		int y = (height - sHeight) / 2;
 
-				backgroundImage = createBackgroundImage(cashImageWidth, cashImageHeight, 12);
+		Graphics2D g2 = (Graphics2D) g.create();
+		if (imageAlpha) {
+			paintBackground(g2, x, y, sWidth, sHeight);
+		}
+
+		if (null != cashImage && sWidth == cashImageWidth && sHeight == cashImageHeight) {
+			g2.drawImage(cashImage, x, y, this);
+		} else {
+			// 高品質な縮小が終わるまでは直前の縮小イメージをバイリニア補間、元のイメージを最近傍補間で拡大・縮小して表示する
+			if (null != cashImage) {
+				g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g2.drawImage(cashImage, x, y, sWidth, sHeight, this);
+			} else {
+				g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+				g2.drawImage(image, x, y, sWidth, sHeight, this);
 			}
+			requestScale(sWidth, sHeight);
+		}
+		g2.dispose();
+
+		requestDecode(sWidth, sHeight);
+	}
 
-			g.setColor(Color.black);
-			g.fillRect(0, 0, width, height);
+	/**
+	 * 表示倍率に近い解像度のイメージから表示範囲のみを描画する。
+	 * 
+	 * @param g グラフィックス
+	 * @param width パネルの幅
+	 * @param height パネルの高さ
+	 */
+	private void paintZoom(final Graphics g, final int width, final int height) {
+		g.setColor(Color.black);
+		g.fillRect(0, 0, width, height);
 
-			int x = (width - cashImageWidth) / 2;
-			int y = (height - cashImageHeight) / 2;
+		clampView(width, height, zoom);
+		double left = viewX - width / 2.0 / zoom;
+		double top = viewY - height / 2.0 / zoom;
 
-			g.drawImage(backgroundImage, x, y, this);
-			g.drawImage(cashImage, x, y, this);
+		if (null == pyramid) {
+			pyramid = new ImagePyramid(image, imageWidth, imageHeight, imageAlpha, pyramidBudget, EXECUTOR, this);
 		}
+		int request = pyramid.getLevel(zoom);
+		int level = pyramid.find(request);
+		Image source = pyramid.get(level);
+		int levelWidth = pyramid.getLevelWidth(level);
+		int levelHeight = pyramid.getLevelHeight(level);
+		double rx = (double) imageWidth / levelWidth;
+		double ry = (double) imageHeight / levelHeight;
+
+		int sx1 = Math.max(0, (int) Math.floor(left / rx));
+		int sy1 = Math.max(0, (int) Math.floor(top / ry));
+		int sx2 = Math.min(levelWidth, (int) Math.ceil((left + width / zoom) / rx));
+		int sy2 = Math.min(levelHeight, (int) Math.ceil((top + height / zoom) / ry));
+		int dx1 = (int) Math.round((sx1 * rx - left) * zoom);
+		int dy1 = (int) Math.round((sy1 * ry - top) * zoom);
+		int dx2 = (int) Math.round((sx2 * rx - left) * zoom);
+		int dy2 = (int) Math.round((sy2 * ry - top) * zoom);
+
+		Graphics2D g2 = (Graphics2D) g.create();
+		if (imageAlpha) {
+			int bx1 = Math.max(0, dx1);
+			int by1 = Math.max(0, dy1);
+			paintBackground(g2, bx1, by1, Math.min(width, dx2) - bx1, Math.min(height, dy2) - by1);
+		}
+		// 拡大時と、変更中、要求したレベルの作成中は最近傍補間で表示する
+		if (1.0 > zoom && level == request && !interacting) {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		} else {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		}
+		g2.drawImage(source, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, this);
+		g2.dispose();
+
+		requestDecode((int) Math.ceil(imageWidth * zoom), (int) Math.ceil(imageHeight * zoom));
 	}
 
-	private Image createBackgroundImage(final int width, final int height, final int size) {
-		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	/**
+	 * 表示サイズに対してデコードしたイメージの解像度が足りない場合、高い解像度でのデコードをバックグラウンドで開始する。
+	 * 
+	 * @param aWidth イメージ全体の表示上の幅
+	 * @param aHeight イメージ全体の表示上の高さ
+	 */
+	private void requestDecode(final int aWidth, final int aHeight) {
+		if (null == imageSource || 1 >= imageSubsampling || (aWidth <= imageWidth && aHeight <= imageHeight)) {
+			return;
+		}
+		final int subsampling = imageSource.getSubsampling(aWidth, aHeight);
+		if (subsampling >= imageSubsampling || (null != decodeTask && subsampling >= decodeSubsampling)) {
+			return;
+		}
+		cancelDecode();
+		decodeSubsampling = subsampling;
+		final ImageSource source = imageSource;
+		final Future<?>[] self = new Future<?>[1];
+		self[0] = EXECUTOR.schedule(new Runnable() {
+			@Override
+			public void run() {
+				final BufferedImage decoded;
+				try {
+					decoded = source.decode(subsampling);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+					return;
+				}
+				if (Thread.currentThread().isInterrupted() || null == decoded) {
+					return;
+				}
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (self[0] != decodeTask || source != imageSource) {
+							return;
+						}
+						decodeTask = null;
+						replaceImage(decoded, subsampling);
+					}
+				});
+			}
+		}, SCALE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		decodeTask = self[0];
+	}
+
+	private void cancelDecode() {
+		if (null != decodeTask) {
+			decodeTask.cancel(true);
+			decodeTask = null;
+		}
+	}
+
+	/**
+	 * 高い解像度でデコードしたイメージに置き換える。
+	 * <p>
+	 * 表示倍率と表示位置は、置き換え前と同じ範囲を表示するように換算します。
+	 * </p>
+	 * 
+	 * @param aImage イメージ
+	 * @param aSubsampling デコード時の間引き間隔
+	 */
+	private void replaceImage(final BufferedImage aImage, final int aSubsampling) {
+		double ratio = (double) aImage.getWidth() / (double) imageWidth;
+		image = aImage;
+		imageWidth = aImage.getWidth();
+		imageHeight = aImage.getHeight();
+		imageSubsampling = aSubsampling;
+
+		// 直前の縮小イメージは高品質な縮小が終わるまでの表示に使用する
+		cashImageWidth = -1;
+		cashImageHeight = -1;
+		cancelScale();
+		if (null != pyramid) {
+			pyramid.dispose();
+			pyramid = null;
+		}
+		if (ZOOM_FIT < zoom) {
+			zoom /= ratio;
+		}
+		viewX *= ratio;
+		viewY *= ratio;
+
+		repaint();
+	}
+
+	/**
+	 * デコードするサイズを取得する。
+	 * 
+	 * @return サイズ。間引かない場合、<code>null</code>
+	 */
+	private Dimension getDecodeSize() {
+		if (0 < getWidth() && 0 < getHeight()) {
+			return new Dimension(getWidth(), getHeight());
+		}
+		if (!GraphicsEnvironment.isHeadless()) {
+			return Toolkit.getDefaultToolkit().getScreenSize();
+		}
+		return null;
+	}
+
+	/**
+	 * 表示範囲のタイルを描画する。
+	 * <p>
+	 * 読み込んでいないタイルは、読み込み済みの粗いレベルのタイルを拡大して表示します。
+	 * </p>
+	 * 
+	 * @param g グラフィックス
+	 * @param width パネルの幅
+	 * @param height パネルの高さ
+	 */
+	private void paintTiled(final Graphics g, final int width, final int height) {
+		g.setColor(Color.black);
+		g.fillRect(0, 0, width, height);
+
+		double z = (ZOOM_FIT < zoom) ? zoom : getFitZoom();
+		clampView(width, height, z);
+		double left = viewX - width / 2.0 / z;
+		double top = viewY - height / 2.0 / z;
+
+		int level = tiles.getLevel(z);
+		int span = ImageTileCache.TILE_SIZE << level;
+		int tx1 = Math.max(0, (int) Math.floor(left / span));
+		int ty1 = Math.max(0, (int) Math.floor(top / span));
+		int tx2 = Math.min((imageWidth - 1) / span, (int) Math.floor((left + width / z) / span));
+		int ty2 = Math.min((imageHeight - 1) / span, (int) Math.floor((top + height / z) / span));
+
+		Graphics2D g2 = (Graphics2D) g.create();
+		if (imageAlpha) {
+			int bx1 = Math.max(0, (int) Math.round(-left * z));
+			int by1 = Math.max(0, (int) Math.round(-top * z));
+			int bx2 = Math.min(width, (int) Math.round((imageWidth - left) * z));
+			int by2 = Math.min(height, (int) Math.round((imageHeight - top) * z));
+			paintBackground(g2, bx1, by1, bx2 - bx1, by2 - by1);
+		}
+		if (1.0 > z && !interacting) {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		} else {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		}
+
+		List<Long> keys = new ArrayList<Long>();
+		int maxLevel = tiles.getMaxLevel();
+		for (int ty = ty1; ty <= ty2; ty++) {
+			for (int tx = tx1; tx <= tx2; tx++) {
+				keys.add(ImageTileCache.toKey(level, tx, ty));
+
+				int x1 = tx * span;
+				int y1 = ty * span;
+				int x2 = Math.min(imageWidth, x1 + span);
+				int y2 = Math.min(imageHeight, y1 + span);
+				int dx1 = (int) Math.round((x1 - left) * z);
+				int dy1 = (int) Math.round((y1 - top) * z);
+				int dx2 = (int) Math.round((x2 - left) * z);
+				int dy2 = (int) Math.round((y2 - top) * z);
+
+				BufferedImage tile = tiles.getTile(level, tx, ty);
+				if (null != tile) {
+					g2.drawImage(tile, dx1, dy1, dx2, dy2, 0, 0, tile.getWidth(), tile.getHeight(), this);
+					continue;
+				}
+				for (int l = level + 1; l <= maxLevel; l++) {
+					int shift = l - level;
+					tile = tiles.getTile(l, tx >> shift, ty >> shift);
+					if (null != tile) {
+						int cx = (tx >> shift) * (ImageTileCache.TILE_SIZE << l);
+						int cy = (ty >> shift) * (ImageTileCache.TILE_SIZE << l);
+						int sx1 = (x1 - cx) >> l;
+						int sy1 = (y1 - cy) >> l;
+						int sx2 = Math.min(tile.getWidth(), (x2 - cx + (1 << l) - 1) >> l);
+						int sy2 = Math.min(tile.getHeight(), (y2 - cy + (1 << l) - 1) >> l);
+						g2.drawImage(tile, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, this);
+						break;
+					}
+				}
+			}
+		}
+		g2.dispose();
+
+		// 全体を表示する最も粗いタイルは、読み込み中のタイルの代わりに使用するため常に読み込んでおく
+		keys.add(ImageTileCache.toKey(maxLevel, 0, 0));
+		tiles.request(keys);
+	}
+
+	/**
+	 * 表示範囲の中心を調整する。
+	 * <p>
+	 * イメージがパネルより小さい場合は中央に、大きい場合は端がパネルの内側に入らないように表示します。
+	 * </p>
+	 * 
+	 * @param width パネルの幅
+	 * @param height パネルの高さ
+	 * @param aZoom 表示倍率
+	 */
+	private void clampView(final int width, final int height, final double aZoom) {
+		double halfWidth = width / 2.0 / aZoom;
+		double halfHeight = height / 2.0 / aZoom;
+		viewX = (imageWidth <= halfWidth * 2.0) ? imageWidth / 2.0 : Math.max(halfWidth, Math.min(imageWidth - halfWidth, viewX));
+		viewY = (imageHeight <= halfHeight * 2.0) ? imageHeight / 2.0 : Math.max(halfHeight, Math.min(imageHeight - halfHeight, viewY));
+	}
+
+	private void interact() {
+		interacting = true;
+		smoothTimer.restart();
+	}
+
+	/**
+	 * パネルに収まる表示倍率を取得する。
+	 * 
+	 * @return 表示倍率
+	 */
+	private double getFitZoom() {
+		return Math.min((double) getWidth() / (double) imageWidth, (double) getHeight() / (double) imageHeight);
+	}
+
+	private static void paintBackground(final Graphics2D g, final int x, final int y, final int width, final int height) {
+		Graphics2D g2 = (Graphics2D) g.create();
+		g2.clipRect(x, y, width, height);
+		for (int row = 0; row < height; row += BACKGROUND_TILE.getHeight()) {
+			for (int col = 0; col < width; col += BACKGROUND_TILE.getWidth()) {
+				g2.drawImage(BACKGROUND_TILE, x + col, y + row, null);
+			}
+		}
+		g2.dispose();
+	}
+
+	/**
+	 * 高品質な縮小をバックグラウンドで開始する。
+	 * <p>
+	 * 縮小中、または開始待ちの異なるサイズの縮小はキャンセルします。
+	 * </p>
+	 * 
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 */
+	private void requestScale(final int aWidth, final int aHeight) {
+		if (null != scaleTask && aWidth == scaleWidth && aHeight == scaleHeight) {
+			return;
+		}
+		cancelScale();
+		if (0 >= aWidth || 0 >= aHeight) {
+			return;
+		}
+		scaleWidth = aWidth;
+		scaleHeight = aHeight;
+		final Image source = image;
+		final int sourceWidth = imageWidth;
+		final int sourceHeight = imageHeight;
+		final Future<?>[] self = new Future<?>[1];
+		self[0] = EXECUTOR.schedule(new Runnable() {
+			@Override
+			public void run() {
+				final BufferedImage scaled = scale(source, sourceWidth, sourceHeight, aWidth, aHeight);
+				if (null == scaled) {
+					return;
+				}
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (self[0] != scaleTask) {
+							return;
+						}
+						scaleTask = null;
+						cashImage = scaled;
+						cashImageWidth = aWidth;
+						cashImageHeight = aHeight;
+						repaint();
+					}
+				});
+			}
+		}, SCALE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		scaleTask = self[0];
+	}
+
+	private void cancelScale() {
+		if (null != scaleTask) {
+			scaleTask.cancel(true);
+			scaleTask = null;
+		}
+	}
+
+	/**
+	 * イメージを高品質に縮小する。
+	 * <p>
+	 * 半分ずつバイリニア補間で縮小を繰り返し、段階ごとにキャンセルを確認します。
+	 * </p>
+	 * 
+	 * @param aImage イメージ
+	 * @param aImageWidth イメージの幅
+	 * @param aImageHeight イメージの高さ
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 * @return 縮小したイメージ。キャンセルされた場合、<code>null</code>
+	 */
+	private static BufferedImage scale(final Image aImage, final int aImageWidth, final int aImageHeight, final int aWidth,
+			final int aHeight) {
+		int type = hasAlpha(aImage) ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+		Image current = aImage;
+		int width = aImageWidth;
+		int height = aImageHeight;
+		do {
+			if (Thread.currentThread().isInterrupted()) {
+				return null;
+			}
+			if (width > aWidth) {
+				width = Math.max(aWidth, width / 2);
+			} else {
+				width = aWidth;
+			}
+			if (height > aHeight) {
+				height = Math.max(aHeight, height / 2);
+			} else {
+				height = aHeight;
+			}
+			BufferedImage scaled = new BufferedImage(width, height, type);
+			Graphics2D g = scaled.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(current, 0, 0, width, height, null);
+			g.dispose();
+			current = scaled;
+		} while (width != aWidth || height != aHeight);
+		return (BufferedImage) current;
+	}
+
+	private static boolean hasAlpha(final Image aImage) {
+		if (aImage instanceof BufferedImage) {
+			return ((BufferedImage) aImage).getColorModel().hasAlpha();
+		}
+		return true;
+	}
+
+	private static BufferedImage createBackgroundTile(final int size, final int count) {
+		BufferedImage image = new BufferedImage(size * count, size * count, BufferedImage.TYPE_INT_RGB);
 		Graphics g = image.getGraphics();
 
 		g.setColor(Color.white);
-		g.fillRect(0, 0, width, height);
+		g.fillRect(0, 0, size * count, size * count);
 
 		g.setColor(new Color(200, 200, 200, 255));
-		for (int row = 0; row < cashImageHeight / size + 1; row++) {
-			for (int col = 0; col < cashImageWidth / size + 1; col++) {
+		for (int row = 0; row < count; row++) {
+			for (int col = 0; col < count; col++) {
 				if ((col % 2) == (row % 2)) {
 					g.fillRect(col * size, row * size, size, size);
 				}
 			}
 		}
+		g.dispose();
 		return image;
 	}
+
+	private static ScheduledThreadPoolExecutor createExecutor(final String aName, final int aPriority) {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, aName);
+				thread.setDaemon(true);
+				thread.setPriority(aPriority);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
 }
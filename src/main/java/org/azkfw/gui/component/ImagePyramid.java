@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、イメージを2のべき乗分の1ずつ縮小したイメージ(ミップマップ)を保持するクラスです。
+ * <p>
+ * レベル<code>n</code>のイメージは元のイメージを<code>1/2^n</code>に縮小したもので、レベル0は元のイメージです。
+ * 各レベルは要求された時点でバックグラウンドで作成し、保持するイメージの推定メモリ量に上限を設けます。
+ * 上限を超えた場合、参照の古いレベルから破棄します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/14
+ * @author kawakicchi
+ */
+final class ImagePyramid {
+
+	/** 元のイメージ */
+	private final Image image;
+	/** 元のイメージの幅 (pixel) */
+	private final int imageWidth;
+	/** 元のイメージの高さ (pixel) */
+	private final int imageHeight;
+	/** 透過を含むイメージの場合、<code>true</code> */
+	private final boolean alpha;
+
+	/** 作成用のエグゼキューター */
+	private final ExecutorService executor;
+	/** 作成後に再描画するコンポーネント */
+	private final Component component;
+
+	/** 保持するイメージの推定メモリ量の上限(byte) */
+	private long budget;
+	/** レベルごとのイメージ(参照順) */
+	private final Map<Integer, BufferedImage> levels;
+	/** 保持しているイメージの推定メモリ量(byte) */
+	private long usedBytes;
+	/** 作成中のレベル */
+	private final Map<Integer, Future<?>> pendings;
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aImage 元のイメージ
+	 * @param aImageWidth 元のイメージの幅
+	 * @param aImageHeight 元のイメージの高さ
+	 * @param aAlpha 透過を含むイメージの場合、<code>true</code>
+	 * @param aBudget 保持するイメージの推定メモリ量の上限(byte)
+	 * @param aExecutor 作成用のエグゼキューター
+	 * @param aComponent 作成後に再描画するコンポーネント
+	 */
+	public ImagePyramid(final Image aImage, final int aImageWidth, final int aImageHeight, final boolean aAlpha, final long aBudget,
+			final ExecutorService aExecutor, final Component aComponent) {
+		image = aImage;
+		imageWidth = aImageWidth;
+		imageHeight = aImageHeight;
+		alpha = aAlpha;
+		budget = aBudget;
+		executor = aExecutor;
+		component = aComponent;
+		levels = new LinkedHashMap<Integer, BufferedImage>(16, 0.75f, true);
+		pendings = new HashMap<Integer, Future<?>>();
+	}
+
+	/**
+	 * 表示倍率に適したレベルを取得する。
+	 * <p>
+	 * 表示倍率以上の解像度を持つ最も小さいレベルを返します。
+	 * </p>
+	 * 
+	 * @param aZoom 表示倍率
+	 * @return レベル
+	 */
+	public int getLevel(final double aZoom) {
+		int level = 0;
+		double scale = 1.0;
+		while (scale / 2.0 >= aZoom && 1 < getLevelWidth(level) && 1 < getLevelHeight(level)) {
+			scale /= 2.0;
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * レベルのイメージの幅を取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @return 幅 (pixel)
+	 */
+	public int getLevelWidth(final int aLevel) {
+		return Math.max(1, imageWidth >> aLevel);
+	}
+
+	/**
+	 * レベルのイメージの高さを取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @return 高さ (pixel)
+	 */
+	public int getLevelHeight(final int aLevel) {
+		return Math.max(1, imageHeight >> aLevel);
+	}
+
+	/**
+	 * 描画に使用するレベルを取得する。
+	 * <p>
+	 * 要求したレベルを保持していない場合はバックグラウンドで作成を開始し、保持している中で最も近い詳細なレベル(なければレベル0)を返します。
+	 * このメソッドはイベントディスパッチスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aLevel 要求するレベル
+	 * @return 保持しているレベル
+	 */
+	public synchronized int find(final int aLevel) {
+		if (0 == aLevel || levels.containsKey(aLevel)) {
+			hitCount++;
+			return aLevel;
+		}
+		missCount++;
+		request(aLevel);
+		for (int level = aLevel - 1; level > 0; level--) {
+			if (levels.containsKey(level)) {
+				return level;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * レベルのイメージを取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @return イメージ。保持していない場合、<code>null</code>
+	 */
+	public synchronized Image get(final int aLevel) {
+		if (0 == aLevel) {
+			return image;
+		}
+		return levels.get(aLevel);
+	}
+
+	/**
+	 * 保持するイメージの推定メモリ量の上限を設定する。
+	 * 
+	 * @param aBudget 上限(byte)
+	 */
+	public synchronized void setBudget(final long aBudget) {
+		budget = aBudget;
+		evict(-1);
+	}
+
+	/**
+	 * 保持しているイメージの推定メモリ量を取得する。
+	 * 
+	 * @return メモリ量(byte)
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * 要求したレベルを保持していた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * 要求したレベルを保持していなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * 作成中のレベルをキャンセルし、保持しているイメージを破棄する。
+	 */
+	public synchronized void dispose() {
+		for (Future<?> future : pendings.values()) {
+			future.cancel(true);
+		}
+		pendings.clear();
+		levels.clear();
+		usedBytes = 0;
+	}
+
+	private void request(final int aLevel) {
+		if (pendings.containsKey(aLevel) || getBytes(aLevel) > budget) {
+			return;
+		}
+		try {
+			pendings.put(aLevel, executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (build(aLevel)) {
+							SwingUtilities.invokeLater(new Runnable() {
+								@Override
+								public void run() {
+									component.repaint();
+								}
+							});
+						}
+					} finally {
+						synchronized (ImagePyramid.this) {
+							pendings.remove(aLevel);
+						}
+					}
+				}
+			}));
+		} catch (RejectedExecutionException ex) {
+			// 破棄済み
+		}
+	}
+
+	/**
+	 * レベルのイメージを作成する。
+	 * <p>
+	 * 保持している最も近い詳細なレベルから半分ずつ縮小し、途中のレベルも保持します。
+	 * </p>
+	 * 
+	 * @param aLevel レベル
+	 * @return 作成した場合、<code>true</code>
+	 */
+	private boolean build(final int aLevel) {
+		int level;
+		Image current;
+		synchronized (this) {
+			for (level = aLevel - 1; level > 0; level--) {
+				if (levels.containsKey(level)) {
+					break;
+				}
+			}
+			current = get(level);
+		}
+		int type = alpha ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+		while (level < aLevel) {
+			if (Thread.currentThread().isInterrupted()) {
+				return false;
+			}
+			level++;
+			BufferedImage scaled = new BufferedImage(getLevelWidth(level), getLevelHeight(level), type);
+			Graphics2D g = scaled.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(current, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+			g.dispose();
+			current = scaled;
+			synchronized (this) {
+				if (!pendings.containsKey(aLevel)) {
+					// 破棄済み
+					return false;
+				}
+				if (!levels.containsKey(level) && getBytes(level) <= budget) {
+					levels.put(level, scaled);
+					usedBytes += getBytes(level);
+					evict(level);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 上限を超えた分のイメージを参照の古い順に破棄する。
+	 * 
+	 * @param aKeep 破棄しないレベル
+	 */
+	private void evict(final int aKeep) {
+		for (Iterator<Map.Entry<Integer, BufferedImage>> it = levels.entrySet().iterator(); it.hasNext() && usedBytes > budget;) {
+			Map.Entry<Integer, BufferedImage> entry = it.next();
+			if (entry.getKey() != aKeep) {
+				it.remove();
+				usedBytes -= getBytes(entry.getKey());
+			}
+		}
+	}
+
+	private long getBytes(final int aLevel) {
+		return 4L * getLevelWidth(aLevel) * getLevelHeight(aLevel);
+	}
+}
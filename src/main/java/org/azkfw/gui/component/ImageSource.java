@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * このクラスは、デコード前のイメージ(ファイル、またはストリームから読み込んだバイト列)を保持するクラスです。
+ * <p>
+ * イメージのサイズのみを先に読み込み、必要な解像度に間引いてデコードします。
+ * 同じイメージを異なる解像度で何度でもデコードし直せます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/16
+ * @author kawakicchi
+ */
+final class ImageSource {
+
+	/** イメージファイル(ストリームから読み込んだ場合、<code>null</code>) */
+	private final Path file;
+	/** ストリームから読み込んだバイト列(ファイルの場合、<code>null</code>) */
+	private final byte[] bytes;
+
+	/** イメージの幅 (pixel) */
+	private final int width;
+	/** イメージの高さ (pixel) */
+	private final int height;
+	/** 透過を含むイメージの場合、<code>true</code> */
+	private final boolean alpha;
+
+	/**
+	 * コンストラクタ
+	 * <p>
+	 * イメージのサイズのみを読み込みます。
+	 * </p>
+	 * 
+	 * @param aFile イメージファイル
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public ImageSource(final Path aFile) throws IOException {
+		this(aFile, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * <p>
+	 * ストリームを最後まで読み込んで保持し、イメージのサイズのみを読み込みます。ストリームはクローズしません。
+	 * </p>
+	 * 
+	 * @param aStream ストリーム
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public ImageSource(final InputStream aStream) throws IOException {
+		this(null, readFully(aStream));
+	}
+
+	private ImageSource(final Path aFile, final byte[] aBytes) throws IOException {
+		file = aFile;
+		bytes = aBytes;
+
+		ImageReader reader = createReader();
+		try {
+			width = reader.getWidth(0);
+			height = reader.getHeight(0);
+			ImageTypeSpecifier type = reader.getRawImageType(0);
+			alpha = (null == type) || type.getColorModel().hasAlpha();
+		} finally {
+			dispose(reader);
+		}
+	}
+
+	/**
+	 * イメージの幅を取得する。
+	 * 
+	 * @return 幅 (pixel)
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * イメージの高さを取得する。
+	 * 
+	 * @return 高さ (pixel)
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * 透過を含むイメージか判断する。
+	 * 
+	 * @return 透過を含む場合、<code>true</code>
+	 */
+	public boolean hasAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * 指定したサイズ以上になる最大の間引き間隔を取得する。
+	 * 
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 * @return 間引き間隔
+	 */
+	public int getSubsampling(final int aWidth, final int aHeight) {
+		if (0 >= aWidth || 0 >= aHeight) {
+			return 1;
+		}
+		return Math.max(1, Math.min(width / aWidth, height / aHeight));
+	}
+
+	/**
+	 * イメージを間引いてデコードする。
+	 * 
+	 * @param aSubsampling 間引き間隔
+	 * @return イメージ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public BufferedImage decode(final int aSubsampling) throws IOException {
+		ImageReader reader = createReader();
+		try {
+			ImageReadParam param = reader.getDefaultReadParam();
+			param.setSourceSubsampling(aSubsampling, aSubsampling, 0, 0);
+			return reader.read(0, param);
+		} finally {
+			dispose(reader);
+		}
+	}
+
+	/**
+	 * イメージを読み込むリーダーを作成する。
+	 * <p>
+	 * 使用後は{@link #dispose(ImageReader)}で破棄してください。
+	 * </p>
+	 * 
+	 * @return リーダー
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public ImageReader createReader() throws IOException {
+		ImageInputStream stream;
+		if (null != file) {
+			stream = ImageIO.createImageInputStream(file.toFile());
+		} else {
+			stream = new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes));
+		}
+		if (null == stream) {
+			throw new IOException("Unable to open " + file);
+		}
+		Iterator<ImageReader> it = ImageIO.getImageReaders(stream);
+		if (!it.hasNext()) {
+			stream.close();
+			throw new IOException("Unsupported image format " + ((null != file) ? file : "stream"));
+		}
+		ImageReader reader = it.next();
+		reader.setInput(stream, true, true);
+		return reader;
+	}
+
+	/**
+	 * リーダーと入力ストリームを破棄する。
+	 * 
+	 * @param aReader リーダー
+	 */
+	public static void dispose(final ImageReader aReader) {
+		Object input = aReader.getInput();
+		aReader.dispose();
+		if (input instanceof ImageInputStream) {
+			try {
+				((ImageInputStream) input).close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	private static byte[] readFully(final InputStream aStream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64 * 1024];
+		int size;
+		while (-1 != (size = aStream.read(buffer))) {
+			out.write(buffer, 0, size);
+		}
+		return out.toByteArray();
+	}
+}
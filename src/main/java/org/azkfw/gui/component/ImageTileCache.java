@@ -0,0 +1,525 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、イメージを表示範囲のタイルごとに読み込み、キャッシュするクラスです。
+ * <p>
+ * イメージ全体はデコードせず、{@link ImageReadParam#setSourceRegion(Rectangle)}で指定したタイルの範囲のみを読み込みます。
+ * レベル<code>n</code>のタイルは<code>2^n</code>の間引き({@link ImageReadParam#setSourceSubsampling(int, int, int, int)})で読み込んだもので、
+ * 最も粗いレベルはイメージ全体が1枚のタイルに収まります。
+ * </p>
+ * <p>
+ * 読み込みは複数のスレッドで行い、スレッドごとに{@link ImageReader}を使用します。
+ * 読み込んだタイルは推定メモリ量に上限を設けて保持し、上限を超えた場合は参照の古いタイルから破棄します。
+ * 表示範囲から外れたタイルの読み込みはキャンセルされます。
+ * リーダーによっては他のスレッドからの{@link ImageReader#abort()}を受け付けないため、読み込み中のタイルの中断はデコード中の進捗の通知を受けたスレッドで行います。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/15
+ * @author kawakicchi
+ */
+final class ImageTileCache {
+
+	/** タイルのサイズ (pixel) */
+	public static final int TILE_SIZE = 512;
+
+	/** イメージ */
+	private final ImageSource source;
+	/** イメージの幅 (pixel) */
+	private final int imageWidth;
+	/** イメージの高さ (pixel) */
+	private final int imageHeight;
+	/** 透過を含むイメージの場合、<code>true</code> */
+	private final boolean alpha;
+	/** 最も粗いレベル */
+	private final int maxLevel;
+
+	/** 読み込み後に再描画するコンポーネント */
+	private final Component component;
+	/** 読み込み用のエグゼキューター */
+	private final ExecutorService executor;
+	/** 使用していないリーダー */
+	private final Queue<ImageReader> readers;
+
+	/** 保持するタイルの推定メモリ量の上限(byte) */
+	private long budget;
+	/** タイル(参照順) */
+	private final Map<Long, BufferedImage> tiles;
+	/** 保持しているタイルの推定メモリ量(byte) */
+	private long usedBytes;
+	/** 読み込み中のタイル */
+	private final Map<Long, Task> pendings;
+	/** 破棄済みの場合、<code>true</code> */
+	private volatile boolean disposed;
+
+	private long hitCount;
+	private long missCount;
+	private long decodeCount;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aSource イメージ
+	 * @param aThreads 読み込みスレッド数
+	 * @param aBudget 保持するタイルの推定メモリ量の上限(byte)
+	 * @param aComponent 読み込み後に再描画するコンポーネント
+	 */
+	public ImageTileCache(final ImageSource aSource, final int aThreads, final long aBudget, final Component aComponent) {
+		source = aSource;
+		imageWidth = aSource.getWidth();
+		imageHeight = aSource.getHeight();
+		alpha = aSource.hasAlpha();
+		budget = aBudget;
+		component = aComponent;
+		readers = new ConcurrentLinkedQueue<ImageReader>();
+		tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true);
+		pendings = new HashMap<Long, Task>();
+
+		int level = 0;
+		while (TILE_SIZE < getLevelWidth(level) || TILE_SIZE < getLevelHeight(level)) {
+			level++;
+		}
+		maxLevel = level;
+
+		executor = Executors.newFixedThreadPool(aThreads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "ImagePanel-tile-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * イメージの幅を取得する。
+	 * 
+	 * @return 幅 (pixel)
+	 */
+	public int getImageWidth() {
+		return imageWidth;
+	}
+
+	/**
+	 * イメージの高さを取得する。
+	 * 
+	 * @return 高さ (pixel)
+	 */
+	public int getImageHeight() {
+		return imageHeight;
+	}
+
+	/**
+	 * 透過を含むイメージか判断する。
+	 * 
+	 * @return 透過を含む場合、<code>true</code>
+	 */
+	public boolean hasAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * 最も粗いレベルを取得する。
+	 * 
+	 * @return レベル
+	 */
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	/**
+	 * 表示倍率に適したレベルを取得する。
+	 * <p>
+	 * 表示倍率以上の解像度を持つ最も粗いレベルを返します。
+	 * </p>
+	 * 
+	 * @param aZoom 表示倍率
+	 * @return レベル
+	 */
+	public int getLevel(final double aZoom) {
+		int level = 0;
+		while (level < maxLevel && 1.0 / (1 << (level + 1)) >= aZoom) {
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * レベルのイメージの幅を取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @return 幅 (pixel)
+	 */
+	public int getLevelWidth(final int aLevel) {
+		return (imageWidth + (1 << aLevel) - 1) >> aLevel;
+	}
+
+	/**
+	 * レベルのイメージの高さを取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @return 高さ (pixel)
+	 */
+	public int getLevelHeight(final int aLevel) {
+		return (imageHeight + (1 << aLevel) - 1) >> aLevel;
+	}
+
+	/**
+	 * タイルのキーを取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @param aX タイルの列
+	 * @param aY タイルの行
+	 * @return キー
+	 */
+	public static long toKey(final int aLevel, final int aX, final int aY) {
+		return ((long) aLevel << 56) | ((long) aY << 28) | aX;
+	}
+
+	/**
+	 * 読み込んだタイルを取得する。
+	 * 
+	 * @param aLevel レベル
+	 * @param aX タイルの列
+	 * @param aY タイルの行
+	 * @return タイル。読み込んでいない場合、<code>null</code>
+	 */
+	public synchronized BufferedImage getTile(final int aLevel, final int aX, final int aY) {
+		BufferedImage tile = tiles.get(toKey(aLevel, aX, aY));
+		if (null != tile) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return tile;
+	}
+
+	/**
+	 * タイルの読み込みを要求する。
+	 * <p>
+	 * 指定されていないタイルの読み込みはキャンセルされます。読み込みは指定した順に開始します。
+	 * </p>
+	 * 
+	 * @param aKeys 表示に必要なタイルのキー一覧
+	 */
+	public synchronized void request(final Collection<Long> aKeys) {
+		if (disposed) {
+			return;
+		}
+		for (Iterator<Task> it = pendings.values().iterator(); it.hasNext();) {
+			Task task = it.next();
+			if (!aKeys.contains(task.key)) {
+				task.cancel();
+				it.remove();
+			}
+		}
+		for (Long key : aKeys) {
+			if (tiles.containsKey(key) || pendings.containsKey(key)) {
+				continue;
+			}
+			Task task = new Task(key);
+			try {
+				task.future = executor.submit(task);
+			} catch (RejectedExecutionException ex) {
+				return;
+			}
+			pendings.put(key, task);
+		}
+	}
+
+	/**
+	 * 保持するタイルの推定メモリ量の上限を設定する。
+	 * 
+	 * @param aBudget 上限(byte)
+	 */
+	public synchronized void setBudget(final long aBudget) {
+		budget = aBudget;
+		evict(null);
+	}
+
+	/**
+	 * 保持しているタイルの推定メモリ量を取得する。
+	 * 
+	 * @return メモリ量(byte)
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * 保持しているタイル数を取得する。
+	 * 
+	 * @return タイル数
+	 */
+	public synchronized int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * 読み込み済みのタイルを取得できた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * タイルを読み込んでいなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * タイルを読み込んだ回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getDecodeCount() {
+		return decodeCount;
+	}
+
+	/**
+	 * 読み込みを終了し、保持しているタイルを破棄する。
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		for (Task task : pendings.values()) {
+			task.cancel();
+		}
+		pendings.clear();
+		tiles.clear();
+		usedBytes = 0;
+		executor.shutdownNow();
+		for (ImageReader reader = readers.poll(); null != reader; reader = readers.poll()) {
+			ImageSource.dispose(reader);
+		}
+	}
+
+	private BufferedImage decode(final ImageReader aReader, final long aKey, final IIOReadProgressListener aListener)
+			throws IOException {
+		int level = (int) (aKey >>> 56);
+		int y = (int) ((aKey >>> 28) & 0xFFFFFFF);
+		int x = (int) (aKey & 0xFFFFFFF);
+		int span = TILE_SIZE << level;
+		Rectangle region = new Rectangle(x * span, y * span, Math.min(span, imageWidth - x * span), Math.min(span,
+				imageHeight - y * span));
+
+		ImageReadParam param = aReader.getDefaultReadParam();
+		param.setSourceRegion(region);
+		param.setSourceSubsampling(1 << level, 1 << level, 0, 0);
+		BufferedImage decoded;
+		aReader.addIIOReadProgressListener(aListener);
+		try {
+			decoded = aReader.read(0, param);
+		} finally {
+			aReader.removeIIOReadProgressListener(aListener);
+		}
+		if (null == decoded) {
+			return null;
+		}
+		// 描画を速くするため整数型のピクセル形式に変換する
+		int type = alpha ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+		if (type == decoded.getType()) {
+			return decoded;
+		}
+		BufferedImage tile = new BufferedImage(decoded.getWidth(), decoded.getHeight(), type);
+		Graphics2D g = tile.createGraphics();
+		g.drawImage(decoded, 0, 0, null);
+		g.dispose();
+		return tile;
+	}
+
+	/**
+	 * 読み込んだタイルを登録し、上限を超えたタイルを参照の古い順に破棄する。
+	 * 
+	 * @param aTask 読み込み
+	 * @param aTile タイル
+	 * @return 登録した場合、<code>true</code>
+	 */
+	private synchronized boolean complete(final Task aTask, final BufferedImage aTile) {
+		if (aTask != pendings.get(aTask.key)) {
+			return false;
+		}
+		pendings.remove(aTask.key);
+		if (null == aTile || aTask.cancelled) {
+			return false;
+		}
+		decodeCount++;
+		tiles.put(aTask.key, aTile);
+		usedBytes += getBytes(aTile);
+		evict(aTask.key);
+		return true;
+	}
+
+	/**
+	 * 上限を超えた分のタイルを参照の古い順に破棄する。
+	 * 
+	 * @param aKeep 破棄しないタイルのキー
+	 */
+	private void evict(final Long aKeep) {
+		for (Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator(); it.hasNext() && usedBytes > budget;) {
+			Map.Entry<Long, BufferedImage> entry = it.next();
+			if (!entry.getKey().equals(aKeep)) {
+				it.remove();
+				usedBytes -= getBytes(entry.getValue());
+			}
+		}
+	}
+
+	private static long getBytes(final BufferedImage aTile) {
+		return 4L * aTile.getWidth() * aTile.getHeight();
+	}
+
+	/**
+	 * このクラスは、タイル一つ分の読み込みを行うクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/15
+	 * @author kawakicchi
+	 */
+	private class Task implements Runnable, IIOReadProgressListener {
+
+		private final Long key;
+		private Future<?> future;
+		/** キャンセルされた場合、<code>true</code> */
+		private volatile boolean cancelled;
+
+		public Task(final Long aKey) {
+			key = aKey;
+		}
+
+		public void cancel() {
+			cancelled = true;
+			future.cancel(false);
+		}
+
+		@Override
+		public void sequenceStarted(final ImageReader aSource, final int aMinIndex) {
+		}
+
+		@Override
+		public void sequenceComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void imageStarted(final ImageReader aSource, final int aImageIndex) {
+			abortIfCancelled(aSource);
+		}
+
+		@Override
+		public void imageProgress(final ImageReader aSource, final float aPercentageDone) {
+			abortIfCancelled(aSource);
+		}
+
+		@Override
+		public void imageComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void thumbnailStarted(final ImageReader aSource, final int aImageIndex, final int aThumbnailIndex) {
+		}
+
+		@Override
+		public void thumbnailProgress(final ImageReader aSource, final float aPercentageDone) {
+		}
+
+		@Override
+		public void thumbnailComplete(final ImageReader aSource) {
+		}
+
+		@Override
+		public void readAborted(final ImageReader aSource) {
+		}
+
+		private void abortIfCancelled(final ImageReader aSource) {
+			if (cancelled) {
+				aSource.abort();
+			}
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			BufferedImage tile = null;
+			ImageReader r = readers.poll();
+			try {
+				if (null == r) {
+					r = source.createReader();
+				}
+				if (!cancelled) {
+					tile = decode(r, key, this);
+				}
+			} catch (IOException | RuntimeException ex) {
+				if (!cancelled) {
+					ex.printStackTrace();
+				}
+			} finally {
+				if (null != r) {
+					if (disposed) {
+						ImageSource.dispose(r);
+					} else {
+						readers.add(r);
+					}
+				}
+			}
+			if (complete(this, tile)) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						component.repaint();
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * このクラスは、ツリー上で展開したアーカイブ(ZIP/JAR)のファイルシステムをキャッシュするクラスです。
+ * <p>
+ * アーカイブは展開された時点でzipfsによりマウントされ、セントラルディレクトリのみ読み込まれます。
+ * 参照されなくなったアーカイブは{@link #DEFAULT_CAPACITY}件まで参照順に保持され、超えた場合は古いものから閉じられます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/14
+ * @author kawakicchi
+ */
+final class FileExplorerArchiveCache {
+
+	/** 保持するアーカイブ数の既定値 */
+	public static final int DEFAULT_CAPACITY = 8;
+
+	/** アーカイブの拡張子 */
+	private static final String[] EXTENSIONS = { ".zip", ".jar", ".war", ".ear" };
+
+	/** 保持するアーカイブ数 */
+	private final int capacity;
+	/** アーカイブごとのマウント(参照順) */
+	private final Map<Path, Mount> mounts;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerArchiveCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aCapacity 保持するアーカイブ数
+	 */
+	public FileExplorerArchiveCache(final int aCapacity) {
+		capacity = aCapacity;
+		mounts = new LinkedHashMap<Path, Mount>(16, 0.75f, true);
+	}
+
+	/**
+	 * アーカイブとして展開できるファイル名か判断する。
+	 * 
+	 * @param aName ファイル名
+	 * @return アーカイブの場合、<code>true</code>
+	 */
+	public static boolean isArchive(final String aName) {
+		String name = aName.toLowerCase(Locale.ENGLISH);
+		for (String extension : EXTENSIONS) {
+			if (name.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * アーカイブをマウントし、ルートディレクトリを取得する。
+	 * <p>
+	 * マウントしたアーカイブは{@link #release(Path)}を呼び出すまで閉じられません。
+	 * </p>
+	 * 
+	 * @param aArchive アーカイブ
+	 * @return ルートディレクトリ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public synchronized Path mount(final Path aArchive) throws IOException {
+		Mount mount = mounts.get(aArchive);
+		if (null == mount || !mount.fileSystem.isOpen()) {
+			mount = new Mount(FileSystems.newFileSystem(aArchive, (ClassLoader) null));
+			mounts.put(aArchive, mount);
+		}
+		mount.references++;
+		evict();
+		return mount.fileSystem.getRootDirectories().iterator().next();
+	}
+
+	/**
+	 * アーカイブの参照を解放する。
+	 * 
+	 * @param aArchive アーカイブ
+	 */
+	public synchronized void release(final Path aArchive) {
+		Mount mount = mounts.get(aArchive);
+		if (null != mount && 0 < mount.references) {
+			mount.references--;
+			evict();
+		}
+	}
+
+	/**
+	 * マウント中のアーカイブ数を取得する。
+	 * 
+	 * @return アーカイブ数
+	 */
+	public synchronized int getMountCount() {
+		return mounts.size();
+	}
+
+	/**
+	 * すべてのアーカイブを閉じる。
+	 */
+	public synchronized void close() {
+		for (Mount mount : mounts.values()) {
+			close(mount);
+		}
+		mounts.clear();
+	}
+
+	private void evict() {
+		int count = mounts.size();
+		for (Iterator<Mount> it = mounts.values().iterator(); it.hasNext() && count > capacity;) {
+			Mount mount = it.next();
+			if (0 == mount.references) {
+				it.remove();
+				close(mount);
+				count--;
+			}
+		}
+	}
+
+	private static void close(final Mount aMount) {
+		try {
+			aMount.fileSystem.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * このクラスは、マウントしたアーカイブを保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/14
+	 * @author kawakicchi
+	 */
+	private static class Mount {
+
+		private final FileSystem fileSystem;
+		/** 参照数 */
+		private int references;
+
+		public Mount(final FileSystem aFileSystem) {
+			fileSystem = aFileSystem;
+			references = 0;
+		}
+	}
+}
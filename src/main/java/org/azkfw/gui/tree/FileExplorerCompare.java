@@ -0,0 +1,694 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * このクラスは、2つのディレクトリ配下を並列に比較するクラスです。
+ * <p>
+ * ディレクトリごとに左右の一覧を並列に読み込み、名前で突き合わせて{@link Status}に分類します。
+ * サイズが同じで最終更新日時が異なるファイルは内容を比較します。
+ * {@link #start()}による全体の比較では、読み込んだ一覧はディレクトリごとに破棄し、差異を含むディレクトリのみ保持します。
+ * 比較中は{@link #UPDATE_INTERVAL}ミリ秒ごとにリスナーへ途中経過を通知します。
+ * シンボリックリンクはたどりません。
+ * </p>
+ * <p>
+ * ディレクトリは比較するルートからの相対パス(区切り文字は<code>/</code>、ルートは空文字列)で指定します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class FileExplorerCompare {
+
+	/**
+	 * 比較結果
+	 */
+	public static enum Status {
+		/** 同じ */
+		SAME,
+		/** 右側のみに存在する */
+		ADDED,
+		/** 左側のみに存在する */
+		REMOVED,
+		/** 種類・サイズが異なる(ディレクトリの場合、配下に差異がある) */
+		CHANGED,
+		/** 最終更新日時のみ異なり、内容は同じ */
+		TOUCHED,
+		/** サイズは同じで内容が異なる */
+		CONTENT
+	}
+
+	/** 途中経過の通知間隔(ミリ秒) */
+	public static final int UPDATE_INTERVAL = 200;
+
+	/** 共有プール(ファイルシステムの待ち時間を考慮してCPU数の2倍) */
+	private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+	/** 内容の比較に使用するバッファのサイズ(byte) */
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	/** スレッドごとの比較用バッファ(左右) */
+	private static final ThreadLocal<ByteBuffer[]> BUFFERS = new ThreadLocal<ByteBuffer[]>() {
+		@Override
+		protected ByteBuffer[] initialValue() {
+			return new ByteBuffer[] { ByteBuffer.allocateDirect(BUFFER_SIZE), ByteBuffer.allocateDirect(BUFFER_SIZE) };
+		}
+	};
+
+	/** 名前順 */
+	private static final Comparator<FileExplorerEntry> NAME_ORDER = new Comparator<FileExplorerEntry>() {
+		@Override
+		public int compare(final FileExplorerEntry o1, final FileExplorerEntry o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+
+	/** 左側のディレクトリ */
+	private final Path left;
+	/** 右側のディレクトリ */
+	private final Path right;
+	/** 名前テーブル */
+	private final FileExplorerNameTable nameTable;
+	private final List<FileExplorerCompareListener> listeners;
+
+	/** 差異を含むディレクトリ(相対パス) */
+	private final Set<String> changedDirectories;
+
+	private final Timer timer;
+	private ForkJoinTask<?> task;
+
+	private volatile boolean cancelFlag;
+	private volatile boolean finished;
+
+	/** 比較したファイル・ディレクトリ数 */
+	private final AtomicLongArray counts;
+	private volatile long startNanos;
+	private volatile long endNanos;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aLeft 左側のディレクトリ
+	 * @param aRight 右側のディレクトリ
+	 */
+	public FileExplorerCompare(final Path aLeft, final Path aRight) {
+		left = aLeft;
+		right = aRight;
+		nameTable = new FileExplorerNameTable();
+		listeners = new CopyOnWriteArrayList<FileExplorerCompareListener>();
+		changedDirectories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		counts = new AtomicLongArray(Status.values().length);
+		timer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				if (!finished) {
+					for (FileExplorerCompareListener listener : listeners) {
+						listener.fileExplorerCompareUpdated(FileExplorerCompare.this);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * リスナーを追加する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void addListener(final FileExplorerCompareListener aListener) {
+		listeners.add(aListener);
+	}
+
+	/**
+	 * リスナーを削除する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void removeListener(final FileExplorerCompareListener aListener) {
+		listeners.remove(aListener);
+	}
+
+	/**
+	 * 左側のディレクトリを取得する。
+	 * 
+	 * @return ディレクトリ
+	 */
+	public Path getLeft() {
+		return left;
+	}
+
+	/**
+	 * 右側のディレクトリを取得する。
+	 * 
+	 * @return ディレクトリ
+	 */
+	public Path getRight() {
+		return right;
+	}
+
+	/**
+	 * 配下全体の比較を開始する。
+	 */
+	public synchronized void start() {
+		if (null != task) {
+			return;
+		}
+		startNanos = System.nanoTime();
+		timer.start();
+		task = POOL.submit(new RecursiveAction() {
+			/** serialVersionUID */
+			private static final long serialVersionUID = -1820536126461744311L;
+
+			@Override
+			protected void compute() {
+				try {
+					new CompareTask("").invoke();
+				} finally {
+					finish();
+				}
+			}
+		});
+	}
+
+	/**
+	 * 比較をキャンセルする。
+	 */
+	public void cancel() {
+		cancelFlag = true;
+	}
+
+	/**
+	 * 比較をキャンセルしたか判断する。
+	 * 
+	 * @return キャンセルした場合、<code>true</code>
+	 */
+	public boolean isCancelled() {
+		return cancelFlag;
+	}
+
+	/**
+	 * 比較が終了したか判断する。
+	 * 
+	 * @return 完了、またはキャンセルにより終了した場合、<code>true</code>
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * 左右に存在するディレクトリの比較結果を取得する。
+	 * 
+	 * @param aDirectory ディレクトリ(相対パス)
+	 * @return 比較結果({@link Status#SAME}、{@link Status#CHANGED})。比較が完了していない場合、<code>null</code>
+	 */
+	public Status getDirectoryStatus(final String aDirectory) {
+		if (changedDirectories.contains(aDirectory)) {
+			return Status.CHANGED;
+		}
+		if (finished && !cancelFlag) {
+			return Status.SAME;
+		}
+		return null;
+	}
+
+	/**
+	 * 比較したファイル・ディレクトリ数を取得する。
+	 * <p>
+	 * 片側のみに存在するディレクトリは配下を含めず1件と数えます。
+	 * </p>
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getComparedCount() {
+		long count = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * 比較結果ごとのファイル・ディレクトリ数を取得する。
+	 * 
+	 * @param aStatus 比較結果
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getCount(final Status aStatus) {
+		return counts.get(aStatus.ordinal());
+	}
+
+	/**
+	 * 比較に要した時間を取得する。
+	 * 
+	 * @return 時間(ミリ秒)。比較中の場合、開始からの経過時間
+	 */
+	public long getElapsedTime() {
+		if (0 == startNanos) {
+			return 0;
+		}
+		long end = (finished) ? endNanos : System.nanoTime();
+		return (end - startNanos) / 1000000;
+	}
+
+	/**
+	 * 1秒あたりに比較したファイル・ディレクトリ数を取得する。
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getThroughput() {
+		long elapsed = getElapsedTime();
+		return (0 < elapsed) ? getComparedCount() * 1000 / elapsed : 0;
+	}
+
+	/**
+	 * ディレクトリの左右の一覧を並列に読み込み、名前で突き合わせる。
+	 * <p>
+	 * 内容の比較が必要なファイルは比較結果が<code>null</code>となります。{@link #compareContent(String, Item)}で比較してください。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ(相対パス)
+	 * @return 名前順の一覧
+	 * @throws InterruptedException 待機中に割り込まれた場合
+	 */
+	public List<Item> list(final String aDirectory) throws InterruptedException {
+		ForkJoinTask<List<FileExplorerEntry>> leftTask = POOL.submit(new ListTask(resolve(left, aDirectory)));
+		List<FileExplorerEntry> rightEntries = listEntries(resolve(right, aDirectory));
+		List<FileExplorerEntry> leftEntries;
+		try {
+			leftEntries = leftTask.get();
+		} catch (ExecutionException ex) {
+			leftEntries = Collections.emptyList();
+		} catch (InterruptedException ex) {
+			leftTask.cancel(true);
+			throw ex;
+		}
+		return merge(leftEntries, rightEntries);
+	}
+
+	/**
+	 * 左右のファイルの内容を比較し、比較結果を設定する。
+	 * 
+	 * @param aDirectory ディレクトリ(相対パス)
+	 * @param aItem 比較結果が<code>null</code>のファイル
+	 * @return 比較結果
+	 */
+	public Status compareContent(final String aDirectory, final Item aItem) {
+		Status status = aItem.status;
+		if (null == status) {
+			String path = child(aDirectory, aItem.getName());
+			status = (isSameContent(resolve(left, path), resolve(right, path), aItem.left.getSize())) ? Status.TOUCHED : Status.CONTENT;
+			aItem.status = status;
+		}
+		return status;
+	}
+
+	/**
+	 * 相対パスを解決する。
+	 * 
+	 * @param aRoot ルート
+	 * @param aDirectory 相対パス
+	 * @return パス
+	 */
+	static Path resolve(final Path aRoot, final String aDirectory) {
+		return (0 == aDirectory.length()) ? aRoot : aRoot.resolve(aDirectory);
+	}
+
+	/**
+	 * 子の相対パスを取得する。
+	 * 
+	 * @param aDirectory ディレクトリ(相対パス)
+	 * @param aName 名前
+	 * @return 相対パス
+	 */
+	static String child(final String aDirectory, final String aName) {
+		return (0 == aDirectory.length()) ? aName : aDirectory + "/" + aName;
+	}
+
+	private void finish() {
+		endNanos = System.nanoTime();
+		finished = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				timer.stop();
+				for (FileExplorerCompareListener listener : listeners) {
+					listener.fileExplorerCompareFinished(FileExplorerCompare.this, cancelFlag);
+				}
+			}
+		});
+	}
+
+	/**
+	 * ディレクトリとその上位のディレクトリを差異ありとする。
+	 * 
+	 * @param aDirectory ディレクトリ(相対パス)
+	 */
+	private void markChanged(final String aDirectory) {
+		String directory = aDirectory;
+		while (changedDirectories.add(directory) && 0 < directory.length()) {
+			int index = directory.lastIndexOf('/');
+			directory = (0 <= index) ? directory.substring(0, index) : "";
+		}
+	}
+
+	/**
+	 * ディレクトリ一覧をシンボリックリンクをたどらずに読み込む。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return 名前順の一覧。ディレクトリが存在しない場合、空の一覧
+	 */
+	private List<FileExplorerEntry> listEntries(final Path aDirectory) {
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+			for (Path path : stream) {
+				if (cancelFlag || Thread.currentThread().isInterrupted()) {
+					break;
+				}
+				String name = nameTable.intern(path.getFileName().toString());
+				try {
+					BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					entries.add(new FileExplorerEntry(name, attrs, name.startsWith(".")));
+				} catch (IOException ex) {
+					// 読み込み中に削除されたファイル
+				}
+			}
+		} catch (IOException ex) {
+			// 存在しない、またはアクセスできないディレクトリ
+		}
+		Collections.sort(entries, NAME_ORDER);
+		return entries;
+	}
+
+	/**
+	 * 名前順の左右の一覧を突き合わせる。
+	 * 
+	 * @param aLeft 左側の一覧
+	 * @param aRight 右側の一覧
+	 * @return 名前順の一覧
+	 */
+	private static List<Item> merge(final List<FileExplorerEntry> aLeft, final List<FileExplorerEntry> aRight) {
+		List<Item> items = new ArrayList<Item>(Math.max(aLeft.size(), aRight.size()));
+		int i = 0;
+		int j = 0;
+		while (i < aLeft.size() || j < aRight.size()) {
+			FileExplorerEntry l = (i < aLeft.size()) ? aLeft.get(i) : null;
+			FileExplorerEntry r = (j < aRight.size()) ? aRight.get(j) : null;
+			int cmp;
+			if (null == l) {
+				cmp = 1;
+			} else if (null == r) {
+				cmp = -1;
+			} else {
+				cmp = l.getName().compareTo(r.getName());
+			}
+			if (0 > cmp) {
+				items.add(new Item(l, null));
+				i++;
+			} else if (0 < cmp) {
+				items.add(new Item(null, r));
+				j++;
+			} else {
+				items.add(new Item(l, r));
+				i++;
+				j++;
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * 属性から比較結果を判定する。
+	 * 
+	 * @param aLeft 左側の属性
+	 * @param aRight 右側の属性
+	 * @return 比較結果。内容の比較が必要な場合、<code>null</code>
+	 */
+	private static Status classify(final FileExplorerEntry aLeft, final FileExplorerEntry aRight) {
+		if (null == aLeft) {
+			return Status.ADDED;
+		}
+		if (null == aRight) {
+			return Status.REMOVED;
+		}
+		if (aLeft.isDirectory() != aRight.isDirectory()) {
+			return Status.CHANGED;
+		}
+		if (aLeft.isDirectory()) {
+			return Status.SAME;
+		}
+		if (aLeft.getSize() != aRight.getSize()) {
+			return Status.CHANGED;
+		}
+		if (aLeft.getLastModified() == aRight.getLastModified()) {
+			return Status.SAME;
+		}
+		return null;
+	}
+
+	/**
+	 * 左右のファイルの内容が同じか判断する。
+	 * 
+	 * @param aLeft 左側のファイル
+	 * @param aRight 右側のファイル
+	 * @param aSize サイズ(byte)
+	 * @return 同じ場合、<code>true</code>。読み込めない場合、<code>false</code>
+	 */
+	private boolean isSameContent(final Path aLeft, final Path aRight, final long aSize) {
+		ByteBuffer[] buffers = BUFFERS.get();
+		try (FileChannel l = FileChannel.open(aLeft, StandardOpenOption.READ);
+				FileChannel r = FileChannel.open(aRight, StandardOpenOption.READ)) {
+			for (long position = 0; position < aSize; position += BUFFER_SIZE) {
+				if (cancelFlag) {
+					return false;
+				}
+				int length = (int) Math.min(BUFFER_SIZE, aSize - position);
+				if (!read(l, buffers[0], position, length) || !read(r, buffers[1], position, length)) {
+					return false;
+				}
+				if (!buffers[0].equals(buffers[1])) {
+					return false;
+				}
+			}
+			return true;
+		} catch (IOException ex) {
+			return false;
+		}
+	}
+
+	private static boolean read(final FileChannel aChannel, final ByteBuffer aBuffer, final long aPosition, final int aLength)
+			throws IOException {
+		aBuffer.clear();
+		aBuffer.limit(aLength);
+		long position = aPosition;
+		while (aBuffer.hasRemaining()) {
+			int count = aChannel.read(aBuffer, position);
+			if (0 > count) {
+				return false;
+			}
+			position += count;
+		}
+		aBuffer.flip();
+		return true;
+	}
+
+	/**
+	 * このクラスは、左右の一覧を突き合わせた1件分の比較結果を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	public static final class Item {
+
+		/** 左側の属性 */
+		private final FileExplorerEntry left;
+		/** 右側の属性 */
+		private final FileExplorerEntry right;
+		/** 比較結果 */
+		private volatile Status status;
+
+		private Item(final FileExplorerEntry aLeft, final FileExplorerEntry aRight) {
+			left = aLeft;
+			right = aRight;
+			status = classify(aLeft, aRight);
+		}
+
+		/**
+		 * 名前を取得する。
+		 * 
+		 * @return 名前
+		 */
+		public String getName() {
+			return (null != left) ? left.getName() : right.getName();
+		}
+
+		/**
+		 * 左側の属性を取得する。
+		 * 
+		 * @return 属性。左側に存在しない場合、<code>null</code>
+		 */
+		public FileExplorerEntry getLeft() {
+			return left;
+		}
+
+		/**
+		 * 右側の属性を取得する。
+		 * 
+		 * @return 属性。右側に存在しない場合、<code>null</code>
+		 */
+		public FileExplorerEntry getRight() {
+			return right;
+		}
+
+		/**
+		 * 比較結果を取得する。
+		 * <p>
+		 * 左右に存在するディレクトリは属性のみで{@link Status#SAME}となります。配下の差異は{@link FileExplorerCompare#getDirectoryStatus(String)}で取得してください。
+		 * </p>
+		 * 
+		 * @return 比較結果。内容を比較していない場合、<code>null</code>
+		 */
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * 左右いずれかがディレクトリか判断する。
+		 * 
+		 * @return ディレクトリの場合、<code>true</code>
+		 */
+		public boolean isDirectory() {
+			return (null != left && left.isDirectory()) || (null != right && right.isDirectory());
+		}
+
+		/**
+		 * 左右ともディレクトリか判断する。
+		 * 
+		 * @return 左右ともディレクトリの場合、<code>true</code>
+		 */
+		public boolean isBothDirectory() {
+			return null != left && left.isDirectory() && null != right && right.isDirectory();
+		}
+	}
+
+	/**
+	 * このクラスは、片側のディレクトリ一覧を読み込むタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class ListTask extends RecursiveTask<List<FileExplorerEntry>> {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 2958317264013592764L;
+
+		private final Path directory;
+
+		public ListTask(final Path aDirectory) {
+			directory = aDirectory;
+		}
+
+		@Override
+		protected List<FileExplorerEntry> compute() {
+			return listEntries(directory);
+		}
+	}
+
+	/**
+	 * このクラスは、ディレクトリ一つ分を比較し、左右に存在する子ディレクトリのタスクを分岐するタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class CompareTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 6024741190568734127L;
+
+		/** ディレクトリ(相対パス) */
+		private final String directory;
+
+		public CompareTask(final String aDirectory) {
+			directory = aDirectory;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelFlag) {
+				return;
+			}
+			ListTask leftTask = new ListTask(resolve(left, directory));
+			leftTask.fork();
+			List<FileExplorerEntry> rightEntries = listEntries(resolve(right, directory));
+			List<Item> items = merge(leftTask.join(), rightEntries);
+
+			boolean changed = false;
+			List<CompareTask> tasks = new ArrayList<CompareTask>();
+			for (Item item : items) {
+				if (cancelFlag) {
+					return;
+				}
+				Status status = compareContent(directory, item);
+				counts.incrementAndGet(status.ordinal());
+				if (Status.SAME != status) {
+					changed = true;
+				}
+				if (item.isBothDirectory()) {
+					tasks.add(new CompareTask(child(directory, item.getName())));
+				}
+			}
+			if (changed) {
+				markChanged(directory);
+			}
+			// 子ディレクトリの比較中は一覧を保持しない
+			items = null;
+			invokeAll(tasks);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+/**
+ * このインターフェースは、ディレクトリの比較の経過を受け取るリスナーインターフェースです。
+ * <p>
+ * 各メソッドはイベントディスパッチスレッドから呼び出されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public interface FileExplorerCompareListener {
+
+	/**
+	 * 比較の途中経過が更新された場合に呼び出される。
+	 * 
+	 * @param aCompare 比較
+	 */
+	public void fileExplorerCompareUpdated(final FileExplorerCompare aCompare);
+
+	/**
+	 * 比較が完了、またはキャンセルされた場合に呼び出される。
+	 * 
+	 * @param aCompare 比較
+	 * @param aCancelled キャンセルされた場合、<code>true</code>
+	 */
+	public void fileExplorerCompareFinished(final FileExplorerCompare aCompare, final boolean aCancelled);
+}
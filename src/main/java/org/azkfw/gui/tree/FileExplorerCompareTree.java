@@ -0,0 +1,411 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.Icon;
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.ExpandVetoException;
+
+/**
+ * このクラスは、2つのディレクトリの比較結果を表示するツリークラスです。
+ * <p>
+ * 子ノードは展開されたディレクトリのみ、{@link FileExplorerCompare#list(String)}で左右の一覧を突き合わせて生成します。
+ * 折りたたんだディレクトリの子ノードは保持し続けるため、メモリ量は展開したディレクトリの一覧の合計に比例します。
+ * 比較結果は文字色で表示し、左右に存在するディレクトリは{@link FileExplorerCompare#start()}による全体の比較結果を表示します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerCompareTree extends JTree implements FileExplorerCompareListener {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = -8337268705470620912L;
+
+	/** 読み込みの同時実行数 */
+	public static final int LOAD_CONCURRENCY = 2;
+
+	/** ディレクトリを先頭とした名前順 */
+	private static final Comparator<FileExplorerCompare.Item> DISPLAY_ORDER = new Comparator<FileExplorerCompare.Item>() {
+		@Override
+		public int compare(final FileExplorerCompare.Item o1, final FileExplorerCompare.Item o2) {
+			if (o1.isDirectory() != o2.isDirectory()) {
+				return (o1.isDirectory()) ? -1 : 1;
+			}
+			return o1.getName().compareToIgnoreCase(o2.getName());
+		}
+	};
+
+	/** 比較 */
+	private final FileExplorerCompare compare;
+	/** ファイルアイコン */
+	private final FileExplorerIconProvider iconProvider;
+	/** ディレクトリ読み込み用のエグゼキューター */
+	private final ExecutorService executor;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aCompare 比較
+	 */
+	public FileExplorerCompareTree(final FileExplorerCompare aCompare) {
+		compare = aCompare;
+		iconProvider = new FileExplorerIconProvider();
+		executor = Executors.newFixedThreadPool(LOAD_CONCURRENCY, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerCompareTree-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		CompareTreeNode root = new CompareTreeNode(null, "");
+		setModel(new DefaultTreeModel(root));
+		setShowsRootHandles(true);
+		setCellRenderer(new CompareTreeCellRenderer());
+		compare.addListener(this);
+
+		addTreeWillExpandListener(new TreeWillExpandListener() {
+			@Override
+			public void treeWillExpand(final TreeExpansionEvent event) throws ExpandVetoException {
+				Object obj = event.getPath().getLastPathComponent();
+				if (obj instanceof CompareTreeNode) {
+					((CompareTreeNode) obj).startLoading();
+				}
+			}
+
+			@Override
+			public void treeWillCollapse(final TreeExpansionEvent event) throws ExpandVetoException {
+				Object obj = event.getPath().getLastPathComponent();
+				if (obj instanceof CompareTreeNode) {
+					((CompareTreeNode) obj).cancelLoading();
+				}
+			}
+		});
+		root.startLoading();
+	}
+
+	/**
+	 * 比較を取得する。
+	 * 
+	 * @return 比較
+	 */
+	public FileExplorerCompare getCompare() {
+		return compare;
+	}
+
+	/**
+	 * ツリーを破棄する。
+	 * <p>
+	 * 読み込み中のディレクトリと全体の比較はキャンセルされます。
+	 * </p>
+	 */
+	public void dispose() {
+		compare.removeListener(this);
+		compare.cancel();
+		executor.shutdownNow();
+		iconProvider.dispose();
+	}
+
+	@Override
+	public void fileExplorerCompareUpdated(final FileExplorerCompare aCompare) {
+		repaint();
+	}
+
+	@Override
+	public void fileExplorerCompareFinished(final FileExplorerCompare aCompare, final boolean aCancelled) {
+		repaint();
+	}
+
+	/**
+	 * 比較結果の表示文字列を取得する。
+	 * 
+	 * @param aStatus 比較結果
+	 * @return 表示文字列
+	 */
+	private static String toDisplayStatus(final FileExplorerCompare.Status aStatus) {
+		if (null == aStatus) {
+			return "比較中…";
+		}
+		switch (aStatus) {
+		case ADDED:
+			return "追加";
+		case REMOVED:
+			return "削除";
+		case CHANGED:
+			return "変更";
+		case TOUCHED:
+			return "日時のみ変更";
+		case CONTENT:
+			return "内容変更";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 比較結果の文字色を取得する。
+	 * 
+	 * @param aStatus 比較結果
+	 * @return 文字色。既定の文字色の場合、<code>null</code>
+	 */
+	private static Color toDisplayColor(final FileExplorerCompare.Status aStatus) {
+		if (null == aStatus) {
+			return Color.gray;
+		}
+		switch (aStatus) {
+		case ADDED:
+			return new Color(0, 128, 0);
+		case REMOVED:
+			return Color.red;
+		case CHANGED:
+		case CONTENT:
+			return Color.blue;
+		case TOUCHED:
+			return Color.gray;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * このクラスは、比較結果に応じた文字色・アイコンで描画するレンダラークラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class CompareTreeCellRenderer extends DefaultTreeCellRenderer {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 2290146337805744582L;
+
+		@Override
+		public Component getTreeCellRendererComponent(final JTree tree, final Object value, final boolean sel,
+				final boolean expanded, final boolean leaf, final int row, final boolean hasFocus) {
+			super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
+			if (value instanceof CompareTreeNode) {
+				CompareTreeNode node = (CompareTreeNode) value;
+				FileExplorerCompare.Status status = node.getStatus();
+
+				Path path = node.getFilePath();
+				if (FileSystems.getDefault() == path.getFileSystem()) {
+					String kind = (node.isLeaf()) ? FileExplorerIconProvider.KIND_FILE : FileExplorerIconProvider.KIND_DIRECTORY;
+					Icon icon = iconProvider.getIcon(path.toFile(), kind, tree);
+					if (null != icon) {
+						setIcon(icon);
+					}
+				}
+				String label = toDisplayStatus(status);
+				if (null != label) {
+					setText(String.format("%s  [%s]", getText(), label));
+				}
+				Color color = toDisplayColor(status);
+				if (null != color && !sel) {
+					setForeground(color);
+				}
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * このクラスは、読み込み中を表すツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private static class LoadingTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -4035710212286416470L;
+
+		public LoadingTreeNode() {
+			super("読み込み中…");
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * このクラスは、比較結果1件分のツリーノードクラスです。
+	 * <p>
+	 * ディレクトリの子ノードは初めて展開された時点で読み込みます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class CompareTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -3524624785264066437L;
+
+		/** 比較結果(ルートの場合、<code>null</code>) */
+		private final FileExplorerCompare.Item item;
+		/** 相対パス */
+		private final String relativePath;
+
+		/** 読み込み済みの場合、<code>true</code> */
+		private boolean loaded;
+		/** 読み込み中のタスク */
+		private Future<?> loader;
+
+		public CompareTreeNode(final FileExplorerCompare.Item aItem, final String aRelativePath) {
+			super((null != aItem) ? aItem.getName() : compare.getLeft() + " ⇔ " + compare.getRight());
+			item = aItem;
+			relativePath = aRelativePath;
+			if (!isLeaf()) {
+				add(new LoadingTreeNode());
+			}
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return null != item && !item.isDirectory();
+		}
+
+		public FileExplorerCompare.Status getStatus() {
+			if (null == item || item.isBothDirectory()) {
+				return compare.getDirectoryStatus(relativePath);
+			}
+			return item.getStatus();
+		}
+
+		/**
+		 * ファイルのパスを取得する。
+		 * 
+		 * @return 左側に存在する場合は左側、それ以外は右側のパス
+		 */
+		public Path getFilePath() {
+			Path root = (null == item || null != item.getLeft()) ? compare.getLeft() : compare.getRight();
+			return FileExplorerCompare.resolve(root, relativePath);
+		}
+
+		public void startLoading() {
+			if (loaded || null != loader) {
+				return;
+			}
+			try {
+				loader = executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						load();
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				// 破棄済み
+			}
+		}
+
+		public void cancelLoading() {
+			// 反映済みの場合は内容の比較を継続する
+			if (null != loader && !loaded) {
+				loader.cancel(true);
+				loader = null;
+			}
+		}
+
+		/**
+		 * 子ノードを読み込む。
+		 * <p>
+		 * このメソッドは読み込みスレッドから呼び出されます。
+		 * </p>
+		 */
+		private void load() {
+			final List<FileExplorerCompare.Item> items;
+			try {
+				items = new ArrayList<FileExplorerCompare.Item>(compare.list(relativePath));
+			} catch (InterruptedException ex) {
+				return;
+			}
+			Collections.sort(items, DISPLAY_ORDER);
+
+			final List<CompareTreeNode> nodes = new ArrayList<CompareTreeNode>(items.size());
+			for (FileExplorerCompare.Item child : items) {
+				nodes.add(new CompareTreeNode(child, FileExplorerCompare.child(relativePath, child.getName())));
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (loaded) {
+						return;
+					}
+					loaded = true;
+					loader = null;
+					removeAllChildren();
+					for (CompareTreeNode node : nodes) {
+						add(node);
+					}
+					((DefaultTreeModel) getModel()).nodeStructureChanged(CompareTreeNode.this);
+				}
+			});
+
+			// 日時のみ異なるファイルの内容を比較する
+			for (final CompareTreeNode node : nodes) {
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				if (null == node.item.getStatus()) {
+					compare.compareContent(relativePath, node.item);
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							if (CompareTreeNode.this == node.getParent()) {
+								((DefaultTreeModel) getModel()).nodeChanged(node);
+							}
+						}
+					});
+				}
+			}
+		}
+	}
+}
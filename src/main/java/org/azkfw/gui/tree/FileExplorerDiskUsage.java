@@ -0,0 +1,363 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * このクラスは、ディレクトリ配下のディスク使用量の集計結果を保持するクラスです。
+ * <p>
+ * 集計は{@link FileExplorerDiskUsageScanner}がバックグラウンドで行い、途中経過の合計も随時参照できます。
+ * 配下のディレクトリごとに集計結果を持ち、直下のファイルはまとめて{@link #getFileSize()}に集計されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/18
+ * @author kawakicchi
+ */
+public final class FileExplorerDiskUsage {
+
+	private static final AtomicLongFieldUpdater<FileExplorerDiskUsage> SIZE = AtomicLongFieldUpdater.newUpdater(
+			FileExplorerDiskUsage.class, "size");
+	private static final AtomicLongFieldUpdater<FileExplorerDiskUsage> FILE_COUNT = AtomicLongFieldUpdater.newUpdater(
+			FileExplorerDiskUsage.class, "fileCount");
+	private static final AtomicLongFieldUpdater<FileExplorerDiskUsage> DIRECTORY_COUNT = AtomicLongFieldUpdater.newUpdater(
+			FileExplorerDiskUsage.class, "directoryCount");
+	private static final AtomicLongFieldUpdater<FileExplorerDiskUsage> FILE_SIZE = AtomicLongFieldUpdater.newUpdater(
+			FileExplorerDiskUsage.class, "fileSize");
+
+	/** 親ディレクトリの集計結果(ルートの場合、<code>null</code>) */
+	private final FileExplorerDiskUsage parent;
+	/** ディレクトリ名 */
+	private final String name;
+	/** ディレクトリ(ルート以外は親から求めるため、<code>null</code>) */
+	private final Path path;
+
+	/** 配下の合計サイズ(byte) */
+	private volatile long size;
+	/** 配下のファイル数 */
+	private volatile long fileCount;
+	/** 配下のディレクトリ数 */
+	private volatile long directoryCount;
+	/** 直下のファイルの合計サイズ(byte) */
+	private volatile long fileSize;
+	/** 子ディレクトリの集計結果 */
+	private volatile Map<String, FileExplorerDiskUsage> children;
+	/** 配下の集計が完了した場合、<code>true</code> */
+	private volatile boolean completed;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aPath ルートディレクトリ
+	 */
+	FileExplorerDiskUsage(final Path aPath) {
+		parent = null;
+		path = aPath;
+		Path fileName = aPath.getFileName();
+		name = (null != fileName) ? fileName.toString() : aPath.toString();
+		children = Collections.emptyMap();
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aParent 親ディレクトリの集計結果
+	 * @param aName ディレクトリ名
+	 */
+	FileExplorerDiskUsage(final FileExplorerDiskUsage aParent, final String aName) {
+		parent = aParent;
+		path = null;
+		name = aName;
+		children = Collections.emptyMap();
+	}
+
+	/**
+	 * ディレクトリ名を取得する。
+	 * 
+	 * @return ディレクトリ名
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * ディレクトリを取得する。
+	 * 
+	 * @return ディレクトリ
+	 */
+	public Path getPath() {
+		return (null != path) ? path : parent.getPath().resolve(name);
+	}
+
+	/**
+	 * 親ディレクトリの集計結果を取得する。
+	 * 
+	 * @return 集計結果。ルートの場合、<code>null</code>
+	 */
+	public FileExplorerDiskUsage getParent() {
+		return parent;
+	}
+
+	/**
+	 * 配下の合計サイズを取得する。
+	 * <p>
+	 * 集計中の場合は途中経過の合計です。
+	 * </p>
+	 * 
+	 * @return サイズ(byte)
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * 配下のファイル数を取得する。
+	 * 
+	 * @return ファイル数
+	 */
+	public long getFileCount() {
+		return fileCount;
+	}
+
+	/**
+	 * 配下のディレクトリ数を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public long getDirectoryCount() {
+		return directoryCount;
+	}
+
+	/**
+	 * 直下のファイルの合計サイズを取得する。
+	 * 
+	 * @return サイズ(byte)
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * 配下の集計が完了したか判断する。
+	 * 
+	 * @return 完了した場合、<code>true</code>
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	/**
+	 * 子ディレクトリの集計結果をサイズの降順で取得する。
+	 * <p>
+	 * 集計中の場合は呼び出した時点の合計サイズで並べます。
+	 * </p>
+	 * 
+	 * @return 集計結果一覧
+	 */
+	public List<FileExplorerDiskUsage> getChildren() {
+		final Map<FileExplorerDiskUsage, Long> sizes = new IdentityHashMap<FileExplorerDiskUsage, Long>();
+		for (FileExplorerDiskUsage child : children.values()) {
+			sizes.put(child, child.getSize());
+		}
+		List<FileExplorerDiskUsage> lst = new ArrayList<FileExplorerDiskUsage>(sizes.keySet());
+		Collections.sort(lst, new Comparator<FileExplorerDiskUsage>() {
+			@Override
+			public int compare(final FileExplorerDiskUsage usage1, final FileExplorerDiskUsage usage2) {
+				long size1 = sizes.get(usage1);
+				long size2 = sizes.get(usage2);
+				return (size1 > size2) ? -1 : ((size1 == size2) ? usage1.name.compareTo(usage2.name) : 1);
+			}
+		});
+		return lst;
+	}
+
+	/**
+	 * 子ディレクトリの集計結果を取得する。
+	 * 
+	 * @param aName ディレクトリ名
+	 * @return 集計結果。存在しない場合、<code>null</code>
+	 */
+	public FileExplorerDiskUsage getChild(final String aName) {
+		return children.get(aName);
+	}
+
+	/**
+	 * 配下のディレクトリの集計結果を取得する。
+	 * 
+	 * @param aPath ディレクトリ
+	 * @return 集計結果。配下のディレクトリでない、または未集計の場合、<code>null</code>
+	 */
+	public FileExplorerDiskUsage find(final Path aPath) {
+		Path root = getPath();
+		if (root.getFileSystem() != aPath.getFileSystem() || !aPath.startsWith(root)) {
+			return null;
+		}
+		FileExplorerDiskUsage usage = this;
+		for (Path element : root.relativize(aPath)) {
+			String str = element.toString();
+			if (0 == str.length()) {
+				continue;
+			}
+			usage = usage.getChild(str);
+			if (null == usage) {
+				return null;
+			}
+		}
+		return usage;
+	}
+
+	/**
+	 * 集計結果のサイズの降順に並べるソーターを生成する。
+	 * <p>
+	 * ディレクトリは配下の合計サイズ、ファイルはファイルサイズで比較します。
+	 * 合計サイズはディレクトリごとにソーターを取得した時点の値で比較するため、集計中も並び順は安定します。
+	 * 集計の完了後に{@link FileExplorerTree#setSorter(FileExplorerTreeSorter)}で設定し直すと最終的な合計で並び替えます。
+	 * </p>
+	 * 
+	 * @return ソーター
+	 */
+	public FileExplorerTreeSorter createSorter() {
+		return new DiskUsageSorter(this, null);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * ソーターが集計結果のソーターか判断する。
+	 * 
+	 * @param aSorter ソーター
+	 * @return {@link #createSorter()}で生成したソーターの場合、<code>true</code>
+	 */
+	boolean isSorter(final FileExplorerTreeSorter aSorter) {
+		return aSorter instanceof DiskUsageSorter && this == ((DiskUsageSorter) aSorter).usage;
+	}
+
+	/**
+	 * 子ディレクトリの集計結果を設定する。
+	 * 
+	 * @param aChildren 子ディレクトリの集計結果
+	 */
+	void setChildren(final Map<String, FileExplorerDiskUsage> aChildren) {
+		children = aChildren;
+	}
+
+	/**
+	 * 直下のファイル・ディレクトリの集計を親ディレクトリへ加算する。
+	 * 
+	 * @param aFileSize 直下のファイルの合計サイズ(byte)
+	 * @param aFileCount 直下のファイル数
+	 * @param aDirectoryCount 直下のディレクトリ数
+	 */
+	void add(final long aFileSize, final long aFileCount, final long aDirectoryCount) {
+		FILE_SIZE.addAndGet(this, aFileSize);
+		for (FileExplorerDiskUsage usage = this; null != usage; usage = usage.parent) {
+			SIZE.addAndGet(usage, aFileSize);
+			FILE_COUNT.addAndGet(usage, aFileCount);
+			DIRECTORY_COUNT.addAndGet(usage, aDirectoryCount);
+		}
+	}
+
+	/**
+	 * 配下の集計を完了する。
+	 */
+	void complete() {
+		completed = true;
+	}
+
+	/**
+	 * サイズを表示用の文字列に変換する。
+	 * 
+	 * @param aSize サイズ(byte)
+	 * @return 文字列
+	 */
+	static String toDisplaySize(final long aSize) {
+		if (1024 > aSize) {
+			return String.format("%d B", aSize);
+		}
+		String[] units = { "KB", "MB", "GB", "TB", "PB" };
+		double value = aSize;
+		int index = -1;
+		while (1024 <= value && index < units.length - 1) {
+			value /= 1024;
+			index++;
+		}
+		return String.format((10 > value) ? "%.1f %s" : "%.0f %s", value, units[index]);
+	}
+
+	/**
+	 * このクラスは、集計結果のサイズの降順に並べるソータークラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/18
+	 * @author kawakicchi
+	 */
+	private static class DiskUsageSorter extends FileExplorerTreeSorter {
+
+		/** 集計結果 */
+		private final FileExplorerDiskUsage usage;
+		/** ディレクトリ名ごとの合計サイズ(ディレクトリ未指定の場合、<code>null</code>) */
+		private final Map<String, Long> sizes;
+
+		public DiskUsageSorter(final FileExplorerDiskUsage aUsage, final Map<String, Long> aSizes) {
+			usage = aUsage;
+			sizes = aSizes;
+		}
+
+		@Override
+		FileExplorerTreeSorter forDirectory(final Path aDirectory) {
+			Map<String, Long> map = new HashMap<String, Long>();
+			FileExplorerDiskUsage directory = (null != aDirectory) ? usage.find(aDirectory) : null;
+			if (null != directory) {
+				for (FileExplorerDiskUsage child : directory.children.values()) {
+					map.put(child.name, child.getSize());
+				}
+			}
+			return new DiskUsageSorter(usage, map);
+		}
+
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			long size1 = getSize(entry1);
+			long size2 = getSize(entry2);
+			if (size1 != size2) {
+				return (size1 > size2) ? -1 : 1;
+			}
+			return entry1.getName().compareTo(entry2.getName());
+		}
+
+		private long getSize(final FileExplorerEntry aEntry) {
+			if (aEntry.isDirectory()) {
+				Long size = (null != sizes) ? sizes.get(aEntry.getName()) : null;
+				return (null != size) ? size : -1;
+			}
+			return aEntry.getSize();
+		}
+	}
+}
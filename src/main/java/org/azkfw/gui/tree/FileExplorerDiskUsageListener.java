@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+/**
+ * このインターフェースは、ディスク使用量の集計の経過を受け取るリスナーインターフェースです。
+ * <p>
+ * 各メソッドはイベントディスパッチスレッドから呼び出されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/18
+ * @author kawakicchi
+ */
+public interface FileExplorerDiskUsageListener {
+
+	/**
+	 * 集計の途中経過が更新された場合に呼び出される。
+	 * 
+	 * @param aUsage 集計結果
+	 */
+	public void fileExplorerDiskUsageUpdated(final FileExplorerDiskUsage aUsage);
+
+	/**
+	 * 集計が完了、またはキャンセルされた場合に呼び出される。
+	 * 
+	 * @param aUsage 集計結果
+	 * @param aCancelled キャンセルされた場合、<code>true</code>
+	 */
+	public void fileExplorerDiskUsageFinished(final FileExplorerDiskUsage aUsage, final boolean aCancelled);
+}
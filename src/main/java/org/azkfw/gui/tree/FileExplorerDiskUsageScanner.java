@@ -0,0 +1,356 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * このクラスは、ディレクトリ配下のディスク使用量をFork/Joinで並列に集計するクラスです。
+ * <p>
+ * ディレクトリごとにタスクを分割し、読み込んだディレクトリの合計は即座に上位のディレクトリへ加算されます。
+ * 集計中は{@link #UPDATE_INTERVAL}ミリ秒ごとにリスナーへ途中経過を通知します。
+ * シンボリックリンクはたどりません。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/18
+ * @author kawakicchi
+ */
+public final class FileExplorerDiskUsageScanner {
+
+	/** 途中経過の通知間隔(ミリ秒) */
+	public static final int UPDATE_INTERVAL = 200;
+
+	/** 共有プール(ファイルシステムの待ち時間を考慮してCPU数の2倍) */
+	private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+	/** 集計結果 */
+	private final FileExplorerDiskUsage usage;
+	/** 読み込み済みのディレクトリ一覧 */
+	private final Map<Path, List<FileExplorerEntry>> listings;
+	private final List<FileExplorerDiskUsageListener> listeners;
+
+	private final Timer timer;
+	private ForkJoinTask<?> task;
+
+	private volatile boolean cancelFlag;
+	private volatile boolean finished;
+
+	/** 読み込んだファイル数 */
+	private final AtomicLong scannedCount;
+	/** 読み込み済みの一覧を使用したディレクトリ数 */
+	private final AtomicLong reusedCount;
+	private volatile long startNanos;
+	private volatile long endNanos;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aDirectory 集計するディレクトリ
+	 */
+	public FileExplorerDiskUsageScanner(final Path aDirectory) {
+		this(aDirectory, Collections.<Path, List<FileExplorerEntry>> emptyMap());
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aDirectory 集計するディレクトリ
+	 * @param aListings 読み込み済みのディレクトリ一覧。含まれるディレクトリは読み込まずに一覧を使用する
+	 */
+	FileExplorerDiskUsageScanner(final Path aDirectory, final Map<Path, List<FileExplorerEntry>> aListings) {
+		usage = new FileExplorerDiskUsage(aDirectory);
+		listings = aListings;
+		listeners = new CopyOnWriteArrayList<FileExplorerDiskUsageListener>();
+		scannedCount = new AtomicLong(0);
+		reusedCount = new AtomicLong(0);
+		timer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				if (!finished) {
+					for (FileExplorerDiskUsageListener listener : listeners) {
+						listener.fileExplorerDiskUsageUpdated(usage);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * リスナーを追加する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void addListener(final FileExplorerDiskUsageListener aListener) {
+		listeners.add(aListener);
+	}
+
+	/**
+	 * リスナーを削除する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void removeListener(final FileExplorerDiskUsageListener aListener) {
+		listeners.remove(aListener);
+	}
+
+	/**
+	 * 集計を開始する。
+	 */
+	public synchronized void start() {
+		if (null != task) {
+			return;
+		}
+		startNanos = System.nanoTime();
+		timer.start();
+		task = POOL.submit(new RecursiveAction() {
+			/** serialVersionUID */
+			private static final long serialVersionUID = 4212651287930458119L;
+
+			@Override
+			protected void compute() {
+				try {
+					new ScanTask(usage, usage.getPath()).invoke();
+				} finally {
+					finish();
+				}
+			}
+		});
+	}
+
+	/**
+	 * 集計をキャンセルする。
+	 * <p>
+	 * 集計済みのディレクトリの合計は維持されます。
+	 * </p>
+	 */
+	public void cancel() {
+		cancelFlag = true;
+	}
+
+	/**
+	 * 集計をキャンセルしたか判断する。
+	 * 
+	 * @return キャンセルした場合、<code>true</code>
+	 */
+	public boolean isCancelled() {
+		return cancelFlag;
+	}
+
+	/**
+	 * 集計が終了したか判断する。
+	 * 
+	 * @return 完了、またはキャンセルにより終了した場合、<code>true</code>
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * 集計結果を取得する。
+	 * 
+	 * @return 集計結果
+	 */
+	public FileExplorerDiskUsage getUsage() {
+		return usage;
+	}
+
+	/**
+	 * 読み込んだファイル・ディレクトリ数を取得する。
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getScannedCount() {
+		return scannedCount.get();
+	}
+
+	/**
+	 * 読み込み済みの一覧を使用したディレクトリ数を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public long getReusedCount() {
+		return reusedCount.get();
+	}
+
+	/**
+	 * 集計に要した時間を取得する。
+	 * 
+	 * @return 時間(ミリ秒)。集計中の場合、開始からの経過時間
+	 */
+	public long getElapsedTime() {
+		if (0 == startNanos) {
+			return 0;
+		}
+		long end = (finished) ? endNanos : System.nanoTime();
+		return (end - startNanos) / 1000000;
+	}
+
+	/**
+	 * 1秒あたりに読み込んだファイル・ディレクトリ数を取得する。
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getThroughput() {
+		long elapsed = getElapsedTime();
+		return (0 < elapsed) ? scannedCount.get() * 1000 / elapsed : 0;
+	}
+
+	private void finish() {
+		endNanos = System.nanoTime();
+		finished = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				timer.stop();
+				for (FileExplorerDiskUsageListener listener : listeners) {
+					listener.fileExplorerDiskUsageFinished(usage, cancelFlag);
+				}
+			}
+		});
+	}
+
+	/**
+	 * ディレクトリ一覧を取得する。
+	 * <p>
+	 * 読み込み済みの一覧にないディレクトリは、シンボリックリンクをたどらずに読み込みます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aNames 名前を格納する一覧
+	 * @param aAttributes 属性を格納する一覧(読み込み済みの一覧を使用した場合、未使用)
+	 * @return 読み込み済みの一覧。読み込んだ場合、<code>null</code>
+	 */
+	private List<FileExplorerEntry> list(final Path aDirectory, final List<String> aNames,
+			final List<BasicFileAttributes> aAttributes) {
+		List<FileExplorerEntry> entries = listings.get(aDirectory);
+		if (null != entries) {
+			reusedCount.incrementAndGet();
+			scannedCount.addAndGet(entries.size());
+			return entries;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+			for (Path path : stream) {
+				if (cancelFlag) {
+					break;
+				}
+				try {
+					aAttributes.add(Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+					aNames.add(path.getFileName().toString());
+				} catch (IOException ex) {
+					// 読み込み中に削除されたファイル
+				}
+			}
+		} catch (IOException ex) {
+			// アクセスできないディレクトリ
+		}
+		scannedCount.addAndGet(aNames.size());
+		return null;
+	}
+
+	/**
+	 * このクラスは、ディレクトリ一つ分を集計し、子ディレクトリのタスクを分岐するタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/18
+	 * @author kawakicchi
+	 */
+	private class ScanTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -6902787542693153710L;
+
+		private final FileExplorerDiskUsage directory;
+		private final Path path;
+
+		public ScanTask(final FileExplorerDiskUsage aDirectory, final Path aPath) {
+			directory = aDirectory;
+			path = aPath;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelFlag) {
+				return;
+			}
+			List<String> names = new ArrayList<String>();
+			List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>();
+			List<FileExplorerEntry> entries = list(path, names, attributes);
+
+			long fileSize = 0;
+			long fileCount = 0;
+			Map<String, FileExplorerDiskUsage> children = new HashMap<String, FileExplorerDiskUsage>();
+			List<ScanTask> tasks = new ArrayList<ScanTask>();
+			if (null != entries) {
+				for (FileExplorerEntry entry : entries) {
+					if (entry.isDirectory()) {
+						Path child = path.resolve(entry.getName());
+						// 読み込み済みの一覧はシンボリックリンクをたどった属性のため、リンクを除外する
+						if (!Files.isSymbolicLink(child)) {
+							FileExplorerDiskUsage usage = new FileExplorerDiskUsage(directory, entry.getName());
+							children.put(entry.getName(), usage);
+							tasks.add(new ScanTask(usage, child));
+						}
+					} else {
+						fileSize += entry.getSize();
+						fileCount++;
+					}
+				}
+			} else {
+				for (int i = 0; i < names.size(); i++) {
+					BasicFileAttributes attrs = attributes.get(i);
+					if (attrs.isDirectory()) {
+						String name = names.get(i);
+						FileExplorerDiskUsage usage = new FileExplorerDiskUsage(directory, name);
+						children.put(name, usage);
+						tasks.add(new ScanTask(usage, path.resolve(name)));
+					} else {
+						fileSize += attrs.size();
+						fileCount++;
+					}
+				}
+			}
+			directory.setChildren(children);
+			directory.add(fileSize, fileCount, tasks.size());
+			invokeAll(tasks);
+			if (!cancelFlag) {
+				directory.complete();
+			}
+		}
+	}
+}
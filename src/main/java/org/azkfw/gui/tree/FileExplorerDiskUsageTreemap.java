@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、ディスク使用量の集計結果をツリーマップで表示するパネルクラスです。
+ * <p>
+ * 子ディレクトリと直下のファイルの合計を、サイズに比例した面積の矩形として縦横比が1に近くなるよう配置(squarified)します。
+ * 矩形が{@link #MIN_CELL_SIZE}ピクセルより小さくなる階層、{@link #MAX_DEPTH}より深い階層は表示しません。
+ * {@link FileExplorerDiskUsageListener}として登録すると集計の途中経過に合わせて再描画します。
+ * ダブルクリックでディレクトリを拡大表示し、右クリックで親ディレクトリに戻ります。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/18
+ * @author kawakicchi
+ */
+public class FileExplorerDiskUsageTreemap extends JPanel implements FileExplorerDiskUsageListener {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = -3093325064730562315L;
+
+	/** 表示する階層数 */
+	public static final int MAX_DEPTH = 4;
+	/** 表示する矩形の最小の幅・高さ(ピクセル) */
+	public static final int MIN_CELL_SIZE = 6;
+
+	/** 枠の幅(ピクセル) */
+	private static final int BORDER = 2;
+
+	/** 表示中の集計結果 */
+	private FileExplorerDiskUsage usage;
+	/** 配置済みの矩形(描画順) */
+	private List<Cell> cells;
+	/** 配置時のパネルの幅 */
+	private int layoutWidth;
+	/** 配置時のパネルの高さ */
+	private int layoutHeight;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerDiskUsageTreemap() {
+		usage = null;
+		cells = null;
+		setBackground(Color.white);
+		setToolTipText("");
+
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(final MouseEvent event) {
+				if (SwingUtilities.isRightMouseButton(event)) {
+					if (null != usage && null != usage.getParent()) {
+						setUsage(usage.getParent());
+					}
+				} else if (2 == event.getClickCount()) {
+					Cell cell = getCellAt(event.getX(), event.getY(), true);
+					if (null != cell) {
+						setUsage(cell.usage);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 表示する集計結果を設定する。
+	 * 
+	 * @param aUsage 集計結果
+	 */
+	public void setUsage(final FileExplorerDiskUsage aUsage) {
+		usage = aUsage;
+		cells = null;
+		repaint();
+	}
+
+	/**
+	 * 表示中の集計結果を取得する。
+	 * 
+	 * @return 集計結果
+	 */
+	public FileExplorerDiskUsage getUsage() {
+		return usage;
+	}
+
+	@Override
+	public void fileExplorerDiskUsageUpdated(final FileExplorerDiskUsage aUsage) {
+		if (null == usage || getRoot(usage) != aUsage) {
+			usage = aUsage;
+		}
+		cells = null;
+		repaint();
+	}
+
+	@Override
+	public void fileExplorerDiskUsageFinished(final FileExplorerDiskUsage aUsage, final boolean aCancelled) {
+		fileExplorerDiskUsageUpdated(aUsage);
+	}
+
+	@Override
+	public String getToolTipText(final MouseEvent event) {
+		Cell cell = getCellAt(event.getX(), event.getY(), false);
+		if (null == cell) {
+			return null;
+		}
+		String path = (null != cell.usage) ? cell.usage.getPath().toString() : cell.owner.getPath().resolve(cell.label)
+				.toString();
+		return String.format("%s (%s)", path, FileExplorerDiskUsage.toDisplaySize(cell.size));
+	}
+
+	@Override
+	protected void paintComponent(final Graphics g) {
+		super.paintComponent(g);
+		if (null == usage) {
+			return;
+		}
+		if (null == cells || layoutWidth != getWidth() || layoutHeight != getHeight()) {
+			layoutWidth = getWidth();
+			layoutHeight = getHeight();
+			cells = new ArrayList<Cell>();
+			layout(usage, new Rectangle2D.Double(0, 0, layoutWidth, layoutHeight), 0, 0);
+		}
+
+		Graphics2D g2 = (Graphics2D) g;
+		FontMetrics fm = g2.getFontMetrics();
+		Shape clip = g2.getClip();
+		for (Cell cell : cells) {
+			int x = (int) Math.round(cell.rect.x);
+			int y = (int) Math.round(cell.rect.y);
+			int w = (int) Math.round(cell.rect.x + cell.rect.width) - x;
+			int h = (int) Math.round(cell.rect.y + cell.rect.height) - y;
+			g2.setColor(cell.color);
+			g2.fillRect(x, y, w, h);
+			g2.setColor(cell.color.darker());
+			g2.drawRect(x, y, w - 1, h - 1);
+			if (fm.getHeight() < h && 24 < w) {
+				g2.clipRect(x, y, w, h);
+				g2.setColor(Color.black);
+				String text = String.format("%s %s", cell.label, FileExplorerDiskUsage.toDisplaySize(cell.size));
+				g2.drawString(text, x + BORDER + 1, y + fm.getAscent() + 1);
+				g2.setClip(clip);
+			}
+		}
+	}
+
+	/**
+	 * ディレクトリの子ディレクトリ・直下のファイルを矩形に配置する。
+	 * 
+	 * @param aUsage ディレクトリの集計結果
+	 * @param aRect 配置する矩形
+	 * @param aDepth 階層
+	 * @param aHue 色相
+	 */
+	private void layout(final FileExplorerDiskUsage aUsage, final Rectangle2D.Double aRect, final int aDepth, final float aHue) {
+		List<FileExplorerDiskUsage> children = aUsage.getChildren();
+		List<Cell> items = new ArrayList<Cell>(children.size() + 1);
+		double total = 0;
+		for (int i = 0; i < children.size(); i++) {
+			FileExplorerDiskUsage child = children.get(i);
+			long size = child.getSize();
+			if (0 < size) {
+				float hue = (0 == aDepth) ? (float) i / children.size() : aHue;
+				items.add(new Cell(aUsage, child, child.getName(), size, aDepth, hue));
+				total += size;
+			}
+		}
+		long fileSize = aUsage.getFileSize();
+		if (0 < fileSize) {
+			Cell cell = new Cell(aUsage, null, "(ファイル)", fileSize, aDepth, aHue);
+			// ファイルは他より小さい位置に並べる
+			int index = 0;
+			while (index < items.size() && items.get(index).size >= fileSize) {
+				index++;
+			}
+			items.add(index, cell);
+			total += fileSize;
+		}
+		if (0 == items.size() || 0 >= total) {
+			return;
+		}
+
+		squarify(items, aRect, total);
+
+		FontMetrics fm = getFontMetrics(getFont());
+		for (Cell cell : items) {
+			if (MIN_CELL_SIZE > cell.rect.width || MIN_CELL_SIZE > cell.rect.height) {
+				continue;
+			}
+			cells.add(cell);
+			if (null != cell.usage && aDepth + 1 < MAX_DEPTH) {
+				// 名前を表示する余白を空けて子ディレクトリを配置する
+				double header = (fm.getHeight() * 2 < cell.rect.height) ? fm.getHeight() : 0;
+				Rectangle2D.Double inner = new Rectangle2D.Double(cell.rect.x + BORDER, cell.rect.y + BORDER + header,
+						cell.rect.width - BORDER * 2, cell.rect.height - BORDER * 2 - header);
+				if (MIN_CELL_SIZE <= inner.width && MIN_CELL_SIZE <= inner.height) {
+					layout(cell.usage, inner, aDepth + 1, cell.hue);
+				}
+			}
+		}
+	}
+
+	/**
+	 * サイズの降順に並んだ要素を、縦横比が1に近くなるよう行ごとに配置する。
+	 * 
+	 * @param aItems 要素一覧
+	 * @param aRect 配置する矩形
+	 * @param aTotal 合計サイズ
+	 */
+	private static void squarify(final List<Cell> aItems, final Rectangle2D.Double aRect, final double aTotal) {
+		double scale = aRect.width * aRect.height / aTotal;
+		Rectangle2D.Double rest = new Rectangle2D.Double(aRect.x, aRect.y, aRect.width, aRect.height);
+		int start = 0;
+		while (start < aItems.size()) {
+			double side = Math.min(rest.width, rest.height);
+			int end = start;
+			double area = 0;
+			double worst = Double.MAX_VALUE;
+			while (end < aItems.size()) {
+				double next = area + aItems.get(end).size * scale;
+				double ratio = worst(aItems, start, end + 1, next, side, scale);
+				if (end > start && ratio > worst) {
+					break;
+				}
+				area = next;
+				worst = ratio;
+				end++;
+			}
+			layoutRow(aItems, start, end, area, rest, scale);
+			start = end;
+		}
+	}
+
+	/**
+	 * 行に並べた場合の最も大きい縦横比を求める。
+	 */
+	private static double worst(final List<Cell> aItems, final int aStart, final int aEnd, final double aArea,
+			final double aSide, final double aScale) {
+		double max = aItems.get(aStart).size * aScale;
+		double min = aItems.get(aEnd - 1).size * aScale;
+		double side2 = aSide * aSide;
+		double area2 = aArea * aArea;
+		return Math.max(side2 * max / area2, area2 / (side2 * min));
+	}
+
+	/**
+	 * 行の要素を短辺に沿って配置し、残りの矩形を縮める。
+	 */
+	private static void layoutRow(final List<Cell> aItems, final int aStart, final int aEnd, final double aArea,
+			final Rectangle2D.Double aRest, final double aScale) {
+		if (aRest.width >= aRest.height) {
+			// 左端に縦に並べる
+			double width = (0 < aRest.height) ? aArea / aRest.height : 0;
+			double y = aRest.y;
+			for (int i = aStart; i < aEnd; i++) {
+				Cell cell = aItems.get(i);
+				double height = (0 < width) ? cell.size * aScale / width : 0;
+				cell.rect = new Rectangle2D.Double(aRest.x, y, width, height);
+				y += height;
+			}
+			aRest.x += width;
+			aRest.width -= width;
+		} else {
+			// 上端に横に並べる
+			double height = (0 < aRest.width) ? aArea / aRest.width : 0;
+			double x = aRest.x;
+			for (int i = aStart; i < aEnd; i++) {
+				Cell cell = aItems.get(i);
+				double width = (0 < height) ? cell.size * aScale / height : 0;
+				cell.rect = new Rectangle2D.Double(x, aRest.y, width, height);
+				x += width;
+			}
+			aRest.y += height;
+			aRest.height -= height;
+		}
+	}
+
+	/**
+	 * 座標の矩形を取得する。
+	 * 
+	 * @param aX X座標
+	 * @param aY Y座標
+	 * @param aDirectory ディレクトリの矩形のみ対象とする場合、<code>true</code>
+	 * @return 最も深い階層の矩形。存在しない場合、<code>null</code>
+	 */
+	private Cell getCellAt(final int aX, final int aY, final boolean aDirectory) {
+		if (null == cells) {
+			return null;
+		}
+		// 描画順の後ろほど深い階層
+		for (int i = cells.size() - 1; i >= 0; i--) {
+			Cell cell = cells.get(i);
+			if (cell.rect.contains(aX, aY) && (!aDirectory || null != cell.usage)) {
+				return cell;
+			}
+		}
+		return null;
+	}
+
+	private static FileExplorerDiskUsage getRoot(final FileExplorerDiskUsage aUsage) {
+		FileExplorerDiskUsage root = aUsage;
+		while (null != root.getParent()) {
+			root = root.getParent();
+		}
+		return root;
+	}
+
+	/**
+	 * このクラスは、ツリーマップ上の矩形一つ分を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/18
+	 * @author kawakicchi
+	 */
+	private static class Cell {
+
+		/** 配置先のディレクトリの集計結果 */
+		private final FileExplorerDiskUsage owner;
+		/** ディレクトリの集計結果(直下のファイルの場合、<code>null</code>) */
+		private final FileExplorerDiskUsage usage;
+		private final String label;
+		/** サイズ(byte) */
+		private final long size;
+		private final float hue;
+		private final Color color;
+		private Rectangle2D.Double rect;
+
+		public Cell(final FileExplorerDiskUsage aOwner, final FileExplorerDiskUsage aUsage, final String aLabel, final long aSize,
+				final int aDepth, final float aHue) {
+			owner = aOwner;
+			usage = aUsage;
+			label = aLabel;
+			size = aSize;
+			hue = aHue;
+			float brightness = Math.min(1.0f, 0.65f + aDepth * 0.1f);
+			color = Color.getHSBColor(aHue, (null != aUsage) ? 0.45f : 0.1f, brightness);
+		}
+	}
+}
@@ -0,0 +1,524 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、ディレクトリ配下の内容が同じファイルを並列に検索するクラスです。
+ * <p>
+ * ファイルをサイズで分類し、同じサイズのファイルを先頭・末尾の{@link #BLOCK_SIZE}バイトのハッシュ、全体のハッシュの順に絞り込みます。
+ * ハッシュの計算は同時実行数を制限したスレッドで行い、ファイルはスレッドごとに使い回すダイレクトバッファへ読み込みます。
+ * 大きなファイルもメモリマップしないため、解放されないマップ領域でアドレス空間を消費することはありません。
+ * 確定した重複ファイルは見つかった順にリスナーへ通知されます。
+ * 空のファイル・シンボリックリンクは対象外で、ハードリンクは同じファイルとして扱います。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/19
+ * @author kawakicchi
+ */
+public final class FileExplorerDuplicateFinder {
+
+	/** 部分ハッシュを計算するブロックサイズ(byte) */
+	public static final int BLOCK_SIZE = 4096;
+	/** 同時実行数の既定値 */
+	public static final int DEFAULT_CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/** ハッシュアルゴリズム */
+	private static final String ALGORITHM = "SHA-1";
+	/** 読み込みバッファのサイズ(byte) */
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/** スレッドごとの読み込みバッファ */
+	private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	};
+
+	/** 検索するディレクトリ */
+	private final Path directory;
+	/** 同時実行数 */
+	private final int concurrency;
+	private final List<FileExplorerDuplicateListener> listeners;
+
+	private ExecutorService executor;
+	private Thread thread;
+	private volatile boolean cancelFlag;
+	private volatile boolean finished;
+
+	/** 検索したファイル数 */
+	private final AtomicLong fileCount;
+	/** ハッシュを計算したバイト数 */
+	private final AtomicLong hashedBytes;
+	/** 重複ファイルのグループ数 */
+	private final AtomicLong groupCount;
+	/** 重複により余分に使用しているバイト数 */
+	private final AtomicLong duplicateBytes;
+	private volatile long startNanos;
+	private volatile long endNanos;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aDirectory 検索するディレクトリ
+	 */
+	public FileExplorerDuplicateFinder(final Path aDirectory) {
+		this(aDirectory, DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aDirectory 検索するディレクトリ
+	 * @param aConcurrency ハッシュを計算する同時実行数
+	 */
+	public FileExplorerDuplicateFinder(final Path aDirectory, final int aConcurrency) {
+		directory = aDirectory;
+		concurrency = Math.max(1, aConcurrency);
+		listeners = new CopyOnWriteArrayList<FileExplorerDuplicateListener>();
+		fileCount = new AtomicLong(0);
+		hashedBytes = new AtomicLong(0);
+		groupCount = new AtomicLong(0);
+		duplicateBytes = new AtomicLong(0);
+	}
+
+	/**
+	 * リスナーを追加する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void addListener(final FileExplorerDuplicateListener aListener) {
+		listeners.add(aListener);
+	}
+
+	/**
+	 * リスナーを削除する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void removeListener(final FileExplorerDuplicateListener aListener) {
+		listeners.remove(aListener);
+	}
+
+	/**
+	 * 検索するディレクトリを取得する。
+	 * 
+	 * @return ディレクトリ
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * 検索を開始する。
+	 */
+	public synchronized void start() {
+		if (null != thread) {
+			return;
+		}
+		startNanos = System.nanoTime();
+		executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerTree-duplicate-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					search();
+				} catch (InterruptedException ex) {
+					// キャンセル
+				} catch (Exception ex) {
+					ex.printStackTrace();
+				} finally {
+					finish();
+				}
+			}
+		}, "FileExplorerTree-duplicate");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * 検索をキャンセルする。
+	 */
+	public synchronized void cancel() {
+		cancelFlag = true;
+		if (null != executor) {
+			executor.shutdownNow();
+		}
+		if (null != thread) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * 検索をキャンセルしたか判断する。
+	 * 
+	 * @return キャンセルした場合、<code>true</code>
+	 */
+	public boolean isCancelled() {
+		return cancelFlag;
+	}
+
+	/**
+	 * 検索が終了したか判断する。
+	 * 
+	 * @return 完了、またはキャンセルにより終了した場合、<code>true</code>
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * 検索したファイル数を取得する。
+	 * 
+	 * @return ファイル数
+	 */
+	public long getFileCount() {
+		return fileCount.get();
+	}
+
+	/**
+	 * ハッシュを計算したバイト数を取得する。
+	 * 
+	 * @return バイト数
+	 */
+	public long getHashedBytes() {
+		return hashedBytes.get();
+	}
+
+	/**
+	 * 重複ファイルのグループ数を取得する。
+	 * 
+	 * @return グループ数
+	 */
+	public long getGroupCount() {
+		return groupCount.get();
+	}
+
+	/**
+	 * 重複により余分に使用しているバイト数を取得する。
+	 * 
+	 * @return バイト数
+	 */
+	public long getDuplicateBytes() {
+		return duplicateBytes.get();
+	}
+
+	/**
+	 * 検索に要した時間を取得する。
+	 * 
+	 * @return 時間(ミリ秒)。検索中の場合、開始からの経過時間
+	 */
+	public long getElapsedTime() {
+		if (0 == startNanos) {
+			return 0;
+		}
+		long end = (finished) ? endNanos : System.nanoTime();
+		return (end - startNanos) / 1000000;
+	}
+
+	/**
+	 * 1秒あたりにハッシュを計算したバイト数を取得する。
+	 * 
+	 * @return バイト数
+	 */
+	public long getThroughput() {
+		long elapsed = getElapsedTime();
+		return (0 < elapsed) ? hashedBytes.get() * 1000 / elapsed : 0;
+	}
+
+	private void search() throws IOException, InterruptedException {
+		// サイズで分類する(1件のみのサイズはパスのまま保持する)
+		final Map<Long, Object> sizes = new HashMap<Long, Object>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public FileVisitResult visitFile(final Path aFile, final BasicFileAttributes aAttributes) {
+				if (cancelFlag) {
+					return FileVisitResult.TERMINATE;
+				}
+				fileCount.incrementAndGet();
+				if (aAttributes.isRegularFile() && 0 < aAttributes.size()) {
+					Object obj = sizes.get(aAttributes.size());
+					if (null == obj) {
+						sizes.put(aAttributes.size(), aFile);
+					} else if (obj instanceof List) {
+						((List<Path>) obj).add(aFile);
+					} else {
+						List<Path> lst = new ArrayList<Path>(2);
+						lst.add((Path) obj);
+						lst.add(aFile);
+						sizes.put(aAttributes.size(), lst);
+					}
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(final Path aFile, final IOException ex) {
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		// 大きいファイルから順にハッシュを計算する
+		List<Long> keys = new ArrayList<Long>();
+		for (Map.Entry<Long, Object> entry : sizes.entrySet()) {
+			if (entry.getValue() instanceof List) {
+				keys.add(entry.getKey());
+			}
+		}
+		Collections.sort(keys, Collections.reverseOrder());
+		for (Long size : keys) {
+			if (cancelFlag) {
+				break;
+			}
+			@SuppressWarnings("unchecked")
+			List<Path> paths = (List<Path>) sizes.remove(size);
+			try {
+				executor.execute(new GroupTask(size, paths));
+			} catch (RejectedExecutionException ex) {
+				break;
+			}
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+
+	private void finish() {
+		endNanos = System.nanoTime();
+		finished = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (FileExplorerDuplicateListener listener : listeners) {
+					listener.fileExplorerDuplicateFinished(FileExplorerDuplicateFinder.this, cancelFlag);
+				}
+			}
+		});
+	}
+
+	private void found(final long aSize, final List<Path> aPaths) {
+		groupCount.incrementAndGet();
+		duplicateBytes.addAndGet(aSize * (aPaths.size() - 1));
+		Collections.sort(aPaths);
+		final List<Path> paths = Collections.unmodifiableList(aPaths);
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (FileExplorerDuplicateListener listener : listeners) {
+					listener.fileExplorerDuplicateFound(FileExplorerDuplicateFinder.this, aSize, paths);
+				}
+			}
+		});
+	}
+
+	/**
+	 * ファイルの先頭・末尾のブロックのハッシュを計算する。
+	 * 
+	 * @param aChannel チャネル
+	 * @param aSize ファイルサイズ(byte)
+	 * @param aDigest ダイジェスト
+	 * @return ハッシュ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	private byte[] hashBlocks(final FileChannel aChannel, final long aSize, final MessageDigest aDigest) throws IOException {
+		ByteBuffer buffer = BUFFERS.get();
+		read(aChannel, buffer, 0, (int) Math.min(BLOCK_SIZE, aSize), aDigest);
+		if (BLOCK_SIZE < aSize) {
+			long position = Math.max(BLOCK_SIZE, aSize - BLOCK_SIZE);
+			read(aChannel, buffer, position, (int) (aSize - position), aDigest);
+		}
+		return aDigest.digest();
+	}
+
+	/**
+	 * ファイル全体のハッシュを計算する。
+	 * 
+	 * @param aChannel チャネル
+	 * @param aSize ファイルサイズ(byte)
+	 * @param aDigest ダイジェスト
+	 * @return ハッシュ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	private byte[] hashAll(final FileChannel aChannel, final long aSize, final MessageDigest aDigest) throws IOException {
+		ByteBuffer buffer = BUFFERS.get();
+		for (long position = 0; position < aSize && !cancelFlag; position += BUFFER_SIZE) {
+			read(aChannel, buffer, position, (int) Math.min(BUFFER_SIZE, aSize - position), aDigest);
+		}
+		return aDigest.digest();
+	}
+
+	private void read(final FileChannel aChannel, final ByteBuffer aBuffer, final long aPosition, final int aLength,
+			final MessageDigest aDigest) throws IOException {
+		aBuffer.clear();
+		aBuffer.limit(aLength);
+		long position = aPosition;
+		while (aBuffer.hasRemaining()) {
+			int count = aChannel.read(aBuffer, position);
+			if (0 > count) {
+				// 検索中に短くなったファイル
+				throw new IOException("truncated");
+			}
+			position += count;
+		}
+		aBuffer.flip();
+		aDigest.update(aBuffer);
+		hashedBytes.addAndGet(aLength);
+	}
+
+	/**
+	 * このクラスは、同じサイズのファイルのハッシュを計算するタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/19
+	 * @author kawakicchi
+	 */
+	private class GroupTask implements Runnable {
+
+		private final long size;
+		private final List<Path> paths;
+
+		public GroupTask(final long aSize, final List<Path> aPaths) {
+			size = aSize;
+			paths = aPaths;
+		}
+
+		@Override
+		public void run() {
+			try {
+				MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+
+				List<Path> files = removeLinks(paths);
+				if (2 > files.size()) {
+					return;
+				}
+				// 先頭・末尾のブロックで絞り込む(ファイル全体を含む場合はそのまま確定)
+				boolean whole = 2 * BLOCK_SIZE >= size;
+				for (List<Path> group : groupByHash(files, false, digest)) {
+					if (whole) {
+						found(size, group);
+					} else {
+						for (List<Path> confirmed : groupByHash(group, true, digest)) {
+							found(size, confirmed);
+						}
+					}
+				}
+			} catch (NoSuchAlgorithmException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		/**
+		 * ハッシュが一致するファイルのグループを取得する。
+		 * 
+		 * @param aPaths ファイル一覧
+		 * @param aAll ファイル全体のハッシュの場合、<code>true</code>
+		 * @param aDigest ダイジェスト
+		 * @return 2件以上のグループ一覧
+		 */
+		private List<List<Path>> groupByHash(final List<Path> aPaths, final boolean aAll, final MessageDigest aDigest) {
+			Map<ByteBuffer, List<Path>> groups = new LinkedHashMap<ByteBuffer, List<Path>>();
+			for (Path path : aPaths) {
+				if (cancelFlag) {
+					return Collections.emptyList();
+				}
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					byte[] hash = (aAll) ? hashAll(channel, size, aDigest) : hashBlocks(channel, size, aDigest);
+					ByteBuffer key = ByteBuffer.wrap(hash);
+					List<Path> group = groups.get(key);
+					if (null == group) {
+						group = new ArrayList<Path>(2);
+						groups.put(key, group);
+					}
+					group.add(path);
+				} catch (IOException ex) {
+					// 読み込めない、または検索中に変更されたファイル
+					aDigest.reset();
+				}
+			}
+			List<List<Path>> result = new ArrayList<List<Path>>();
+			for (List<Path> group : groups.values()) {
+				if (2 <= group.size()) {
+					result.add(group);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * 同じファイルを指すハードリンクを取り除く。
+		 * 
+		 * @param aPaths ファイル一覧
+		 * @return ファイル一覧
+		 */
+		private List<Path> removeLinks(final List<Path> aPaths) {
+			Set<Object> keys = new HashSet<Object>();
+			List<Path> files = new ArrayList<Path>(aPaths.size());
+			for (Path path : aPaths) {
+				try {
+					Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+					if (null == key || keys.add(key)) {
+						files.add(path);
+					}
+				} catch (IOException ex) {
+					// 検索中に削除されたファイル
+				}
+			}
+			return files;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * このインターフェースは、重複ファイルの検索結果を受け取るリスナーインターフェースです。
+ * <p>
+ * 各メソッドはイベントディスパッチスレッドから呼び出されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/19
+ * @author kawakicchi
+ */
+public interface FileExplorerDuplicateListener {
+
+	/**
+	 * 内容が同じファイルのグループが確定した場合に呼び出される。
+	 * 
+	 * @param aFinder 検索
+	 * @param aSize ファイルサイズ(byte)
+	 * @param aPaths ファイル一覧(2件以上)
+	 */
+	public void fileExplorerDuplicateFound(final FileExplorerDuplicateFinder aFinder, final long aSize, final List<Path> aPaths);
+
+	/**
+	 * 検索が完了、またはキャンセルされた場合に呼び出される。
+	 * 
+	 * @param aFinder 検索
+	 * @param aCancelled キャンセルされた場合、<code>true</code>
+	 */
+	public void fileExplorerDuplicateFinished(final FileExplorerDuplicateFinder aFinder, final boolean aCancelled);
+}
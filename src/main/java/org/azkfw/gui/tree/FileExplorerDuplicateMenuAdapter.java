@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.Dialog;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JDialog;
+import javax.swing.JMenuItem;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+/**
+ * このクラスは、ディレクトリのコンテキストメニューに重複ファイルの検索を追加するアダプタ―クラスです。
+ * <p>
+ * {@link FileExplorerTree#addFileExplorerTreeListener(FileExplorerTreeListener)}で登録すると、
+ * 選択したディレクトリ配下の重複ファイルを検索し、結果をダイアログに表示します。ダイアログを閉じると検索はキャンセルされます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/19
+ * @author kawakicchi
+ */
+public class FileExplorerDuplicateMenuAdapter extends FileExplorerTreeAdapter {
+
+	@Override
+	public List<JMenuItem> fileExplorerTreeMenuFile(final FileExplorerTreeEvent event, final File aFile) {
+		// イベントディスパッチスレッドでファイルシステムにアクセスしないよう、読み込み済みの属性で判断する
+		FileExplorerEntry entry = event.getEntry();
+		if (null == entry || !entry.isDirectory()) {
+			return null;
+		}
+		final FileExplorerTree tree = event.getTree();
+		JMenuItem menuDuplicate = new JMenuItem("重複ファイルを検索");
+		menuDuplicate.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent e) {
+				doShowDuplicates(tree, aFile);
+			}
+		});
+
+		List<JMenuItem> menuItems = new ArrayList<JMenuItem>();
+		menuItems.add(menuDuplicate);
+		return menuItems;
+	}
+
+	private void doShowDuplicates(final FileExplorerTree aTree, final File aDirectory) {
+		final FileExplorerDuplicateFinder finder = new FileExplorerDuplicateFinder(aDirectory.toPath());
+		FileExplorerDuplicatePanel panel = new FileExplorerDuplicatePanel();
+		panel.setFinder(finder);
+
+		Window owner = SwingUtilities.getWindowAncestor(aTree);
+		JDialog dialog = new JDialog(owner, "重複ファイル - " + aDirectory.getPath(), Dialog.ModalityType.MODELESS);
+		dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+		dialog.add(panel);
+		dialog.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(final WindowEvent event) {
+				finder.cancel();
+			}
+		});
+		dialog.setSize(640, 480);
+		dialog.setLocationRelativeTo(aTree);
+		dialog.setVisible(true);
+
+		finder.start();
+	}
+}
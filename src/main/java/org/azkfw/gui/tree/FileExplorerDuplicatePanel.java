@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTree;
+import javax.swing.Timer;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * このクラスは、重複ファイルの検索結果を表示するパネルクラスです。
+ * <p>
+ * 内容が同じファイルのグループを確定した順にツリーへ追加し、検索の進捗を{@link #UPDATE_INTERVAL}ミリ秒ごとに表示します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/19
+ * @author kawakicchi
+ */
+public class FileExplorerDuplicatePanel extends JPanel implements FileExplorerDuplicateListener {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = 4617085296541370231L;
+
+	/** 進捗の表示間隔(ミリ秒) */
+	public static final int UPDATE_INTERVAL = 500;
+
+	/** 表示中の検索 */
+	private FileExplorerDuplicateFinder finder;
+
+	private final DefaultMutableTreeNode root;
+	private final DefaultTreeModel model;
+	private final JTree tree;
+	private final JLabel status;
+	/** 進捗の表示タイマー */
+	private final Timer timer;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerDuplicatePanel() {
+		super(new BorderLayout());
+
+		root = new DefaultMutableTreeNode("重複ファイル");
+		model = new DefaultTreeModel(root);
+		tree = new JTree(model);
+		tree.setRootVisible(false);
+		tree.setShowsRootHandles(true);
+		status = new JLabel(" ");
+
+		add(new JScrollPane(tree), BorderLayout.CENTER);
+		add(status, BorderLayout.SOUTH);
+
+		timer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				doUpdateStatus();
+			}
+		});
+	}
+
+	/**
+	 * 表示する検索を設定する。
+	 * <p>
+	 * 表示中の結果は破棄されます。検索の開始前に設定してください。
+	 * </p>
+	 * 
+	 * @param aFinder 検索
+	 */
+	public void setFinder(final FileExplorerDuplicateFinder aFinder) {
+		if (null != finder) {
+			finder.removeListener(this);
+		}
+		finder = aFinder;
+		root.removeAllChildren();
+		model.reload();
+		if (null != finder) {
+			finder.addListener(this);
+			timer.start();
+		} else {
+			timer.stop();
+		}
+		doUpdateStatus();
+	}
+
+	/**
+	 * 表示中の検索を取得する。
+	 * 
+	 * @return 検索
+	 */
+	public FileExplorerDuplicateFinder getFinder() {
+		return finder;
+	}
+
+	/**
+	 * 表示中の重複ファイルのグループ数を取得する。
+	 * 
+	 * @return グループ数
+	 */
+	public int getGroupCount() {
+		return root.getChildCount();
+	}
+
+	@Override
+	public void fileExplorerDuplicateFound(final FileExplorerDuplicateFinder aFinder, final long aSize, final List<Path> aPaths) {
+		if (aFinder != finder) {
+			return;
+		}
+		DefaultMutableTreeNode group = new DefaultMutableTreeNode(String.format("%s × %d", FileExplorerDiskUsage.toDisplaySize(aSize),
+				aPaths.size()));
+		for (Path path : aPaths) {
+			group.add(new DefaultMutableTreeNode(path, false));
+		}
+		boolean first = (0 == root.getChildCount());
+		model.insertNodeInto(group, root, root.getChildCount());
+		if (first) {
+			tree.expandPath(new TreePath(group.getPath()));
+		}
+	}
+
+	@Override
+	public void fileExplorerDuplicateFinished(final FileExplorerDuplicateFinder aFinder, final boolean aCancelled) {
+		if (aFinder != finder) {
+			return;
+		}
+		timer.stop();
+		doUpdateStatus();
+	}
+
+	private void doUpdateStatus() {
+		if (null == finder) {
+			status.setText(" ");
+			return;
+		}
+		String state;
+		if (!finder.isFinished()) {
+			state = "検索中…";
+		} else if (finder.isCancelled()) {
+			state = "キャンセルしました";
+		} else {
+			state = "完了";
+		}
+		status.setText(String.format("%s  %,d ファイル / %,d グループ / 重複 %s / %.1f MB/s", state, finder.getFileCount(),
+				finder.getGroupCount(), FileExplorerDiskUsage.toDisplaySize(finder.getDuplicateBytes()),
+				finder.getThroughput() / (1024.0 * 1024.0)));
+	}
+}
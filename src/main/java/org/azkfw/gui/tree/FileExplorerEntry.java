@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * このクラスは、ディレクトリ一覧取得時のファイル属性のスナップショットを保持するクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/10/27
+ * @author kawakicchi
+ */
+public final class FileExplorerEntry {
+
+	/** ディレクトリ */
+	private static final int FLAG_DIRECTORY = 0x01;
+	/** ファイル */
+	private static final int FLAG_FILE = 0x02;
+	/** 隠しファイル */
+	private static final int FLAG_HIDDEN = 0x04;
+
+	/** name */
+	private final String name;
+	/** flags */
+	private final int flags;
+	/** size (byte) */
+	private final long size;
+	/** last modified (millisecond) */
+	private final long lastModified;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aName 名前
+	 * @param aAttributes 属性
+	 * @param aHidden 隠しファイルの場合、<code>true</code>
+	 */
+	public FileExplorerEntry(final String aName, final BasicFileAttributes aAttributes, final boolean aHidden) {
+		name = aName;
+		int f = 0;
+		if (aAttributes.isDirectory()) {
+			f |= FLAG_DIRECTORY;
+		}
+		if (aAttributes.isRegularFile()) {
+			f |= FLAG_FILE;
+		}
+		if (aHidden) {
+			f |= FLAG_HIDDEN;
+		}
+		flags = f;
+		size = aAttributes.size();
+		lastModified = aAttributes.lastModifiedTime().toMillis();
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aName 名前
+	 * @param aFlags フラグ
+	 * @param aSize サイズ(byte)
+	 * @param aLastModified 最終更新日時(ミリ秒)
+	 */
+	FileExplorerEntry(final String aName, final int aFlags, final long aSize, final long aLastModified) {
+		name = aName;
+		flags = aFlags;
+		size = aSize;
+		lastModified = aLastModified;
+	}
+
+	/**
+	 * 名前を取得する。
+	 * 
+	 * @return 名前
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * ディレクトリか判断する。
+	 * 
+	 * @return ディレクトリの場合、<code>true</code>
+	 */
+	public boolean isDirectory() {
+		return FLAG_DIRECTORY == (flags & FLAG_DIRECTORY);
+	}
+
+	/**
+	 * 通常ファイルか判断する。
+	 * 
+	 * @return 通常ファイルの場合、<code>true</code>
+	 */
+	public boolean isFile() {
+		return FLAG_FILE == (flags & FLAG_FILE);
+	}
+
+	/**
+	 * 隠しファイルか判断する。
+	 * 
+	 * @return 隠しファイルの場合、<code>true</code>
+	 */
+	public boolean isHidden() {
+		return FLAG_HIDDEN == (flags & FLAG_HIDDEN);
+	}
+
+	/**
+	 * サイズを取得する。
+	 * 
+	 * @return サイズ(byte)
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * 最終更新日時を取得する。
+	 * 
+	 * @return 最終更新日時(ミリ秒)
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * フラグを取得する。
+	 * 
+	 * @return フラグ
+	 */
+	int getFlags() {
+		return flags;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
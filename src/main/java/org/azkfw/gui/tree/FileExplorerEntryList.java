@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * このクラスは、ファイル属性一覧を属性ごとの配列で保持するリストクラスです。
+ * <p>
+ * ファイル属性ごとにオブジェクトを保持せず、名前・フラグ・サイズ・最終更新日時をそれぞれ1つの配列に格納します。
+ * {@link #get(int)}は呼び出すたびに新しい{@link FileExplorerEntry}を生成するため、要素の同一性は維持されません。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/04
+ * @author kawakicchi
+ */
+final class FileExplorerEntryList extends AbstractList<FileExplorerEntry> implements RandomAccess {
+
+	/** 名前 */
+	private String[] names;
+	/** フラグ */
+	private byte[] flags;
+	/** サイズ(byte) */
+	private long[] sizes;
+	/** 最終更新日時(ミリ秒) */
+	private long[] lastModifieds;
+	/** 要素数 */
+	private int size;
+	/** 名前の文字数の合計 */
+	private long nameLength;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aEntries ファイル属性一覧
+	 */
+	public FileExplorerEntryList(final Collection<FileExplorerEntry> aEntries) {
+		int capacity = aEntries.size();
+		names = new String[capacity];
+		flags = new byte[capacity];
+		sizes = new long[capacity];
+		lastModifieds = new long[capacity];
+		size = 0;
+		for (FileExplorerEntry entry : aEntries) {
+			set(size++, entry);
+		}
+	}
+
+	/**
+	 * 名前を取得する。
+	 * <p>
+	 * ファイル属性を生成せずに名前のみ参照します。
+	 * </p>
+	 * 
+	 * @param aIndex インデックス
+	 * @return 名前
+	 */
+	public String getName(final int aIndex) {
+		rangeCheck(aIndex);
+		return names[aIndex];
+	}
+
+	/**
+	 * 名前の文字数の合計を取得する。
+	 * 
+	 * @return 文字数
+	 */
+	public long getNameLength() {
+		return nameLength;
+	}
+
+	@Override
+	public FileExplorerEntry get(final int aIndex) {
+		rangeCheck(aIndex);
+		return new FileExplorerEntry(names[aIndex], flags[aIndex], sizes[aIndex], lastModifieds[aIndex]);
+	}
+
+	@Override
+	public FileExplorerEntry set(final int aIndex, final FileExplorerEntry aEntry) {
+		FileExplorerEntry old = (aIndex < size) ? get(aIndex) : null;
+		if (null != names[aIndex]) {
+			nameLength -= names[aIndex].length();
+		}
+		names[aIndex] = aEntry.getName();
+		nameLength += names[aIndex].length();
+		flags[aIndex] = (byte) aEntry.getFlags();
+		sizes[aIndex] = aEntry.getSize();
+		lastModifieds[aIndex] = aEntry.getLastModified();
+		return old;
+	}
+
+	@Override
+	public void add(final int aIndex, final FileExplorerEntry aEntry) {
+		if (aIndex < 0 || aIndex > size) {
+			throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", aIndex, size));
+		}
+		if (size == names.length) {
+			int capacity = Math.max(8, size + (size >> 1));
+			names = Arrays.copyOf(names, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+			lastModifieds = Arrays.copyOf(lastModifieds, capacity);
+		}
+		int moved = size - aIndex;
+		System.arraycopy(names, aIndex, names, aIndex + 1, moved);
+		System.arraycopy(flags, aIndex, flags, aIndex + 1, moved);
+		System.arraycopy(sizes, aIndex, sizes, aIndex + 1, moved);
+		System.arraycopy(lastModifieds, aIndex, lastModifieds, aIndex + 1, moved);
+		names[aIndex] = null;
+		size++;
+		modCount++;
+		set(aIndex, aEntry);
+	}
+
+	@Override
+	public FileExplorerEntry remove(final int aIndex) {
+		FileExplorerEntry old = get(aIndex);
+		removeRange(aIndex, aIndex + 1);
+		return old;
+	}
+
+	@Override
+	protected void removeRange(final int aFromIndex, final int aToIndex) {
+		for (int i = aFromIndex; i < aToIndex; i++) {
+			nameLength -= names[i].length();
+		}
+		int moved = size - aToIndex;
+		System.arraycopy(names, aToIndex, names, aFromIndex, moved);
+		System.arraycopy(flags, aToIndex, flags, aFromIndex, moved);
+		System.arraycopy(sizes, aToIndex, sizes, aFromIndex, moved);
+		System.arraycopy(lastModifieds, aToIndex, lastModifieds, aFromIndex, moved);
+		int newSize = size - (aToIndex - aFromIndex);
+		Arrays.fill(names, newSize, size, null);
+		size = newSize;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void rangeCheck(final int aIndex) {
+		if (aIndex < 0 || aIndex >= size) {
+			throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", aIndex, size));
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * このクラスは、ファイルシステムのルートディレクトリをツリーのルートとして提供するクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/14
+ * @author kawakicchi
+ */
+public class FileExplorerFileSystemRootProvider implements FileExplorerTreeRootProvider {
+
+	/** ファイルシステム */
+	private final FileSystem fileSystem;
+
+	/**
+	 * コンストラクタ
+	 * <p>
+	 * デフォルトのファイルシステムのルートディレクトリを提供します。
+	 * </p>
+	 */
+	public FileExplorerFileSystemRootProvider() {
+		this(FileSystems.getDefault());
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aFileSystem ファイルシステム
+	 */
+	public FileExplorerFileSystemRootProvider(final FileSystem aFileSystem) {
+		fileSystem = aFileSystem;
+	}
+
+	@Override
+	public List<Path> getRoots() {
+		List<Path> roots = new ArrayList<Path>();
+		for (Path root : fileSystem.getRootDirectories()) {
+			roots.add(root);
+		}
+		return roots;
+	}
+}
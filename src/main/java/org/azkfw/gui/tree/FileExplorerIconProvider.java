@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.Component;
+import java.io.File;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * このクラスは、ファイルの種類ごとのシステムアイコンを取得・キャッシュするクラスです。
+ * <p>
+ * アイコンは種類(ドライブ・ディレクトリ・ファイル)と拡張子をキーとして、最大{@link #DEFAULT_CAPACITY}件までLRUでキャッシュします。
+ * キャッシュにないアイコンはバックグラウンドで取得し、取得後に表示先のコンポーネントを再描画します。
+ * システムアイコンがない種類もキャッシュし、描画のたびに再取得しないようにします。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/12
+ * @author kawakicchi
+ */
+public final class FileExplorerIconProvider {
+
+	/** キャッシュするアイコン数の既定値 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/** 種類: ドライブ */
+	public static final String KIND_DRIVE = "drive";
+	/** 種類: ディレクトリ */
+	public static final String KIND_DIRECTORY = "directory";
+	/** 種類: ファイル */
+	public static final String KIND_FILE = "file";
+
+	/** システムアイコンがないことを表すキャッシュの値 */
+	private static final Icon NO_ICON = new ImageIcon();
+
+	/** 同梱リソースのアイコン */
+	private static final Map<String, Icon> RESOURCE_ICONS = new ConcurrentHashMap<String, Icon>();
+
+	/** 種類と拡張子ごとのアイコン(参照順) */
+	private final Map<String, Icon> icons;
+	/** 取得中のキー */
+	private final Set<String> pendings;
+
+	/** アイコン取得用のエグゼキューター */
+	private final ExecutorService executor;
+	/** アクセスの期限を管理するガード(期限を設けない場合、<code>null</code>) */
+	private volatile FileExplorerMountGuard guard;
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerIconProvider() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aCapacity キャッシュするアイコン数
+	 */
+	public FileExplorerIconProvider(final int aCapacity) {
+		icons = new LinkedHashMap<String, Icon>(16, 0.75f, true) {
+			/** serialVersionUID */
+			private static final long serialVersionUID = 3300906462370389428L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Icon> eldest) {
+				return size() > aCapacity;
+			}
+		};
+		pendings = new HashSet<String>();
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerTree-icon");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * アイコン取得時のファイルシステムへのアクセスの期限を管理するガードを設定する。
+	 * 
+	 * @param aGuard ガード
+	 */
+	void setMountGuard(final FileExplorerMountGuard aGuard) {
+		guard = aGuard;
+	}
+
+	/**
+	 * 同梱リソースのアイコンを取得する。
+	 * <p>
+	 * 一度読み込んだアイコンは共有されます。
+	 * </p>
+	 * 
+	 * @param aName クラスパス上のリソース名
+	 * @return アイコン。リソースが存在しない場合、<code>null</code>
+	 */
+	public static Icon getResourceIcon(final String aName) {
+		Icon icon = RESOURCE_ICONS.get(aName);
+		if (null == icon) {
+			URL url = FileExplorerIconProvider.class.getClassLoader().getResource(aName);
+			if (null == url) {
+				return null;
+			}
+			icon = new ImageIcon(url);
+			RESOURCE_ICONS.put(aName, icon);
+		}
+		return icon;
+	}
+
+	/**
+	 * ファイルのアイコンを取得する。
+	 * <p>
+	 * キャッシュにない場合はバックグラウンドで取得を開始し、<code>null</code>を返します。
+	 * 取得が完了すると<code>aComponent</code>を再描画します。
+	 * このメソッドはイベントディスパッチスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aFile ファイル
+	 * @param aKind 種類({@link #KIND_DRIVE}、{@link #KIND_DIRECTORY}、{@link #KIND_FILE}のいずれか)
+	 * @param aComponent 再描画するコンポーネント
+	 * @return アイコン。取得中、またはシステムアイコンがない場合、<code>null</code>
+	 */
+	public Icon getIcon(final File aFile, final String aKind, final Component aComponent) {
+		final String key = toKey(aFile, aKind);
+		synchronized (icons) {
+			Icon icon = icons.get(key);
+			if (null != icon) {
+				hitCount++;
+				return (NO_ICON == icon) ? null : icon;
+			}
+			missCount++;
+			if (!pendings.add(key)) {
+				return null;
+			}
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					Icon icon = null;
+					boolean cache = true;
+					try {
+						icon = readIcon(aFile);
+					} catch (FileExplorerUnavailableException ex) {
+						// 応答しないファイルシステムのアイコンは次回の描画時に再取得する
+						cache = false;
+					} catch (Exception ex) {
+						ex.printStackTrace();
+					}
+					synchronized (icons) {
+						pendings.remove(key);
+						if (cache) {
+							icons.put(key, (null != icon) ? icon : NO_ICON);
+						}
+					}
+					if (null != icon) {
+						SwingUtilities.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+								aComponent.repaint();
+							}
+						});
+					}
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// 破棄済み
+			synchronized (icons) {
+				pendings.remove(key);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * キャッシュからアイコンを取得できた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public long getHitCount() {
+		synchronized (icons) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * キャッシュにアイコンがなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public long getMissCount() {
+		synchronized (icons) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * キャッシュしているアイコン数を取得する。
+	 * 
+	 * @return アイコン数
+	 */
+	public int size() {
+		synchronized (icons) {
+			return icons.size();
+		}
+	}
+
+	/**
+	 * アイコンの取得を終了する。
+	 */
+	public void dispose() {
+		executor.shutdownNow();
+	}
+
+	private Icon readIcon(final File aFile) throws Exception {
+		FileExplorerMountGuard g = guard;
+		if (null == g) {
+			return FileSystemView.getFileSystemView().getSystemIcon(aFile);
+		}
+		return g.call(FileSystems.getDefault().getPath(aFile.getPath()), new Callable<Icon>() {
+			@Override
+			public Icon call() {
+				return FileSystemView.getFileSystemView().getSystemIcon(aFile);
+			}
+		}, null);
+	}
+
+	private static String toKey(final File aFile, final String aKind) {
+		if (KIND_DRIVE.equals(aKind)) {
+			return aKind + ":" + aFile.getPath();
+		}
+		if (KIND_DIRECTORY.equals(aKind)) {
+			return aKind;
+		}
+		String name = aFile.getName();
+		int index = name.lastIndexOf('.');
+		String ext = (0 < index) ? name.substring(index + 1).toLowerCase(Locale.ENGLISH) : "";
+		return aKind + ":" + ext;
+	}
+}
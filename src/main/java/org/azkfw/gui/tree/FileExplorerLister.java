@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * このクラスは、ディレクトリの一覧とファイル属性を一括で取得するクラスです。
+ * <p>
+ * ファイルシステムへの呼び出し回数を計測します。
+ * {@link FileExplorerMountGuard}を指定した場合、ファイルシステムへのアクセスはマウントごとの期限付きで行われます。
+ * 一覧の取得中は呼び出し回数を進捗とし、呼び出しが続いている間はタイムアウトしません。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/10/27
+ * @author kawakicchi
+ */
+final class FileExplorerLister implements FileExplorerMountGuard.Progress {
+
+	/** 名前テーブル */
+	private final FileExplorerNameTable nameTable;
+	/** アクセスの期限を管理するガード */
+	private final FileExplorerMountGuard guard;
+
+	/** ファイルシステムへの呼び出し回数 */
+	private volatile int callCount;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerLister() {
+		this(null, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aNameTable 名前テーブル。<code>null</code>の場合、名前を共有しない
+	 */
+	public FileExplorerLister(final FileExplorerNameTable aNameTable) {
+		this(aNameTable, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aNameTable 名前テーブル。<code>null</code>の場合、名前を共有しない
+	 * @param aGuard アクセスの期限を管理するガード。<code>null</code>の場合、期限を設けない
+	 */
+	public FileExplorerLister(final FileExplorerNameTable aNameTable, final FileExplorerMountGuard aGuard) {
+		nameTable = aNameTable;
+		guard = aGuard;
+		callCount = 0;
+	}
+
+	/**
+	 * ファイルシステムへの呼び出し回数を取得する。
+	 * 
+	 * @return 呼び出し回数
+	 */
+	public int getCallCount() {
+		return callCount;
+	}
+
+	@Override
+	public long getProgress() {
+		return callCount;
+	}
+
+	/**
+	 * ディレクトリの一覧を取得する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return ファイル属性一覧
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 * @throws FileExplorerUnavailableException ファイルシステムが応答しない場合
+	 */
+	public List<FileExplorerEntry> list(final Path aDirectory) throws IOException {
+		if (null == guard) {
+			return doList(aDirectory);
+		}
+		return guard.call(aDirectory, new Callable<List<FileExplorerEntry>>() {
+			@Override
+			public List<FileExplorerEntry> call() throws IOException {
+				return doList(aDirectory);
+			}
+		}, this);
+	}
+
+	/**
+	 * ディレクトリ内のファイルの属性を取得する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aName ファイル名
+	 * @return ファイル属性。ファイルが存在しない場合、<code>null</code>
+	 * @throws FileExplorerUnavailableException ファイルシステムが応答しない場合
+	 */
+	public FileExplorerEntry read(final Path aDirectory, final String aName) throws IOException {
+		if (null == guard) {
+			return doRead(aDirectory, aName);
+		}
+		return guard.call(aDirectory, new Callable<FileExplorerEntry>() {
+			@Override
+			public FileExplorerEntry call() {
+				return doRead(aDirectory, aName);
+			}
+		}, null);
+	}
+
+	/**
+	 * ディレクトリの最終更新日時を取得する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return 最終更新日時(ミリ秒)。取得できない場合、<code>-1</code>
+	 * @throws FileExplorerUnavailableException ファイルシステムが応答しない場合
+	 */
+	public long getLastModified(final Path aDirectory) throws IOException {
+		if (null == guard) {
+			return doGetLastModified(aDirectory);
+		}
+		return guard.call(aDirectory, new Callable<Long>() {
+			@Override
+			public Long call() {
+				return doGetLastModified(aDirectory);
+			}
+		}, null);
+	}
+
+	private List<FileExplorerEntry> doList(final Path aDirectory) throws IOException {
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>();
+
+		boolean dos = isDosFileSystem(aDirectory);
+
+		callCount++;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+			for (Path path : stream) {
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+				String name = intern(path.getFileName().toString());
+
+				BasicFileAttributes attrs = readAttributes(path, dos);
+				if (null == attrs) {
+					continue;
+				}
+				boolean hidden;
+				if (attrs instanceof DosFileAttributes) {
+					hidden = ((DosFileAttributes) attrs).isHidden();
+				} else {
+					hidden = name.startsWith(".");
+				}
+				entries.add(new FileExplorerEntry(name, attrs, hidden));
+			}
+		}
+		return entries;
+	}
+
+	private FileExplorerEntry doRead(final Path aDirectory, final String aName) {
+		boolean dos = isDosFileSystem(aDirectory);
+		BasicFileAttributes attrs = readAttributes(aDirectory.resolve(aName), dos);
+		if (null == attrs) {
+			return null;
+		}
+		boolean hidden;
+		if (attrs instanceof DosFileAttributes) {
+			hidden = ((DosFileAttributes) attrs).isHidden();
+		} else {
+			hidden = aName.startsWith(".");
+		}
+		return new FileExplorerEntry(intern(aName), attrs, hidden);
+	}
+
+	private long doGetLastModified(final Path aDirectory) {
+		try {
+			callCount++;
+			return Files.getLastModifiedTime(aDirectory).toMillis();
+		} catch (IOException ex) {
+			return -1;
+		}
+	}
+
+	private String intern(final String aName) {
+		return (null != nameTable) ? nameTable.intern(aName) : aName;
+	}
+
+	private BasicFileAttributes readAttributes(final Path aPath, final boolean aDos) {
+		Class<? extends BasicFileAttributes> type = (aDos) ? DosFileAttributes.class : BasicFileAttributes.class;
+		try {
+			callCount++;
+			return Files.readAttributes(aPath, type);
+		} catch (IOException ex) {
+			// リンク切れのシンボリックリンク
+			try {
+				callCount++;
+				return Files.readAttributes(aPath, type, LinkOption.NOFOLLOW_LINKS);
+			} catch (IOException ex2) {
+				return null;
+			}
+		}
+	}
+
+	private static boolean isDosFileSystem(final Path aPath) {
+		Set<String> views = aPath.getFileSystem().supportedFileAttributeViews();
+		return views.contains("dos") && !views.contains("posix");
+	}
+}
@@ -0,0 +1,393 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * このクラスは、ディレクトリの一覧をファイルに保存するキャッシュクラスです。
+ * <p>
+ * {@link FileExplorerTree#setListingCache(FileExplorerListingCache)}で設定すると、展開時にキャッシュした子ノードを即座に表示し、
+ * ディレクトリの最終更新日時が異なる場合のみバックグラウンドで読み込んだ一覧との差分を反映します。
+ * </p>
+ * <p>
+ * キャッシュの有効性はディレクトリ自身の最終更新日時のみで判断します。
+ * ファイルの追加・削除・名前の変更はディレクトリの最終更新日時が変わるため検出されますが、
+ * ファイルの内容の変更によるサイズ・最終更新日時の変化はディレクトリの最終更新日時が変わらないため検出されず、
+ * 次にディレクトリが変更されるか再読み込みするまでキャッシュした属性が表示されます。
+ * </p>
+ * <p>
+ * キャッシュファイルは読み込み時にヒープ上のバッファへ一括で読み込み、ディレクトリごとの位置のみ索引に保持します。
+ * 一覧は参照された時点でデコードされます。ファイルはメモリマップしないため、保存時に置き換えることができます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/11
+ * @author kawakicchi
+ */
+public final class FileExplorerListingCache {
+
+	/** ファイル識別子 ("AZFC") */
+	private static final int MAGIC = 0x415A4643;
+	/** ファイル形式のバージョン */
+	private static final int VERSION = 1;
+	/** ディレクトリごとのレコードの最小バイト数(パスの長さ・最終更新日時・ファイル数・一覧の長さ) */
+	private static final int RECORD_MIN_BYTES = 4 + 8 + 4 + 4;
+	/** ファイルごとの最小バイト数(名前の長さ・フラグ・サイズ・最終更新日時) */
+	private static final int ENTRY_MIN_BYTES = 4 + 1 + 8 + 8;
+
+	/** 保持するディレクトリ数の既定値 */
+	public static final int DEFAULT_MAX_DIRECTORIES = 4096;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** キャッシュファイル */
+	private final File file;
+	/** 保持するディレクトリ数 */
+	private final int maxDirectories;
+
+	/** ディレクトリごとの一覧、またはマップ上の位置(参照順) */
+	private final Map<String, Object> records;
+	/** 読み込んだキャッシュファイルの内容 */
+	private ByteBuffer buffer;
+
+	private long hitCount;
+	private long missCount;
+	/** 読み込みに要した時間(ナノ秒) */
+	private long loadNanos;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aFile キャッシュファイル
+	 */
+	public FileExplorerListingCache(final File aFile) {
+		this(aFile, DEFAULT_MAX_DIRECTORIES);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aFile キャッシュファイル
+	 * @param aMaxDirectories 保持するディレクトリ数。超えた場合、参照の古いディレクトリから破棄する
+	 */
+	public FileExplorerListingCache(final File aFile, final int aMaxDirectories) {
+		file = aFile;
+		maxDirectories = aMaxDirectories;
+		records = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+			/** serialVersionUID */
+			private static final long serialVersionUID = -5101361539307338913L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Object> eldest) {
+				return size() > maxDirectories;
+			}
+		};
+	}
+
+	/**
+	 * キャッシュファイルを読み込む。
+	 * <p>
+	 * ファイルが存在しない、または形式が異なる場合は空のキャッシュになります。
+	 * </p>
+	 * 
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public synchronized void load() throws IOException {
+		long start = System.nanoTime();
+		records.clear();
+		buffer = null;
+		if (file.isFile() && file.length() <= Integer.MAX_VALUE) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+				// メモリマップしたファイルは保存時に置き換えられないため、ヒープ上に読み込む
+				ByteBuffer map = ByteBuffer.allocate((int) channel.size());
+				while (map.hasRemaining() && -1 != channel.read(map)) {
+				}
+				map.flip();
+				try {
+					if (MAGIC == map.getInt() && VERSION == map.getInt()) {
+						int count = getLength(map, RECORD_MIN_BYTES);
+						for (int i = 0; i < count; i++) {
+							int position = map.position();
+							String path = getString(map);
+							map.getLong();
+							int entryCount = map.getInt();
+							int length = getLength(map, 1);
+							if (0 > entryCount || length / ENTRY_MIN_BYTES < entryCount) {
+								throw new BufferUnderflowException();
+							}
+							map.position(map.position() + length);
+							records.put(path, position);
+						}
+						buffer = map;
+					}
+				} catch (BufferUnderflowException | IllegalArgumentException ex) {
+					// 破損したキャッシュファイルは読み込まない
+					records.clear();
+				}
+			}
+		}
+		loadNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * キャッシュファイルに保存する。
+	 * 
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public synchronized void save() throws IOException {
+		List<Map.Entry<String, Listing>> lst = new ArrayList<Map.Entry<String, Listing>>(records.size());
+		for (Map.Entry<String, Object> entry : records.entrySet()) {
+			Listing listing = decode(entry.getValue(), null);
+			if (null != listing) {
+				lst.add(new AbstractMap.SimpleEntry<String, Listing>(entry.getKey(), listing));
+			}
+		}
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (null != parent && !parent.isDirectory()) {
+			parent.mkdirs();
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(lst.size());
+			for (Map.Entry<String, Listing> entry : lst) {
+				Listing listing = entry.getValue();
+				byte[] path = entry.getKey().getBytes(UTF8);
+				out.writeInt(path.length);
+				out.write(path);
+				out.writeLong(listing.modified);
+				out.writeInt(listing.entries.size());
+				int length = 0;
+				List<byte[]> names = new ArrayList<byte[]>(listing.entries.size());
+				for (FileExplorerEntry e : listing.entries) {
+					byte[] name = e.getName().getBytes(UTF8);
+					names.add(name);
+					length += 4 + name.length + 1 + 8 + 8;
+				}
+				out.writeInt(length);
+				for (int i = 0; i < names.size(); i++) {
+					FileExplorerEntry e = listing.entries.get(i);
+					out.writeInt(names.get(i).length);
+					out.write(names.get(i));
+					out.writeByte(e.getFlags());
+					out.writeLong(e.getSize());
+					out.writeLong(e.getLastModified());
+				}
+			}
+		}
+
+		// 保存した一覧はメモリ上に保持し、古いマップは参照しない
+		records.clear();
+		for (Map.Entry<String, Listing> entry : lst) {
+			records.put(entry.getKey(), entry.getValue());
+		}
+		buffer = null;
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * キャッシュを空にする。
+	 */
+	public synchronized void clear() {
+		records.clear();
+		buffer = null;
+	}
+
+	/**
+	 * キャッシュしているディレクトリ数を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public synchronized int getDirectoryCount() {
+		return records.size();
+	}
+
+	/**
+	 * キャッシュから一覧を取得できた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * キャッシュに一覧がなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * 直近の{@link #load()}に要した時間を取得する。
+	 * 
+	 * @return 時間(ミリ秒)
+	 */
+	public synchronized long getLoadTime() {
+		return loadNanos / 1000000;
+	}
+
+	/**
+	 * キャッシュした一覧を取得する。
+	 * <p>
+	 * このメソッドはローダーのスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aNameTable 名前テーブル
+	 * @return 一覧。キャッシュしていない場合、<code>null</code>
+	 */
+	synchronized Listing get(final Path aDirectory, final FileExplorerNameTable aNameTable) {
+		String key = toKey(aDirectory);
+		Listing listing = decode(records.get(key), aNameTable);
+		if (null == listing) {
+			records.remove(key);
+			missCount++;
+		} else {
+			records.put(key, listing);
+			hitCount++;
+		}
+		return listing;
+	}
+
+	/**
+	 * 一覧をキャッシュする。
+	 * <p>
+	 * このメソッドはローダーのスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aModified ディレクトリの最終更新日時(ミリ秒)
+	 * @param aEntries 一覧
+	 */
+	synchronized void put(final Path aDirectory, final long aModified, final List<FileExplorerEntry> aEntries) {
+		records.put(toKey(aDirectory), new Listing(aModified, new ArrayList<FileExplorerEntry>(aEntries)));
+	}
+
+	private static String toKey(final Path aDirectory) {
+		return aDirectory.toAbsolutePath().toString();
+	}
+
+	private Listing decode(final Object aRecord, final FileExplorerNameTable aNameTable) {
+		if (aRecord instanceof Listing) {
+			return (Listing) aRecord;
+		}
+		if (!(aRecord instanceof Integer) || null == buffer) {
+			return null;
+		}
+		ByteBuffer map = buffer.duplicate();
+		map.position((Integer) aRecord);
+		try {
+			getString(map);
+			long modified = map.getLong();
+			int count = map.getInt();
+			map.getInt();
+			List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(count);
+			for (int i = 0; i < count; i++) {
+				String name = getString(map);
+				if (null != aNameTable) {
+					name = aNameTable.intern(name);
+				}
+				int flags = map.get();
+				long size = map.getLong();
+				long lastModified = map.getLong();
+				entries.add(new FileExplorerEntry(name, flags, size, lastModified));
+			}
+			return new Listing(modified, entries);
+		} catch (BufferUnderflowException ex) {
+			// 破損した一覧はキャッシュしていないものとして扱う
+			return null;
+		}
+	}
+
+	private static String getString(final ByteBuffer aBuffer) {
+		byte[] bytes = new byte[getLength(aBuffer, 1)];
+		aBuffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	/**
+	 * 長さを読み込む。
+	 * <p>
+	 * 破損したファイルで巨大な配列を確保しないよう、長さがバッファの残りに収まることを確認します。
+	 * </p>
+	 * 
+	 * @param aBuffer バッファ
+	 * @param aUnit 要素あたりの最小バイト数
+	 * @return 長さ
+	 * @throws BufferUnderflowException 長さが負、またはバッファの残りに収まらない場合
+	 */
+	private static int getLength(final ByteBuffer aBuffer, final int aUnit) {
+		int length = aBuffer.getInt();
+		if (0 > length || aBuffer.remaining() / aUnit < length) {
+			throw new BufferUnderflowException();
+		}
+		return length;
+	}
+
+	/**
+	 * このクラスは、キャッシュしたディレクトリの一覧を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/11
+	 * @author kawakicchi
+	 */
+	static final class Listing {
+
+		/** ディレクトリの最終更新日時(ミリ秒) */
+		private final long modified;
+		/** 一覧 */
+		private final List<FileExplorerEntry> entries;
+
+		public Listing(final long aModified, final List<FileExplorerEntry> aEntries) {
+			modified = aModified;
+			entries = Collections.unmodifiableList(aEntries);
+		}
+
+		public long getModified() {
+			return modified;
+		}
+
+		public List<FileExplorerEntry> getEntries() {
+			return entries;
+		}
+	}
+}
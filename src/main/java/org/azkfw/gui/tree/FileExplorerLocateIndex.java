@@ -0,0 +1,1696 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、指定したルート配下のすべてのファイル名を索引化し、名前で検索するクラスです。
+ * <p>
+ * {@link #start()}でルート配下を並列に巡回し、シンボリックリンクをたどらずにすべてのファイル・ディレクトリを登録します。
+ * 索引は親の番号と名前の番号の配列、重複を除いた名前の文字配列、名前ごとの小文字のトライグラム(連続する3文字)の転置リストで構成され、
+ * ファイルを指定した場合は巡回の完了時に保存し、{@link #load()}で読み込めます。
+ * </p>
+ * <p>
+ * 巡回したディレクトリは監視対象に登録され、以降の変更は差分として索引に反映されます。
+ * 差分が{@link #COMPACT_THRESHOLD}件を超えた場合はバックグラウンドで索引を作り直します。
+ * OSの監視数の上限を超えたディレクトリの変更は、次の{@link #start()}まで反映されません。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/22
+ * @author kawakicchi
+ */
+public final class FileExplorerLocateIndex {
+
+	/** ファイル識別子 ("AZLI") */
+	private static final int MAGIC = 0x415A4C49;
+	/** ファイル形式のバージョン */
+	private static final int VERSION = 1;
+
+	/** 検索結果の件数の既定値 */
+	public static final int DEFAULT_LIMIT = 1000;
+	/** 索引を作り直す差分の件数 */
+	public static final int COMPACT_THRESHOLD = 65536;
+
+	/** フラグ: ディレクトリ */
+	private static final byte FLAG_DIRECTORY = 0x01;
+
+	/** 巡回用のプール */
+	private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+	/** ルートディレクトリ */
+	private final Path[] roots;
+	/** 索引ファイル(保存しない場合、<code>null</code>) */
+	private final File file;
+	private final List<FileExplorerLocateListener> listeners;
+	/** ディレクトリの監視 */
+	private final FileExplorerWatcher watcher;
+	/** 保存時のロック */
+	private final Object saveLock;
+
+	/** 索引 */
+	private Snapshot snapshot;
+	/** 索引から削除されたファイル・ディレクトリの番号 */
+	private BitSet deleted;
+	/** 索引に追加されたファイル・ディレクトリ */
+	private final Map<Path, Added> added;
+	/** 作り直し中に変更されたディレクトリ(作り直し中でない場合、<code>null</code>) */
+	private Set<Path> touched;
+	/** 作り直しの世代 */
+	private int generation;
+
+	private ForkJoinTask<?> task;
+	private volatile boolean cancelFlag;
+	private volatile boolean finished;
+
+	/** 巡回したファイル・ディレクトリ数 */
+	private final AtomicLong crawledCount;
+	private volatile long startNanos;
+	private volatile long endNanos;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aRoots ルートディレクトリ一覧(互いに重ならないこと)
+	 */
+	public FileExplorerLocateIndex(final List<Path> aRoots) {
+		this(aRoots, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aRoots ルートディレクトリ一覧(互いに重ならないこと)
+	 * @param aFile 索引ファイル。<code>null</code>の場合、保存しない
+	 */
+	public FileExplorerLocateIndex(final List<Path> aRoots, final File aFile) {
+		roots = new Path[aRoots.size()];
+		for (int i = 0; i < roots.length; i++) {
+			roots[i] = aRoots.get(i).toAbsolutePath().normalize();
+		}
+		file = aFile;
+		listeners = new CopyOnWriteArrayList<FileExplorerLocateListener>();
+		saveLock = new Object();
+		snapshot = new Builder(roots).build();
+		deleted = new BitSet();
+		added = new HashMap<Path, Added>();
+		crawledCount = new AtomicLong(0);
+		watcher = new FileExplorerWatcher(new FileExplorerWatcher.Callback() {
+			@Override
+			public void fileExplorerWatcherChanged(final Path aDirectory, final Set<String> aNames, final boolean aOverflow) {
+				if (update(aDirectory, aNames, aOverflow)) {
+					fireUpdated();
+				}
+			}
+		});
+	}
+
+	/**
+	 * リスナーを追加する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void addListener(final FileExplorerLocateListener aListener) {
+		listeners.add(aListener);
+	}
+
+	/**
+	 * リスナーを削除する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void removeListener(final FileExplorerLocateListener aListener) {
+		listeners.remove(aListener);
+	}
+
+	/**
+	 * ルートディレクトリ一覧を取得する。
+	 * 
+	 * @return ルートディレクトリ一覧
+	 */
+	public List<Path> getRoots() {
+		return Collections.unmodifiableList(Arrays.asList(roots));
+	}
+
+	/**
+	 * 索引ファイルを読み込む。
+	 * <p>
+	 * 保存後の変更は反映されないため、読み込み後に{@link #start()}で巡回し直してください。巡回中も読み込んだ索引で検索できます。
+	 * </p>
+	 * 
+	 * @return 読み込んだ場合、<code>true</code>。ファイルが存在しない、形式またはルートディレクトリが異なる場合、<code>false</code>
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public boolean load() throws IOException {
+		if (null == file || !file.isFile()) {
+			return false;
+		}
+		Snapshot loaded = null;
+		synchronized (saveLock) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+				MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				try {
+					if (MAGIC == map.getInt() && VERSION == map.getInt()) {
+						loaded = Snapshot.read(map, roots);
+					}
+				} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+						| NegativeArraySizeException ex) {
+					// 破損した索引ファイルは読み込まない
+				}
+			}
+		}
+		if (null == loaded) {
+			return false;
+		}
+		replace(loaded);
+		return true;
+	}
+
+	/**
+	 * 巡回せずに、ファイル・ディレクトリを登録した作成処理から索引を作成して置き換える。
+	 * <p>
+	 * ファイルシステムを使用せずに大量の索引を検索する計測用です。監視には登録しません。
+	 * </p>
+	 * 
+	 * @param aBuilder 作成処理
+	 */
+	void replace(final Builder aBuilder) {
+		replace(aBuilder.build());
+	}
+
+	private synchronized void replace(final Snapshot aSnapshot) {
+		generation++;
+		snapshot = aSnapshot;
+		deleted = new BitSet();
+		added.clear();
+	}
+
+	/**
+	 * 索引ファイルに保存する。
+	 * <p>
+	 * 監視により反映した差分は保存されません。
+	 * </p>
+	 * 
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public void save() throws IOException {
+		if (null == file) {
+			return;
+		}
+		Snapshot s;
+		synchronized (this) {
+			s = snapshot;
+		}
+		synchronized (saveLock) {
+			File parent = file.getAbsoluteFile().getParentFile();
+			if (null != parent && !parent.isDirectory()) {
+				parent.mkdirs();
+			}
+			File tmp = new File(file.getPath() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 256 * 1024))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				s.write(out);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * ルートディレクトリ配下の巡回を開始する。
+	 * <p>
+	 * 巡回中も直前の索引で検索できます。巡回が完了した時点で索引を置き換え、索引ファイルを指定した場合は保存します。
+	 * 巡回中の場合、何もしません。
+	 * </p>
+	 */
+	public synchronized void start() {
+		if (null != task && !task.isDone()) {
+			return;
+		}
+		cancelFlag = false;
+		finished = false;
+		crawledCount.set(0);
+		startNanos = System.nanoTime();
+		final int gen = ++generation;
+		touched = new LinkedHashSet<Path>();
+		task = POOL.submit(new RecursiveAction() {
+			/** serialVersionUID */
+			private static final long serialVersionUID = -3954016432474364553L;
+
+			@Override
+			protected void compute() {
+				boolean swapped = false;
+				try {
+					Builder builder = new Builder(roots);
+					List<CrawlTask> tasks = new ArrayList<CrawlTask>(roots.length);
+					for (int i = 0; i < roots.length; i++) {
+						tasks.add(new CrawlTask(builder, i, roots[i]));
+					}
+					invokeAll(tasks);
+					if (!cancelFlag) {
+						swapped = swap(gen, builder.build());
+					}
+				} catch (Exception ex) {
+					ex.printStackTrace();
+				} finally {
+					synchronized (FileExplorerLocateIndex.this) {
+						if (!swapped && gen == generation) {
+							touched = null;
+						}
+					}
+				}
+				if (swapped) {
+					try {
+						save();
+					} catch (IOException ex) {
+						ex.printStackTrace();
+					}
+				}
+				finish();
+			}
+		});
+	}
+
+	/**
+	 * 巡回をキャンセルする。
+	 * <p>
+	 * 直前の索引は維持されます。
+	 * </p>
+	 */
+	public void cancel() {
+		cancelFlag = true;
+	}
+
+	/**
+	 * 巡回をキャンセルしたか判断する。
+	 * 
+	 * @return キャンセルした場合、<code>true</code>
+	 */
+	public boolean isCancelled() {
+		return cancelFlag;
+	}
+
+	/**
+	 * 巡回が終了したか判断する。
+	 * 
+	 * @return 完了、またはキャンセルにより終了した場合、<code>true</code>
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * 巡回と監視を終了する。
+	 */
+	public void dispose() {
+		cancel();
+		watcher.close();
+	}
+
+	/**
+	 * 名前に文字列を含むファイル・ディレクトリを検索する。
+	 * <p>
+	 * 大文字・小文字は区別しません。最大{@link #DEFAULT_LIMIT}件を返します。
+	 * </p>
+	 * 
+	 * @param aText 文字列
+	 * @return パス一覧
+	 */
+	public List<Path> find(final String aText) {
+		return find(new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, aText), DEFAULT_LIMIT);
+	}
+
+	/**
+	 * 名前が条件に一致するファイル・ディレクトリを検索する。
+	 * <p>
+	 * 条件に含まれる文字列のトライグラムの転置リストを短い順に照合して候補を絞り込み、最大件数に達した時点で打ち切ります。
+	 * 文字列が2文字以下の場合はその文字列を含むトライグラムの転置リストから候補を求めます。
+	 * 同じ名前のファイルはまとめて照合されます。文字列を特定できない正規表現はすべての名前を照合します。
+	 * </p>
+	 * 
+	 * @param aFilter 条件
+	 * @param aLimit 最大件数
+	 * @return パス一覧
+	 */
+	public List<Path> find(final FileExplorerTreeFilter aFilter, final int aLimit) {
+		final Snapshot s;
+		final BitSet del;
+		List<Added> adds;
+		synchronized (this) {
+			s = snapshot;
+			del = (BitSet) deleted.clone();
+			adds = new ArrayList<Added>(added.values());
+		}
+
+		final List<Path> result = new ArrayList<Path>();
+		final List<String> literals = aFilter.getLiterals();
+		final boolean substring = FileExplorerTreeFilter.Mode.SUBSTRING == aFilter.getMode();
+		if (0 < aLimit) {
+			s.visitCandidates(literals, new NameVisitor() {
+				@Override
+				public boolean visit(final int aNameId) {
+					for (String literal : literals) {
+						if (!s.contains(aNameId, literal)) {
+							return true;
+						}
+					}
+					if (!substring) {
+						String name = s.getName(aNameId);
+						if (!aFilter.matches(name.toLowerCase(Locale.ENGLISH), name)) {
+							return true;
+						}
+					}
+					for (int i = s.nameEntryStarts[aNameId]; i < s.nameEntryStarts[aNameId + 1] && result.size() < aLimit; i++) {
+						int id = s.nameEntries[i];
+						if (0 <= s.parents[id] && s.isVisible(id, del)) {
+							result.add(s.getPath(id));
+						}
+					}
+					return result.size() < aLimit;
+				}
+			});
+		}
+		for (Iterator<Added> it = adds.iterator(); it.hasNext() && result.size() < aLimit;) {
+			Added a = it.next();
+			if (aFilter.matches(a.lowerName, a.name)) {
+				result.add(a.path);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 索引に登録されているファイル・ディレクトリ数を取得する。
+	 * <p>
+	 * 監視により削除したディレクトリ配下のファイルを含む概数です。
+	 * </p>
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public synchronized int getEntryCount() {
+		return snapshot.size() - roots.length - deleted.cardinality() + added.size();
+	}
+
+	/**
+	 * 索引に登録されている異なる名前の数を取得する。
+	 * 
+	 * @return 名前の数
+	 */
+	public synchronized int getNameCount() {
+		return snapshot.getNameCount();
+	}
+
+	/**
+	 * 監視により反映した差分の件数を取得する。
+	 * 
+	 * @return 件数
+	 */
+	public synchronized int getPendingCount() {
+		return deleted.cardinality() + added.size();
+	}
+
+	/**
+	 * 監視中のディレクトリ数を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public int getWatchCount() {
+		return watcher.getWatchCount();
+	}
+
+	/**
+	 * 巡回したファイル・ディレクトリ数を取得する。
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getCrawledCount() {
+		return crawledCount.get();
+	}
+
+	/**
+	 * 巡回に要した時間を取得する。
+	 * 
+	 * @return 時間(ミリ秒)。巡回中の場合、開始からの経過時間
+	 */
+	public long getElapsedTime() {
+		if (0 == startNanos) {
+			return 0;
+		}
+		long end = (finished) ? endNanos : System.nanoTime();
+		return (end - startNanos) / 1000000;
+	}
+
+	/**
+	 * 1秒あたりに巡回したファイル・ディレクトリ数を取得する。
+	 * 
+	 * @return ファイル・ディレクトリ数
+	 */
+	public long getThroughput() {
+		long elapsed = getElapsedTime();
+		return (0 < elapsed) ? crawledCount.get() * 1000 / elapsed : 0;
+	}
+
+	private void finish() {
+		endNanos = System.nanoTime();
+		finished = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (FileExplorerLocateListener listener : listeners) {
+					listener.fileExplorerLocateFinished(FileExplorerLocateIndex.this, cancelFlag);
+				}
+			}
+		});
+	}
+
+	private void fireUpdated() {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (FileExplorerLocateListener listener : listeners) {
+					listener.fileExplorerLocateUpdated(FileExplorerLocateIndex.this);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 作り直した索引に置き換え、作り直し中に変更されたディレクトリを反映し直す。
+	 * 
+	 * @param aGeneration 作り直しの世代
+	 * @param aSnapshot 索引
+	 * @return 置き換えた場合、<code>true</code>。新しい作り直しが始まっていた場合、<code>false</code>
+	 */
+	private boolean swap(final int aGeneration, final Snapshot aSnapshot) {
+		Set<Path> dirs;
+		synchronized (this) {
+			if (aGeneration != generation) {
+				return false;
+			}
+			snapshot = aSnapshot;
+			deleted = new BitSet();
+			added.clear();
+			dirs = touched;
+			touched = null;
+		}
+		boolean changed = false;
+		for (Path dir : dirs) {
+			changed |= update(dir, Collections.<String> emptySet(), true);
+		}
+		if (changed) {
+			fireUpdated();
+		}
+		return true;
+	}
+
+	/**
+	 * ディレクトリの変更を索引に反映する。
+	 * <p>
+	 * このメソッドは監視のスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aNames 変更されたファイル名
+	 * @param aOverflow 変更を取りこぼした場合、<code>true</code>(ディレクトリ全体を読み込み直す)
+	 * @return 索引を変更した場合、<code>true</code>
+	 */
+	private boolean update(final Path aDirectory, final Set<String> aNames, final boolean aOverflow) {
+		Set<String> names = new LinkedHashSet<String>(aNames);
+		synchronized (this) {
+			if (null != touched) {
+				touched.add(aDirectory);
+			}
+			if (aOverflow) {
+				names.addAll(getChildNames(aDirectory));
+			}
+		}
+		if (aOverflow) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+				for (Path path : stream) {
+					names.add(path.getFileName().toString());
+				}
+			} catch (IOException ex) {
+				// 削除されたディレクトリ
+			}
+		}
+
+		boolean changed = false;
+		List<Path> createds = new ArrayList<Path>();
+		for (String name : names) {
+			Path path = aDirectory.resolve(name);
+			BasicFileAttributes attrs = readAttributes(path);
+			synchronized (this) {
+				if (null == attrs) {
+					int id = snapshot.find(path);
+					if (0 <= id && !deleted.get(id)) {
+						deleted.set(id);
+						changed = true;
+					}
+					changed |= removeAdded(path);
+				} else if (addIfAbsent(path, attrs.isDirectory())) {
+					changed = true;
+					if (attrs.isDirectory()) {
+						createds.add(path);
+					}
+				}
+			}
+		}
+		// 追加されたディレクトリは配下を巡回して監視する
+		for (Path dir : createds) {
+			try {
+				Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult preVisitDirectory(final Path aDir, final BasicFileAttributes aAttrs) {
+						watcher.register(aDir);
+						synchronized (FileExplorerLocateIndex.this) {
+							addIfAbsent(aDir, true);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFile(final Path aFile, final BasicFileAttributes aAttrs) {
+						synchronized (FileExplorerLocateIndex.this) {
+							addIfAbsent(aFile, aAttrs.isDirectory());
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(final Path aFile, final IOException ex) {
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+		if (changed) {
+			compactIfNeeded();
+		}
+		return changed;
+	}
+
+	/**
+	 * 索引にないパスを差分として追加する。
+	 * 
+	 * @param aPath パス
+	 * @param aDirectory ディレクトリの場合、<code>true</code>
+	 * @return 追加した場合、<code>true</code>
+	 */
+	private boolean addIfAbsent(final Path aPath, final boolean aDirectory) {
+		if (added.containsKey(aPath)) {
+			return false;
+		}
+		int id = snapshot.find(aPath);
+		if (0 <= id && snapshot.isVisible(id, deleted)) {
+			return false;
+		}
+		added.put(aPath, new Added(aPath, aDirectory));
+		return true;
+	}
+
+	/**
+	 * 差分として追加したパスを配下も含めて削除する。
+	 * 
+	 * @param aPath パス
+	 * @return 削除した場合、<code>true</code>
+	 */
+	private boolean removeAdded(final Path aPath) {
+		Added a = added.remove(aPath);
+		if (null == a) {
+			return false;
+		}
+		if (a.directory) {
+			for (Iterator<Path> it = added.keySet().iterator(); it.hasNext();) {
+				if (it.next().startsWith(aPath)) {
+					it.remove();
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 索引に登録されているディレクトリ直下の名前を取得する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return 名前一覧
+	 */
+	private Set<String> getChildNames(final Path aDirectory) {
+		Set<String> names = new LinkedHashSet<String>();
+		int id = snapshot.find(aDirectory);
+		if (0 <= id) {
+			int k = Arrays.binarySearch(snapshot.dirIds, id);
+			if (0 <= k) {
+				for (int i = snapshot.dirStarts[k]; i < snapshot.dirStarts[k] + snapshot.dirCounts[k]; i++) {
+					if (!deleted.get(i)) {
+						names.add(snapshot.getName(snapshot.nameIds[i]));
+					}
+				}
+			}
+		}
+		for (Added a : added.values()) {
+			if (aDirectory.equals(a.path.getParent())) {
+				names.add(a.name);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * 差分が{@link #COMPACT_THRESHOLD}件を超えた場合、バックグラウンドで索引と差分をまとめて作り直す。
+	 */
+	private synchronized void compactIfNeeded() {
+		if (null != touched || COMPACT_THRESHOLD >= added.size() + deleted.cardinality()) {
+			return;
+		}
+		final int gen = ++generation;
+		touched = new LinkedHashSet<Path>();
+		final Snapshot s = snapshot;
+		final BitSet del = (BitSet) deleted.clone();
+		final List<Added> adds = new ArrayList<Added>(added.values());
+		POOL.execute(new Runnable() {
+			@Override
+			public void run() {
+				boolean swapped = false;
+				try {
+					swapped = swap(gen, merge(s, del, adds));
+				} catch (Exception ex) {
+					ex.printStackTrace();
+				} finally {
+					synchronized (FileExplorerLocateIndex.this) {
+						if (!swapped && gen == generation) {
+							touched = null;
+						}
+					}
+				}
+				if (swapped) {
+					try {
+						save();
+					} catch (IOException ex) {
+						ex.printStackTrace();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 索引と差分をまとめた索引を作成する。
+	 * 
+	 * @param aSnapshot 索引
+	 * @param aDeleted 削除されたファイル・ディレクトリの番号
+	 * @param aAdded 追加されたファイル・ディレクトリ
+	 * @return 索引
+	 */
+	private Snapshot merge(final Snapshot aSnapshot, final BitSet aDeleted, final Collection<Added> aAdded) {
+		Map<Path, List<Added>> addeds = new HashMap<Path, List<Added>>();
+		for (Added a : aAdded) {
+			List<Added> lst = addeds.get(a.path.getParent());
+			if (null == lst) {
+				lst = new ArrayList<Added>();
+				addeds.put(a.path.getParent(), lst);
+			}
+			lst.add(a);
+		}
+
+		Builder builder = new Builder(roots);
+		ArrayDeque<MergeItem> stack = new ArrayDeque<MergeItem>();
+		for (int i = 0; i < roots.length; i++) {
+			stack.push(new MergeItem(i, i, roots[i]));
+		}
+		while (!stack.isEmpty()) {
+			MergeItem item = stack.pop();
+			List<Child> children = new ArrayList<Child>();
+			int k = (0 <= item.source) ? Arrays.binarySearch(aSnapshot.dirIds, item.source) : -1;
+			if (0 <= k) {
+				for (int i = aSnapshot.dirStarts[k]; i < aSnapshot.dirStarts[k] + aSnapshot.dirCounts[k]; i++) {
+					if (!aDeleted.get(i)) {
+						children.add(new Child(aSnapshot.getName(aSnapshot.nameIds[i]), aSnapshot.isDirectory(i), i));
+					}
+				}
+			}
+			List<Added> lst = addeds.get(item.path);
+			if (null != lst) {
+				for (Added a : lst) {
+					children.add(new Child(a.name, a.directory, -1));
+				}
+			}
+			if (0 == children.size()) {
+				continue;
+			}
+			Collections.sort(children);
+			int start = builder.add(item.target, children);
+			for (int i = 0; i < children.size(); i++) {
+				Child child = children.get(i);
+				if (child.directory) {
+					stack.push(new MergeItem(child.source, start + i, item.path.resolve(child.name)));
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static BasicFileAttributes readAttributes(final Path aPath) {
+		try {
+			return Files.readAttributes(aPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * このインターフェースは、検索の候補となる名前を受け取るインターフェースです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private static interface NameVisitor {
+
+		/**
+		 * 候補となる名前を受け取る。
+		 * 
+		 * @param aNameId 名前の番号
+		 * @return 続ける場合、<code>true</code>
+		 */
+		public boolean visit(final int aNameId);
+	}
+
+	/**
+	 * このクラスは、ディレクトリ一つ分を索引に登録し、子ディレクトリのタスクを分岐するタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private class CrawlTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 2213446407380683563L;
+
+		private final Builder builder;
+		/** ディレクトリの番号 */
+		private final int id;
+		private final Path path;
+
+		public CrawlTask(final Builder aBuilder, final int aId, final Path aPath) {
+			builder = aBuilder;
+			id = aId;
+			path = aPath;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelFlag) {
+				return;
+			}
+			// 一覧の取得中の変更を取りこぼさないよう、先に監視を開始する
+			watcher.register(path);
+			List<Child> children = new ArrayList<Child>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+				for (Path child : stream) {
+					if (cancelFlag) {
+						return;
+					}
+					BasicFileAttributes attrs = readAttributes(child);
+					if (null != attrs) {
+						children.add(new Child(child.getFileName().toString(), attrs.isDirectory(), -1));
+					}
+				}
+			} catch (IOException ex) {
+				// アクセスできないディレクトリ
+			}
+			crawledCount.addAndGet(children.size());
+			if (0 == children.size()) {
+				return;
+			}
+			Collections.sort(children);
+			int start = builder.add(id, children);
+			List<CrawlTask> tasks = new ArrayList<CrawlTask>();
+			for (int i = 0; i < children.size(); i++) {
+				Child child = children.get(i);
+				if (child.directory) {
+					tasks.add(new CrawlTask(builder, start + i, path.resolve(child.name)));
+				}
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * このクラスは、索引に登録するディレクトリ直下のファイル・ディレクトリを保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	static final class Child implements Comparable<Child> {
+
+		private final String name;
+		private final boolean directory;
+		/** 作り直し前の番号(ない場合、<code>-1</code>) */
+		private final int source;
+
+		public Child(final String aName, final boolean aDirectory, final int aSource) {
+			name = aName;
+			directory = aDirectory;
+			source = aSource;
+		}
+
+		@Override
+		public int compareTo(final Child aOther) {
+			return name.compareTo(aOther.name);
+		}
+	}
+
+	/**
+	 * このクラスは、作り直し中のディレクトリを保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private static final class MergeItem {
+
+		/** 作り直し前の番号(ない場合、<code>-1</code>) */
+		private final int source;
+		/** 作り直し後の番号 */
+		private final int target;
+		private final Path path;
+
+		public MergeItem(final int aSource, final int aTarget, final Path aPath) {
+			source = aSource;
+			target = aTarget;
+			path = aPath;
+		}
+	}
+
+	/**
+	 * このクラスは、監視により索引に追加されたファイル・ディレクトリを保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private static final class Added {
+
+		private final Path path;
+		private final String name;
+		private final String lowerName;
+		private final boolean directory;
+
+		public Added(final Path aPath, final boolean aDirectory) {
+			path = aPath;
+			name = aPath.getFileName().toString();
+			lowerName = name.toLowerCase(Locale.ENGLISH);
+			directory = aDirectory;
+		}
+	}
+
+	/**
+	 * このクラスは、巡回した結果から索引を作成するクラスです。
+	 * <p>
+	 * ディレクトリ直下のファイル・ディレクトリには連続した番号を名前順に割り当てます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	static final class Builder {
+
+		private final Path[] roots;
+
+		private int size;
+		private int[] parents;
+		private int[] nameIds;
+		private byte[] flags;
+
+		private int dirCount;
+		private int[] dirIds;
+		private int[] dirStarts;
+		private int[] dirCounts;
+
+		/** 名前ごとの番号 */
+		private final Map<String, Integer> names;
+		private int nameCount;
+		private int[] nameOffsets;
+		private int charCount;
+		private char[] chars;
+
+		public Builder(final Path[] aRoots) {
+			roots = aRoots;
+			parents = new int[1024];
+			nameIds = new int[1024];
+			flags = new byte[1024];
+			dirIds = new int[256];
+			dirStarts = new int[256];
+			dirCounts = new int[256];
+			names = new HashMap<String, Integer>();
+			nameOffsets = new int[1024];
+			chars = new char[8192];
+			for (Path root : aRoots) {
+				parents[size] = -1;
+				nameIds[size] = intern(root.toString());
+				flags[size] = FLAG_DIRECTORY;
+				size++;
+			}
+		}
+
+		/**
+		 * ディレクトリ直下のファイル・ディレクトリを登録する。
+		 * 
+		 * @param aParent ディレクトリの番号
+		 * @param aChildren 名前順のファイル・ディレクトリ
+		 * @return 先頭の番号
+		 */
+		public synchronized int add(final int aParent, final List<Child> aChildren) {
+			int start = size;
+			int count = aChildren.size();
+			if (parents.length < size + count) {
+				int capacity = Math.max(parents.length * 2, size + count);
+				parents = Arrays.copyOf(parents, capacity);
+				nameIds = Arrays.copyOf(nameIds, capacity);
+				flags = Arrays.copyOf(flags, capacity);
+			}
+			for (Child child : aChildren) {
+				parents[size] = aParent;
+				nameIds[size] = intern(child.name);
+				flags[size] = (child.directory) ? FLAG_DIRECTORY : 0;
+				size++;
+			}
+			if (dirIds.length == dirCount) {
+				dirIds = Arrays.copyOf(dirIds, dirCount * 2);
+				dirStarts = Arrays.copyOf(dirStarts, dirCount * 2);
+				dirCounts = Arrays.copyOf(dirCounts, dirCount * 2);
+			}
+			dirIds[dirCount] = aParent;
+			dirStarts[dirCount] = start;
+			dirCounts[dirCount] = count;
+			dirCount++;
+			return start;
+		}
+
+		private int intern(final String aName) {
+			Integer id = names.get(aName);
+			if (null != id) {
+				return id;
+			}
+			if (nameOffsets.length <= nameCount + 1) {
+				nameOffsets = Arrays.copyOf(nameOffsets, nameOffsets.length * 2);
+			}
+			if (chars.length < charCount + aName.length()) {
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + aName.length()));
+			}
+			aName.getChars(0, aName.length(), chars, charCount);
+			nameOffsets[nameCount] = charCount;
+			charCount += aName.length();
+			nameOffsets[nameCount + 1] = charCount;
+			names.put(aName, nameCount);
+			return nameCount++;
+		}
+
+		private static long[] ensure(final long[] aBuffer, final int aLength) {
+			return (aBuffer.length < aLength) ? new long[Math.max(aBuffer.length * 2, aLength)] : aBuffer;
+		}
+
+		public synchronized Snapshot build() {
+			// 名前ごとのファイル・ディレクトリ
+			int[] nameEntryStarts = new int[nameCount + 1];
+			for (int i = 0; i < size; i++) {
+				nameEntryStarts[nameIds[i] + 1]++;
+			}
+			for (int i = 0; i < nameCount; i++) {
+				nameEntryStarts[i + 1] += nameEntryStarts[i];
+			}
+			int[] nameEntries = new int[size];
+			int[] positions = Arrays.copyOf(nameEntryStarts, nameCount);
+			for (int i = 0; i < size; i++) {
+				nameEntries[positions[nameIds[i]]++] = i;
+			}
+
+			// トライグラムごとの名前(数えてから詰める)
+			TrigramTable table = new TrigramTable();
+			long[] buffer = new long[64];
+			int total = 0;
+			for (int i = 0; i < nameCount; i++) {
+				buffer = ensure(buffer, nameOffsets[i + 1] - nameOffsets[i]);
+				int count = Snapshot.trigrams(chars, nameOffsets[i], nameOffsets[i + 1], buffer);
+				for (int j = 0; j < count; j++) {
+					table.counts[table.slot(buffer[j])]++;
+				}
+				total += count;
+			}
+			long[] trigrams = table.keys();
+			Arrays.sort(trigrams);
+			int[] postingStarts = new int[trigrams.length + 1];
+			for (int i = 0; i < trigrams.length; i++) {
+				int slot = table.slot(trigrams[i]);
+				postingStarts[i + 1] = postingStarts[i] + table.counts[slot];
+				table.counts[slot] = postingStarts[i];
+			}
+			int[] postings = new int[total];
+			for (int i = 0; i < nameCount; i++) {
+				int count = Snapshot.trigrams(chars, nameOffsets[i], nameOffsets[i + 1], buffer);
+				for (int j = 0; j < count; j++) {
+					postings[table.counts[table.slot(buffer[j])]++] = i;
+				}
+			}
+
+			// ディレクトリの番号順に並べる
+			long[] order = new long[dirCount];
+			for (int i = 0; i < dirCount; i++) {
+				order[i] = ((long) dirIds[i] << 32) | i;
+			}
+			Arrays.sort(order);
+			int[] sortedIds = new int[dirCount];
+			int[] sortedStarts = new int[dirCount];
+			int[] sortedCounts = new int[dirCount];
+			for (int i = 0; i < dirCount; i++) {
+				int k = (int) order[i];
+				sortedIds[i] = dirIds[k];
+				sortedStarts[i] = dirStarts[k];
+				sortedCounts[i] = dirCounts[k];
+			}
+
+			return new Snapshot(roots, Arrays.copyOf(parents, size), Arrays.copyOf(nameIds, size), Arrays.copyOf(flags, size),
+					sortedIds, sortedStarts, sortedCounts, Arrays.copyOf(chars, charCount), Arrays.copyOf(nameOffsets,
+							nameCount + 1), nameEntryStarts, nameEntries, trigrams, postingStarts, postings);
+		}
+	}
+
+	/**
+	 * このクラスは、トライグラムごとの件数を数えるオープンアドレス法のハッシュ表クラスです。
+	 * <p>
+	 * 名前にNUL文字は含まれないため、<code>0</code>を空きとして扱います。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private static final class TrigramTable {
+
+		private long[] table = new long[1 << 12];
+		private int[] counts = new int[1 << 12];
+		private int size;
+
+		/**
+		 * トライグラムの位置を取得する。登録されていない場合は登録する。
+		 * 
+		 * @param aKey トライグラム
+		 * @return 位置
+		 */
+		public int slot(final long aKey) {
+			if (table.length <= size * 2) {
+				grow();
+			}
+			int mask = table.length - 1;
+			int i = (int) ((aKey * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+			while (0 != table[i] && aKey != table[i]) {
+				i = (i + 1) & mask;
+			}
+			if (0 == table[i]) {
+				table[i] = aKey;
+				size++;
+			}
+			return i;
+		}
+
+		public long[] keys() {
+			long[] keys = new long[size];
+			int index = 0;
+			for (long key : table) {
+				if (0 != key) {
+					keys[index++] = key;
+				}
+			}
+			return keys;
+		}
+
+		private void grow() {
+			long[] oldTable = table;
+			int[] oldCounts = counts;
+			table = new long[oldTable.length * 2];
+			counts = new int[oldTable.length * 2];
+			size = 0;
+			for (int i = 0; i < oldTable.length; i++) {
+				if (0 != oldTable[i]) {
+					counts[slot(oldTable[i])] = oldCounts[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * このクラスは、作成済みの索引を保持するクラスです。
+	 * <p>
+	 * 作成後は変更されないため、ロックなしで参照できます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/22
+	 * @author kawakicchi
+	 */
+	private static final class Snapshot {
+
+		private final Path[] roots;
+		/** 番号ごとの親の番号(ルートは<code>-1</code>) */
+		private final int[] parents;
+		/** 番号ごとの名前の番号 */
+		private final int[] nameIds;
+		/** 番号ごとのフラグ */
+		private final byte[] flags;
+
+		/** 子を持つディレクトリの番号(昇順) */
+		private final int[] dirIds;
+		/** ディレクトリごとの先頭の子の番号 */
+		private final int[] dirStarts;
+		/** ディレクトリごとの子の数 */
+		private final int[] dirCounts;
+
+		/** 名前の文字 */
+		private final char[] chars;
+		/** 名前ごとの文字の位置 */
+		private final int[] nameOffsets;
+		/** 名前ごとのファイル・ディレクトリの位置 */
+		private final int[] nameEntryStarts;
+		/** 名前順のファイル・ディレクトリの番号 */
+		private final int[] nameEntries;
+
+		/** トライグラム(昇順) */
+		private final long[] trigrams;
+		/** トライグラムごとの名前の位置 */
+		private final int[] postingStarts;
+		/** トライグラム順の名前の番号 */
+		private final int[] postings;
+		/** トライグラムを持たない3文字未満の名前の番号 */
+		private final int[] shortNames;
+
+		public Snapshot(final Path[] aRoots, final int[] aParents, final int[] aNameIds, final byte[] aFlags,
+				final int[] aDirIds, final int[] aDirStarts, final int[] aDirCounts, final char[] aChars,
+				final int[] aNameOffsets, final int[] aNameEntryStarts, final int[] aNameEntries, final long[] aTrigrams,
+				final int[] aPostingStarts, final int[] aPostings) {
+			roots = aRoots;
+			parents = aParents;
+			nameIds = aNameIds;
+			flags = aFlags;
+			dirIds = aDirIds;
+			dirStarts = aDirStarts;
+			dirCounts = aDirCounts;
+			chars = aChars;
+			nameOffsets = aNameOffsets;
+			nameEntryStarts = aNameEntryStarts;
+			nameEntries = aNameEntries;
+			trigrams = aTrigrams;
+			postingStarts = aPostingStarts;
+			postings = aPostings;
+
+			int count = 0;
+			int[] names = new int[16];
+			for (int i = 0; i < aNameOffsets.length - 1; i++) {
+				if (3 > aNameOffsets[i + 1] - aNameOffsets[i]) {
+					if (names.length == count) {
+						names = Arrays.copyOf(names, count * 2);
+					}
+					names[count++] = i;
+				}
+			}
+			shortNames = Arrays.copyOf(names, count);
+		}
+
+		public int size() {
+			return parents.length;
+		}
+
+		public int getNameCount() {
+			return nameOffsets.length - 1;
+		}
+
+		public String getName(final int aNameId) {
+			return new String(chars, nameOffsets[aNameId], nameOffsets[aNameId + 1] - nameOffsets[aNameId]);
+		}
+
+		public boolean isDirectory(final int aId) {
+			return FLAG_DIRECTORY == (flags[aId] & FLAG_DIRECTORY);
+		}
+
+		/**
+		 * 自身と祖先が削除されていないか判断する。
+		 * 
+		 * @param aId 番号
+		 * @param aDeleted 削除された番号
+		 * @return 削除されていない場合、<code>true</code>
+		 */
+		public boolean isVisible(final int aId, final BitSet aDeleted) {
+			for (int id = aId; 0 <= id; id = parents[id]) {
+				if (aDeleted.get(id)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public Path getPath(final int aId) {
+			int depth = 0;
+			for (int id = aId; 0 <= parents[id]; id = parents[id]) {
+				depth++;
+			}
+			String[] names = new String[depth];
+			int id = aId;
+			for (int i = depth - 1; i >= 0; i--) {
+				names[i] = getName(nameIds[id]);
+				id = parents[id];
+			}
+			Path path = roots[id];
+			for (String name : names) {
+				path = path.resolve(name);
+			}
+			return path;
+		}
+
+		/**
+		 * パスの番号を取得する。
+		 * 
+		 * @param aPath パス
+		 * @return 番号。登録されていない場合、<code>-1</code>
+		 */
+		public int find(final Path aPath) {
+			for (int i = 0; i < roots.length; i++) {
+				if (!aPath.startsWith(roots[i])) {
+					continue;
+				}
+				int id = i;
+				for (Path name : roots[i].relativize(aPath)) {
+					String str = name.toString();
+					if (0 < str.length()) {
+						id = findChild(id, str);
+						if (0 > id) {
+							break;
+						}
+					}
+				}
+				if (0 <= id) {
+					return id;
+				}
+			}
+			return -1;
+		}
+
+		private int findChild(final int aId, final String aName) {
+			int k = Arrays.binarySearch(dirIds, aId);
+			if (0 > k) {
+				return -1;
+			}
+			int low = dirStarts[k];
+			int high = dirStarts[k] + dirCounts[k] - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = getName(nameIds[mid]).compareTo(aName);
+				if (0 > cmp) {
+					low = mid + 1;
+				} else if (0 < cmp) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * 文字列一覧をすべて含む可能性のある名前の番号を順に通知する。
+		 * 
+		 * @param aLiterals 小文字の文字列一覧
+		 * @param aVisitor 通知先
+		 */
+		public void visitCandidates(final List<String> aLiterals, final NameVisitor aVisitor) {
+			String longest = "";
+			for (String literal : aLiterals) {
+				if (longest.length() < literal.length()) {
+					longest = literal;
+				}
+			}
+			if (3 <= longest.length()) {
+				visitIntersection(aLiterals, aVisitor);
+			} else if (0 < longest.length()) {
+				visitUnion(longest, aVisitor);
+			} else {
+				for (int i = 0; i < getNameCount(); i++) {
+					if (!aVisitor.visit(i)) {
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * 3文字以上の文字列のトライグラムをすべて持つ名前の番号を昇順に通知する。
+		 * <p>
+		 * 最も短い転置リストを順に読み、他の転置リストは指数探索で読み進めます。
+		 * </p>
+		 */
+		private void visitIntersection(final List<String> aLiterals, final NameVisitor aVisitor) {
+			long[] keys = new long[0];
+			for (String literal : aLiterals) {
+				if (3 <= literal.length()) {
+					char[] lower = literal.toCharArray();
+					long[] buffer = new long[lower.length];
+					int count = trigrams(lower, 0, lower.length, buffer);
+					int offset = keys.length;
+					keys = Arrays.copyOf(keys, offset + count);
+					System.arraycopy(buffer, 0, keys, offset, count);
+				}
+			}
+			// 複数の文字列に含まれるトライグラムは一度だけ照合する
+			Arrays.sort(keys);
+			int size = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (0 == size || keys[size - 1] != keys[i]) {
+					keys[size++] = keys[i];
+				}
+			}
+			keys = Arrays.copyOf(keys, size);
+			long[] ranges = new long[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				int k = Arrays.binarySearch(trigrams, keys[i]);
+				if (0 > k) {
+					return;
+				}
+				ranges[i] = ((long) (postingStarts[k + 1] - postingStarts[k]) << 32) | k;
+			}
+			Arrays.sort(ranges);
+			int[] cursors = new int[ranges.length];
+			int[] ends = new int[ranges.length];
+			for (int i = 0; i < ranges.length; i++) {
+				int k = (int) ranges[i];
+				cursors[i] = postingStarts[k];
+				ends[i] = postingStarts[k + 1];
+			}
+			outer: for (int i = cursors[0]; i < ends[0]; i++) {
+				int value = postings[i];
+				for (int j = 1; j < cursors.length; j++) {
+					int c = seek(cursors[j], ends[j], value);
+					if (c == ends[j]) {
+						return;
+					}
+					cursors[j] = c;
+					if (postings[c] != value) {
+						continue outer;
+					}
+				}
+				if (!aVisitor.visit(value)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * 転置リストの値以上の最初の位置を取得する。
+		 * 
+		 * @param aStart 開始位置
+		 * @param aEnd 終了位置
+		 * @param aValue 値
+		 * @return 位置。ない場合、<code>aEnd</code>
+		 */
+		private int seek(final int aStart, final int aEnd, final int aValue) {
+			int low = aStart;
+			int bound = 1;
+			while (low + bound < aEnd && postings[low + bound] < aValue) {
+				bound <<= 1;
+			}
+			int high = Math.min(low + bound, aEnd);
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (postings[mid] < aValue) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * 2文字以下の文字列を含むトライグラムを持つ名前と、3文字未満の名前の番号を通知する。
+		 */
+		private void visitUnion(final String aLiteral, final NameVisitor aVisitor) {
+			for (int name : shortNames) {
+				if (!aVisitor.visit(name)) {
+					return;
+				}
+			}
+			char c0 = aLiteral.charAt(0);
+			char c1 = (2 == aLiteral.length()) ? aLiteral.charAt(1) : 0;
+			BitSet visited = new BitSet(getNameCount());
+			for (int k = 0; k < trigrams.length; k++) {
+				char t0 = (char) (trigrams[k] >>> 32);
+				char t1 = (char) (trigrams[k] >>> 16);
+				char t2 = (char) trigrams[k];
+				boolean hit;
+				if (0 == c1) {
+					hit = (c0 == t0 || c0 == t1 || c0 == t2);
+				} else {
+					hit = (c0 == t0 && c1 == t1) || (c0 == t1 && c1 == t2);
+				}
+				if (!hit) {
+					continue;
+				}
+				for (int i = postingStarts[k]; i < postingStarts[k + 1]; i++) {
+					int name = postings[i];
+					if (!visited.get(name)) {
+						visited.set(name);
+						if (!aVisitor.visit(name)) {
+							return;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * 名前に含まれる小文字のトライグラムを取得する(昇順、重複なし)。
+		 * 
+		 * @param aChars 文字配列
+		 * @param aStart 開始位置
+		 * @param aEnd 終了位置
+		 * @param aBuffer 格納先(<code>aEnd - aStart</code>以上の長さ)
+		 * @return トライグラム数
+		 */
+		public static int trigrams(final char[] aChars, final int aStart, final int aEnd, final long[] aBuffer) {
+			int count = aEnd - aStart - 2;
+			if (0 >= count) {
+				return 0;
+			}
+			long prev = Character.toLowerCase(aChars[aStart]);
+			long cur = Character.toLowerCase(aChars[aStart + 1]);
+			for (int i = 0; i < count; i++) {
+				long next = Character.toLowerCase(aChars[aStart + i + 2]);
+				aBuffer[i] = (prev << 32) | (cur << 16) | next;
+				prev = cur;
+				cur = next;
+			}
+			Arrays.sort(aBuffer, 0, count);
+			int size = 0;
+			for (int i = 0; i < count; i++) {
+				if (0 == size || aBuffer[size - 1] != aBuffer[i]) {
+					aBuffer[size++] = aBuffer[i];
+				}
+			}
+			return size;
+		}
+
+		/**
+		 * 名前が文字列を含むか判断する。
+		 * 
+		 * @param aNameId 名前の番号
+		 * @param aLower 小文字の文字列
+		 * @return 含む場合、<code>true</code>
+		 */
+		public boolean contains(final int aNameId, final String aLower) {
+			int length = aLower.length();
+			if (0 == length) {
+				return true;
+			}
+			char first = aLower.charAt(0);
+			int last = nameOffsets[aNameId + 1] - length;
+			outer: for (int i = nameOffsets[aNameId]; i <= last; i++) {
+				if (Character.toLowerCase(chars[i]) != first) {
+					continue;
+				}
+				for (int j = 1; j < length; j++) {
+					if (Character.toLowerCase(chars[i + j]) != aLower.charAt(j)) {
+						continue outer;
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+
+		public void write(final DataOutputStream aOut) throws IOException {
+			aOut.writeInt(roots.length);
+			for (Path root : roots) {
+				writeChars(aOut, root.toString().toCharArray());
+			}
+			writeInts(aOut, parents);
+			writeInts(aOut, nameIds);
+			aOut.writeInt(flags.length);
+			aOut.write(flags);
+			writeInts(aOut, dirIds);
+			writeInts(aOut, dirStarts);
+			writeInts(aOut, dirCounts);
+			writeChars(aOut, chars);
+			writeInts(aOut, nameOffsets);
+			writeInts(aOut, nameEntryStarts);
+			writeInts(aOut, nameEntries);
+			aOut.writeInt(trigrams.length);
+			for (long trigram : trigrams) {
+				aOut.writeLong(trigram);
+			}
+			writeInts(aOut, postingStarts);
+			writeInts(aOut, postings);
+		}
+
+		/**
+		 * 索引を読み込む。
+		 * 
+		 * @param aBuffer バッファ
+		 * @param aRoots ルートディレクトリ
+		 * @return 索引。ルートディレクトリが異なる場合、<code>null</code>
+		 */
+		public static Snapshot read(final ByteBuffer aBuffer, final Path[] aRoots) {
+			int count = aBuffer.getInt();
+			if (count != aRoots.length) {
+				return null;
+			}
+			for (Path root : aRoots) {
+				if (!root.toString().equals(new String(getChars(aBuffer)))) {
+					return null;
+				}
+			}
+			int[] parents = getInts(aBuffer);
+			int[] nameIds = getInts(aBuffer);
+			byte[] flags = new byte[getLength(aBuffer, 1)];
+			aBuffer.get(flags);
+			int[] dirIds = getInts(aBuffer);
+			int[] dirStarts = getInts(aBuffer);
+			int[] dirCounts = getInts(aBuffer);
+			char[] chars = getChars(aBuffer);
+			int[] nameOffsets = getInts(aBuffer);
+			int[] nameEntryStarts = getInts(aBuffer);
+			int[] nameEntries = getInts(aBuffer);
+			long[] trigrams = new long[getLength(aBuffer, 8)];
+			aBuffer.asLongBuffer().get(trigrams);
+			aBuffer.position(aBuffer.position() + 8 * trigrams.length);
+			int[] postingStarts = getInts(aBuffer);
+			int[] postings = getInts(aBuffer);
+			return new Snapshot(aRoots, parents, nameIds, flags, dirIds, dirStarts, dirCounts, chars, nameOffsets,
+					nameEntryStarts, nameEntries, trigrams, postingStarts, postings);
+		}
+
+		private static void writeInts(final DataOutputStream aOut, final int[] aValues) throws IOException {
+			aOut.writeInt(aValues.length);
+			for (int value : aValues) {
+				aOut.writeInt(value);
+			}
+		}
+
+		private static void writeChars(final DataOutputStream aOut, final char[] aValues) throws IOException {
+			aOut.writeInt(aValues.length);
+			for (char value : aValues) {
+				aOut.writeChar(value);
+			}
+		}
+
+		private static int[] getInts(final ByteBuffer aBuffer) {
+			int[] values = new int[getLength(aBuffer, 4)];
+			aBuffer.asIntBuffer().get(values);
+			aBuffer.position(aBuffer.position() + 4 * values.length);
+			return values;
+		}
+
+		private static char[] getChars(final ByteBuffer aBuffer) {
+			char[] values = new char[getLength(aBuffer, 2)];
+			aBuffer.asCharBuffer().get(values);
+			aBuffer.position(aBuffer.position() + 2 * values.length);
+			return values;
+		}
+
+		/**
+		 * 配列の長さを読み込む。
+		 * <p>
+		 * 破損したファイルで巨大な配列を確保しないよう、長さがバッファの残りに収まることを確認します。
+		 * </p>
+		 * 
+		 * @param aBuffer バッファ
+		 * @param aUnit 要素あたりのバイト数
+		 * @return 長さ
+		 * @throws BufferUnderflowException 長さが負、またはバッファの残りに収まらない場合
+		 */
+		private static int getLength(final ByteBuffer aBuffer, final int aUnit) {
+			int length = aBuffer.getInt();
+			if (0 > length || aBuffer.remaining() / aUnit < length) {
+				throw new BufferUnderflowException();
+			}
+			return length;
+		}
+	}
+}
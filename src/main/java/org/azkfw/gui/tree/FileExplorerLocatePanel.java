@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * このクラスは、ファイル名の索引を検索し、結果をファイルエクスプローラツリーで表示するパネルクラスです。
+ * <p>
+ * 入力が{@link FileExplorerTreeFilterField#DELAY_MILLIS}ミリ秒止まった時点で検索し、索引が更新された場合は検索し直します。
+ * 結果をダブルクリック、またはEnterキーでツリー上のパスまで展開して選択します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/22
+ * @author kawakicchi
+ */
+public class FileExplorerLocatePanel extends JPanel implements FileExplorerLocateListener {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = -7312290482618839151L;
+
+	/** 結果を表示するツリー */
+	private final FileExplorerTree tree;
+	/** 索引 */
+	private final FileExplorerLocateIndex index;
+	/** 一致方法 */
+	private FileExplorerTreeFilter.Mode mode;
+
+	private final JTextField field;
+	private final DefaultListModel<Path> model;
+	private final JList<Path> list;
+	private final JLabel status;
+	/** 検索タイマー */
+	private final Timer timer;
+	/** 通常の文字色 */
+	private final Color normalForeground;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aTree 結果を表示するツリー
+	 * @param aIndex 索引
+	 */
+	public FileExplorerLocatePanel(final FileExplorerTree aTree, final FileExplorerLocateIndex aIndex) {
+		super(new BorderLayout());
+		tree = aTree;
+		index = aIndex;
+		mode = FileExplorerTreeFilter.Mode.SUBSTRING;
+
+		field = new JTextField();
+		normalForeground = field.getForeground();
+		model = new DefaultListModel<Path>();
+		list = new JList<Path>(model);
+		status = new JLabel(" ");
+
+		add(field, BorderLayout.NORTH);
+		add(new JScrollPane(list), BorderLayout.CENTER);
+		add(status, BorderLayout.SOUTH);
+
+		timer = new Timer(FileExplorerTreeFilterField.DELAY_MILLIS, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				doFind();
+			}
+		});
+		timer.setRepeats(false);
+
+		field.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+
+			@Override
+			public void removeUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+
+			@Override
+			public void changedUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+		});
+		list.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(final MouseEvent event) {
+				if (2 == event.getClickCount()) {
+					doReveal();
+				}
+			}
+		});
+		list.addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyPressed(final KeyEvent event) {
+				if (event.getKeyCode() == KeyEvent.VK_ENTER) {
+					doReveal();
+					event.consume();
+				}
+			}
+		});
+
+		index.addListener(this);
+	}
+
+	/**
+	 * 一致方法を設定する。
+	 * 
+	 * @param aMode 一致方法
+	 */
+	public void setMode(final FileExplorerTreeFilter.Mode aMode) {
+		mode = aMode;
+		timer.restart();
+	}
+
+	/**
+	 * 一致方法を取得する。
+	 * 
+	 * @return 一致方法
+	 */
+	public FileExplorerTreeFilter.Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * 検索する文字列を設定する。
+	 * 
+	 * @param aText 文字列
+	 */
+	public void setText(final String aText) {
+		field.setText(aText);
+	}
+
+	/**
+	 * 表示中の検索結果の件数を取得する。
+	 * 
+	 * @return 件数
+	 */
+	public int getResultCount() {
+		return model.getSize();
+	}
+
+	/**
+	 * 索引の監視を解除する。
+	 */
+	public void dispose() {
+		timer.stop();
+		index.removeListener(this);
+	}
+
+	@Override
+	public void fileExplorerLocateUpdated(final FileExplorerLocateIndex aIndex) {
+		doFind();
+	}
+
+	@Override
+	public void fileExplorerLocateFinished(final FileExplorerLocateIndex aIndex, final boolean aCancelled) {
+		doFind();
+	}
+
+	private void doFind() {
+		String text = field.getText();
+		if (0 == text.length()) {
+			field.setForeground(normalForeground);
+			model.clear();
+			status.setText(String.format("%,d 件を索引化", index.getEntryCount()));
+			return;
+		}
+		FileExplorerTreeFilter filter;
+		try {
+			filter = new FileExplorerTreeFilter(mode, text);
+		} catch (PatternSyntaxException ex) {
+			// 入力途中の正規表現は直前の結果を維持する
+			field.setForeground(Color.RED);
+			return;
+		}
+		field.setForeground(normalForeground);
+
+		long start = System.nanoTime();
+		List<Path> paths = index.find(filter, FileExplorerLocateIndex.DEFAULT_LIMIT);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+
+		model.clear();
+		for (Path path : paths) {
+			model.addElement(path);
+		}
+		status.setText(String.format("%,d%s 件 / %,d 件中 (%d ms)", paths.size(),
+				(FileExplorerLocateIndex.DEFAULT_LIMIT <= paths.size()) ? "+" : "", index.getEntryCount(), elapsed));
+	}
+
+	private void doReveal() {
+		Path path = list.getSelectedValue();
+		if (null != path) {
+			tree.revealPath(path);
+		}
+	}
+}
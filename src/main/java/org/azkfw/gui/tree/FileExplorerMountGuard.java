@@ -0,0 +1,322 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * このクラスは、ファイルシステムへのアクセスにマウント単位の期限を設け、応答しないマウントを切り離すクラスです。
+ * <p>
+ * アクセスはマウントごとに最大{@link #MAX_THREADS_PER_MOUNT}件の専用のスレッドで実行され、呼び出し元は期限まで待ちます。
+ * 応答しないマウントのアクセスはスレッドを占有し続けるため、マウントごとにスレッドを分け、他のマウントへのアクセスを妨げないようにします。
+ * 上限を超えたアクセスは待機し、期限内に完了しなければタイムアウトとなります。
+ * 期限内に進捗がない場合はタイムアウトとし、{@link #FAILURE_THRESHOLD}回続けてタイムアウトしたマウントは縮退状態になります。
+ * 縮退中のマウントへのアクセスは即座に{@link FileExplorerUnavailableException}となり、
+ * 待機時間の経過後の最初のアクセスで再試行します。再試行に失敗するたびに待機時間は倍になります。
+ * </p>
+ * <p>
+ * マウントはパスのルートと先頭{@link #MOUNT_DEPTH}階層で区別します(<code>/mnt/nfs</code>、<code>C:\share\dir</code>など)。
+ * これは推定であり、実際のマウントポイントとは一致しない場合があります。
+ * {@link java.nio.file.Files#getFileStore(Path)}はパスにアクセスするため、応答しないマウントではキーの取得自体が停止します。
+ * デフォルト以外のファイルシステムはファイルシステム単位で区別します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/17
+ * @author kawakicchi
+ */
+final class FileExplorerMountGuard {
+
+	/**
+	 * このインターフェースは、実行中のアクセスの進捗を提供するインターフェースです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/17
+	 * @author kawakicchi
+	 */
+	public static interface Progress {
+
+		/**
+		 * 進捗を取得する。
+		 * 
+		 * @return 進捗。値が増えている間はタイムアウトしない
+		 */
+		public long getProgress();
+	}
+
+	/** 期限の既定値(ミリ秒) */
+	public static final long DEFAULT_TIMEOUT = 5000;
+	/** 縮退状態にする連続タイムアウト回数 */
+	public static final int FAILURE_THRESHOLD = 2;
+	/** 再試行までの最初の待機時間(ミリ秒) */
+	public static final long INITIAL_BACKOFF = 5000;
+	/** 再試行までの最大の待機時間(ミリ秒) */
+	public static final long MAX_BACKOFF = 5 * 60 * 1000;
+	/** マウントを区別する階層数 */
+	public static final int MOUNT_DEPTH = 2;
+	/** マウントごとのアクセス用のスレッド数の上限 */
+	public static final int MAX_THREADS_PER_MOUNT = 4;
+	/** アクセス用のスレッドを終了するまでの待機時間(秒) */
+	private static final long KEEP_ALIVE = 60;
+
+	/** アクセス用のスレッドの生成 */
+	private final ThreadFactory threadFactory;
+	/** 破棄した場合、<code>true</code> */
+	private boolean disposed;
+
+	/** 期限(ミリ秒) */
+	private volatile long timeout;
+	/** マウントごとの期限(ミリ秒) */
+	private final Map<Object, Long> timeouts;
+	/** マウントごとの状態 */
+	private final Map<Object, Mount> mounts;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerMountGuard() {
+		timeout = DEFAULT_TIMEOUT;
+		timeouts = new HashMap<Object, Long>();
+		mounts = new HashMap<Object, Mount>();
+		threadFactory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerTree-io-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * 期限を設定する。
+	 * 
+	 * @param aTimeout 期限(ミリ秒)
+	 */
+	public void setTimeout(final long aTimeout) {
+		timeout = aTimeout;
+	}
+
+	/**
+	 * 期限を取得する。
+	 * 
+	 * @return 期限(ミリ秒)
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * パスを含むマウントの期限を設定する。
+	 * 
+	 * @param aPath パス
+	 * @param aTimeout 期限(ミリ秒)。0以下の場合、既定の期限を使用する
+	 */
+	public synchronized void setTimeout(final Path aPath, final long aTimeout) {
+		if (0 < aTimeout) {
+			timeouts.put(getMountKey(aPath), aTimeout);
+		} else {
+			timeouts.remove(getMountKey(aPath));
+		}
+	}
+
+	/**
+	 * パスを含むマウントが縮退状態か判断する。
+	 * 
+	 * @param aPath パス
+	 * @return 縮退状態の場合、<code>true</code>
+	 */
+	public synchronized boolean isDegraded(final Path aPath) {
+		Mount mount = mounts.get(getMountKey(aPath));
+		return null != mount && 0 != mount.retryAt;
+	}
+
+	/**
+	 * 期限付きでファイルシステムにアクセスする。
+	 * 
+	 * @param aPath アクセスするパス
+	 * @param aTask アクセス処理
+	 * @param aProgress 進捗。<code>null</code>の場合、期限内に完了しなければタイムアウトとする
+	 * @return 処理結果
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 * @throws FileExplorerUnavailableException マウントが縮退状態、またはタイムアウトした場合
+	 */
+	public <T> T call(final Path aPath, final Callable<T> aTask, final Progress aProgress) throws IOException {
+		Object key = getMountKey(aPath);
+		long limit;
+		Mount mount;
+		synchronized (this) {
+			if (disposed) {
+				throw new InterruptedIOException("disposed");
+			}
+			mount = mounts.get(key);
+			if (null == mount) {
+				ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS_PER_MOUNT, MAX_THREADS_PER_MOUNT,
+						KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+				executor.allowCoreThreadTimeOut(true);
+				mount = new Mount(executor);
+				mounts.put(key, mount);
+			}
+			if (0 != mount.retryAt) {
+				if (System.currentTimeMillis() < mount.retryAt || mount.trial) {
+					throw new FileExplorerUnavailableException(key.toString());
+				}
+				// 待機時間が経過したため1件のみ再試行する
+				mount.trial = true;
+			}
+			Long t = timeouts.get(key);
+			limit = (null != t) ? t : timeout;
+		}
+
+		Future<T> future;
+		try {
+			future = mount.executor.submit(aTask);
+		} catch (RejectedExecutionException ex) {
+			throw new InterruptedIOException("disposed");
+		}
+		try {
+			long last = (null != aProgress) ? aProgress.getProgress() : 0;
+			while (true) {
+				try {
+					T result = future.get(limit, TimeUnit.MILLISECONDS);
+					succeeded(mount);
+					return result;
+				} catch (TimeoutException ex) {
+					long current = (null != aProgress) ? aProgress.getProgress() : last;
+					if (current == last) {
+						future.cancel(true);
+						failed(mount);
+						throw new FileExplorerUnavailableException(key.toString());
+					}
+					last = current;
+				}
+			}
+		} catch (InterruptedException ex) {
+			future.cancel(true);
+			synchronized (this) {
+				mount.trial = false;
+			}
+			InterruptedIOException iex = new InterruptedIOException();
+			iex.initCause(ex);
+			throw iex;
+		} catch (ExecutionException ex) {
+			// ファイルシステムは応答している
+			succeeded(mount);
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * アクセスを終了する。
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		for (Mount mount : mounts.values()) {
+			mount.executor.shutdownNow();
+		}
+	}
+
+	private synchronized void succeeded(final Mount aMount) {
+		aMount.failures = 0;
+		aMount.backoff = 0;
+		aMount.retryAt = 0;
+		aMount.trial = false;
+	}
+
+	private synchronized void failed(final Mount aMount) {
+		aMount.failures++;
+		if (aMount.trial || FAILURE_THRESHOLD <= aMount.failures) {
+			aMount.backoff = (0 == aMount.backoff) ? INITIAL_BACKOFF : Math.min(aMount.backoff * 2, MAX_BACKOFF);
+			aMount.retryAt = System.currentTimeMillis() + aMount.backoff;
+		}
+		aMount.trial = false;
+	}
+
+	/**
+	 * パスを含むマウントを区別するキーを取得する。
+	 * <p>
+	 * ファイルシステムへのアクセスは行わず、パスのルートと先頭{@link #MOUNT_DEPTH}階層から推定します。
+	 * 同じマウントが異なるキーに分かれる、または異なるマウントが同じキーになる場合があります。
+	 * </p>
+	 * 
+	 * @param aPath パス
+	 * @return キー
+	 */
+	static Object getMountKey(final Path aPath) {
+		if (FileSystems.getDefault() != aPath.getFileSystem()) {
+			return aPath.getFileSystem();
+		}
+		Path path = aPath.toAbsolutePath();
+		Path root = path.getRoot();
+		int count = Math.min(MOUNT_DEPTH, path.getNameCount());
+		if (null == root) {
+			return path.subpath(0, count);
+		}
+		return (0 < count) ? root.resolve(path.subpath(0, count)) : root;
+	}
+
+	/**
+	 * このクラスは、マウントごとの状態を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/17
+	 * @author kawakicchi
+	 */
+	private static class Mount {
+
+		/** アクセス用のスレッドプール */
+		private final ThreadPoolExecutor executor;
+		/** 連続したタイムアウト回数 */
+		private int failures;
+		/** 再試行までの待機時間(ミリ秒) */
+		private long backoff;
+		/** 再試行できる日時(ミリ秒)。縮退状態でない場合、0 */
+		private long retryAt;
+		/** 再試行中の場合、<code>true</code> */
+		private boolean trial;
+
+		public Mount(final ThreadPoolExecutor aExecutor) {
+			executor = aExecutor;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * このクラスは、読み込み済みのノードを名前で検索するための索引クラスです。
+ * <p>
+ * 異なる名前ごとに小文字のトライグラム(連続する3文字)の転置リストを保持し、部分一致の候補を絞り込みます。
+ * ノードの追加・削除に合わせて差分で更新されます。
+ * このクラスはイベントディスパッチスレッドからのみ使用されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/10
+ * @author kawakicchi
+ */
+final class FileExplorerNameIndex {
+
+	/** 名前ごとのスロット */
+	private final Map<String, Slot> slots;
+	/** 番号ごとのスロット(削除済みは<code>null</code>) */
+	private final List<Slot> slotById;
+	/** トライグラムごとの名前番号一覧(昇順) */
+	private final Map<Long, IntList> postings;
+
+	/** 削除済みの番号の数 */
+	private int deadCount;
+	/** 登録されているノード数 */
+	private int nodeCount;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerNameIndex() {
+		slots = new HashMap<String, Slot>();
+		slotById = new ArrayList<Slot>();
+		postings = new HashMap<Long, IntList>();
+		deadCount = 0;
+		nodeCount = 0;
+	}
+
+	/**
+	 * ノードを登録する。
+	 * 
+	 * @param aName 名前
+	 * @param aNode ノード
+	 */
+	@SuppressWarnings("unchecked")
+	public void add(final String aName, final Object aNode) {
+		Slot slot = slots.get(aName);
+		if (null == slot) {
+			slot = new Slot(slotById.size(), aName);
+			slots.put(aName, slot);
+			slotById.add(slot);
+			for (long trigram : trigrams(slot.lowerName)) {
+				IntList list = postings.get(trigram);
+				if (null == list) {
+					list = new IntList();
+					postings.put(trigram, list);
+				}
+				list.add(slot.id);
+			}
+		}
+		if (null == slot.nodes) {
+			slot.nodes = aNode;
+		} else if (slot.nodes instanceof Set) {
+			((Set<Object>) slot.nodes).add(aNode);
+		} else if (slot.nodes != aNode) {
+			Set<Object> set = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			set.add(slot.nodes);
+			set.add(aNode);
+			slot.nodes = set;
+		}
+		nodeCount++;
+	}
+
+	/**
+	 * ノードの登録を解除する。
+	 * 
+	 * @param aName 名前
+	 * @param aNode ノード
+	 */
+	@SuppressWarnings("unchecked")
+	public void remove(final String aName, final Object aNode) {
+		Slot slot = slots.get(aName);
+		if (null == slot) {
+			return;
+		}
+		if (slot.nodes == aNode) {
+			slot.nodes = null;
+		} else if (slot.nodes instanceof Set) {
+			Set<Object> set = (Set<Object>) slot.nodes;
+			if (!set.remove(aNode)) {
+				return;
+			}
+			if (1 == set.size()) {
+				slot.nodes = set.iterator().next();
+			}
+		} else {
+			return;
+		}
+		nodeCount--;
+
+		if (null == slot.nodes) {
+			slots.remove(aName);
+			slotById.set(slot.id, null);
+			deadCount++;
+			if (1024 < deadCount && slots.size() < deadCount) {
+				compact();
+			}
+		}
+	}
+
+	/**
+	 * 条件に一致するノードを検索する。
+	 * 
+	 * @param aFilter 条件
+	 * @return ノード一覧
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object> find(final FileExplorerTreeFilter aFilter) {
+		List<Object> result = new ArrayList<Object>();
+		String literal = aFilter.getLiteral();
+		if (null != literal && 3 <= literal.length()) {
+			IntList candidates = null;
+			for (long trigram : trigrams(literal)) {
+				IntList list = postings.get(trigram);
+				if (null == list) {
+					return result;
+				}
+				candidates = (null == candidates) ? list : candidates.intersect(list);
+				if (0 == candidates.size) {
+					return result;
+				}
+			}
+			for (int i = 0; i < candidates.size; i++) {
+				Slot slot = slotById.get(candidates.values[i]);
+				if (null != slot && aFilter.matches(slot.lowerName, slot.name)) {
+					collect(slot, result);
+				}
+			}
+		} else {
+			for (Slot slot : slots.values()) {
+				if (aFilter.matches(slot.lowerName, slot.name)) {
+					collect(slot, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 登録されている異なる名前の数を取得する。
+	 * 
+	 * @return 名前の数
+	 */
+	public int getNameCount() {
+		return slots.size();
+	}
+
+	/**
+	 * 登録されているノード数を取得する。
+	 * 
+	 * @return ノード数
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void collect(final Slot aSlot, final List<Object> aResult) {
+		if (aSlot.nodes instanceof Set) {
+			aResult.addAll((Set<Object>) aSlot.nodes);
+		} else {
+			aResult.add(aSlot.nodes);
+		}
+	}
+
+	/**
+	 * 削除済みの番号を詰めて転置リストを作り直す。
+	 */
+	private void compact() {
+		List<Slot> live = new ArrayList<Slot>(slots.size());
+		for (Slot slot : slotById) {
+			if (null != slot) {
+				slot.id = live.size();
+				live.add(slot);
+			}
+		}
+		slotById.clear();
+		slotById.addAll(live);
+		postings.clear();
+		for (Slot slot : live) {
+			for (long trigram : trigrams(slot.lowerName)) {
+				IntList list = postings.get(trigram);
+				if (null == list) {
+					list = new IntList();
+					postings.put(trigram, list);
+				}
+				list.add(slot.id);
+			}
+		}
+		deadCount = 0;
+	}
+
+	/**
+	 * 文字列に含まれるトライグラムを取得する(重複なし)。
+	 * 
+	 * @param aLower 小文字の文字列
+	 * @return トライグラム一覧
+	 */
+	private static long[] trigrams(final String aLower) {
+		int count = aLower.length() - 2;
+		if (0 >= count) {
+			return new long[0];
+		}
+		long[] result = new long[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = ((long) aLower.charAt(i) << 32) | ((long) aLower.charAt(i + 1) << 16) | aLower.charAt(i + 2);
+		}
+		Arrays.sort(result);
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			if (0 == size || result[size - 1] != result[i]) {
+				result[size++] = result[i];
+			}
+		}
+		return (size == count) ? result : Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * このクラスは、名前ごとの登録情報を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/10
+	 * @author kawakicchi
+	 */
+	private static class Slot {
+
+		private int id;
+		private final String name;
+		private final String lowerName;
+		/** ノード、または複数ノードの集合 */
+		private Object nodes;
+
+		public Slot(final int aId, final String aName) {
+			id = aId;
+			name = aName;
+			lowerName = aName.toLowerCase(Locale.ENGLISH);
+		}
+	}
+
+	/**
+	 * このクラスは、昇順の整数一覧を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/10
+	 * @author kawakicchi
+	 */
+	private static class IntList {
+
+		private int[] values = new int[4];
+		private int size = 0;
+
+		public void add(final int aValue) {
+			if (values.length == size) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = aValue;
+		}
+
+		public IntList intersect(final IntList aOther) {
+			IntList result = new IntList();
+			int i = 0;
+			int j = 0;
+			while (i < size && j < aOther.size) {
+				if (values[i] < aOther.values[j]) {
+					i++;
+				} else if (values[i] > aOther.values[j]) {
+					j++;
+				} else {
+					result.add(values[i]);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		}
+	}
+}
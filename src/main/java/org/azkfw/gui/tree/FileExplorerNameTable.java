@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * このクラスは、ファイル名を共有するための名前テーブルクラスです。
+ * <p>
+ * 同じ名前のファイル(<code>pom.xml</code>、<code>.svn</code>など)は同一の文字列インスタンスを参照します。
+ * 参照されなくなった名前はガベージコレクションの対象になります。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/05
+ * @author kawakicchi
+ */
+final class FileExplorerNameTable {
+
+	private final Map<String, WeakReference<String>> names;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerNameTable() {
+		names = new WeakHashMap<String, WeakReference<String>>();
+	}
+
+	/**
+	 * 名前テーブル上の文字列を取得する。
+	 * 
+	 * @param aName 名前
+	 * @return 名前テーブル上の文字列
+	 */
+	public synchronized String intern(final String aName) {
+		WeakReference<String> ref = names.get(aName);
+		if (null != ref) {
+			String name = ref.get();
+			if (null != name) {
+				return name;
+			}
+		}
+		names.put(aName, new WeakReference<String>(aName));
+		return aName;
+	}
+
+	/**
+	 * 名前テーブルに登録されている名前の数を取得する。
+	 * 
+	 * @return 名前の数
+	 */
+	public synchronized int size() {
+		return names.size();
+	}
+}
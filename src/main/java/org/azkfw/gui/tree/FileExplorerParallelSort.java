@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * このクラスは、Fork/Joinによる並列マージソートを行うクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/07
+ * @author kawakicchi
+ */
+final class FileExplorerParallelSort {
+
+	/** 分割をやめる要素数 */
+	private static final int GRANULARITY = 4096;
+
+	/** 共有プール */
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	private FileExplorerParallelSort() {
+	}
+
+	/**
+	 * 配列を並列にソートする。
+	 * <p>
+	 * {@link Arrays#sort(Object[], Comparator)}と同様に安定ソートです。
+	 * </p>
+	 * 
+	 * @param aArray 配列
+	 * @param aComparator 比較
+	 */
+	public static <T> void sort(final T[] aArray, final Comparator<? super T> aComparator) {
+		if (aArray.length <= GRANULARITY) {
+			Arrays.sort(aArray, aComparator);
+			return;
+		}
+		T[] work = Arrays.copyOf(aArray, aArray.length);
+		POOL.invoke(new SortTask<T>(aArray, work, 0, aArray.length, aComparator));
+	}
+
+	/**
+	 * このクラスは、配列の範囲をソートするタスククラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/07
+	 * @author kawakicchi
+	 */
+	private static class SortTask<T> extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -1432290553214577420L;
+
+		private final T[] array;
+		private final T[] work;
+		private final int from;
+		private final int to;
+		private final Comparator<? super T> comparator;
+
+		public SortTask(final T[] aArray, final T[] aWork, final int aFrom, final int aTo, final Comparator<? super T> aComparator) {
+			array = aArray;
+			work = aWork;
+			from = aFrom;
+			to = aTo;
+			comparator = aComparator;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GRANULARITY) {
+				Arrays.sort(array, from, to, comparator);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SortTask<T>(array, work, from, mid, comparator), new SortTask<T>(array, work, mid, to, comparator));
+
+			// 前半の最後が後半の最初以下であればマージ不要
+			if (comparator.compare(array[mid - 1], array[mid]) <= 0) {
+				return;
+			}
+			System.arraycopy(array, from, work, from, to - from);
+			int i = from;
+			int j = mid;
+			int k = from;
+			while (i < mid && j < to) {
+				if (comparator.compare(work[j], work[i]) < 0) {
+					array[k++] = work[j++];
+				} else {
+					array[k++] = work[i++];
+				}
+			}
+			while (i < mid) {
+				array[k++] = work[i++];
+			}
+			while (j < to) {
+				array[k++] = work[j++];
+			}
+		}
+	}
+}
@@ -0,0 +1,313 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * このクラスは、展開される前のディレクトリの一覧を先読みするクラスです。
+ * <p>
+ * 先読みの同時実行数と、保持する一覧の推定メモリ量に上限を設けます。
+ * 上限を超えた一覧は古いものから破棄され、先読み対象から外れたディレクトリの読み込みはキャンセルされます。
+ * </p>
+ * <p>
+ * 先読みは監視対象への登録より前に行われるため、読み込み開始時のディレクトリの最終更新日時を記録し、
+ * 取り出す時点の最終更新日時と一致しない一覧は破棄します。判定は最終更新日時の精度に依存します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/13
+ * @author kawakicchi
+ */
+final class FileExplorerPrefetcher {
+
+	/** 先読みした一覧の有効期間(ミリ秒) */
+	private static final long MAX_AGE_MILLIS = 30 * 1000;
+
+	/** 名前テーブル */
+	private final FileExplorerNameTable nameTable;
+	/** アクセスの期限を管理するガード */
+	private final FileExplorerMountGuard guard;
+	/** 同時実行数 */
+	private final int concurrency;
+	/** 保持する一覧の推定メモリ量の上限(byte) */
+	private final long budget;
+
+	private final ExecutorService executor;
+
+	/** ディレクトリごとの先読み(古い順) */
+	private final Map<Path, Task> tasks;
+	/** 保持している一覧の推定メモリ量(byte) */
+	private long usedBytes;
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aNameTable 名前テーブル
+	 * @param aGuard アクセスの期限を管理するガード
+	 * @param aConcurrency 同時実行数
+	 * @param aBudget 保持する一覧の推定メモリ量の上限(byte)
+	 */
+	public FileExplorerPrefetcher(final FileExplorerNameTable aNameTable, final FileExplorerMountGuard aGuard,
+			final int aConcurrency, final long aBudget) {
+		nameTable = aNameTable;
+		guard = aGuard;
+		concurrency = aConcurrency;
+		budget = aBudget;
+		tasks = new LinkedHashMap<Path, Task>();
+		executor = Executors.newFixedThreadPool(aConcurrency, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerTree-prefetch-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * ディレクトリの先読みを要求する。
+	 * <p>
+	 * 指定されていないディレクトリの読み込み中の先読みはキャンセルされます。
+	 * </p>
+	 * 
+	 * @param aDirectories 先読みするディレクトリ一覧
+	 */
+	public synchronized void prefetch(final Collection<Path> aDirectories) {
+		int running = 0;
+		for (Iterator<Task> it = tasks.values().iterator(); it.hasNext();) {
+			Task task = it.next();
+			if (!task.future.isDone()) {
+				if (aDirectories.contains(task.directory)) {
+					running++;
+				} else {
+					task.future.cancel(true);
+					it.remove();
+				}
+			}
+		}
+		for (Path directory : aDirectories) {
+			if (running >= concurrency) {
+				break;
+			}
+			Task task = tasks.get(directory);
+			if (null != task && !task.isExpired()) {
+				continue;
+			}
+			if (null != task) {
+				remove(task);
+			}
+			task = new Task(directory);
+			try {
+				task.future = executor.submit(task);
+			} catch (RejectedExecutionException ex) {
+				return;
+			}
+			tasks.put(directory, task);
+			running++;
+		}
+	}
+
+	/**
+	 * 先読みした一覧を取り出す。
+	 * <p>
+	 * 読み込み中の場合は完了を待ちます。このメソッドはローダーのスレッドから呼び出されます。
+	 * 先読みを開始した後にディレクトリが更新されている場合、先読みした一覧は使用しません。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aModified 監視対象に登録した後に取得したディレクトリの最終更新日時(取得できない場合、<code>-1</code>)
+	 * @return ファイル属性一覧。先読みしていない、または先読み後に更新されている場合、<code>null</code>
+	 * @throws InterruptedException 待機中に割り込まれた場合
+	 */
+	public List<FileExplorerEntry> take(final Path aDirectory, final long aModified) throws InterruptedException {
+		Task task;
+		synchronized (this) {
+			task = tasks.remove(aDirectory);
+			if (null != task) {
+				usedBytes -= task.bytes;
+				task.taken = true;
+			}
+			if (null == task || task.isExpired()) {
+				missCount++;
+				return null;
+			}
+		}
+		try {
+			List<FileExplorerEntry> entries = task.future.get();
+			if (-1 == aModified || task.modified != aModified) {
+				// 先読み中または先読み後、監視対象に登録するまでの変更を取りこぼさないよう破棄する
+				entries = null;
+			}
+			synchronized (this) {
+				if (null != entries) {
+					hitCount++;
+				} else {
+					missCount++;
+				}
+			}
+			return entries;
+		} catch (ExecutionException | CancellationException ex) {
+			synchronized (this) {
+				missCount++;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * 先読みした一覧を使用できた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * 先読みした一覧がなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * 保持している一覧の推定メモリ量を取得する。
+	 * 
+	 * @return メモリ量(byte)
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * 先読みを終了する。
+	 */
+	public synchronized void dispose() {
+		for (Task task : tasks.values()) {
+			task.future.cancel(true);
+		}
+		tasks.clear();
+		usedBytes = 0;
+		executor.shutdownNow();
+	}
+
+	private void remove(final Task aTask) {
+		tasks.remove(aTask.directory);
+		if (!aTask.future.isDone()) {
+			aTask.future.cancel(true);
+		}
+		usedBytes -= aTask.bytes;
+	}
+
+	/**
+	 * 先読みが完了した一覧を登録し、上限を超えた一覧を古い順に破棄する。
+	 * 
+	 * @param aTask 先読み
+	 * @param aEntries ファイル属性一覧
+	 * @return 保持する場合、<code>true</code>
+	 */
+	private synchronized boolean complete(final Task aTask, final List<FileExplorerEntry> aEntries) {
+		if (aTask.taken) {
+			return true;
+		}
+		if (aTask != tasks.get(aTask.directory)) {
+			return false;
+		}
+		long bytes = 0;
+		for (FileExplorerEntry entry : aEntries) {
+			bytes += 64 + 2 * entry.getName().length();
+		}
+		if (bytes > budget) {
+			tasks.remove(aTask.directory);
+			return false;
+		}
+		aTask.bytes = bytes;
+		usedBytes += bytes;
+		for (Iterator<Task> it = tasks.values().iterator(); it.hasNext() && usedBytes > budget;) {
+			Task task = it.next();
+			if (task != aTask && task.future.isDone()) {
+				it.remove();
+				usedBytes -= task.bytes;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * このクラスは、ディレクトリ一つ分の先読みを行うクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/13
+	 * @author kawakicchi
+	 */
+	private class Task implements Callable<List<FileExplorerEntry>> {
+
+		private final Path directory;
+		private final long created;
+		private Future<List<FileExplorerEntry>> future;
+		/** 読み込み開始時のディレクトリの最終更新日時 */
+		private long modified;
+		/** 推定メモリ量(byte) */
+		private long bytes;
+		/** ローダーに取り出された場合、<code>true</code> */
+		private boolean taken;
+
+		public Task(final Path aDirectory) {
+			directory = aDirectory;
+			created = System.currentTimeMillis();
+		}
+
+		public boolean isExpired() {
+			return created + MAX_AGE_MILLIS < System.currentTimeMillis();
+		}
+
+		@Override
+		public List<FileExplorerEntry> call() throws Exception {
+			FileExplorerLister lister = new FileExplorerLister(nameTable, guard);
+			modified = lister.getLastModified(directory);
+			List<FileExplorerEntry> entries = lister.list(directory);
+			if (Thread.currentThread().isInterrupted() || !complete(this, entries)) {
+				return null;
+			}
+			return entries;
+		}
+	}
+}
@@ -17,31 +17,65 @@
  */
 package org.azkfw.gui.tree;
 
+import java.awt.Component;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionAdapter;
 import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.Icon;
-import javax.swing.ImageIcon;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
 import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.event.TreeSelectionEvent;
+import javax.swing.event.TreeSelectionListener;
 import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.ExpandVetoException;
+import javax.swing.tree.MutableTreeNode;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
@@ -57,27 +91,158 @@ public class FileExplorerTree extends JTree {
 	/** serialVersionUID */
 	private static final long serialVersionUID = 7291484363688454423L;
 
+	/** 子ノードを反映する単位 */
+	private static final int CHUNK_SIZE = 500;
+
+	/** 先読みの同時実行数 */
+	public static final int PREFETCH_CONCURRENCY = 2;
+	/** 先読みした一覧を保持する推定メモリ量(byte) */
+	public static final long PREFETCH_BUDGET = 8 * 1024 * 1024;
+
+	/** 子ノード1件あたりの推定メモリ量(byte、名前の文字を除く) */
+	public static final int ESTIMATED_NODE_BYTES = 160;
+	/** ノード未生成のファイル属性1件あたりの推定メモリ量(byte、名前の文字を除く) */
+	public static final int ESTIMATED_PAGE_ENTRY_BYTES = 64;
+	/** 展開済みディレクトリ1件あたりの状態・監視の登録の推定メモリ量(byte) */
+	public static final int ESTIMATED_DIRECTORY_BYTES = 256;
+	/** 絞り込み中の名前索引の子ノード1件あたりの推定メモリ量(byte) */
+	public static final int ESTIMATED_INDEX_BYTES = 150;
+
 	private FileExplorerTreeEvent listenerEvent;
 	private List<FileExplorerTreeListener> listeners;
 
+	/** ディレクトリ読み込み用のエグゼキューター */
+	private ExecutorService executor;
+	/** ファイルシステムへのアクセスの期限を管理するガード */
+	private FileExplorerMountGuard mountGuard;
+	/** 読み込み中のローダー */
+	private List<FileExplorerTreeLoader> loaders;
+
+	/** 直近の展開時のファイルシステム呼び出し回数 */
+	private volatile int lastListingCallCount;
+	/** ファイルシステム呼び出し回数の累計 */
+	private final AtomicLong totalListingCallCount = new AtomicLong(0);
+
+	/** 子ノードの並び順 */
+	private volatile FileExplorerTreeSorter sorter;
+	/** ファイル名の名前テーブル */
+	private FileExplorerNameTable nameTable;
+
+	/** ページングする子ノード数(0の場合、ページングしない) */
+	private volatile int pageSize;
+
+	/** ファイルアイコン */
+	private FileExplorerIconProvider iconProvider;
+
+	/** ディレクトリ一覧のキャッシュ(使用しない場合、<code>null</code>) */
+	private volatile FileExplorerListingCache listingCache;
+
+	/** ディスク使用量の集計(集計していない場合、<code>null</code>) */
+	private FileExplorerDiskUsageScanner diskUsageScanner;
+	private List<FileExplorerDiskUsageListener> diskUsageListeners;
+
+	/** 先読み(使用しない場合、<code>null</code>) */
+	private volatile FileExplorerPrefetcher prefetcher;
+	/** マウスカーソル上のノード */
+	private Object hoverNode;
+
+	/** 読み込み済みノードの名前索引(絞り込んでいない場合、<code>null</code>) */
+	private FileExplorerNameIndex nameIndex;
+	/** 絞り込み条件(絞り込んでいない場合、<code>null</code>) */
+	private FileExplorerTreeFilter filter;
+	/** 絞り込み前に展開されていたパス */
+	private List<TreePath> unfilteredExpandedPaths;
+	/** 直近の絞り込みで一致したノード数 */
+	private int filterMatchCount;
+	/** 絞り込みの再適用を予約済みの場合、<code>true</code> */
+	private boolean filterPending;
+
+	/** マウントしたアーカイブ */
+	private FileExplorerArchiveCache archiveCache;
+
+	/** ディレクトリ監視 */
+	private FileExplorerWatcher watcher;
+	/** 監視中のノード */
+	private Map<Path, FileExplorerTreeNode> watchedNodes;
+
+	/** 子ノードを保持する推定メモリ量の上限(byte、0の場合は上限なし) */
+	private long memoryBudget;
+	/** 折りたたまれた展開済みノード(参照の古い順) */
+	private Map<FileExplorerTreeNode, Boolean> collapsedNodes;
+	/** 保持している子ノード数 */
+	private volatile int retainedNodeCount;
+	/** 保持している子ノード・展開済みディレクトリの状態・ノード未生成の一覧の推定メモリ量(byte、名前索引を除く) */
+	private volatile long retainedBytes;
+	/** 破棄したサブツリー数 */
+	private volatile long evictionCount;
+	/** 破棄した子ノード数 */
+	private volatile long evictedNodeCount;
+
+	/** 実行中の展開状態の復元(復元していない場合、<code>null</code>) */
+	private FutureTask<Void> restoreTask;
+	/** 実行中の展開状態の復元のディレクトリ読み込み */
+	private List<Future<?>> restoreListings;
+
 	/**
 	 * コンストラクタ
+	 * <p>
+	 * デフォルトのファイルシステムのルートディレクトリを表示します。
+	 * </p>
 	 */
 	public FileExplorerTree() {
+		this(new FileExplorerFileSystemRootProvider());
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aRootProvider ルートの提供元
+	 */
+	public FileExplorerTree(final FileExplorerTreeRootProvider aRootProvider) {
 		listenerEvent = new FileExplorerTreeEvent(this);
-		listeners = new ArrayList<FileExplorerTreeListener>();
+		listeners = new CopyOnWriteArrayList<FileExplorerTreeListener>();
+		diskUsageListeners = new CopyOnWriteArrayList<FileExplorerDiskUsageListener>();
+
+		executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "FileExplorerTree-loader-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		loaders = new ArrayList<FileExplorerTreeLoader>();
+		mountGuard = new FileExplorerMountGuard();
+
+		sorter = FileExplorerTreeSorter.getNameSorter();
+
+		nameTable = new FileExplorerNameTable();
+		archiveCache = new FileExplorerArchiveCache();
+		watchedNodes = new HashMap<Path, FileExplorerTreeNode>();
+		collapsedNodes = new LinkedHashMap<FileExplorerTreeNode, Boolean>(16, 0.75f, true);
+		watcher = new FileExplorerWatcher(new FileExplorerWatcher.Callback() {
+			@Override
+			public void fileExplorerWatcherChanged(final Path aDirectory, final Set<String> aNames, final boolean aOverflow) {
+				doWatcherChanged(aDirectory, aNames, aOverflow);
+			}
+		});
 
 		setRootVisible(false);
 		DefaultMutableTreeNode root = new DefaultMutableTreeNode("ROOT");
 
-		File[] roots = File.listRoots();
-		for (File file : roots) {
-			DefaultMutableTreeNode child = new FileExplorerDriverTreeNode(file.getAbsolutePath());
+		for (Path path : aRootProvider.getRoots()) {
+			DefaultMutableTreeNode child = new FileExplorerDriverTreeNode(path);
 			root.add(child);
 		}
-		DefaultTreeModel model = new DefaultTreeModel(root);
+		DefaultTreeModel model = new FileExplorerTreeModel(root);
 		setModel(model);
 
+		iconProvider = new FileExplorerIconProvider();
+		iconProvider.setMountGuard(mountGuard);
+		setCellRenderer(new FileExplorerTreeCellRenderer());
+
 		addMouseListener(new MouseAdapter() {
 			@Override
 			public void mousePressed(final MouseEvent event) {
@@ -90,7 +255,7 @@ public class FileExplorerTree extends JTree {
 						Object obj = getSelectionPath().getLastPathComponent();
 						if (obj instanceof FileExplorerFileTreeNode) {
 							FileExplorerFileTreeNode node = (FileExplorerFileTreeNode) obj;
-							JPopupMenu menu = createPopupMenu(node, node.getFile());
+							JPopupMenu menu = createPopupMenu(node, node.getFilePath());
 							if (null != menu) {
 								menu.show(event.getComponent(), x, y);
 							}
@@ -108,13 +273,50 @@ public class FileExplorerTree extends JTree {
 						Object obj = path.getLastPathComponent();
 						if (obj instanceof FileExplorerFileTreeNode) {
 							FileExplorerFileTreeNode fileNode = (FileExplorerFileTreeNode) obj;
-							doOpenFile(fileNode.getFile());
+							doOpenFile(fileNode.getFilePath());
+						} else if (obj instanceof FileExplorerMoreTreeNode) {
+							doOpenMore((FileExplorerMoreTreeNode) obj);
 						}
 					}
 				}
 			}
 		});
 
+		addMouseMotionListener(new MouseMotionAdapter() {
+			@Override
+			public void mouseMoved(final MouseEvent event) {
+				if (null != prefetcher) {
+					TreePath path = getPathForLocation(event.getX(), event.getY());
+					Object obj = (null != path) ? path.getLastPathComponent() : null;
+					if (hoverNode != obj) {
+						hoverNode = obj;
+						doPrefetch();
+					}
+				}
+			}
+		});
+
+		addTreeSelectionListener(new TreeSelectionListener() {
+			@Override
+			public void valueChanged(final TreeSelectionEvent event) {
+				if (null != prefetcher) {
+					doPrefetch();
+				}
+			}
+		});
+
+		addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentMoved(final ComponentEvent event) {
+				doLoadVisiblePages();
+			}
+
+			@Override
+			public void componentResized(final ComponentEvent event) {
+				doLoadVisiblePages();
+			}
+		});
+
 		addKeyListener(new KeyAdapter() {
 			@Override
 			public void keyPressed(final KeyEvent event) {
@@ -124,7 +326,9 @@ public class FileExplorerTree extends JTree {
 					Object obj = path.getLastPathComponent();
 					if (obj instanceof FileExplorerFileTreeNode) {
 						FileExplorerFileTreeNode fileNode = (FileExplorerFileTreeNode) obj;
-						doOpenFile(fileNode.getFile());
+						doOpenFile(fileNode.getFilePath());
+					} else if (obj instanceof FileExplorerMoreTreeNode) {
+						doOpenMore((FileExplorerMoreTreeNode) obj);
 					}
 					event.consume();
 				}
@@ -144,255 +348,3056 @@ public class FileExplorerTree extends JTree {
 
 			@Override
 			public void treeWillCollapse(TreeExpansionEvent event) throws ExpandVetoException {
+				TreePath path = event.getPath();
+				Object obj = path.getLastPathComponent();
+				if (obj instanceof FileExplorerTreeNode) {
+					FileExplorerTreeNode node = (FileExplorerTreeNode) obj;
+					if (node.isLoading() || node.isFailed()) {
+						node.cancelLoading();
+					}
+				}
 			}
 		});
-	}
 
-	public void addFileExplorerTreeListener(final FileExplorerTreeListener listener) {
-		synchronized (listeners) {
-			listeners.add(listener);
-		}
-	}
+		addTreeExpansionListener(new TreeExpansionListener() {
+			@Override
+			public void treeExpanded(final TreeExpansionEvent event) {
+				Object obj = event.getPath().getLastPathComponent();
+				if (obj instanceof FileExplorerTreeNode) {
+					collapsedNodes.remove(obj);
+				}
+			}
 
-	public void removeFileExplorerTreeListener(final FileExplorerTreeListener listener) {
-		synchronized (listeners) {
-			listeners.remove(listener);
-		}
+			@Override
+			public void treeCollapsed(final TreeExpansionEvent event) {
+				Object obj = event.getPath().getLastPathComponent();
+				if (obj instanceof FileExplorerTreeNode && ((FileExplorerTreeNode) obj).isOpened()) {
+					FileExplorerTreeNode node = (FileExplorerTreeNode) obj;
+					node.trimPages(getSelectionPaths());
+					collapsedNodes.put(node, Boolean.TRUE);
+					doEvict();
+				}
+			}
+		});
 	}
 
 	/**
-	 * ディレクトリ・ファイルでダブルクリック、Enter時に呼び出される
-	 * 
-	 * @param aFile
+	 * ツリーを破棄する。
+	 * <p>
+	 * 読み込み中のディレクトリはすべてキャンセルされます。
+	 * ディレクトリ一覧のキャッシュは、イベントディスパッチスレッドを止めないようローダーのスレッドで保存されます。
+	 * 保存の完了を待つ場合は{@link #awaitDisposed(long)}を使用してください。
+	 * </p>
 	 */
-	private void doOpenFile(final File aFile) {
-		synchronized (listeners) {
-			for (FileExplorerTreeListener listener : listeners) {
-				try {
-					listener.fileExplorerTreeClickedFile(listenerEvent, aFile);
-				} catch (Exception ex) {
-					ex.printStackTrace();
-				}
-			}
+	public void dispose() {
+		List<FileExplorerTreeLoader> lst = new ArrayList<FileExplorerTreeLoader>(loaders);
+		for (FileExplorerTreeLoader loader : lst) {
+			loader.getNode().cancelLoading();
 		}
-	}
-
-	private JPopupMenu createPopupMenu(final FileExplorerFileTreeNode aNode, final File aFile) {
-		JPopupMenu menu = new JPopupMenu();
-		synchronized (listeners) {
-			for (FileExplorerTreeListener listener : listeners) {
-				try {
-					List<JMenuItem> menuItems = listener.fileExplorerTreeMenuFile(listenerEvent, aFile);
-					if (null != menuItems) {
-						for (JMenuItem menuItem : menuItems) {
-							menu.add(menuItem);
-						}
+		cancelRestore();
+		if (null != listingCache) {
+			final FileExplorerListingCache cache = listingCache;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						cache.save();
+					} catch (IOException ex) {
+						ex.printStackTrace();
 					}
-				} catch (Exception ex) {
-					ex.printStackTrace();
 				}
-			}
+			});
+		}
+		// 読み込みはキャンセル済みのため、キャッシュの保存を待ってスレッドを終了する
+		executor.shutdown();
+		cancelDiskUsage();
+		iconProvider.dispose();
+		if (null != prefetcher) {
+			prefetcher.dispose();
+			prefetcher = null;
 		}
+		watcher.close();
+		watchedNodes.clear();
+		archiveCache.close();
+		mountGuard.dispose();
+	}
 
-		if (aFile.isDirectory()) {
-			if (0 < menu.getComponentCount()) {
-				menu.addSeparator();
-			}
+	/**
+	 * {@link #dispose()}の後、ディレクトリ一覧のキャッシュの保存が完了するまで待機する。
+	 * 
+	 * @param aMillis 最大待機時間(ミリ秒)
+	 * @return 完了した場合、<code>true</code>
+	 * @throws InterruptedException 待機中に割り込まれた場合
+	 */
+	public boolean awaitDisposed(final long aMillis) throws InterruptedException {
+		return executor.awaitTermination(aMillis, TimeUnit.MILLISECONDS);
+	}
 
-			ClassLoader cl = this.getClass().getClassLoader();
-			Icon icon = new ImageIcon(cl.getResource("org/azkfw/gui/tree/FileExplorerTree_refresh.png"));
-			JMenuItem menuRefresh = new JMenuItem("更新", icon);
-			menu.add(menuRefresh);
+	/**
+	 * ページングする子ノード数を設定する。
+	 * <p>
+	 * 子ノードが指定数を超えるディレクトリは、指定数ずつノードを生成します。
+	 * 残りのファイルは属性のみを配列で保持し、「さらに表示」ノードが表示領域に入った時点で次のページが生成されます。
+	 * </p>
+	 * <p>
+	 * 展開中のディレクトリでは、ページは末尾に追加されるのみで、表示領域から外れたページのノードは破棄されません。
+	 * ディレクトリを折りたたんだ時点で、先頭のページより後ろのノードは属性のみの一覧へ戻されるため、
+	 * 折りたたまれたディレクトリが保持する子ノードは1ページ分までになります。
+	 * ただし、展開済みのディレクトリ・選択中のノードを含む子ノードまでは維持されます。
+	 * </p>
+	 * 
+	 * @param aSize 子ノード数。0の場合、ページングしない
+	 */
+	public void setPageSize(final int aSize) {
+		pageSize = Math.max(0, aSize);
+	}
 
-			menuRefresh.addActionListener(new ActionListener() {
-				@Override
-				public void actionPerformed(final ActionEvent event) {
-					//System.out.println("menu : " + aNode.getName());
+	/**
+	 * ページングする子ノード数を取得する。
+	 * 
+	 * @return 子ノード数。0の場合、ページングしない
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
 
-					File[] files = aFile.listFiles();
-					refreshNode(aNode, files);
-				}
-			});
+	/**
+	 * ファイルアイコンを取得する。
+	 * 
+	 * @return ファイルアイコン
+	 */
+	public FileExplorerIconProvider getIconProvider() {
+		return iconProvider;
+	}
+
+	/**
+	 * 選択・マウスカーソル上のディレクトリの先読みを設定する。
+	 * <p>
+	 * 先読みは{@link #PREFETCH_CONCURRENCY}件まで同時に行い、保持する一覧は推定{@link #PREFETCH_BUDGET}バイトまでです。
+	 * 選択・マウスカーソルが移動したディレクトリの先読みはキャンセルされます。
+	 * </p>
+	 * 
+	 * @param aEnabled 先読みする場合、<code>true</code>
+	 */
+	public void setPrefetchEnabled(final boolean aEnabled) {
+		if (aEnabled == (null != prefetcher)) {
+			return;
+		}
+		if (aEnabled) {
+			prefetcher = new FileExplorerPrefetcher(nameTable, mountGuard, PREFETCH_CONCURRENCY, PREFETCH_BUDGET);
+			doPrefetch();
+		} else {
+			prefetcher.dispose();
+			prefetcher = null;
 		}
+	}
 
-		return menu;
+	/**
+	 * 先読みするか判断する。
+	 * 
+	 * @return 先読みする場合、<code>true</code>
+	 */
+	public boolean isPrefetchEnabled() {
+		return null != prefetcher;
 	}
 
-	private void refreshNode(final FileExplorerTreeNode aNode, final File[] aFiles) {
-		List<File> lst = new ArrayList<File>();
+	/**
+	 * 展開時に先読みした一覧を使用できた回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public long getPrefetchHitCount() {
+		FileExplorerPrefetcher p = prefetcher;
+		return (null != p) ? p.getHitCount() : 0;
+	}
 
-		if (null != aFiles) {
+	/**
+	 * 展開時に先読みした一覧がなかった回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public long getPrefetchMissCount() {
+		FileExplorerPrefetcher p = prefetcher;
+		return (null != p) ? p.getMissCount() : 0;
+	}
 
-			synchronized (listeners) {
-				for (File f : aFiles) {
-					if (!f.isHidden()) {
-						boolean cancel = false;
-						try {
-							for (FileExplorerTreeListener listener : listeners) {
-								cancel = listener.fileExplorerTreeAppendingFile(listenerEvent, f);
-								if (!cancel) {
-									break;
-								}
-							}
-							if (cancel) {
-								lst.add(f);
-								for (FileExplorerTreeListener listener : listeners) {
-									listener.fileExplorerTreeAppendedFile(listenerEvent, f);
-								}
-							}
-						} catch (Exception ex) {
-							ex.printStackTrace();
-						}
-					}
-				}
-			}
+	/**
+	 * ファイルシステムへのアクセスの期限を設定する。
+	 * <p>
+	 * 期限内に応答しないディレクトリは読み込み中のまま待たずにエラーを表示します。
+	 * 続けて応答しないマウントは縮退状態となり、待機時間が経過するまでアクセスせずにエラーを表示します。
+	 * エラーのノードは折りたたんで展開し直す、または更新すると再試行します。
+	 * </p>
+	 * 
+	 * @param aTimeout 期限(ミリ秒)
+	 */
+	public void setFileSystemTimeout(final long aTimeout) {
+		mountGuard.setTimeout(aTimeout);
+	}
 
-			Collections.sort(lst, new Comparator<File>() {
-				public int compare(final File file1, final File file2) {
-					if (file1.isFile() != file2.isFile()) {
-						if (file1.isFile()) {
-							return 1;
-						} else {
-							return -1;
-						}
-					} else {
-						return file1.getName().compareTo(file2.getName());
-					}
-				}
-			});
-		} else {
-			// ファイル無
-		}
+	/**
+	 * ファイルシステムへのアクセスの期限を取得する。
+	 * 
+	 * @return 期限(ミリ秒)
+	 */
+	public long getFileSystemTimeout() {
+		return mountGuard.getTimeout();
+	}
 
-		aNode.refreshNode(lst);
+	/**
+	 * パスを含むマウントへのアクセスの期限を設定する。
+	 * 
+	 * @param aPath パス
+	 * @param aTimeout 期限(ミリ秒)。0以下の場合、{@link #setFileSystemTimeout(long)}の期限を使用する
+	 */
+	public void setFileSystemTimeout(final Path aPath, final long aTimeout) {
+		mountGuard.setTimeout(aPath, aTimeout);
 	}
 
-	private void doOpenChild(final FileExplorerTreeNode node) {
-		if (!node.isOpened()) {
-			File file = getFile(node);
-			File[] files = file.listFiles();
-			refreshNode(node, files);
-		}
-	}
-
-	private File getFile(FileExplorerTreeNode node) {
-		File file = null;
-		List<String> paths = new ArrayList<String>();
-		FileExplorerTreeNode target = node;
-		paths.add(0, target.getName());
-		while (true) {
-			TreeNode tn = target.getParent();
-			if (tn instanceof FileExplorerTreeNode) {
-				target = (FileExplorerTreeNode) tn;
-				paths.add(0, target.getName());
-			} else {
-				break;
-			}
-		}
-		Path path = Paths.get("", paths.toArray(new String[0]));
-		file = path.toFile();
+	/**
+	 * パスを含むマウントが応答しないため縮退状態か判断する。
+	 * 
+	 * @param aPath パス
+	 * @return 縮退状態の場合、<code>true</code>
+	 */
+	public boolean isFileSystemDegraded(final Path aPath) {
+		return mountGuard.isDegraded(aPath);
+	}
 
-		return file;
+	/**
+	 * ディレクトリ一覧のキャッシュを設定する。
+	 * <p>
+	 * 展開時はキャッシュした一覧を即座に表示し、ディレクトリの最終更新日時が異なる場合のみ読み込んだ一覧をマージします。
+	 * ファイルの内容の変更はディレクトリの最終更新日時に反映されないため、キャッシュしたサイズ・最終更新日時が表示される場合があります。
+	 * キャッシュは{@link #dispose()}でローダーのスレッドから保存されます。
+	 * </p>
+	 * 
+	 * @param aCache キャッシュ。<code>null</code>の場合、キャッシュを使用しない
+	 */
+	public void setListingCache(final FileExplorerListingCache aCache) {
+		listingCache = aCache;
 	}
 
 	/**
-	 * このクラスは、ファイルエクスプローラ用のツリーノードクラスです。
+	 * ディレクトリ一覧のキャッシュを取得する。
 	 * 
-	 * @since 1.0.0
-	 * @version 1.0.0 2014/10/14
-	 * @author kawakicchi
+	 * @return キャッシュ。使用しない場合、<code>null</code>
 	 */
-	private abstract class FileExplorerTreeNode extends DefaultMutableTreeNode {
+	public FileExplorerListingCache getListingCache() {
+		return listingCache;
+	}
 
-		/** serialVersionUID */
-		private static final long serialVersionUID = -3687831061073761255L;
+	/**
+	 * 子ノードの並び順を設定する。
+	 * <p>
+	 * 展開済みのノードは展開・選択状態を維持したまま並び替えられます。
+	 * </p>
+	 * 
+	 * @param aSorter ソーター
+	 */
+	public void setSorter(final FileExplorerTreeSorter aSorter) {
+		if (sorter == aSorter) {
+			return;
+		}
+		sorter = aSorter;
 
-		private boolean openFlag;
+		List<TreePath> expanded = getExpandedPaths();
+		TreePath[] selections = getSelectionPaths();
 
-		public FileExplorerTreeNode(final String aName) {
-			super(aName);
-			openFlag = false;
+		DefaultMutableTreeNode root = (DefaultMutableTreeNode) getModel().getRoot();
+		for (int i = 0; i < root.getChildCount(); i++) {
+			((FileExplorerTreeNode) root.getChildAt(i)).sortNode();
 		}
+		((DefaultTreeModel) getModel()).reload();
 
-		public boolean isOpened() {
-			return openFlag;
+		for (TreePath path : expanded) {
+			expandPath(path);
 		}
+		setSelectionPaths(selections);
+	}
 
-		protected String getName() {
-			return getUserObject().toString();
+	/**
+	 * 子ノードの並び順を取得する。
+	 * 
+	 * @return ソーター
+	 */
+	public FileExplorerTreeSorter getSorter() {
+		return sorter;
+	}
+
+	/**
+	 * ディレクトリ配下のディスク使用量の集計を開始する。
+	 * <p>
+	 * 集計中のディレクトリはキャンセルされます。
+	 * 展開済みのディレクトリのうち、表示しないファイルを除外していないディレクトリは読み込み済みの一覧を使用します。
+	 * 集計結果はディレクトリのノードにサイズとして表示され、集計中は途中経過の合計に「…」が付きます。
+	 * {@link FileExplorerDiskUsage#createSorter()}のソーターを設定している場合、集計の完了時に並び替えます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return 集計
+	 */
+	public FileExplorerDiskUsageScanner scanDiskUsage(final Path aDirectory) {
+		cancelDiskUsage();
+
+		Map<Path, List<FileExplorerEntry>> listings = new HashMap<Path, List<FileExplorerEntry>>();
+		for (Map.Entry<Path, FileExplorerTreeNode> entry : watchedNodes.entrySet()) {
+			Path path = entry.getKey();
+			FileExplorerTreeNode node = entry.getValue();
+			if (path.getFileSystem() == aDirectory.getFileSystem() && path.startsWith(aDirectory) && !node.isLoading()
+					&& !node.isFailed() && !node.isFiltered()) {
+				listings.put(path, node.getEntries());
+			}
 		}
 
-		public void refreshNode(final List<File> aFiles) {
-			openFlag = true;
-			removeAllChildren();
-			for (File f : aFiles) {
-				DefaultMutableTreeNode child = new FileExplorerFileTreeNode(f);
-				add(child);
+		final FileExplorerDiskUsageScanner scanner = new FileExplorerDiskUsageScanner(aDirectory, listings);
+		scanner.addListener(new FileExplorerDiskUsageListener() {
+			@Override
+			public void fileExplorerDiskUsageUpdated(final FileExplorerDiskUsage aUsage) {
+				if (scanner == diskUsageScanner) {
+					repaint();
+				}
+				for (FileExplorerDiskUsageListener listener : diskUsageListeners) {
+					listener.fileExplorerDiskUsageUpdated(aUsage);
+				}
+			}
+
+			@Override
+			public void fileExplorerDiskUsageFinished(final FileExplorerDiskUsage aUsage, final boolean aCancelled) {
+				if (scanner == diskUsageScanner) {
+					if (!aCancelled && aUsage.isSorter(sorter)) {
+						FileExplorerTreeSorter s = sorter;
+						sorter = null;
+						setSorter(s);
+					}
+					repaint();
+				}
+				for (FileExplorerDiskUsageListener listener : diskUsageListeners) {
+					listener.fileExplorerDiskUsageFinished(aUsage, aCancelled);
+				}
 			}
+		});
+		diskUsageScanner = scanner;
+		scanner.start();
+		return scanner;
+	}
 
-			((DefaultTreeModel) getModel()).reload(this);
+	/**
+	 * ディスク使用量の集計をキャンセルし、ノードのサイズ表示を消去する。
+	 */
+	public void cancelDiskUsage() {
+		if (null != diskUsageScanner) {
+			diskUsageScanner.cancel();
+			diskUsageScanner = null;
+			repaint();
 		}
 	}
 
 	/**
-	 * このクラスは、ドライブ用のツリーノードクラスです。
+	 * 直近のディスク使用量の集計結果を取得する。
 	 * 
-	 * @since 1.0.0
-	 * @version 1.0.0 2014/10/14
-	 * @author kawakicchi
+	 * @return 集計結果。集計していない場合、<code>null</code>
 	 */
-	private class FileExplorerDriverTreeNode extends FileExplorerTreeNode {
+	public FileExplorerDiskUsage getDiskUsage() {
+		return (null != diskUsageScanner) ? diskUsageScanner.getUsage() : null;
+	}
 
-		/** serialVersionUID */
-		private static final long serialVersionUID = -3171203904400080810L;
+	/**
+	 * ディスク使用量の集計の経過を受け取るリスナーを追加する。
+	 * <p>
+	 * {@link FileExplorerDiskUsageTreemap}を追加すると、ツリーで集計した結果をツリーマップで表示します。
+	 * </p>
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void addDiskUsageListener(final FileExplorerDiskUsageListener aListener) {
+		diskUsageListeners.add(aListener);
+	}
 
-		/**
-		 * コンストラクター
-		 * 
-		 * @param userObject 当ノードのユーザーオブジェクト
-		 */
-		public FileExplorerDriverTreeNode(final String aName) {
-			super(aName);
+	/**
+	 * ディスク使用量の集計の経過を受け取るリスナーを削除する。
+	 * 
+	 * @param aListener リスナー
+	 */
+	public void removeDiskUsageListener(final FileExplorerDiskUsageListener aListener) {
+		diskUsageListeners.remove(aListener);
+	}
+
+	/**
+	 * 読み込み済みのノードを名前で絞り込む。
+	 * <p>
+	 * 一致したノードとその親ノードのみ表示され、一致したノードの親ノードは展開されます。
+	 * 一致したディレクトリの子ノードは絞り込まれません。
+	 * 絞り込み中に読み込まれたノードにも条件が適用されます。
+	 * 検索に使用する名前索引は最初の絞り込みで読み込み済みの全ノードから生成し、絞り込みの解除時に破棄します。
+	 * </p>
+	 * 
+	 * @param aFilter 絞り込み条件。<code>null</code>の場合、絞り込みを解除する
+	 */
+	public void setFilter(final FileExplorerTreeFilter aFilter) {
+		FileExplorerTreeModel model = (FileExplorerTreeModel) getModel();
+		TreePath[] selections = getSelectionPaths();
+		List<TreePath> expanded = getExpandedPaths();
+		if (null == filter) {
+			unfilteredExpandedPaths = expanded;
 		}
+		filter = aFilter;
+		filterPending = false;
 
-		@Override
-		public boolean isLeaf() {
-			return false;
+		if (null == aFilter) {
+			nameIndex = null;
+			model.setViews(null);
+			filterMatchCount = 0;
+			for (TreePath path : unfilteredExpandedPaths) {
+				expandPath(path);
+			}
+			unfilteredExpandedPaths = null;
+		} else {
+			if (null == nameIndex) {
+				nameIndex = createNameIndex();
+			}
+			List<Object> matches = buildViews();
+			for (TreePath path : expanded) {
+				expandPath(path);
+			}
+			Set<Object> parents = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			for (Object match : matches) {
+				TreeNode parent = ((TreeNode) match).getParent();
+				if (null != parent && parents.add(parent)) {
+					expandPath(new TreePath(((DefaultMutableTreeNode) parent).getPath()));
+				}
+			}
 		}
+		setSelectionPaths(selections);
 	}
 
 	/**
-	 * このクラスは、ファイル用のツリーノードクラスです。
+	 * 絞り込み条件を取得する。
 	 * 
-	 * @since 1.0.0
-	 * @version 1.0.0 2014/10/14
-	 * @author kawakicchi
+	 * @return 絞り込み条件。絞り込んでいない場合、<code>null</code>
 	 */
-	private class FileExplorerFileTreeNode extends FileExplorerTreeNode {
-
-		/** serialVersionUID */
-		private static final long serialVersionUID = 7460805214915893826L;
+	public FileExplorerTreeFilter getFilter() {
+		return filter;
+	}
 
-		/** file */
-		private File file;
+	/**
+	 * 直近の絞り込みで一致したノード数を取得する。
+	 * 
+	 * @return ノード数
+	 */
+	public int getFilterMatchCount() {
+		return filterMatchCount;
+	}
+
+	/**
+	 * 直近のディレクトリ展開時のファイルシステム呼び出し回数を取得する。
+	 * 
+	 * @return 呼び出し回数
+	 */
+	public int getLastListingCallCount() {
+		return lastListingCallCount;
+	}
+
+	/**
+	 * ディレクトリ展開時のファイルシステム呼び出し回数の累計を取得する。
+	 * 
+	 * @return 呼び出し回数
+	 */
+	public long getTotalListingCallCount() {
+		return totalListingCallCount.get();
+	}
+
+	/**
+	 * 展開・選択されているパスを取得する。
+	 * <p>
+	 * 絞り込み中は絞り込み前に展開されていたパスを取得します。
+	 * </p>
+	 * 
+	 * @return 展開・選択状態
+	 */
+	public FileExplorerTreeState getExpansionState() {
+		FileExplorerTreeState state = new FileExplorerTreeState();
+		List<TreePath> expanded = (null != unfilteredExpandedPaths) ? unfilteredExpandedPaths : getExpandedPaths();
+		for (TreePath path : expanded) {
+			List<String> names = toNames(path);
+			if (null != names) {
+				state.addExpanded(names);
+			}
+		}
+		TreePath[] selections = getSelectionPaths();
+		if (null != selections) {
+			for (TreePath path : selections) {
+				List<String> names = toNames(path);
+				if (null != names) {
+					state.addSelected(names);
+				}
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * 展開・選択状態を復元する。
+	 * <p>
+	 * 展開するディレクトリの一覧をディレクトリ読み込み用のエグゼキューターで並列に読み込み、
+	 * すべて読み込んだ時点でイベントディスパッチスレッドで一括して子ノードを生成・展開します。
+	 * 存在しないパスは無視します。アーカイブ内のディレクトリ、読み込めなかったディレクトリは通常の展開と同様に読み込みます。
+	 * 実行中の復元はキャンセルされ、未着手の読み込みは破棄されます。
+	 * このメソッドはイベントディスパッチスレッドから呼び出し、戻り値の完了をイベントディスパッチスレッドで待たないでください。
+	 * </p>
+	 * 
+	 * @param aState 展開・選択状態
+	 * @return 復元の完了を表すフューチャー
+	 */
+	public Future<?> restoreExpansionState(final FileExplorerTreeState aState) {
+		cancelRestore();
+		// 読み込むディレクトリはノード名から求める(ファイルシステムにはアクセスしない)
+		final Map<Path, FileExplorerTreeState.Entry> directories = new LinkedHashMap<Path, FileExplorerTreeState.Entry>();
+		TreeNode root = (TreeNode) getModel().getRoot();
+		for (FileExplorerTreeState.Entry entry : aState.getRoot().getChildren()) {
+			for (int i = 0; i < root.getChildCount(); i++) {
+				TreeNode child = root.getChildAt(i);
+				if (child instanceof FileExplorerTreeNode && ((FileExplorerTreeNode) child).getName().equals(entry.getName())) {
+					collectDirectories(((FileExplorerTreeNode) child).getFilePath(), entry, directories);
+				}
+			}
+		}
+
+		final Map<Path, List<FileExplorerEntry>> listings = new ConcurrentHashMap<Path, List<FileExplorerEntry>>();
+		final Map<Path, FileExplorerTreeSorter> sorters = new ConcurrentHashMap<Path, FileExplorerTreeSorter>();
+		final FileExplorerTreeSorter sorterBase = sorter;
+		final Set<Path> filtereds = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+		final Set<Path> registereds = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+		final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() {
+				// 読み込み中にソーターが変更された場合、ディレクトリ用のソーターは取得し直す
+				Map<Path, FileExplorerTreeSorter> directorySorters = (sorterBase == sorter) ? sorters
+						: Collections.<Path, FileExplorerTreeSorter> emptyMap();
+				doRestore(aState, listings, directorySorters, filtereds);
+				return null;
+			}
+		});
+		Runnable finish = new Runnable() {
+			@Override
+			public void run() {
+				// キャンセルされた復元は反映しない
+				if (task == restoreTask && !task.isCancelled()) {
+					restoreTask = null;
+					restoreListings = null;
+					task.run();
+				}
+				// 使用しなかったディレクトリの監視を解除する
+				for (Path path : registereds) {
+					if (!watchedNodes.containsKey(path)) {
+						watcher.unregister(path);
+					}
+					registereds.remove(path);
+				}
+			}
+		};
+		restoreTask = task;
+		restoreListings = listDirectories(directories.keySet(), sorterBase, listings, sorters, filtereds, registereds,
+				task, finish);
+		return task;
+	}
+
+	/**
+	 * 実行中の展開状態の復元をキャンセルし、未着手のディレクトリ読み込みを破棄する。
+	 */
+	private void cancelRestore() {
+		if (null != restoreTask) {
+			restoreTask.cancel(true);
+			for (Future<?> future : restoreListings) {
+				future.cancel(true);
+			}
+			restoreTask = null;
+			restoreListings = null;
+		}
+	}
+
+	/**
+	 * パスまでのディレクトリを展開し、パスを選択する。
+	 * <p>
+	 * {@link #restoreExpansionState(FileExplorerTreeState)}と同様にバックグラウンドで一括して読み込みます。
+	 * 存在しない、または表示しないファイルの場合は展開できたディレクトリまでを展開します。
+	 * このメソッドはイベントディスパッチスレッドから呼び出してください。
+	 * </p>
+	 * 
+	 * @param aPath パス
+	 * @return 展開の完了を表すフューチャー
+	 */
+	public Future<?> revealPath(final Path aPath) {
+		Path path = aPath.toAbsolutePath().normalize();
+		FileExplorerTreeNode base = null;
+		TreeNode root = (TreeNode) getModel().getRoot();
+		for (int i = 0; i < root.getChildCount(); i++) {
+			TreeNode child = root.getChildAt(i);
+			if (child instanceof FileExplorerTreeNode) {
+				Path rootPath = ((FileExplorerTreeNode) child).getFilePath();
+				if (path.startsWith(rootPath)
+						&& (null == base || base.getFilePath().getNameCount() < rootPath.getNameCount())) {
+					base = (FileExplorerTreeNode) child;
+				}
+			}
+		}
+
+		FileExplorerTreeState state = new FileExplorerTreeState();
+		if (null != base) {
+			List<String> names = new ArrayList<String>();
+			names.add(base.getName());
+			for (Path name : base.getFilePath().relativize(path)) {
+				if (0 < name.toString().length()) {
+					names.add(name.toString());
+				}
+			}
+			for (int i = 1; i < names.size(); i++) {
+				state.addExpanded(names.subList(0, i));
+			}
+			state.addSelected(names);
+		}
+		return restoreExpansionState(state);
+	}
+
+	/**
+	 * 子ノードを保持する推定メモリ量の上限を設定する。
+	 * <p>
+	 * 上限を超えた場合、折りたたまれた展開済みのディレクトリを折りたたんだ順(再度参照したものは後回し)に未展開の状態へ戻し、子孫ノードを破棄します。
+	 * 破棄したディレクトリは次に展開した時点で再度読み込まれます。
+	 * 展開中のディレクトリ、選択中のノードの上位のディレクトリ、読み込み中のディレクトリは破棄しません。絞り込み中は破棄しません。
+	 * 推定メモリ量は{@link #getRetainedMemory()}を参照してください。
+	 * </p>
+	 * 
+	 * @param aBytes 推定メモリ量(byte)。0の場合、上限なし
+	 */
+	public void setMemoryBudget(final long aBytes) {
+		memoryBudget = Math.max(0, aBytes);
+		doEvict();
+	}
+
+	/**
+	 * 子ノードを保持する推定メモリ量の上限を取得する。
+	 * 
+	 * @return 推定メモリ量(byte)。0の場合、上限なし
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * 保持している子ノード数を取得する。
+	 * 
+	 * @return 子ノード数
+	 */
+	public int getRetainedNodeCount() {
+		return retainedNodeCount;
+	}
+
+	/**
+	 * 保持している子ノードの推定メモリ量を取得する。
+	 * <p>
+	 * 以下の合計です。名前の文字は1文字あたり2バイトとします。
+	 * </p>
+	 * <ul>
+	 * <li>子ノード1件あたり{@link #ESTIMATED_NODE_BYTES}バイトと名前の文字</li>
+	 * <li>ページングによりノード未生成のファイル属性1件あたり{@link #ESTIMATED_PAGE_ENTRY_BYTES}バイトと名前の文字</li>
+	 * <li>展開済みディレクトリ1件あたり{@link #ESTIMATED_DIRECTORY_BYTES}バイト</li>
+	 * <li>絞り込み中は名前索引の子ノード1件あたり{@link #ESTIMATED_INDEX_BYTES}バイト</li>
+	 * </ul>
+	 * 
+	 * @return 推定メモリ量(byte)
+	 */
+	public long getRetainedMemory() {
+		FileExplorerNameIndex index = nameIndex;
+		return retainedBytes + ((null != index) ? (long) ESTIMATED_INDEX_BYTES * index.getNodeCount() : 0);
+	}
+
+	/**
+	 * メモリ量の上限により未展開の状態へ戻したディレクトリ数の累計を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * メモリ量の上限により破棄した子ノード数の累計を取得する。
+	 * 
+	 * @return 子ノード数
+	 */
+	public long getEvictedNodeCount() {
+		return evictedNodeCount;
+	}
+
+	/**
+	 * リスナーを追加する。
+	 * <p>
+	 * {@link FileExplorerTreeBatchListener}を実装したリスナーには、ディレクトリの一覧がまとめて通知されます。
+	 * </p>
+	 * 
+	 * @param listener リスナー
+	 */
+	public void addFileExplorerTreeListener(final FileExplorerTreeListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeFileExplorerTreeListener(final FileExplorerTreeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * ディレクトリ・ファイルでダブルクリック、Enter時に呼び出される
+	 * 
+	 * @param aPath
+	 */
+	private void doOpenFile(final Path aPath) {
+		boolean local = isDefaultFileSystem(aPath);
+		for (FileExplorerTreeListener listener : listeners) {
+			try {
+				if (listener instanceof FileExplorerTreePathListener) {
+					((FileExplorerTreePathListener) listener).fileExplorerTreeClickedPath(listenerEvent, aPath);
+				} else if (local) {
+					listener.fileExplorerTreeClickedFile(listenerEvent, aPath.toFile());
+				}
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	private JPopupMenu createPopupMenu(final FileExplorerFileTreeNode aNode, final Path aPath) {
+		boolean local = isDefaultFileSystem(aPath);
+		FileExplorerTreeEvent menuEvent = new FileExplorerTreeEvent(this, aNode.getEntry());
+		JPopupMenu menu = new JPopupMenu();
+		for (FileExplorerTreeListener listener : listeners) {
+			try {
+				List<JMenuItem> menuItems = null;
+				if (listener instanceof FileExplorerTreePathListener) {
+					menuItems = ((FileExplorerTreePathListener) listener).fileExplorerTreeMenuPath(menuEvent, aPath);
+				} else if (local) {
+					menuItems = listener.fileExplorerTreeMenuFile(menuEvent, aPath.toFile());
+				}
+				if (null != menuItems) {
+					for (JMenuItem menuItem : menuItems) {
+						menu.add(menuItem);
+					}
+				}
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		if (aNode.getEntry().isDirectory() || aNode.isArchive()) {
+			if (0 < menu.getComponentCount()) {
+				menu.addSeparator();
+			}
+
+			Icon icon = FileExplorerIconProvider.getResourceIcon("org/azkfw/gui/tree/FileExplorerTree_refresh.png");
+			JMenuItem menuRefresh = new JMenuItem("更新", icon);
+			menu.add(menuRefresh);
+
+			menuRefresh.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(final ActionEvent event) {
+					//System.out.println("menu : " + aNode.getName());
+
+					if (aNode.isOpened() && !aNode.isLoading()) {
+						aNode.refresh();
+					} else {
+						aNode.cancelLoading();
+						aNode.startLoading(aPath);
+					}
+				}
+			});
+		}
+		if (aNode.getEntry().isDirectory()) {
+			JMenuItem menuDiskUsage = new JMenuItem("ディスク使用量を集計");
+			menu.add(menuDiskUsage);
+
+			menuDiskUsage.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(final ActionEvent event) {
+					scanDiskUsage(aPath);
+				}
+			});
+		}
+
+		return menu;
+	}
+
+	/**
+	 * ファイル一覧をフィルタリング・ソートする。
+	 * <p>
+	 * このメソッドはローダー、または監視のスレッドから呼び出されます。
+	 * 既存のノードと突き合わせる一覧は、追加されたファイルの通知を反映後に新しいファイルのみ行うため、<code>aNotify</code>に<code>false</code>を指定します。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aEntries ファイル属性一覧
+	 * @param aSorter ディレクトリ用のソーター(ソートしない場合、<code>null</code>)
+	 * @param aNotify 残したファイルをノードに追加されたファイルとして通知する場合、<code>true</code>
+	 * @return ノードに追加するファイル属性一覧
+	 */
+	private List<FileExplorerEntry> filterFiles(final Path aDirectory, final List<FileExplorerEntry> aEntries,
+			final FileExplorerTreeSorter aSorter, final boolean aNotify) {
+		boolean local = isDefaultFileSystem(aDirectory);
+		boolean usePath = false;
+		for (FileExplorerTreeListener listener : listeners) {
+			if (listener instanceof FileExplorerTreePathListener) {
+				usePath = true;
+				break;
+			}
+		}
+
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(aEntries.size());
+		List<File> files = new ArrayList<File>((local) ? aEntries.size() : 0);
+		List<Path> paths = new ArrayList<Path>((usePath) ? aEntries.size() : 0);
+		File directory = (local) ? aDirectory.toFile() : null;
+		for (FileExplorerEntry entry : aEntries) {
+			if (!entry.isHidden()) {
+				entries.add(entry);
+				if (local) {
+					files.add(new File(directory, entry.getName()));
+				}
+				if (usePath) {
+					paths.add(aDirectory.resolve(entry.getName()));
+				}
+			}
+		}
+		files = Collections.unmodifiableList(files);
+
+		// 全リスナーが追加を許可したファイルのみ残す
+		// デフォルトのファイルシステム以外のファイルはパス単位のリスナーのみ判定する
+		BitSet mask = new BitSet(entries.size());
+		if (!listeners.isEmpty()) {
+			mask.set(0, entries.size());
+		}
+		for (FileExplorerTreeListener listener : listeners) {
+			if (mask.isEmpty()) {
+				break;
+			}
+			if (listener instanceof FileExplorerTreePathListener) {
+				FileExplorerTreePathListener pathListener = (FileExplorerTreePathListener) listener;
+				for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+					try {
+						if (!pathListener.fileExplorerTreeAppendingPath(listenerEvent, paths.get(i))) {
+							mask.clear(i);
+						}
+					} catch (Exception ex) {
+						ex.printStackTrace();
+						mask.clear(i);
+					}
+				}
+			} else if (!local) {
+				continue;
+			} else if (listener instanceof FileExplorerTreeBatchListener) {
+				try {
+					BitSet accepts = ((FileExplorerTreeBatchListener) listener).fileExplorerTreeAppendingFiles(listenerEvent, files);
+					if (null != accepts) {
+						mask.and(accepts);
+					}
+				} catch (Exception ex) {
+					ex.printStackTrace();
+					mask.clear();
+				}
+			} else {
+				for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+					try {
+						if (!listener.fileExplorerTreeAppendingFile(listenerEvent, files.get(i))) {
+							mask.clear(i);
+						}
+					} catch (Exception ex) {
+						ex.printStackTrace();
+						mask.clear(i);
+					}
+				}
+			}
+		}
+
+		List<FileExplorerEntry> lst = new ArrayList<FileExplorerEntry>(mask.cardinality());
+		List<File> appended = new ArrayList<File>((local) ? mask.cardinality() : 0);
+		List<Path> appendedPaths = new ArrayList<Path>((usePath) ? mask.cardinality() : 0);
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			lst.add(entries.get(i));
+			if (local) {
+				appended.add(files.get(i));
+			}
+			if (usePath) {
+				appendedPaths.add(paths.get(i));
+			}
+		}
+		if (aNotify) {
+			fireAppended(local, Collections.unmodifiableList(appended), appendedPaths);
+		}
+
+		if (null != aSorter) {
+			aSorter.sort(lst);
+		}
+
+		return lst;
+	}
+
+	/**
+	 * ノードに追加されたファイルをリスナーへ通知する。
+	 * <p>
+	 * 既存のノードと突き合わせた一覧のうち、新しく追加されたファイルのみを通知する場合に使用します。
+	 * 通知はローダーのスレッドで行います。このメソッドはイベントディスパッチスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aEntries 追加されたファイルの属性一覧
+	 */
+	private void notifyAppended(final Path aDirectory, final List<FileExplorerEntry> aEntries) {
+		if (aEntries.isEmpty() || listeners.isEmpty()) {
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					boolean local = isDefaultFileSystem(aDirectory);
+					File directory = (local) ? aDirectory.toFile() : null;
+					List<File> files = new ArrayList<File>((local) ? aEntries.size() : 0);
+					List<Path> paths = new ArrayList<Path>(aEntries.size());
+					for (FileExplorerEntry entry : aEntries) {
+						if (local) {
+							files.add(new File(directory, entry.getName()));
+						}
+						paths.add(aDirectory.resolve(entry.getName()));
+					}
+					fireAppended(local, Collections.unmodifiableList(files), paths);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// 破棄済み
+		}
+	}
+
+	/**
+	 * ノードに追加されたファイルをリスナーへ通知する。
+	 * 
+	 * @param aLocal デフォルトのファイルシステムの場合、<code>true</code>
+	 * @param aFiles ファイル一覧(デフォルトのファイルシステム以外の場合、空)
+	 * @param aPaths パス一覧(パス単位のリスナーがない場合、空でもよい)
+	 */
+	private void fireAppended(final boolean aLocal, final List<File> aFiles, final List<Path> aPaths) {
+		for (FileExplorerTreeListener listener : listeners) {
+			try {
+				if (listener instanceof FileExplorerTreePathListener) {
+					for (Path path : aPaths) {
+						((FileExplorerTreePathListener) listener).fileExplorerTreeAppendedPath(listenerEvent, path);
+					}
+				} else if (!aLocal) {
+					continue;
+				} else if (listener instanceof FileExplorerTreeBatchListener) {
+					((FileExplorerTreeBatchListener) listener).fileExplorerTreeAppendedFiles(listenerEvent, aFiles);
+				} else {
+					for (File f : aFiles) {
+						listener.fileExplorerTreeAppendedFile(listenerEvent, f);
+					}
+				}
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * 監視中のディレクトリが変更された場合に監視スレッドから呼び出される。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @param aNames 変更されたファイル名一覧
+	 * @param aOverflow イベントが欠落した場合、<code>true</code>
+	 */
+	private void doWatcherChanged(final Path aDirectory, final Set<String> aNames, final boolean aOverflow) {
+		if (aOverflow) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					FileExplorerTreeNode node = watchedNodes.get(aDirectory);
+					if (null != node && !node.isLoading()) {
+						node.refresh();
+					}
+				}
+			});
+			return;
+		}
+
+		FileExplorerLister lister = new FileExplorerLister(nameTable, mountGuard);
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>();
+		try {
+			for (String name : aNames) {
+				FileExplorerEntry entry = lister.read(aDirectory, name);
+				if (null != entry) {
+					entries.add(entry);
+				}
+			}
+		} catch (IOException ex) {
+			// 応答しないファイルシステムの変更は削除として扱わずに破棄する
+			return;
+		} finally {
+			totalListingCallCount.addAndGet(lister.getCallCount());
+		}
+
+		final Map<String, FileExplorerEntry> changes = new LinkedHashMap<String, FileExplorerEntry>();
+		for (String name : aNames) {
+			changes.put(name, null);
+		}
+		// 挿入位置は反映時にノードのソーターで求めるためソートしない
+		// 追加されたファイルの通知は反映時に新しいファイルのみ行う
+		List<FileExplorerEntry> filtered = filterFiles(aDirectory, entries, null, false);
+		for (FileExplorerEntry entry : filtered) {
+			changes.put(entry.getName(), entry);
+		}
+		final boolean dropped = filtered.size() != entries.size();
+
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				FileExplorerTreeNode node = watchedNodes.get(aDirectory);
+				if (null != node) {
+					node.applyChanges(changes);
+					if (dropped) {
+						node.setFiltered(true);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 「さらに表示」ノードでダブルクリック、Enter時に呼び出される
+	 * 
+	 * @param aNode ノード
+	 */
+	private void doOpenMore(final FileExplorerMoreTreeNode aNode) {
+		TreeNode parent = aNode.getParent();
+		if (parent instanceof FileExplorerTreeNode) {
+			((FileExplorerTreeNode) parent).loadNextPage();
+		}
+	}
+
+	/**
+	 * 表示領域内の「さらに表示」ノードの次ページを読み込む。
+	 */
+	private void doLoadVisiblePages() {
+		Rectangle rect = getVisibleRect();
+		int first = getClosestRowForLocation(rect.x, rect.y);
+		int last = getClosestRowForLocation(rect.x, rect.y + rect.height);
+		if (-1 == first) {
+			return;
+		}
+		for (int row = first; row <= last; row++) {
+			TreePath path = getPathForRow(row);
+			if (null != path && path.getLastPathComponent() instanceof FileExplorerMoreTreeNode) {
+				final FileExplorerMoreTreeNode node = (FileExplorerMoreTreeNode) path.getLastPathComponent();
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						doOpenMore(node);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * ツリーパスをルートからのノード名に変換する。
+	 * 
+	 * @param aPath ツリーパス
+	 * @return ノード名。ファイル・ドライブのノードでない場合、<code>null</code>
+	 */
+	private static List<String> toNames(final TreePath aPath) {
+		List<String> names = new ArrayList<String>(aPath.getPathCount() - 1);
+		for (int i = 1; i < aPath.getPathCount(); i++) {
+			Object obj = aPath.getPathComponent(i);
+			if (!(obj instanceof FileExplorerTreeNode)) {
+				return null;
+			}
+			names.add(((FileExplorerTreeNode) obj).getName());
+		}
+		return (0 < names.size()) ? names : null;
+	}
+
+	/**
+	 * 展開するディレクトリを収集する。
+	 * <p>
+	 * アーカイブ内のディレクトリは収集しません。
+	 * </p>
+	 * 
+	 * @param aPath パス
+	 * @param aEntry 展開・選択状態
+	 * @param aDirectories 展開するディレクトリを格納するマップ
+	 */
+	private static void collectDirectories(final Path aPath, final FileExplorerTreeState.Entry aEntry,
+			final Map<Path, FileExplorerTreeState.Entry> aDirectories) {
+		if (!aEntry.isExpanded() || !isDefaultFileSystem(aPath) || FileExplorerArchiveCache.isArchive(aEntry.getName())) {
+			return;
+		}
+		aDirectories.put(aPath, aEntry);
+		for (FileExplorerTreeState.Entry child : aEntry.getChildren()) {
+			collectDirectories(aPath.resolve(child.getName()), child, aDirectories);
+		}
+	}
+
+	/**
+	 * ディレクトリを監視対象に登録し、一覧をディレクトリ読み込み用のエグゼキューターで並列に読み込む。
+	 * <p>
+	 * すべて読み込んだ時点、または復元がキャンセルされた時点で、完了時の処理をイベントディスパッチスレッドで実行します。
+	 * 読み込めなかったディレクトリは結果に含まれません。
+	 * </p>
+	 * 
+	 * @param aDirectories ディレクトリ一覧
+	 * @param aSorter ツリーのソーター
+	 * @param aListings フィルタリング・ソートした一覧を格納するマップ
+	 * @param aSorters ソートに使用したディレクトリ用のソーターを格納するマップ
+	 * @param aFiltereds 表示しないファイルを除外したディレクトリを格納するセット
+	 * @param aRegistereds 監視対象に登録したディレクトリを格納するセット
+	 * @param aTask 復元
+	 * @param aFinish 完了時の処理
+	 * @return ディレクトリごとの読み込み
+	 */
+	private List<Future<?>> listDirectories(final Collection<Path> aDirectories, final FileExplorerTreeSorter aSorter,
+			final Map<Path, List<FileExplorerEntry>> aListings, final Map<Path, FileExplorerTreeSorter> aSorters,
+			final Set<Path> aFiltereds, final Set<Path> aRegistereds, final Future<?> aTask, final Runnable aFinish) {
+		List<Future<?>> futures = new ArrayList<Future<?>>(aDirectories.size());
+		if (aDirectories.isEmpty()) {
+			SwingUtilities.invokeLater(aFinish);
+			return futures;
+		}
+		final AtomicInteger remaining = new AtomicInteger(aDirectories.size());
+		for (final Path directory : aDirectories) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (!aTask.isCancelled()) {
+							list(directory);
+						}
+					} catch (IOException ex) {
+						// 存在しない、または応答しないディレクトリは通常の展開に任せる
+					} finally {
+						if (0 == remaining.decrementAndGet() || aTask.isCancelled()) {
+							SwingUtilities.invokeLater(aFinish);
+						}
+					}
+				}
+
+				private void list(final Path aDirectory) throws IOException {
+					mountGuard.call(aDirectory, new Callable<Void>() {
+						@Override
+						public Void call() {
+							watcher.register(aDirectory);
+							return null;
+						}
+					}, null);
+					aRegistereds.add(aDirectory);
+					FileExplorerLister lister = new FileExplorerLister(nameTable, mountGuard);
+					List<FileExplorerEntry> entries = lister.list(aDirectory);
+					totalListingCallCount.addAndGet(lister.getCallCount());
+					FileExplorerTreeSorter directorySorter = aSorter.forDirectory(aDirectory);
+					List<FileExplorerEntry> lst = filterFiles(aDirectory, entries, directorySorter, true);
+					if (lst.size() != entries.size()) {
+						aFiltereds.add(aDirectory);
+					}
+					aSorters.put(aDirectory, directorySorter);
+					aListings.put(aDirectory, lst);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	/**
+	 * 読み込んだ一覧から子ノードを生成し、展開・選択状態を一括で反映する。
+	 * 
+	 * @param aState 展開・選択状態
+	 * @param aListings ディレクトリごとの一覧
+	 * @param aSorters ディレクトリごとのソーター
+	 * @param aFiltereds 表示しないファイルを除外したディレクトリ
+	 */
+	private void doRestore(final FileExplorerTreeState aState, final Map<Path, List<FileExplorerEntry>> aListings,
+			final Map<Path, FileExplorerTreeSorter> aSorters, final Set<Path> aFiltereds) {
+		List<TreePath> expanded = new ArrayList<TreePath>();
+		List<TreePath> selected = new ArrayList<TreePath>();
+		restoreChildren(new TreePath(getModel().getRoot()), aState.getRoot(), aListings, aSorters, aFiltereds, expanded,
+				selected);
+		for (TreePath path : expanded) {
+			expandPath(path);
+		}
+		if (0 < selected.size()) {
+			setSelectionPaths(selected.toArray(new TreePath[selected.size()]));
+			scrollPathToVisible(selected.get(0));
+		}
+		doEvict();
+	}
+
+	private void restoreChildren(final TreePath aPath, final FileExplorerTreeState.Entry aEntry,
+			final Map<Path, List<FileExplorerEntry>> aListings, final Map<Path, FileExplorerTreeSorter> aSorters,
+			final Set<Path> aFiltereds, final List<TreePath> aExpanded, final List<TreePath> aSelected) {
+		Object parent = aPath.getLastPathComponent();
+		for (FileExplorerTreeState.Entry entry : aEntry.getChildren()) {
+			FileExplorerTreeNode node = null;
+			if (parent instanceof FileExplorerTreeNode) {
+				node = ((FileExplorerTreeNode) parent).findChild(entry.getName());
+			} else {
+				TreeNode root = (TreeNode) parent;
+				for (int i = 0; i < root.getChildCount() && null == node; i++) {
+					TreeNode child = root.getChildAt(i);
+					if (child instanceof FileExplorerTreeNode && ((FileExplorerTreeNode) child).getName().equals(entry.getName())) {
+						node = (FileExplorerTreeNode) child;
+					}
+				}
+			}
+			if (null == node) {
+				continue;
+			}
+			TreePath path = aPath.pathByAddingChild(node);
+			if (entry.isSelected()) {
+				aSelected.add(path);
+			}
+			if (entry.isExpanded() && !node.isLeaf()) {
+				if (!node.isOpened()) {
+					Path directory = node.getFilePath();
+					List<FileExplorerEntry> entries = aListings.get(directory);
+					if (null != entries) {
+						node.openLoaded(directory, entries, aFiltereds.contains(directory), aSorters.get(directory));
+					}
+				}
+				aExpanded.add(path);
+				if (node.isOpened() && !node.isLoading()) {
+					restoreChildren(path, entry, aListings, aSorters, aFiltereds, aExpanded, aSelected);
+				}
+			}
+		}
+	}
+
+	private List<TreePath> getExpandedPaths() {
+		List<TreePath> expanded = new ArrayList<TreePath>();
+		Enumeration<TreePath> e = getExpandedDescendants(new TreePath(getModel().getRoot()));
+		if (null != e) {
+			while (e.hasMoreElements()) {
+				expanded.add(e.nextElement());
+			}
+		}
+		return expanded;
+	}
+
+	/**
+	 * 読み込み済みのファイル用のノードから名前索引を生成する。
+	 * <p>
+	 * 名前索引はノードあたりのメモリ使用量が大きいため、絞り込みを開始した時点で生成し、絞り込みを解除した時点で破棄します。
+	 * 絞り込み中に生成・破棄されたノードは、索引に随時反映されます。
+	 * </p>
+	 * 
+	 * @return 名前索引
+	 */
+	private FileExplorerNameIndex createNameIndex() {
+		FileExplorerNameIndex index = new FileExplorerNameIndex();
+		Enumeration<?> e = ((DefaultMutableTreeNode) getModel().getRoot()).preorderEnumeration();
+		while (e.hasMoreElements()) {
+			Object node = e.nextElement();
+			if (node instanceof FileExplorerFileTreeNode) {
+				index.add(((FileExplorerFileTreeNode) node).getName(), node);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * 絞り込み条件に一致するノードを検索し、表示する子ノードを再構築する。
+	 * <p>
+	 * 一致したノードの祖先ノードのみ子ノードを絞り込みます。一致したノードの子孫はそのまま表示します。
+	 * </p>
+	 * 
+	 * @return 一致したノード一覧
+	 */
+	private List<Object> buildViews() {
+		List<Object> matches = nameIndex.find(filter);
+		filterMatchCount = matches.size();
+
+		Set<Object> matched = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>(matches.size()));
+		matched.addAll(matches);
+		Map<Object, Set<TreeNode>> members = new IdentityHashMap<Object, Set<TreeNode>>();
+		for (Object match : matches) {
+			TreeNode node = (TreeNode) match;
+			boolean inside = false;
+			for (TreeNode parent = node.getParent(); null != parent; parent = parent.getParent()) {
+				if (matched.contains(parent)) {
+					inside = true;
+					break;
+				}
+			}
+			if (inside) {
+				continue;
+			}
+			for (TreeNode parent = node.getParent(); null != parent; node = parent, parent = parent.getParent()) {
+				Set<TreeNode> set = members.get(parent);
+				if (null == set) {
+					set = Collections.newSetFromMap(new IdentityHashMap<TreeNode, Boolean>());
+					members.put(parent, set);
+				}
+				if (!set.add(node)) {
+					break;
+				}
+			}
+		}
+
+		Map<Object, List<TreeNode>> views = new IdentityHashMap<Object, List<TreeNode>>();
+		Object root = getModel().getRoot();
+		views.put(root, new ArrayList<TreeNode>());
+		for (Map.Entry<Object, Set<TreeNode>> entry : members.entrySet()) {
+			TreeNode parent = (TreeNode) entry.getKey();
+			Set<TreeNode> set = entry.getValue();
+			List<TreeNode> view = new ArrayList<TreeNode>(set.size());
+			for (int i = 0; i < parent.getChildCount() && view.size() < set.size(); i++) {
+				TreeNode child = parent.getChildAt(i);
+				if (set.contains(child)) {
+					view.add(child);
+				}
+			}
+			views.put(parent, view);
+		}
+		((FileExplorerTreeModel) getModel()).setViews(views);
+		return matches;
+	}
+
+	/**
+	 * 絞り込み中にノードが変更された場合、絞り込みの再適用を予約する。
+	 */
+	private void doFilterChanged() {
+		if (filterPending) {
+			return;
+		}
+		filterPending = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (!filterPending || null == filter) {
+					return;
+				}
+				filterPending = false;
+				TreePath[] selections = getSelectionPaths();
+				List<TreePath> expanded = getExpandedPaths();
+				buildViews();
+				for (TreePath path : expanded) {
+					expandPath(path);
+				}
+				setSelectionPaths(selections);
+			}
+		});
+	}
+
+	private boolean isFilterMatch(final TreeNode aNode) {
+		String name = aNode.toString();
+		return filter.matches(name.toLowerCase(Locale.ENGLISH), name);
+	}
+
+	/**
+	 * 選択・マウスカーソル上の未展開ディレクトリを先読みする。
+	 */
+	private void doPrefetch() {
+		FileExplorerPrefetcher p = prefetcher;
+		if (null == p) {
+			return;
+		}
+		List<Object> nodes = new ArrayList<Object>();
+		TreePath[] selections = getSelectionPaths();
+		if (null != selections) {
+			for (TreePath path : selections) {
+				nodes.add(path.getLastPathComponent());
+			}
+		}
+		if (null != hoverNode) {
+			nodes.add(hoverNode);
+		}
+		List<Path> directories = new ArrayList<Path>();
+		for (Object obj : nodes) {
+			if (obj instanceof FileExplorerTreeNode) {
+				FileExplorerTreeNode node = (FileExplorerTreeNode) obj;
+				if (node.isOpened() || node.isLeaf()) {
+					continue;
+				}
+				if (node instanceof FileExplorerFileTreeNode && !((FileExplorerFileTreeNode) node).getEntry().isDirectory()) {
+					continue;
+				}
+				Path path = node.getFilePath();
+				if (!directories.contains(path)) {
+					directories.add(path);
+				}
+			}
+		}
+		p.prefetch(directories);
+	}
+
+	/**
+	 * 推定メモリ量が上限を超えている間、折りたたまれた展開済みのディレクトリを古い順に未展開の状態へ戻す。
+	 */
+	private void doEvict() {
+		if (0 == memoryBudget || getRetainedMemory() <= memoryBudget || null != filter) {
+			return;
+		}
+		TreeNode root = (TreeNode) getModel().getRoot();
+		TreePath[] selections = getSelectionPaths();
+		List<FileExplorerTreeNode> candidates = new ArrayList<FileExplorerTreeNode>(collapsedNodes.keySet());
+		for (FileExplorerTreeNode node : candidates) {
+			if (getRetainedMemory() <= memoryBudget) {
+				break;
+			}
+			if (!node.isOpened() || node.isLoading() || root != node.getRoot()) {
+				// 上位のディレクトリとともに破棄済み
+				collapsedNodes.remove(node);
+				continue;
+			}
+			TreePath path = new TreePath(node.getPath());
+			if (isExpanded(path) || isSelectedDescendant(path, selections)) {
+				continue;
+			}
+			int count = retainedNodeCount;
+			node.evict();
+			evictionCount++;
+			evictedNodeCount += count - retainedNodeCount;
+		}
+	}
+
+	private static boolean isSelectedDescendant(final TreePath aPath, final TreePath[] aSelections) {
+		if (null != aSelections) {
+			for (TreePath selection : aSelections) {
+				if (aPath.isDescendant(selection)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void doOpenChild(final FileExplorerTreeNode node) {
+		if (!node.isOpened()) {
+			node.startLoading(node.getFilePath());
+		}
+	}
+
+	private static boolean isDefaultFileSystem(final Path aPath) {
+		return FileSystems.getDefault() == aPath.getFileSystem();
+	}
+
+	private static int[] toArray(final List<Integer> aList) {
+		int[] array = new int[aList.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = aList.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * このクラスは、ファイルの種類ごとのシステムアイコンを表示するセルレンダラークラスです。
+	 * <p>
+	 * アイコンの取得が完了するまでは標準のアイコンを表示します。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/12
+	 * @author kawakicchi
+	 */
+	private class FileExplorerTreeCellRenderer extends DefaultTreeCellRenderer {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -6528040977914624312L;
+
+		@Override
+		public Component getTreeCellRendererComponent(final JTree tree, final Object value, final boolean sel,
+				final boolean expanded, final boolean leaf, final int row, final boolean hasFocus) {
+			super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
+			Icon icon = null;
+			if (value instanceof FileExplorerFileTreeNode) {
+				FileExplorerFileTreeNode node = (FileExplorerFileTreeNode) value;
+				String kind = (node.getEntry().isDirectory()) ? FileExplorerIconProvider.KIND_DIRECTORY
+						: FileExplorerIconProvider.KIND_FILE;
+				Path path = node.getFilePath();
+				if (isDefaultFileSystem(path)) {
+					icon = iconProvider.getIcon(path.toFile(), kind, tree);
+				}
+			} else if (value instanceof FileExplorerDriverTreeNode) {
+				Path path = ((FileExplorerDriverTreeNode) value).getFilePath();
+				if (isDefaultFileSystem(path)) {
+					icon = iconProvider.getIcon(path.toFile(), FileExplorerIconProvider.KIND_DRIVE, tree);
+				}
+			}
+			if (null != icon) {
+				setIcon(icon);
+			}
+			FileExplorerDiskUsage usage = getDiskUsage();
+			if (null != usage && value instanceof FileExplorerTreeNode) {
+				FileExplorerTreeNode node = (FileExplorerTreeNode) value;
+				if (!node.isLeaf()) {
+					FileExplorerDiskUsage directory = usage.find(node.getFilePath());
+					if (null != directory) {
+						setText(String.format("%s  %s%s", getText(), FileExplorerDiskUsage.toDisplaySize(directory.getSize()),
+								(directory.isCompleted()) ? "" : "…"));
+					}
+				}
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * このクラスは、絞り込み中の子ノードを表示するツリーモデルクラスです。
+	 * <p>
+	 * 絞り込み中は表示対象の子ノード一覧を持つノードの変更イベントを通知せず、絞り込みを再適用します。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/10
+	 * @author kawakicchi
+	 */
+	private class FileExplorerTreeModel extends DefaultTreeModel {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 2840871337164624309L;
+
+		/** ノードごとの表示する子ノード一覧(絞り込んでいない場合、<code>null</code>) */
+		private transient Map<Object, List<TreeNode>> views;
+
+		public FileExplorerTreeModel(final TreeNode aRoot) {
+			super(aRoot);
+		}
+
+		/**
+		 * 表示する子ノード一覧を設定し、ツリー全体の変更を通知する。
+		 * 
+		 * @param aViews ノードごとの表示する子ノード一覧。<code>null</code>の場合、すべて表示する
+		 */
+		public void setViews(final Map<Object, List<TreeNode>> aViews) {
+			views = aViews;
+			super.nodeStructureChanged((TreeNode) getRoot());
+		}
+
+		@Override
+		public Object getChild(final Object parent, final int index) {
+			List<TreeNode> view = (null != views) ? views.get(parent) : null;
+			return (null != view) ? view.get(index) : super.getChild(parent, index);
+		}
+
+		@Override
+		public int getChildCount(final Object parent) {
+			List<TreeNode> view = (null != views) ? views.get(parent) : null;
+			return (null != view) ? view.size() : super.getChildCount(parent);
+		}
+
+		@Override
+		public int getIndexOfChild(final Object parent, final Object child) {
+			List<TreeNode> view = (null != views) ? views.get(parent) : null;
+			return (null != view) ? view.indexOf(child) : super.getIndexOfChild(parent, child);
+		}
+
+		@Override
+		public void nodesWereInserted(final TreeNode node, final int[] childIndices) {
+			if (null != views) {
+				if (views.containsKey(node)) {
+					doFilterChanged();
+					return;
+				}
+				for (int index : childIndices) {
+					if (isFilterMatch(node.getChildAt(index))) {
+						doFilterChanged();
+						break;
+					}
+				}
+			}
+			super.nodesWereInserted(node, childIndices);
+		}
+
+		@Override
+		public void nodesWereRemoved(final TreeNode node, final int[] childIndices, final Object[] removedChildren) {
+			if (null != views && views.containsKey(node)) {
+				doFilterChanged();
+				return;
+			}
+			super.nodesWereRemoved(node, childIndices, removedChildren);
+		}
+
+		@Override
+		public void nodesChanged(final TreeNode node, final int[] childIndices) {
+			if (null != views && views.containsKey(node)) {
+				doFilterChanged();
+				return;
+			}
+			super.nodesChanged(node, childIndices);
+		}
+
+		@Override
+		public void nodeStructureChanged(final TreeNode node) {
+			if (null != views && views.containsKey(node)) {
+				doFilterChanged();
+				return;
+			}
+			super.nodeStructureChanged(node);
+		}
+	}
+
+	/**
+	 * このクラスは、ディレクトリの一覧をバックグラウンドで読み込むクラスです。
+	 * <p>
+	 * 読み込んだ子ノードは{@link #CHUNK_SIZE}件ごとにイベントディスパッチスレッドでノードへ反映されます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/24
+	 * @author kawakicchi
+	 */
+	private class FileExplorerTreeLoader implements Runnable {
+
+		private final FileExplorerTreeNode node;
+		private final Path directory;
+		/** 既存の子ノードにマージする場合、<code>true</code> */
+		private final boolean merge;
+
+		private volatile boolean cancelFlag;
+		private Future<?> future;
+		/** 応答しなかったマウント(応答した場合、<code>null</code>) */
+		private volatile String failure;
+		/** 表示しないファイルを除外した場合、<code>true</code> */
+		private volatile boolean filtered;
+		/** 一覧のソートに使用するディレクトリ用のソーター(未取得の場合、<code>null</code>) */
+		private FileExplorerTreeSorter directorySorter;
+
+		public FileExplorerTreeLoader(final FileExplorerTreeNode aNode, final Path aDirectory, final boolean aMerge) {
+			node = aNode;
+			directory = aDirectory;
+			merge = aMerge;
+			cancelFlag = false;
+			// マージする場合は既存の子ノードと同じソーターで並べる
+			directorySorter = (aMerge) ? aNode.getDirectorySorter() : null;
+		}
+
+		public FileExplorerTreeNode getNode() {
+			return node;
+		}
+
+		public void start() {
+			loaders.add(this);
+			future = executor.submit(this);
+		}
+
+		public void cancel() {
+			cancelFlag = true;
+			loaders.remove(this);
+			if (null != future) {
+				future.cancel(true);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				Path path = directory;
+				if (isArchive(path)) {
+					path = mountArchive(path);
+					if (null == path) {
+						return;
+					}
+				}
+				FileExplorerListingCache cache = (isDefaultFileSystem(path)) ? listingCache : null;
+				boolean mergeList = merge;
+				FileExplorerLister lister = new FileExplorerLister(nameTable, mountGuard);
+				List<FileExplorerEntry> entries;
+				try {
+					long modified = -1;
+					FileExplorerListingCache.Listing listing = null;
+					if (null != cache) {
+						listing = (merge) ? null : cache.get(path, nameTable);
+						if (null != listing) {
+							// キャッシュした一覧を表示し、ディレクトリが更新されている場合のみ読み込んでマージする
+							publish(filter(path, listing.getEntries(), true));
+							mergeList = true;
+						}
+					}
+					register(path);
+					FileExplorerPrefetcher p = (merge) ? null : prefetcher;
+					if (null != cache || null != p) {
+						// 監視対象に登録した後の最終更新日時で、キャッシュと先読みした一覧を検証する
+						modified = lister.getLastModified(path);
+					}
+					if (null != listing && -1 != modified && listing.getModified() == modified) {
+						return;
+					}
+					List<FileExplorerEntry> prefetched = (null != p) ? p.take(path, modified) : null;
+					entries = (null != prefetched) ? prefetched : lister.list(path);
+					if (null != cache && -1 != modified && !cancelFlag) {
+						cache.put(path, modified, entries);
+					}
+				} finally {
+					lastListingCallCount = lister.getCallCount();
+					totalListingCallCount.addAndGet(lister.getCallCount());
+				}
+				if (cancelFlag) {
+					return;
+				}
+				// マージする一覧の追加されたファイルの通知は、マージ後に新しいファイルのみ行う
+				final List<FileExplorerEntry> lst = filter(path, entries, !mergeList);
+				if (mergeList) {
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							if (!cancelFlag) {
+								node.mergeNode(lst);
+							}
+						}
+					});
+					return;
+				}
+				publish(lst);
+			} catch (InterruptedException | InterruptedIOException ex) {
+				// キャンセル
+			} catch (FileExplorerUnavailableException ex) {
+				failure = ex.getMessage();
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			} finally {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (!cancelFlag) {
+							loaders.remove(FileExplorerTreeLoader.this);
+							node.setFiltered(filtered);
+							if (null != failure) {
+								node.failLoading(failure);
+							} else {
+								node.finishLoading();
+							}
+							doEvict();
+						}
+					}
+				});
+			}
+		}
+
+		/**
+		 * ファイル一覧をフィルタリング・ソートし、除外したファイルの有無を記録する。
+		 * 
+		 * @param aDirectory ディレクトリ
+		 * @param aEntries ファイル属性一覧
+		 * @param aNotify 残したファイルをノードに追加されたファイルとして通知する場合、<code>true</code>
+		 * @return フィルタリング・ソートしたファイル属性一覧
+		 */
+		private List<FileExplorerEntry> filter(final Path aDirectory, final List<FileExplorerEntry> aEntries,
+				final boolean aNotify) {
+			if (null == directorySorter) {
+				// ディレクトリ用のソーターは読み込みごとに一度だけ取得し、ノードでも使い回す
+				final FileExplorerTreeSorter base = sorter;
+				final FileExplorerTreeSorter s = base.forDirectory(aDirectory);
+				directorySorter = s;
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (!cancelFlag) {
+							node.setDirectorySorter(base, s);
+						}
+					}
+				});
+			}
+			List<FileExplorerEntry> lst = filterFiles(aDirectory, aEntries, directorySorter, aNotify);
+			filtered = lst.size() != aEntries.size();
+			return lst;
+		}
+
+		/**
+		 * 読み込むディレクトリを監視対象に登録する。
+		 * 
+		 * @param aDirectory ディレクトリ
+		 * @throws IOException ファイルシステムが応答しない場合
+		 */
+		private void register(final Path aDirectory) throws IOException {
+			mountGuard.call(aDirectory, new Callable<Void>() {
+				@Override
+				public Void call() {
+					watcher.register(aDirectory);
+					return null;
+				}
+			}, null);
+			if (cancelFlag) {
+				// 登録中にキャンセルされたノードの監視を解除する
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (!watchedNodes.containsKey(aDirectory)) {
+							watcher.unregister(aDirectory);
+						}
+					}
+				});
+			}
+		}
+
+		private boolean isArchive(final Path aPath) {
+			return node instanceof FileExplorerFileTreeNode && ((FileExplorerFileTreeNode) node).isArchive()
+					&& isDefaultFileSystem(aPath);
+		}
+
+		/**
+		 * アーカイブをマウントし、ノードのディレクトリをアーカイブのルートディレクトリに切り替える。
+		 * 
+		 * @param aArchive アーカイブ
+		 * @return ルートディレクトリ。キャンセルされた場合、<code>null</code>
+		 * @throws IOException IO操作に起因する問題が発生した場合
+		 */
+		private Path mountArchive(final Path aArchive) throws IOException {
+			final Path root = mountGuard.call(aArchive, new Callable<Path>() {
+				@Override
+				public Path call() throws IOException {
+					return archiveCache.mount(aArchive);
+				}
+			}, null);
+			if (cancelFlag) {
+				archiveCache.release(aArchive);
+				return null;
+			}
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (cancelFlag) {
+						archiveCache.release(aArchive);
+					} else {
+						node.mounted(aArchive, root);
+					}
+				}
+			});
+			return root;
+		}
+
+		/**
+		 * 一覧を{@link #CHUNK_SIZE}件ごとに子ノードへ追加する。
+		 * 
+		 * @param aEntries ソート済みのファイル属性一覧
+		 */
+		private void publish(final List<FileExplorerEntry> aEntries) {
+			int size = aEntries.size();
+			int page = pageSize;
+			if (0 < page && page < size) {
+				final List<FileExplorerEntry> rest = new ArrayList<FileExplorerEntry>(aEntries.subList(page, size));
+				size = page;
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (!cancelFlag) {
+							node.setPageEntries(rest);
+						}
+					}
+				});
+			}
+			for (int i = 0; i < size && !cancelFlag; i += CHUNK_SIZE) {
+				final List<FileExplorerEntry> chunk = new ArrayList<FileExplorerEntry>(aEntries.subList(i,
+						Math.min(i + CHUNK_SIZE, size)));
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (!cancelFlag) {
+							node.appendNode(chunk);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * このクラスは、読み込み中を表すツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/24
+	 * @author kawakicchi
+	 */
+	private static class FileExplorerLoadingTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 4630934153812278463L;
+
+		public FileExplorerLoadingTreeNode() {
+			super("読み込み中…");
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * このクラスは、応答しないファイルシステムのエラーを表すツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/17
+	 * @author kawakicchi
+	 */
+	private static class FileExplorerErrorTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -1948702234618950391L;
+
+		public FileExplorerErrorTreeNode(final String aMount) {
+			super(String.format("応答がありません (%s)", aMount));
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * このクラスは、ページングされた残りの子ノードを表すツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/04
+	 * @author kawakicchi
+	 */
+	private static class FileExplorerMoreTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -5012483301452880163L;
+
+		public FileExplorerMoreTreeNode(final int aCount) {
+			setCount(aCount);
+		}
+
+		public void setCount(final int aCount) {
+			setUserObject(String.format("さらに %d 件…", aCount));
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return true;
+		}
+	}
+
+	/**
+	 * このクラスは、展開済みディレクトリの状態を保持するクラスです。
+	 * <p>
+	 * 未展開のノード・ファイルのノードは状態を持たないため、ノードごとのメモリ使用量を抑えます。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/05
+	 * @author kawakicchi
+	 */
+	private static class FileExplorerDirectoryState {
+
+		/** ディレクトリ */
+		private Path directory;
+		/** マウントしたアーカイブ(アーカイブでない場合、<code>null</code>) */
+		private Path archive;
+
+		/** 読み込み中のローダー */
+		private FileExplorerTreeLoader loader;
+		/** 読み込み中ノード、または読み込みに失敗した場合はエラーノード */
+		private DefaultMutableTreeNode loadingNode;
+		/** 読み込み中に受け取った変更 */
+		private Map<String, FileExplorerEntry> pendingChanges;
+
+		/** ノード未生成のファイル属性一覧(ソート済み) */
+		private FileExplorerEntryList pageEntries;
+		/** 「さらに表示」ノード */
+		private FileExplorerMoreTreeNode moreNode;
+
+		/** 表示しないファイルを子ノードから除外している場合、<code>true</code> */
+		private boolean filtered;
+
+		/** 推定メモリ量に計上した状態・ノード未生成の一覧の量(byte) */
+		private long retainedBytes;
+
+		/** ディレクトリ用のソーターの取得元 */
+		private FileExplorerTreeSorter sorterBase;
+		/** ディレクトリ用のソーター */
+		private FileExplorerTreeSorter sorter;
+	}
+
+	/**
+	 * このクラスは、ファイルエクスプローラ用のツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/14
+	 * @author kawakicchi
+	 */
+	private abstract class FileExplorerTreeNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -3687831061073761255L;
+
+		/** 展開済みディレクトリの状態(未展開の場合、<code>null</code>) */
+		private transient FileExplorerDirectoryState state;
+
+		public FileExplorerTreeNode(final Object aUserObject) {
+			super(aUserObject);
+			state = null;
+		}
+
+		public boolean isOpened() {
+			return null != state;
+		}
+
+		public boolean isLoading() {
+			return null != state && null != state.loader;
+		}
+
+		/**
+		 * ファイルシステムが応答しないため読み込みに失敗したか判断する。
+		 * 
+		 * @return 失敗した場合、<code>true</code>
+		 */
+		public boolean isFailed() {
+			return null != state && null == state.loader && state.loadingNode instanceof FileExplorerErrorTreeNode;
+		}
+
+		public Path getDirectory() {
+			return (null != state) ? state.directory : null;
+		}
+
+		/**
+		 * 表示しないファイルを子ノードから除外しているか判断する。
+		 * 
+		 * @return 除外している場合、<code>true</code>
+		 */
+		public boolean isFiltered() {
+			return null != state && state.filtered;
+		}
+
+		public void setFiltered(final boolean aFiltered) {
+			if (null != state) {
+				state.filtered = aFiltered;
+			}
+		}
+
+		protected String getName() {
+			return getUserObject().toString();
+		}
+
+		/**
+		 * ノードが示すパスを取得する。
+		 * 
+		 * @return パス
+		 */
+		public abstract Path getFilePath();
+
+		/**
+		 * 読み込み済みのファイル属性一覧を取得する。
+		 * 
+		 * @return ファイル属性一覧(ノード未生成のファイルを含む)
+		 */
+		public List<FileExplorerEntry> getEntries() {
+			int count = getFileChildCount();
+			List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(count
+					+ ((null != state && null != state.pageEntries) ? state.pageEntries.size() : 0));
+			for (int i = 0; i < count; i++) {
+				entries.add(((FileExplorerFileTreeNode) getChildAt(i)).getEntry());
+			}
+			if (null != state && null != state.pageEntries) {
+				entries.addAll(state.pageEntries);
+			}
+			return entries;
+		}
+
+		/**
+		 * 読み込み済みの一覧から子ノードを生成し、展開済みの状態にする。
+		 * <p>
+		 * 監視対象への登録は呼び出し元で行います。
+		 * </p>
+		 * 
+		 * @param aDirectory ディレクトリ
+		 * @param aEntries フィルタリング・ソートしたファイル属性一覧
+		 * @param aFiltered 表示しないファイルを除外した場合、<code>true</code>
+		 * @param aSorter ソートに使用したディレクトリ用のソーター(取得し直す場合、<code>null</code>)
+		 */
+		public void openLoaded(final Path aDirectory, final List<FileExplorerEntry> aEntries, final boolean aFiltered,
+				final FileExplorerTreeSorter aSorter) {
+			removeAllChildren();
+			setState(new FileExplorerDirectoryState());
+			watch(aDirectory);
+			state.filtered = aFiltered;
+			if (null != aSorter) {
+				setDirectorySorter(sorter, aSorter);
+			}
+			int size = aEntries.size();
+			int page = pageSize;
+			if (0 < page && page < size) {
+				appendNode(aEntries.subList(0, page));
+				setPageEntries(new ArrayList<FileExplorerEntry>(aEntries.subList(page, size)));
+			} else {
+				appendNode(aEntries);
+			}
+			trimChildren();
+		}
+
+		/**
+		 * 名前が一致する子ノードを取得する。
+		 * <p>
+		 * ページングされている場合、一致するノードを含むページまで子ノードを生成します。
+		 * </p>
+		 * 
+		 * @param aName 名前
+		 * @return 子ノード。存在しない場合、<code>null</code>
+		 */
+		public FileExplorerTreeNode findChild(final String aName) {
+			for (int i = 0; i < getFileChildCount(); i++) {
+				FileExplorerTreeNode child = (FileExplorerTreeNode) getChildAt(i);
+				if (child.getName().equals(aName)) {
+					return child;
+				}
+			}
+			if (null == state || null == state.pageEntries) {
+				return null;
+			}
+			boolean paged = false;
+			for (int i = 0; i < state.pageEntries.size(); i++) {
+				if (state.pageEntries.getName(i).equals(aName)) {
+					paged = true;
+					break;
+				}
+			}
+			while (paged && null != state.pageEntries) {
+				int index = getFileChildCount();
+				loadNextPage();
+				for (int i = index; i < getFileChildCount(); i++) {
+					FileExplorerTreeNode child = (FileExplorerTreeNode) getChildAt(i);
+					if (child.getName().equals(aName)) {
+						return child;
+					}
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * 子ノードの読み込みを開始する。
+		 * <p>
+		 * 読み込みが完了するまで、子ノードには読み込み中ノードが表示されます。
+		 * </p>
+		 * 
+		 * @param aDirectory ディレクトリ
+		 */
+		public void startLoading(final Path aDirectory) {
+			if (null != state) {
+				if (null != state.loader) {
+					state.loader.cancel();
+				}
+				unwatch();
+				unmount();
+			}
+			releaseChildren();
+			removeAllChildren();
+			setState(new FileExplorerDirectoryState());
+			watch(aDirectory);
+			state.loadingNode = new FileExplorerLoadingTreeNode();
+			add(state.loadingNode);
+			((DefaultTreeModel) getModel()).nodeStructureChanged(this);
+
+			state.loader = new FileExplorerTreeLoader(this, aDirectory, false);
+			state.loader.start();
+		}
+
+		/**
+		 * 展開済みの子ノードを再読み込みする。
+		 * <p>
+		 * 読み込んだ一覧は既存の子ノードにマージされ、変更のないノードとその子孫は維持されます。
+		 * </p>
+		 */
+		public void refresh() {
+			if (null == state || null != state.loader) {
+				return;
+			}
+			if (isFailed()) {
+				startLoading(getFilePath());
+				return;
+			}
+			state.loader = new FileExplorerTreeLoader(this, state.directory, true);
+			state.loader.start();
+		}
+
+		/**
+		 * 子ノードの読み込みをキャンセルする。
+		 * <p>
+		 * ノードは未展開の状態に戻ります。
+		 * </p>
+		 */
+		public void cancelLoading() {
+			if (isLoading() || isFailed()) {
+				if (null != state.loader) {
+					state.loader.cancel();
+				}
+				reset();
+			}
+		}
+
+		/**
+		 * 子孫ノードを破棄し、未展開の状態に戻す。
+		 */
+		public void evict() {
+			if (null != state && null == state.loader) {
+				reset();
+			}
+		}
+
+		private void reset() {
+			releaseChildren();
+			unwatch();
+			unmount();
+			setState(null);
+			collapsedNodes.remove(this);
+			removeAllChildren();
+			((DefaultTreeModel) getModel()).nodeStructureChanged(this);
+		}
+
+		/**
+		 * 読み込んだ子ノードを追加する。
+		 * 
+		 * @param aEntries ファイル属性一覧
+		 */
+		public void appendNode(final List<FileExplorerEntry> aEntries) {
+			int index = getFileChildCount();
+			int[] indices = new int[aEntries.size()];
+			for (int i = 0; i < aEntries.size(); i++) {
+				FileExplorerEntry entry = aEntries.get(i);
+				insert(createChild(entry), index + i);
+				indices[i] = index + i;
+			}
+			((DefaultTreeModel) getModel()).nodesWereInserted(this, indices);
+		}
+
+		/**
+		 * ページングされた残りのファイルを設定する。
+		 * 
+		 * @param aEntries ソート済みのファイル属性一覧
+		 */
+		public void setPageEntries(final List<FileExplorerEntry> aEntries) {
+			state.pageEntries = new FileExplorerEntryList(aEntries);
+			updateMoreNode();
+		}
+
+		/**
+		 * 次のページの子ノードを生成する。
+		 */
+		public void loadNextPage() {
+			if (null == state || null == state.pageEntries) {
+				return;
+			}
+			int count = (0 < pageSize) ? Math.min(pageSize, state.pageEntries.size()) : state.pageEntries.size();
+			List<FileExplorerEntry> page = state.pageEntries.subList(0, count);
+			appendNode(page);
+			page.clear();
+			updateMoreNode();
+		}
+
+		/**
+		 * 生成済みの子ノードのうち、先頭のページより後ろのノードを破棄し、属性のみの一覧へ戻す。
+		 * <p>
+		 * 展開済みのディレクトリ・選択中のノードを含む子ノードまでは維持します。
+		 * 読み込み中・絞り込み中の場合は何もしません。
+		 * </p>
+		 * 
+		 * @param aSelections 選択中のツリーパス
+		 */
+		public void trimPages(final TreePath[] aSelections) {
+			if (0 == pageSize || null == state || null != state.loader || isFailed() || null != filter) {
+				return;
+			}
+			int count = getFileChildCount();
+			int keep = pageSize;
+			for (int i = count - 1; i >= keep; i--) {
+				FileExplorerTreeNode child = (FileExplorerTreeNode) getChildAt(i);
+				if (child.isOpened() || isSelectedDescendant(new TreePath(child.getPath()), aSelections)) {
+					keep = i + 1;
+					break;
+				}
+			}
+			if (count <= keep) {
+				return;
+			}
+
+			int size = count - keep;
+			List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(size
+					+ ((null != state.pageEntries) ? state.pageEntries.size() : 0));
+			int[] indices = new int[size];
+			Object[] removed = new Object[size];
+			for (int i = 0; i < size; i++) {
+				FileExplorerFileTreeNode child = (FileExplorerFileTreeNode) getChildAt(keep + i);
+				entries.add(child.getEntry());
+				indices[i] = keep + i;
+				removed[i] = child;
+				((FileExplorerTreeNode) child).release();
+			}
+			for (int i = count - 1; i >= keep; i--) {
+				remove(i);
+			}
+			if (null != state.pageEntries) {
+				entries.addAll(state.pageEntries);
+			}
+			state.pageEntries = new FileExplorerEntryList(entries);
+			((DefaultTreeModel) getModel()).nodesWereRemoved(this, indices, removed);
+			updateMoreNode();
+		}
+
+		/**
+		 * ファイル用の子ノード数を取得する。
+		 * <p>
+		 * 子ノードの末尾にある「さらに表示」ノード・読み込み中ノードは含まれません。
+		 * </p>
+		 * 
+		 * @return 子ノード数
+		 */
+		private int getFileChildCount() {
+			int count = getChildCount();
+			if (null != state) {
+				if (null != state.loadingNode) {
+					count--;
+				}
+				if (null != state.moreNode) {
+					count--;
+				}
+			}
+			return count;
+		}
+
+		private void updateMoreNode() {
+			DefaultTreeModel model = (DefaultTreeModel) getModel();
+			if (null != state.pageEntries && 0 < state.pageEntries.size()) {
+				if (null == state.moreNode) {
+					int index = getFileChildCount();
+					state.moreNode = new FileExplorerMoreTreeNode(state.pageEntries.size());
+					insert(state.moreNode, index);
+					model.nodesWereInserted(this, new int[] { index });
+				} else {
+					state.moreNode.setCount(state.pageEntries.size());
+					model.nodeChanged(state.moreNode);
+				}
+			} else {
+				state.pageEntries = null;
+				if (null != state.moreNode) {
+					int index = getIndex(state.moreNode);
+					remove(index);
+					model.nodesWereRemoved(this, new int[] { index }, new Object[] { state.moreNode });
+					state.moreNode = null;
+				}
+			}
+			updateRetainedBytes();
+		}
+
+		private void setState(final FileExplorerDirectoryState aState) {
+			if (null != state) {
+				retainedBytes -= state.retainedBytes;
+			}
+			state = aState;
+			updateRetainedBytes();
+		}
+
+		/**
+		 * 展開済みディレクトリの状態とノード未生成の一覧の推定メモリ量を計上し直す。
+		 */
+		private void updateRetainedBytes() {
+			if (null != state) {
+				long bytes = ESTIMATED_DIRECTORY_BYTES;
+				if (null != state.pageEntries) {
+					bytes += (long) ESTIMATED_PAGE_ENTRY_BYTES * state.pageEntries.size() + 2 * state.pageEntries.getNameLength();
+				}
+				retainedBytes += bytes - state.retainedBytes;
+				state.retainedBytes = bytes;
+			}
+		}
+
+		/**
+		 * ページングされている場合、生成済みの子ノードの範囲に含まれない一覧を取り除く。
+		 * 
+		 * @param aEntries ソート済みのファイル属性一覧
+		 * @return 生成済みの子ノードの範囲に含まれる一覧
+		 */
+		private List<FileExplorerEntry> splitPage(final List<FileExplorerEntry> aEntries) {
+			if (null == state.pageEntries) {
+				return aEntries;
+			}
+			int count = getFileChildCount();
+			int index = 0;
+			if (0 < count) {
+				FileExplorerEntry last = ((FileExplorerFileTreeNode) getChildAt(count - 1)).getEntry();
+				int low = 0;
+				int high = aEntries.size() - 1;
+				while (low <= high) {
+					int mid = (low + high) >>> 1;
+					if (getDirectorySorter().compare(aEntries.get(mid), last) <= 0) {
+						low = mid + 1;
+					} else {
+						high = mid - 1;
+					}
+				}
+				index = low;
+			}
+			state.pageEntries = new FileExplorerEntryList(aEntries.subList(index, aEntries.size()));
+			return aEntries.subList(0, index);
+		}
+
+		/**
+		 * ファイルシステムが応答しないため子ノードの読み込みを中断する。
+		 * <p>
+		 * 読み込み済みの子ノードは維持し、読み込み中ノードをエラーノードに置き換えます。
+		 * </p>
+		 * 
+		 * @param aMount 応答しなかったマウント
+		 */
+		public void failLoading(final String aMount) {
+			state.loader = null;
+			state.pendingChanges = null;
+			trimChildren();
+			DefaultTreeModel model = (DefaultTreeModel) getModel();
+			if (null != state.loadingNode) {
+				int index = getIndex(state.loadingNode);
+				remove(index);
+				model.nodesWereRemoved(this, new int[] { index }, new Object[] { state.loadingNode });
+			}
+			state.loadingNode = new FileExplorerErrorTreeNode(aMount);
+			add(state.loadingNode);
+			model.nodesWereInserted(this, new int[] { getChildCount() - 1 });
+		}
+
+		/**
+		 * 子ノードの読み込みを完了する。
+		 */
+		public void finishLoading() {
+			state.loader = null;
+			trimChildren();
+			if (null != state.loadingNode) {
+				int index = getIndex(state.loadingNode);
+				remove(index);
+				((DefaultTreeModel) getModel()).nodesWereRemoved(this, new int[] { index }, new Object[] { state.loadingNode });
+				state.loadingNode = null;
+			}
+			if (null != state.pendingChanges) {
+				Map<String, FileExplorerEntry> changes = state.pendingChanges;
+				state.pendingChanges = null;
+				applyChanges(changes);
+			}
+			if (null != state.moreNode) {
+				doLoadVisiblePages();
+			}
+		}
+
+		/**
+		 * 読み込んだ一覧を既存の子ノードにマージする。
+		 * <p>
+		 * 子ノードと一覧はどちらもソート済みのため、名前順に突き合わせて削除・挿入されたノードのみイベントを通知します。
+		 * 追加されたファイルの通知は、既存のノード・未生成の一覧にないファイルのみ行います。
+		 * </p>
+		 * 
+		 * @param aEntries ソート済みのファイル属性一覧
+		 */
+		public void mergeNode(final List<FileExplorerEntry> aNewEntries) {
+			Set<String> existing = new HashSet<String>();
+			for (int i = 0; i < getFileChildCount(); i++) {
+				existing.add(((FileExplorerFileTreeNode) getChildAt(i)).getName());
+			}
+			if (null != state.pageEntries) {
+				for (int i = 0; i < state.pageEntries.size(); i++) {
+					existing.add(state.pageEntries.getName(i));
+				}
+			}
+			List<FileExplorerEntry> appended = new ArrayList<FileExplorerEntry>();
+			for (FileExplorerEntry entry : aNewEntries) {
+				if (!existing.contains(entry.getName())) {
+					appended.add(entry);
+				}
+			}
+			notifyAppended(state.directory, appended);
+
+			List<FileExplorerEntry> aEntries = splitPage(aNewEntries);
+			int size = getFileChildCount();
+			List<TreeNode> merged = new ArrayList<TreeNode>(aEntries.size());
+			List<TreeNode> remains = new ArrayList<TreeNode>(size);
+			List<Integer> removeIndices = new ArrayList<Integer>();
+			List<Object> removeObjects = new ArrayList<Object>();
+			List<Integer> insertIndices = new ArrayList<Integer>();
+
+			int i = 0;
+			int j = 0;
+			while (i < size || j < aEntries.size()) {
+				int cmp;
+				if (i >= size) {
+					cmp = 1;
+				} else if (j >= aEntries.size()) {
+					cmp = -1;
+				} else {
+					FileExplorerFileTreeNode child = (FileExplorerFileTreeNode) getChildAt(i);
+					cmp = getDirectorySorter().compare(child.getEntry(), aEntries.get(j));
+				}
+
+				if (cmp < 0) {
+					removeIndices.add(i);
+					removeObjects.add(getChildAt(i));
+					i++;
+				} else if (cmp > 0) {
+					FileExplorerEntry entry = aEntries.get(j);
+					insertIndices.add(merged.size());
+					merged.add(createChild(entry));
+					j++;
+				} else {
+					FileExplorerFileTreeNode child = (FileExplorerFileTreeNode) getChildAt(i);
+					child.setEntry(aEntries.get(j));
+					remains.add(child);
+					merged.add(child);
+					i++;
+					j++;
+				}
+			}
+
+			DefaultTreeModel model = (DefaultTreeModel) getModel();
+			if (0 < removeIndices.size()) {
+				for (Object obj : removeObjects) {
+					((FileExplorerTreeNode) obj).release();
+				}
+				replaceChildren(remains);
+				model.nodesWereRemoved(this, toArray(removeIndices), removeObjects.toArray());
+			}
+			if (0 < insertIndices.size()) {
+				replaceChildren(merged);
+				model.nodesWereInserted(this, toArray(insertIndices));
+			}
+			updateMoreNode();
+		}
+
+		private void replaceChildren(final List<TreeNode> aNodes) {
+			removeAllChildren();
+			for (TreeNode node : aNodes) {
+				add((MutableTreeNode) node);
+			}
+			if (null != state.moreNode) {
+				add(state.moreNode);
+			}
+			if (null != state.loadingNode) {
+				add(state.loadingNode);
+			}
+			trimChildren();
+		}
+
+		/**
+		 * 展開済みの子孫ノードを現在の並び順でソートする。
+		 * <p>
+		 * 読み込み中のノードは読み込みをやり直します。
+		 * </p>
+		 */
+		public void sortNode() {
+			if (null == state) {
+				return;
+			}
+			if (null != state.loader) {
+				state.loader.cancel();
+				state.loader = null;
+				startLoading(getFilePath());
+				return;
+			}
+
+			int count = getFileChildCount();
+			FileExplorerFileTreeNode[] nodes = new FileExplorerFileTreeNode[count];
+			List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(count);
+			Map<FileExplorerEntry, FileExplorerFileTreeNode> map = new IdentityHashMap<FileExplorerEntry, FileExplorerFileTreeNode>(count);
+			for (int i = 0; i < count; i++) {
+				nodes[i] = (FileExplorerFileTreeNode) getChildAt(i);
+				entries.add(nodes[i].getEntry());
+				map.put(nodes[i].getEntry(), nodes[i]);
+			}
+			if (null != state.pageEntries) {
+				// 生成済みのノードと未生成の一覧をまとめて並べ直す
+				entries.addAll(state.pageEntries);
+			}
+			state.sorterBase = null;
+			getDirectorySorter().sort(entries);
+
+			List<TreeNode> sorted = new ArrayList<TreeNode>(count);
+			List<FileExplorerEntry> rest = new ArrayList<FileExplorerEntry>();
+			for (FileExplorerEntry entry : entries) {
+				FileExplorerFileTreeNode node = map.get(entry);
+				if (sorted.size() < count) {
+					sorted.add((null != node) ? node : createChild(entry));
+				} else {
+					if (null != node) {
+						((FileExplorerTreeNode) node).release();
+					}
+					rest.add(entry);
+				}
+			}
+			if (null != state.pageEntries) {
+				state.pageEntries = new FileExplorerEntryList(rest);
+				updateRetainedBytes();
+			}
+			replaceChildren(sorted);
+
+			for (TreeNode node : sorted) {
+				((FileExplorerTreeNode) node).sortNode();
+			}
+		}
+
+		/**
+		 * 子ノードを並べるソーターを取得する。
+		 * <p>
+		 * ディレクトリごとのソーターは、読み込み時に一覧のソートに使用したものを、ツリーのソーターが変更されるか並び替えるまで使い回します。
+		 * </p>
+		 * 
+		 * @return ソーター
+		 */
+		private FileExplorerTreeSorter getDirectorySorter() {
+			FileExplorerTreeSorter base = sorter;
+			if (null == state) {
+				return base;
+			}
+			if (state.sorterBase != base) {
+				state.sorterBase = base;
+				state.sorter = base.forDirectory(state.directory);
+			}
+			return state.sorter;
+		}
+
+		/**
+		 * 読み込み時に一覧のソートに使用したディレクトリ用のソーターを設定する。
+		 * <p>
+		 * 取得後にツリーのソーターが変更されている場合は設定しません。
+		 * </p>
+		 * 
+		 * @param aBase ソーターの取得元
+		 * @param aSorter ディレクトリ用のソーター
+		 */
+		private void setDirectorySorter(final FileExplorerTreeSorter aBase, final FileExplorerTreeSorter aSorter) {
+			if (null != state && sorter == aBase) {
+				state.sorterBase = aBase;
+				state.sorter = aSorter;
+			}
+		}
+
+		/**
+		 * 子ノードの配列を子ノード数に合わせて縮小する。
+		 */
+		private void trimChildren() {
+			if (null != children) {
+				children.trimToSize();
+			}
+		}
+
+		/**
+		 * 変更されたファイルを子ノードへ反映する。
+		 * <p>
+		 * 変更のあったノードのみ削除・挿入するため、他のノードの展開・選択状態は維持されます。
+		 * 属性の変更で並び順が変わったノードは、子孫を維持したまま並び順の位置へ移動します。
+		 * </p>
+		 * 
+		 * @param aChanges ファイル名と属性のマップ。属性が<code>null</code>の場合は削除
+		 */
+		public void applyChanges(final Map<String, FileExplorerEntry> aChanges) {
+			if (null != state.loader) {
+				if (null == state.pendingChanges) {
+					state.pendingChanges = new LinkedHashMap<String, FileExplorerEntry>();
+				}
+				state.pendingChanges.putAll(aChanges);
+				return;
+			}
+
+			DefaultTreeModel model = (DefaultTreeModel) getModel();
+
+			// 既存のファイルへの変更は、追加されたファイルとして通知しない
+			Set<String> existing = new HashSet<String>();
+			Map<String, FileExplorerEntry> remains = new HashMap<String, FileExplorerEntry>(aChanges);
+			if (null != state.pageEntries) {
+				applyPageChanges(remains, existing);
+			}
+
+			// 削除
+			int count = getFileChildCount();
+			boolean[] updated = new boolean[count];
+			List<Integer> removeIndices = new ArrayList<Integer>();
+			List<FileExplorerEntry> inserts = new ArrayList<FileExplorerEntry>();
+			for (int i = 0; i < count; i++) {
+				FileExplorerFileTreeNode child = (FileExplorerFileTreeNode) getChildAt(i);
+				String name = child.getName();
+				if (remains.containsKey(name)) {
+					existing.add(name);
+					FileExplorerEntry entry = remains.remove(name);
+					if (null != entry && entry.isFile() == child.getEntry().isFile()) {
+						child.setEntry(entry);
+						updated[i] = true;
+					} else {
+						removeIndices.add(i);
+						if (null != entry) {
+							inserts.add(entry);
+						}
+					}
+				}
+			}
+
+			// 移動(並び順が変わったノードは子孫を維持したまま削除・挿入する)
+			List<FileExplorerFileTreeNode> moves = collectMoves(updated, removeIndices);
+			Set<TreeNode> moved = Collections.newSetFromMap(new IdentityHashMap<TreeNode, Boolean>());
+			moved.addAll(moves);
+			List<TreeNode> changes = new ArrayList<TreeNode>();
+			for (int i = 0; i < count; i++) {
+				if (updated[i] && !moved.contains(getChildAt(i))) {
+					changes.add(getChildAt(i));
+				}
+			}
+			List<TreePath> expandeds = new ArrayList<TreePath>();
+			List<TreePath> selecteds = new ArrayList<TreePath>();
+			TreePath[] selections = (0 < moves.size()) ? getSelectionPaths() : null;
+			for (FileExplorerFileTreeNode node : moves) {
+				TreePath path = new TreePath(node.getPath());
+				Enumeration<TreePath> e = getExpandedDescendants(path);
+				if (null != e) {
+					while (e.hasMoreElements()) {
+						expandeds.add(e.nextElement());
+					}
+				}
+				if (null != selections) {
+					for (TreePath selection : selections) {
+						if (path.isDescendant(selection)) {
+							selecteds.add(selection);
+						}
+					}
+				}
+			}
+
+			if (0 < removeIndices.size()) {
+				Collections.sort(removeIndices);
+				int[] indices = new int[removeIndices.size()];
+				Object[] objects = new Object[removeIndices.size()];
+				for (int i = 0; i < indices.length; i++) {
+					indices[i] = removeIndices.get(i);
+					objects[i] = getChildAt(indices[i]);
+				}
+				for (int i = indices.length - 1; i >= 0; i--) {
+					if (!updated[indices[i]]) {
+						((FileExplorerTreeNode) objects[i]).release();
+					}
+					remove(indices[i]);
+				}
+				model.nodesWereRemoved(this, indices, objects);
+			}
+			for (TreeNode node : changes) {
+				model.nodeChanged(node);
+			}
+
+			// 挿入
+			for (FileExplorerEntry entry : remains.values()) {
+				if (null != entry) {
+					inserts.add(entry);
+				}
+			}
+			if (0 < inserts.size() || 0 < moves.size()) {
+				List<FileExplorerFileTreeNode> nodes = new ArrayList<FileExplorerFileTreeNode>(moves);
+				for (FileExplorerEntry entry : inserts) {
+					nodes.add(createChild(entry));
+				}
+				final FileExplorerTreeSorter directorySorter = getDirectorySorter();
+				Collections.sort(nodes, new Comparator<FileExplorerFileTreeNode>() {
+					@Override
+					public int compare(final FileExplorerFileTreeNode node1, final FileExplorerFileTreeNode node2) {
+						return directorySorter.compare(node1.getEntry(), node2.getEntry());
+					}
+				});
+				int[] indices = new int[nodes.size()];
+				for (int i = 0; i < nodes.size(); i++) {
+					FileExplorerFileTreeNode node = nodes.get(i);
+					int index = searchIndex(node.getEntry());
+					insert(node, index);
+					indices[i] = index;
+				}
+				model.nodesWereInserted(this, indices);
+				for (TreePath path : expandeds) {
+					expandPath(path);
+				}
+				if (0 < selecteds.size()) {
+					addSelectionPaths(selecteds.toArray(new TreePath[selecteds.size()]));
+				}
+			}
+			updateMoreNode();
+
+			List<FileExplorerEntry> appended = new ArrayList<FileExplorerEntry>();
+			for (Map.Entry<String, FileExplorerEntry> change : aChanges.entrySet()) {
+				if (null != change.getValue() && !existing.contains(change.getKey())) {
+					appended.add(change.getValue());
+				}
+			}
+			notifyAppended(state.directory, appended);
+		}
+
+		/**
+		 * 属性の変更で並び順が変わった子ノードを収集する。
+		 * <p>
+		 * 変更のないノード同士は並び順を満たしているため、直前に残すノードと直後の変更のないノードの間に収まらない変更ノードを移動対象とします。
+		 * </p>
+		 * 
+		 * @param aUpdated インデックスごとの属性を更新した場合、<code>true</code>
+		 * @param aRemoveIndices 削除するインデックス一覧。移動するノードのインデックスが追加される
+		 * @return 移動する子ノード一覧
+		 */
+		private List<FileExplorerFileTreeNode> collectMoves(final boolean[] aUpdated, final List<Integer> aRemoveIndices) {
+			List<FileExplorerFileTreeNode> moves = new ArrayList<FileExplorerFileTreeNode>();
+			boolean[] removed = new boolean[aUpdated.length];
+			for (int index : aRemoveIndices) {
+				removed[index] = true;
+			}
+			// 直後の変更のないノードの属性
+			FileExplorerEntry[] nexts = new FileExplorerEntry[aUpdated.length];
+			FileExplorerEntry next = null;
+			for (int i = aUpdated.length - 1; i >= 0; i--) {
+				nexts[i] = next;
+				if (!aUpdated[i] && !removed[i]) {
+					next = ((FileExplorerFileTreeNode) getChildAt(i)).getEntry();
+				}
+			}
+
+			FileExplorerTreeSorter directorySorter = getDirectorySorter();
+			FileExplorerEntry last = null;
+			for (int i = 0; i < aUpdated.length; i++) {
+				if (removed[i]) {
+					continue;
+				}
+				FileExplorerFileTreeNode child = (FileExplorerFileTreeNode) getChildAt(i);
+				FileExplorerEntry entry = child.getEntry();
+				if (aUpdated[i]
+						&& ((null != last && 0 < directorySorter.compare(last, entry)) || (null != nexts[i] && 0 < directorySorter
+								.compare(entry, nexts[i])))) {
+					moves.add(child);
+					aRemoveIndices.add(i);
+				} else {
+					last = entry;
+				}
+			}
+			return moves;
+		}
+
+		/**
+		 * ノード未生成のファイルへの変更を反映する。
+		 * <p>
+		 * 反映した変更は引数のマップから取り除かれます。
+		 * </p>
+		 * 
+		 * @param aChanges ファイル名と属性のマップ。属性が<code>null</code>の場合は削除
+		 * @param aExisting 未生成の一覧に含まれていた変更のファイル名を格納するセット
+		 */
+		private void applyPageChanges(final Map<String, FileExplorerEntry> aChanges, final Set<String> aExisting) {
+			List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(state.pageEntries.size());
+			for (int i = 0; i < state.pageEntries.size(); i++) {
+				String name = state.pageEntries.getName(i);
+				if (aChanges.containsKey(name)) {
+					aExisting.add(name);
+				} else {
+					entries.add(state.pageEntries.get(i));
+				}
+			}
+
+			int count = getFileChildCount();
+			FileExplorerEntry last = (0 < count) ? ((FileExplorerFileTreeNode) getChildAt(count - 1)).getEntry() : null;
+			for (String name : new ArrayList<String>(aChanges.keySet())) {
+				FileExplorerEntry entry = aChanges.get(name);
+				if (null != entry && (null == last || 0 < getDirectorySorter().compare(entry, last))) {
+					int index = Collections.binarySearch(entries, entry, getDirectorySorter());
+					entries.add((0 > index) ? -(index + 1) : index, entry);
+					// 生成済みの同名ノードは削除する
+					aChanges.put(name, null);
+				}
+			}
+			state.pageEntries = new FileExplorerEntryList(entries);
+		}
+
+		private int searchIndex(final FileExplorerEntry aEntry) {
+			int low = 0;
+			int high = getFileChildCount() - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				FileExplorerEntry entry = ((FileExplorerFileTreeNode) getChildAt(mid)).getEntry();
+				if (getDirectorySorter().compare(entry, aEntry) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * ディレクトリを監視するノードとして登録する。
+		 * <p>
+		 * 監視対象への登録はファイルシステムにアクセスするため、ローダーのスレッドで行います。
+		 * </p>
+		 * 
+		 * @param aDirectory ディレクトリ
+		 */
+		private void watch(final Path aDirectory) {
+			state.directory = aDirectory;
+			watchedNodes.put(aDirectory, this);
+		}
+
+		/**
+		 * アーカイブのマウントが完了した場合に呼び出される。
+		 * 
+		 * @param aArchive アーカイブ
+		 * @param aRoot アーカイブのルートディレクトリ
+		 */
+		public void mounted(final Path aArchive, final Path aRoot) {
+			unwatch();
+			state.archive = aArchive;
+			watch(aRoot);
+		}
+
+		private void unmount() {
+			if (null != state && null != state.archive) {
+				archiveCache.release(state.archive);
+				state.archive = null;
+			}
+		}
+
+		private void unwatch() {
+			if (null != state && null != state.directory) {
+				Path path = state.directory;
+				if (this == watchedNodes.get(path)) {
+					watchedNodes.remove(path);
+					watcher.unregister(path);
+				}
+			}
+		}
+
+		/**
+		 * ファイル用の子ノードを生成し、絞り込み中の場合は名前索引に登録する。
+		 * 
+		 * @param aEntry ファイル属性
+		 * @return 子ノード
+		 */
+		private FileExplorerFileTreeNode createChild(final FileExplorerEntry aEntry) {
+			FileExplorerFileTreeNode node = new FileExplorerFileTreeNode(aEntry);
+			if (null != nameIndex) {
+				nameIndex.add(aEntry.getName(), node);
+			}
+			retainedNodeCount++;
+			retainedBytes += ESTIMATED_NODE_BYTES + 2 * aEntry.getName().length();
+			return node;
+		}
+
+		/**
+		 * ツリーから取り除かれるノードの読み込み・監視を終了し、名前索引から削除する。
+		 */
+		private void release() {
+			if (null != state) {
+				if (null != state.loader) {
+					state.loader.cancel();
+					state.loader = null;
+				}
+				unwatch();
+				unmount();
+				retainedBytes -= state.retainedBytes;
+				state.retainedBytes = 0;
+			}
+			releaseChildren();
+			collapsedNodes.remove(this);
+			if (this instanceof FileExplorerFileTreeNode) {
+				if (null != nameIndex) {
+					nameIndex.remove(getName(), this);
+				}
+				retainedNodeCount--;
+				retainedBytes -= ESTIMATED_NODE_BYTES + 2 * getName().length();
+			}
+		}
+
+		private void releaseChildren() {
+			for (int i = 0; i < getChildCount(); i++) {
+				TreeNode child = getChildAt(i);
+				if (child instanceof FileExplorerTreeNode) {
+					((FileExplorerTreeNode) child).release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * このクラスは、ドライブ用のツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/14
+	 * @author kawakicchi
+	 */
+	private class FileExplorerDriverTreeNode extends FileExplorerTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = -3171203904400080810L;
+
+		/** ルートディレクトリ */
+		private final transient Path root;
+
+		/**
+		 * コンストラクター
+		 * 
+		 * @param aRoot ルートディレクトリ
+		 */
+		public FileExplorerDriverTreeNode(final Path aRoot) {
+			super(aRoot.toString());
+			root = aRoot;
+		}
+
+		@Override
+		public boolean isLeaf() {
+			return false;
+		}
+
+		@Override
+		public Path getFilePath() {
+			return root;
+		}
+	}
+
+	/**
+	 * このクラスは、ファイル用のツリーノードクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/14
+	 * @author kawakicchi
+	 */
+	private class FileExplorerFileTreeNode extends FileExplorerTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 7460805214915893826L;
 
 		/**
 		 * コンストラクター
+		 * <p>
+		 * ファイル属性をユーザーオブジェクトとして保持し、パスは親ノードのディレクトリから求めます。
+		 * </p>
 		 * 
-		 * @param userObject 当ノードのユーザーオブジェクト
+		 * @param aEntry ファイル属性
 		 */
-		public FileExplorerFileTreeNode(final File aFile) {
-			super(aFile.getName());
-			file = aFile;
+		public FileExplorerFileTreeNode(final FileExplorerEntry aEntry) {
+			super(aEntry);
 		}
 
 		@Override
 		public boolean isLeaf() {
-			return file.isFile();
+			return getEntry().isFile() && !isArchive();
+		}
+
+		@Override
+		public Path getFilePath() {
+			FileExplorerTreeNode parent = (FileExplorerTreeNode) getParent();
+			return parent.getDirectory().resolve(getEntry().getName());
+		}
+
+		/**
+		 * ツリー上で展開できるアーカイブか判断する。
+		 * 
+		 * @return アーカイブの場合、<code>true</code>
+		 */
+		public boolean isArchive() {
+			if (!getEntry().isFile() || !FileExplorerArchiveCache.isArchive(getEntry().getName())) {
+				return false;
+			}
+			FileExplorerTreeNode parent = (FileExplorerTreeNode) getParent();
+			return null != parent && null != parent.getDirectory() && isDefaultFileSystem(parent.getDirectory());
+		}
+
+		public FileExplorerEntry getEntry() {
+			return (FileExplorerEntry) getUserObject();
 		}
 
-		public File getFile() {
-			return file;
+		public void setEntry(final FileExplorerEntry aEntry) {
+			setUserObject(aEntry);
 		}
 	}
 }
@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * このインターフェースは、ファイルエクスプローラツリー用のディレクトリ単位のリスナー機能を定義したインターフェースです。
+ * <p>
+ * このインターフェースを実装したリスナーには、
+ * {@link #fileExplorerTreeAppendingFile(FileExplorerTreeEvent, File)}・{@link #fileExplorerTreeAppendedFile(FileExplorerTreeEvent, File)}
+ * の代わりにディレクトリの一覧がまとめて通知されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/06
+ * @author kawakicchi
+ */
+public interface FileExplorerTreeBatchListener extends FileExplorerTreeListener {
+
+	/**
+	 * ツリーの展開時にディレクトリごとに呼び出される。
+	 * <p>
+	 * ディレクトリの読み込みスレッドから呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * </p>
+	 * 
+	 * @param event イベント
+	 * @param aFiles ファイル一覧(変更不可)
+	 * @return ノードに追加するファイルのインデックスを立てたビットセット。<code>null</code>の場合、全ファイルを追加する。
+	 */
+	public BitSet fileExplorerTreeAppendingFiles(final FileExplorerTreeEvent event, final List<File> aFiles);
+
+	/**
+	 * ノードに追加されたファイルの一覧をディレクトリごとに通知する。
+	 * <p>
+	 * ディレクトリの読み込みスレッドから呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * ディレクトリ監視・再読み込みの場合は、新しく追加されたファイルのみがノードへの反映後にバックグラウンドスレッドから通知されます。
+	 * </p>
+	 * 
+	 * @param event イベント
+	 * @param aFiles ファイル一覧(変更不可)
+	 */
+	public void fileExplorerTreeAppendedFiles(final FileExplorerTreeEvent event, final List<File> aFiles);
+
+}
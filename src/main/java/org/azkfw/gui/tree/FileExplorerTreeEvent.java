@@ -27,12 +27,37 @@ package org.azkfw.gui.tree;
 public class FileExplorerTreeEvent {
 
 	private FileExplorerTree tree;
+	/** 対象ファイルの読み込み済みの属性 */
+	private FileExplorerEntry entry;
 
 	public FileExplorerTreeEvent(final FileExplorerTree aTree) {
+		this(aTree, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aTree ツリー
+	 * @param aEntry 対象ファイルの読み込み済みの属性
+	 */
+	public FileExplorerTreeEvent(final FileExplorerTree aTree, final FileExplorerEntry aEntry) {
 		tree = aTree;
+		entry = aEntry;
 	}
 
 	public FileExplorerTree getTree() {
 		return tree;
 	}
+
+	/**
+	 * 対象ファイルの読み込み済みの属性を取得する。
+	 * <p>
+	 * コンテキストメニューの生成時に設定され、ファイルシステムにアクセスせずに種類を判断できます。
+	 * </p>
+	 * 
+	 * @return 属性。設定されていない場合、<code>null</code>
+	 */
+	public FileExplorerEntry getEntry() {
+		return entry;
+	}
 }
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * このクラスは、ファイルエクスプローラツリーのノードを名前で絞り込む条件を保持するクラスです。
+ * <p>
+ * 大文字・小文字は区別しません。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/10
+ * @author kawakicchi
+ */
+public final class FileExplorerTreeFilter {
+
+	/**
+	 * 一致方法
+	 */
+	public static enum Mode {
+		/** 部分一致 */
+		SUBSTRING,
+		/** ワイルドカード(<code>*</code>、<code>?</code>) */
+		GLOB,
+		/** 正規表現 */
+		REGEX
+	}
+
+	/** 一致方法 */
+	private final Mode mode;
+	/** 条件文字列 */
+	private final String text;
+
+	/** 小文字の部分一致文字列(部分一致の場合) */
+	private final String lowerText;
+	/** 正規表現(ワイルドカード・正規表現の場合) */
+	private final Pattern pattern;
+	/** 名前に必ず含まれる小文字の文字列 */
+	private final String literal;
+	/** 名前に必ず含まれる小文字の文字列一覧 */
+	private final List<String> literals;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aMode 一致方法
+	 * @param aText 条件文字列
+	 * @throws PatternSyntaxException 正規表現の構文が不正な場合
+	 */
+	public FileExplorerTreeFilter(final Mode aMode, final String aText) {
+		mode = aMode;
+		text = aText;
+		switch (aMode) {
+		case GLOB:
+			lowerText = null;
+			pattern = Pattern.compile(toRegex(aText), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+			literal = longestLiteral(aText.toLowerCase(Locale.ENGLISH));
+			literals = splitLiterals(aText.toLowerCase(Locale.ENGLISH));
+			break;
+		case REGEX:
+			lowerText = null;
+			pattern = Pattern.compile(aText, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+			literal = null;
+			literals = Collections.emptyList();
+			break;
+		default:
+			lowerText = aText.toLowerCase(Locale.ENGLISH);
+			pattern = null;
+			literal = lowerText;
+			literals = Collections.singletonList(lowerText);
+			break;
+		}
+	}
+
+	/**
+	 * 一致方法を取得する。
+	 * 
+	 * @return 一致方法
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * 条件文字列を取得する。
+	 * 
+	 * @return 条件文字列
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * 名前が条件に一致するか判断する。
+	 * 
+	 * @param aLowerName 小文字に変換した名前
+	 * @param aName 名前
+	 * @return 一致する場合、<code>true</code>
+	 */
+	boolean matches(final String aLowerName, final String aName) {
+		if (null != lowerText) {
+			return aLowerName.contains(lowerText);
+		} else if (Mode.GLOB == mode) {
+			return pattern.matcher(aName).matches();
+		} else {
+			return pattern.matcher(aName).find();
+		}
+	}
+
+	/**
+	 * 一致する名前に必ず含まれる小文字の文字列を取得する。
+	 * 
+	 * @return 文字列。特定できない場合、<code>null</code>
+	 */
+	String getLiteral() {
+		return literal;
+	}
+
+	/**
+	 * 一致する名前に必ず含まれる小文字の文字列一覧を取得する。
+	 * <p>
+	 * ワイルドカードの場合はワイルドカードで区切られたすべての文字列を返します。
+	 * </p>
+	 * 
+	 * @return 文字列一覧。特定できない場合、空の一覧
+	 */
+	List<String> getLiterals() {
+		return literals;
+	}
+
+	private static String toRegex(final String aGlob) {
+		StringBuilder s = new StringBuilder();
+		StringBuilder quote = new StringBuilder();
+		for (int i = 0; i < aGlob.length(); i++) {
+			char c = aGlob.charAt(i);
+			if ('*' == c || '?' == c) {
+				if (0 < quote.length()) {
+					s.append(Pattern.quote(quote.toString()));
+					quote.setLength(0);
+				}
+				s.append(('*' == c) ? ".*" : ".");
+			} else {
+				quote.append(c);
+			}
+		}
+		if (0 < quote.length()) {
+			s.append(Pattern.quote(quote.toString()));
+		}
+		return s.toString();
+	}
+
+	private static String longestLiteral(final String aGlob) {
+		String longest = null;
+		for (String part : aGlob.split("[*?]")) {
+			if (null == longest || longest.length() < part.length()) {
+				longest = part;
+			}
+		}
+		return (null != longest && 0 < longest.length()) ? longest : null;
+	}
+
+	private static List<String> splitLiterals(final String aGlob) {
+		List<String> parts = new ArrayList<String>();
+		for (String part : aGlob.split("[*?]")) {
+			if (0 < part.length()) {
+				parts.add(part);
+			}
+		}
+		return parts;
+	}
+
+	@Override
+	public String toString() {
+		return mode + ":" + text;
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * このクラスは、入力に合わせてファイルエクスプローラツリーを絞り込むテキストフィールドクラスです。
+ * <p>
+ * 入力が{@link #DELAY_MILLIS}ミリ秒止まった時点で絞り込みます。Escキーで絞り込みを解除します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/10
+ * @author kawakicchi
+ */
+public class FileExplorerTreeFilterField extends JTextField {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = -2183806742365271040L;
+
+	/** 入力から絞り込みまでの待ち時間(ミリ秒) */
+	public static final int DELAY_MILLIS = 150;
+
+	/** 絞り込むツリー */
+	private final FileExplorerTree tree;
+	/** 一致方法 */
+	private FileExplorerTreeFilter.Mode mode;
+
+	/** 絞り込みタイマー */
+	private final Timer timer;
+	/** 通常の文字色 */
+	private Color normalForeground;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aTree 絞り込むツリー
+	 */
+	public FileExplorerTreeFilterField(final FileExplorerTree aTree) {
+		tree = aTree;
+		mode = FileExplorerTreeFilter.Mode.SUBSTRING;
+		normalForeground = getForeground();
+
+		timer = new Timer(DELAY_MILLIS, new ActionListener() {
+			@Override
+			public void actionPerformed(final ActionEvent event) {
+				doFilter();
+			}
+		});
+		timer.setRepeats(false);
+
+		getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+
+			@Override
+			public void removeUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+
+			@Override
+			public void changedUpdate(final DocumentEvent event) {
+				timer.restart();
+			}
+		});
+
+		addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyPressed(final KeyEvent event) {
+				if (event.getKeyCode() == KeyEvent.VK_ESCAPE) {
+					setText("");
+					event.consume();
+				}
+			}
+		});
+	}
+
+	/**
+	 * 一致方法を設定する。
+	 * 
+	 * @param aMode 一致方法
+	 */
+	public void setMode(final FileExplorerTreeFilter.Mode aMode) {
+		mode = aMode;
+		timer.restart();
+	}
+
+	/**
+	 * 一致方法を取得する。
+	 * 
+	 * @return 一致方法
+	 */
+	public FileExplorerTreeFilter.Mode getMode() {
+		return mode;
+	}
+
+	private void doFilter() {
+		String text = getText();
+		if (0 == text.length()) {
+			setForeground(normalForeground);
+			tree.setFilter(null);
+			return;
+		}
+		try {
+			FileExplorerTreeFilter filter = new FileExplorerTreeFilter(mode, text);
+			setForeground(normalForeground);
+			tree.setFilter(filter);
+		} catch (PatternSyntaxException ex) {
+			// 入力途中の正規表現は直前の絞り込みを維持する
+			setForeground(Color.RED);
+		}
+	}
+}
@@ -50,6 +50,9 @@ public interface FileExplorerTreeListener {
 
 	/**
 	 * ツリーの展開時にファイルごとに呼び出される。
+	 * <p>
+	 * ディレクトリの読み込みスレッドから呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * </p>
 	 * 
 	 * @param event イベント
 	 * @param aFile　ファイル
@@ -57,6 +60,20 @@ public interface FileExplorerTreeListener {
 	 */
 	public boolean fileExplorerTreeAppendingFile(final FileExplorerTreeEvent event, final File aFile);
 
+	/**
+	 * ツリーの展開時にノードに追加されたファイルごとに呼び出される。
+	 * <p>
+	 * {@link #fileExplorerTreeAppendingFile(FileExplorerTreeEvent, File)}と同じくディレクトリの読み込みスレッドから、
+	 * ノードに追加される前に呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * ディレクトリ監視・再読み込みでファイルが追加された場合は、新しく追加されたファイルのみ、
+	 * ノードへの反映後にバックグラウンドスレッドから呼び出されます。既存のファイルの変更では呼び出されません。
+	 * いずれの場合もイベントディスパッチスレッドからは呼び出されないため、
+	 * Swingコンポーネントを操作する場合は{@link javax.swing.SwingUtilities#invokeLater(Runnable)}を使用してください。
+	 * </p>
+	 * 
+	 * @param event イベント
+	 * @param aFile ファイル
+	 */
 	public void fileExplorerTreeAppendedFile(final FileExplorerTreeEvent event, final File aFile);
 
 }
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.swing.JMenuItem;
+
+/**
+ * このインターフェースは、ファイルエクスプローラツリー用のパス単位のリスナー機能を定義したインターフェースです。
+ * <p>
+ * このインターフェースを実装したリスナーには、{@link java.io.File}を引数とするメソッドの代わりに
+ * {@link Path}を引数とするメソッドが呼び出されます。
+ * アーカイブ内のファイルなど、デフォルトのファイルシステム以外のファイルはこのリスナーにのみ通知されます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/14
+ * @author kawakicchi
+ */
+public interface FileExplorerTreePathListener extends FileExplorerTreeListener {
+
+	/**
+	 * ファイル・ディレクトでダブルクリック・Enterキー押下時に呼び出される。
+	 * 
+	 * @param event イベント
+	 * @param aPath パス
+	 */
+	public void fileExplorerTreeClickedPath(final FileExplorerTreeEvent event, final Path aPath);
+
+	/**
+	 * ファイル・ディレクトリで右クリックした場合のコンテキストメニュー
+	 * 
+	 * @param event イベント
+	 * @param aPath パス
+	 * @return <code>null</code>の場合、コンテキストメニューにメニューは追加されない。
+	 */
+	public List<JMenuItem> fileExplorerTreeMenuPath(final FileExplorerTreeEvent event, final Path aPath);
+
+	/**
+	 * ツリーの展開時にファイルごとに呼び出される。
+	 * <p>
+	 * ディレクトリの読み込みスレッドから呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * </p>
+	 * 
+	 * @param event イベント
+	 * @param aPath パス
+	 * @return <code>false</code>を指定した場合、ノードに追加されない。
+	 */
+	public boolean fileExplorerTreeAppendingPath(final FileExplorerTreeEvent event, final Path aPath);
+
+	/**
+	 * ツリーの展開時にノードに追加されたファイルごとに呼び出される。
+	 * <p>
+	 * ディレクトリの読み込みスレッドから呼び出されるため、Swingコンポーネントを操作しないこと。
+	 * ディレクトリ監視・再読み込みの場合は、新しく追加されたファイルのみがノードへの反映後にバックグラウンドスレッドから通知されます。
+	 * </p>
+	 * 
+	 * @param event イベント
+	 * @param aPath パス
+	 */
+	public void fileExplorerTreeAppendedPath(final FileExplorerTreeEvent event, final Path aPath);
+
+}
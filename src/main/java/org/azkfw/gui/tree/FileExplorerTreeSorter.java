@@ -0,0 +1,344 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * このクラスは、ファイルエクスプローラツリーの子ノードの並び順を定義する基底クラスです。
+ * <p>
+ * ディレクトリは常にファイルより前に並びます。
+ * 一覧のソートは{@link #sort(List)}でまとめて行われ、要素数が{@link #PARALLEL_THRESHOLD}を超える場合は並列にソートします。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/07
+ * @author kawakicchi
+ */
+public abstract class FileExplorerTreeSorter implements Comparator<FileExplorerEntry> {
+
+	/** 並列ソートを行う要素数 */
+	public static final int PARALLEL_THRESHOLD = 10000;
+
+	/** 名前(文字コード順) */
+	private static final FileExplorerTreeSorter NAME = new FileExplorerTreeSorter() {
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			return entry1.getName().compareTo(entry2.getName());
+		}
+	};
+
+	/** 名前(自然順) */
+	private static final FileExplorerTreeSorter NATURAL = new FileExplorerTreeSorter() {
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			return compareNatural(entry1.getName(), entry2.getName());
+		}
+	};
+
+	/** サイズ */
+	private static final FileExplorerTreeSorter SIZE = new FileExplorerTreeSorter() {
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			int result = compareLong(entry1.getSize(), entry2.getSize());
+			if (0 == result) {
+				result = entry1.getName().compareTo(entry2.getName());
+			}
+			return result;
+		}
+	};
+
+	/** 更新日時 */
+	private static final FileExplorerTreeSorter LAST_MODIFIED = new FileExplorerTreeSorter() {
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			int result = compareLong(entry1.getLastModified(), entry2.getLastModified());
+			if (0 == result) {
+				result = entry1.getName().compareTo(entry2.getName());
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * 名前の文字コード順に並べるソーターを取得する。
+	 * 
+	 * @return ソーター
+	 */
+	public static FileExplorerTreeSorter getNameSorter() {
+		return NAME;
+	}
+
+	/**
+	 * 名前に含まれる数値を数値として比較するソーターを取得する。
+	 * <p>
+	 * <code>file2</code>は<code>file10</code>より前に並びます。
+	 * </p>
+	 * 
+	 * @return ソーター
+	 */
+	public static FileExplorerTreeSorter getNaturalSorter() {
+		return NATURAL;
+	}
+
+	/**
+	 * サイズ順に並べるソーターを取得する。
+	 * 
+	 * @return ソーター
+	 */
+	public static FileExplorerTreeSorter getSizeSorter() {
+		return SIZE;
+	}
+
+	/**
+	 * 更新日時順に並べるソーターを取得する。
+	 * 
+	 * @return ソーター
+	 */
+	public static FileExplorerTreeSorter getLastModifiedSorter() {
+		return LAST_MODIFIED;
+	}
+
+	/**
+	 * ロケールの照合順序で並べるソーターを生成する。
+	 * <p>
+	 * 一覧のソート時は照合キーを事前に計算します。
+	 * </p>
+	 * 
+	 * @param aLocale ロケール
+	 * @return ソーター
+	 */
+	public static FileExplorerTreeSorter createCollationSorter(final Locale aLocale) {
+		return new CollationSorter(Collator.getInstance(aLocale));
+	}
+
+	@Override
+	public final int compare(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+		if (entry1.isFile() != entry2.isFile()) {
+			if (entry1.isFile()) {
+				return 1;
+			} else {
+				return -1;
+			}
+		} else {
+			return compareEntry(entry1, entry2);
+		}
+	}
+
+	/**
+	 * 一覧をソートする。
+	 * <p>
+	 * このメソッドはローダーのスレッドから呼び出されます。
+	 * </p>
+	 * 
+	 * @param aEntries ファイル属性一覧
+	 */
+	public void sort(final List<FileExplorerEntry> aEntries) {
+		FileExplorerEntry[] array = aEntries.toArray(new FileExplorerEntry[aEntries.size()]);
+		sort(array, this);
+		for (int i = 0; i < array.length; i++) {
+			aEntries.set(i, array[i]);
+		}
+	}
+
+	/**
+	 * ディレクトリの子ノードを並べるソーターを取得する。
+	 * <p>
+	 * ディレクトリごとに異なる情報で比較するソーターはオーバーライドします。既定では自身を返します。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return ソーター
+	 */
+	FileExplorerTreeSorter forDirectory(final Path aDirectory) {
+		return this;
+	}
+
+	/**
+	 * 同じ種類(ディレクトリ・ファイル)同士を比較する。
+	 * 
+	 * @param entry1 ファイル属性1
+	 * @param entry2 ファイル属性2
+	 * @return 比較結果
+	 */
+	protected abstract int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2);
+
+	/**
+	 * 配列をソートする。
+	 * 
+	 * @param aArray 配列
+	 * @param aComparator 比較
+	 */
+	protected static <T> void sort(final T[] aArray, final Comparator<? super T> aComparator) {
+		if (PARALLEL_THRESHOLD < aArray.length) {
+			FileExplorerParallelSort.sort(aArray, aComparator);
+		} else {
+			Arrays.sort(aArray, aComparator);
+		}
+	}
+
+	private static int compareLong(final long value1, final long value2) {
+		return (value1 < value2) ? -1 : ((value1 == value2) ? 0 : 1);
+	}
+
+	/**
+	 * 文字列を自然順で比較する。
+	 * 
+	 * @param str1 文字列1
+	 * @param str2 文字列2
+	 * @return 比較結果
+	 */
+	static int compareNatural(final String str1, final String str2) {
+		int len1 = str1.length();
+		int len2 = str2.length();
+		int i = 0;
+		int j = 0;
+		while (i < len1 && j < len2) {
+			char c1 = str1.charAt(i);
+			char c2 = str2.charAt(j);
+			if (isDigit(c1) && isDigit(c2)) {
+				// 先頭の0を読み飛ばして桁数、数字の順に比較する
+				int s1 = i;
+				int s2 = j;
+				while (s1 < len1 && '0' == str1.charAt(s1)) {
+					s1++;
+				}
+				while (s2 < len2 && '0' == str2.charAt(s2)) {
+					s2++;
+				}
+				int e1 = s1;
+				int e2 = s2;
+				while (e1 < len1 && isDigit(str1.charAt(e1))) {
+					e1++;
+				}
+				while (e2 < len2 && isDigit(str2.charAt(e2))) {
+					e2++;
+				}
+				int digits1 = e1 - s1;
+				int digits2 = e2 - s2;
+				if (digits1 != digits2) {
+					return digits1 - digits2;
+				}
+				for (int k = 0; k < digits1; k++) {
+					int diff = str1.charAt(s1 + k) - str2.charAt(s2 + k);
+					if (0 != diff) {
+						return diff;
+					}
+				}
+				// 先頭の0が少ない方を前にする
+				int zeros = (s1 - i) - (s2 - j);
+				if (0 != zeros) {
+					return zeros;
+				}
+				i = e1;
+				j = e2;
+			} else {
+				if (c1 != c2) {
+					int diff = Character.toLowerCase(c1) - Character.toLowerCase(c2);
+					return (0 != diff) ? diff : c1 - c2;
+				}
+				i++;
+				j++;
+			}
+		}
+		return (len1 - i) - (len2 - j);
+	}
+
+	private static boolean isDigit(final char c) {
+		return '0' <= c && c <= '9';
+	}
+
+	/**
+	 * このクラスは、照合順序で並べるソータークラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/07
+	 * @author kawakicchi
+	 */
+	private static class CollationSorter extends FileExplorerTreeSorter {
+
+		private final Collator collator;
+
+		public CollationSorter(final Collator aCollator) {
+			collator = aCollator;
+		}
+
+		@Override
+		protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+			int result;
+			synchronized (collator) {
+				result = collator.compare(entry1.getName(), entry2.getName());
+			}
+			if (0 == result) {
+				// 照合順序で等しい別名を区別する
+				result = entry1.getName().compareTo(entry2.getName());
+			}
+			return result;
+		}
+
+		@Override
+		public void sort(final List<FileExplorerEntry> aEntries) {
+			Collator c = (Collator) collator.clone();
+			Keyed[] array = new Keyed[aEntries.size()];
+			for (int i = 0; i < array.length; i++) {
+				FileExplorerEntry entry = aEntries.get(i);
+				array[i] = new Keyed(entry, c.getCollationKey(entry.getName()));
+			}
+			sort(array, new Comparator<Keyed>() {
+				@Override
+				public int compare(final Keyed keyed1, final Keyed keyed2) {
+					if (keyed1.entry.isFile() != keyed2.entry.isFile()) {
+						return (keyed1.entry.isFile()) ? 1 : -1;
+					}
+					int result = keyed1.key.compareTo(keyed2.key);
+					if (0 == result) {
+						result = keyed1.entry.getName().compareTo(keyed2.entry.getName());
+					}
+					return result;
+				}
+			});
+			for (int i = 0; i < array.length; i++) {
+				aEntries.set(i, array[i].entry);
+			}
+		}
+	}
+
+	/**
+	 * このクラスは、照合キーを事前に計算したファイル属性を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/07
+	 * @author kawakicchi
+	 */
+	private static class Keyed {
+
+		private final FileExplorerEntry entry;
+		private final CollationKey key;
+
+		public Keyed(final FileExplorerEntry aEntry, final CollationKey aKey) {
+			entry = aEntry;
+			key = aKey;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * このクラスは、ファイルエクスプローラツリーの展開・選択状態を保持するクラスです。
+ * <p>
+ * 展開・選択されたパスをノード名のトライとして保持し、共通する上位のディレクトリは一度だけ記録します。
+ * {@link FileExplorerTree#getExpansionState()}で取得し、{@link FileExplorerTree#restoreExpansionState(FileExplorerTreeState)}で復元します。
+ * {@link #write(OutputStream)}、{@link #read(InputStream)}でストリームに保存・復元できます。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/21
+ * @author kawakicchi
+ */
+public final class FileExplorerTreeState {
+
+	/** ファイル識別子 ("AZTS") */
+	private static final int MAGIC = 0x415A5453;
+	/** ファイル形式のバージョン */
+	private static final int VERSION = 1;
+
+	/** フラグ: 展開 */
+	private static final int FLAG_EXPANDED = 0x01;
+	/** フラグ: 選択 */
+	private static final int FLAG_SELECTED = 0x02;
+
+	/** ルート */
+	private final Entry root;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerTreeState() {
+		root = new Entry(null);
+	}
+
+	/**
+	 * ストリームから読み込む。
+	 * 
+	 * @param aStream ストリーム
+	 * @return 展開・選択状態
+	 * @throws IOException IO操作に起因する問題が発生した場合、または形式が異なる場合
+	 */
+	public static FileExplorerTreeState read(final InputStream aStream) throws IOException {
+		DataInputStream in = new DataInputStream(aStream);
+		if (MAGIC != in.readInt() || VERSION != in.readInt()) {
+			throw new IOException("Unsupported format.");
+		}
+		FileExplorerTreeState state = new FileExplorerTreeState();
+		readChildren(in, state.root);
+		return state;
+	}
+
+	/**
+	 * ストリームに書き込む。
+	 * 
+	 * @param aStream ストリーム
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public void write(final OutputStream aStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(aStream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeChildren(out, root);
+		out.flush();
+	}
+
+	/**
+	 * 展開されたパス数を取得する。
+	 * 
+	 * @return パス数
+	 */
+	public int getExpandedCount() {
+		return count(root, FLAG_EXPANDED);
+	}
+
+	/**
+	 * 選択されたパス数を取得する。
+	 * 
+	 * @return パス数
+	 */
+	public int getSelectedCount() {
+		return count(root, FLAG_SELECTED);
+	}
+
+	/**
+	 * ルートを取得する。
+	 * 
+	 * @return ルート(名前は<code>null</code>)
+	 */
+	Entry getRoot() {
+		return root;
+	}
+
+	/**
+	 * パスを展開されたパスとして追加する。
+	 * 
+	 * @param aNames ルートからのノード名
+	 */
+	void addExpanded(final List<String> aNames) {
+		add(aNames).flags |= FLAG_EXPANDED;
+	}
+
+	/**
+	 * パスを選択されたパスとして追加する。
+	 * 
+	 * @param aNames ルートからのノード名
+	 */
+	void addSelected(final List<String> aNames) {
+		add(aNames).flags |= FLAG_SELECTED;
+	}
+
+	private Entry add(final List<String> aNames) {
+		Entry entry = root;
+		for (String name : aNames) {
+			Entry child = entry.getChild(name);
+			if (null == child) {
+				child = new Entry(name);
+				if (null == entry.children) {
+					entry.children = new ArrayList<Entry>(2);
+				}
+				entry.children.add(child);
+			}
+			entry = child;
+		}
+		return entry;
+	}
+
+	private static int count(final Entry aEntry, final int aFlag) {
+		int count = (aFlag == (aEntry.flags & aFlag)) ? 1 : 0;
+		for (Entry child : aEntry.getChildren()) {
+			count += count(child, aFlag);
+		}
+		return count;
+	}
+
+	private static void writeChildren(final DataOutputStream aOut, final Entry aEntry) throws IOException {
+		List<Entry> children = aEntry.getChildren();
+		aOut.writeInt(children.size());
+		for (Entry child : children) {
+			aOut.writeUTF(child.name);
+			aOut.writeByte(child.flags);
+			writeChildren(aOut, child);
+		}
+	}
+
+	private static void readChildren(final DataInputStream aIn, final Entry aEntry) throws IOException {
+		int count = aIn.readInt();
+		if (0 > count) {
+			throw new IOException("Broken data.");
+		}
+		if (0 < count) {
+			aEntry.children = new ArrayList<Entry>(Math.min(count, 1024));
+		}
+		for (int i = 0; i < count; i++) {
+			Entry child = new Entry(aIn.readUTF());
+			child.flags = aIn.readByte();
+			aEntry.children.add(child);
+			readChildren(aIn, child);
+		}
+	}
+
+	/**
+	 * このクラスは、トライのノード1件分を保持するクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/21
+	 * @author kawakicchi
+	 */
+	static final class Entry {
+
+		/** ノード名 */
+		private final String name;
+		/** フラグ */
+		private int flags;
+		/** 子(ない場合、<code>null</code>) */
+		private List<Entry> children;
+
+		private Entry(final String aName) {
+			name = aName;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isExpanded() {
+			return FLAG_EXPANDED == (flags & FLAG_EXPANDED);
+		}
+
+		public boolean isSelected() {
+			return FLAG_SELECTED == (flags & FLAG_SELECTED);
+		}
+
+		public List<Entry> getChildren() {
+			return (null != children) ? children : Collections.<Entry> emptyList();
+		}
+
+		private Entry getChild(final String aName) {
+			for (Entry child : getChildren()) {
+				if (child.name.equals(aName)) {
+					return child;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+
+/**
+ * このクラスは、ファイルシステムが応答しない、または縮退状態のためアクセスできない場合の例外クラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/17
+ * @author kawakicchi
+ */
+public class FileExplorerUnavailableException extends IOException {
+
+	/** serialVersionUID */
+	private static final long serialVersionUID = 4377201963325517428L;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aMount マウント
+	 */
+	public FileExplorerUnavailableException(final String aMount) {
+		super(aMount);
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * このクラスは、展開済みのディレクトリを監視し、変更を一定時間まとめて通知するクラスです。
+ * <p>
+ * 監視スレッドはファイルシステムごとに生成され、イベントが発生するまで{@link WatchService#take()}で待機します。
+ * 最初のイベントを受け取ってから{@link #COALESCE_MILLIS}ミリ秒の間に届いたイベントをまとめて通知します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/10/29
+ * @author kawakicchi
+ */
+final class FileExplorerWatcher {
+
+	/**
+	 * このインターフェースは、ディレクトリの変更通知を受け取るインターフェースです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/29
+	 * @author kawakicchi
+	 */
+	public static interface Callback {
+
+		/**
+		 * ディレクトリが変更された場合に監視スレッドから呼び出される。
+		 * 
+		 * @param aDirectory ディレクトリ
+		 * @param aNames 変更されたファイル名一覧
+		 * @param aOverflow イベントが欠落した場合、<code>true</code>
+		 */
+		public void fileExplorerWatcherChanged(final Path aDirectory, final Set<String> aNames, final boolean aOverflow);
+	}
+
+	/** イベントをまとめる時間(ミリ秒) */
+	private static final long COALESCE_MILLIS = 200;
+
+	private final Callback callback;
+
+	/** ファイルシステムごとの監視サービス */
+	private final Map<FileSystem, WatchService> services;
+	/** 監視キー */
+	private final Map<Path, WatchKey> keys;
+
+	/** 監視スレッド */
+	private final List<Thread> threads;
+	private volatile boolean stopFlag;
+
+	/**
+	 * コンストラクタ
+	 * 
+	 * @param aCallback 通知先
+	 */
+	public FileExplorerWatcher(final Callback aCallback) {
+		callback = aCallback;
+		services = new ConcurrentHashMap<FileSystem, WatchService>();
+		keys = new ConcurrentHashMap<Path, WatchKey>();
+		threads = new ArrayList<Thread>();
+		stopFlag = false;
+	}
+
+	/**
+	 * ディレクトリを監視対象に登録する。
+	 * <p>
+	 * 登録時のファイルシステムへのアクセスはロックの外で行うため、応答しないファイルシステムへの登録中も他のディレクトリの登録・解除は待たされません。
+	 * </p>
+	 * 
+	 * @param aDirectory ディレクトリ
+	 */
+	public void register(final Path aDirectory) {
+		try {
+			WatchService service;
+			synchronized (this) {
+				if (stopFlag || keys.containsKey(aDirectory)) {
+					return;
+				}
+				FileSystem fs = aDirectory.getFileSystem();
+				service = services.get(fs);
+				if (null == service) {
+					service = fs.newWatchService();
+					services.put(fs, service);
+
+					Thread thread = new Thread(new Dispatcher(service), "FileExplorerTree-watcher-" + (threads.size() + 1));
+					thread.setDaemon(true);
+					thread.start();
+					threads.add(thread);
+				}
+			}
+			WatchKey key = aDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			synchronized (this) {
+				if (stopFlag) {
+					key.cancel();
+					return;
+				}
+				keys.put(aDirectory, key);
+			}
+		} catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+			// 監視できないファイルシステム
+		}
+	}
+
+	/**
+	 * ディレクトリを監視対象から外す。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 */
+	public synchronized void unregister(final Path aDirectory) {
+		WatchKey key = keys.remove(aDirectory);
+		if (null != key) {
+			key.cancel();
+		}
+	}
+
+	/**
+	 * 監視を終了する。
+	 */
+	public synchronized void close() {
+		stopFlag = true;
+		keys.clear();
+		for (WatchService service : services.values()) {
+			try {
+				service.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+		services.clear();
+		for (Thread thread : threads) {
+			thread.interrupt();
+		}
+		threads.clear();
+	}
+
+	/**
+	 * 監視サービスのイベントを待機し、まとめて通知する。
+	 * 
+	 * @param aService 監視サービス
+	 */
+	private void dispatch(final WatchService aService) {
+		Map<Path, Set<String>> pending = new LinkedHashMap<Path, Set<String>>();
+		Set<Path> overflows = new LinkedHashSet<Path>();
+		while (!stopFlag) {
+			try {
+				// 最初のイベントまではブロックし、以降はまとめる時間が経過するまで待機する
+				WatchKey key = aService.take();
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COALESCE_MILLIS);
+				while (null != key) {
+					collect(key, pending, overflows);
+					long remaining = deadline - System.nanoTime();
+					key = (0 < remaining) ? aService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+				}
+
+				for (Map.Entry<Path, Set<String>> entry : pending.entrySet()) {
+					callback.fileExplorerWatcherChanged(entry.getKey(), entry.getValue(), overflows.contains(entry.getKey()));
+				}
+				for (Path dir : overflows) {
+					if (!pending.containsKey(dir)) {
+						callback.fileExplorerWatcherChanged(dir, new LinkedHashSet<String>(), true);
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException ex) {
+				break;
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			} finally {
+				pending.clear();
+				overflows.clear();
+			}
+		}
+	}
+
+	private void collect(final WatchKey aKey, final Map<Path, Set<String>> aPending, final Set<Path> aOverflows) {
+		Path dir = (Path) aKey.watchable();
+		for (WatchEvent<?> event : aKey.pollEvents()) {
+			if (StandardWatchEventKinds.OVERFLOW == event.kind()) {
+				aOverflows.add(dir);
+			} else {
+				Set<String> names = aPending.get(dir);
+				if (null == names) {
+					names = new LinkedHashSet<String>();
+					aPending.put(dir, names);
+				}
+				names.add(((Path) event.context()).toString());
+			}
+		}
+		if (!aKey.reset()) {
+			// ディレクトリが削除された
+			synchronized (this) {
+				if (aKey == keys.get(dir)) {
+					keys.remove(dir);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 監視中のディレクトリ数を取得する。
+	 * 
+	 * @return ディレクトリ数
+	 */
+	public int getWatchCount() {
+		return keys.size();
+	}
+
+	/**
+	 * このクラスは、ファイルシステムごとの監視スレッドで実行されるクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/10/29
+	 * @author kawakicchi
+	 */
+	private class Dispatcher implements Runnable {
+
+		/** 監視サービス */
+		private final WatchService service;
+
+		public Dispatcher(final WatchService aService) {
+			service = aService;
+		}
+
+		@Override
+		public void run() {
+			dispatch(service);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.imageio.ImageIO;
+
+/**
+ * このクラスは、24メガピクセルのJPEGを表示したパネルが保持するヒープの使用量を計測するクラスです。
+ * <p>
+ * 実行時間とヒープの使用量は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。ヒープは2GB程度を指定してください。
+ * 同じJPEGを複製した{@link #IMAGE_COUNT}件のファイルを800×600pixelのパネルに表示し、
+ * 全体をデコードして{@link ImagePanel#setImage(java.awt.Image)}で設定した場合と、
+ * {@link ImagePanel#setImage(Path)}で間引いてデコードした場合のヒープの増加量と読み込み時間を出力します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class ImagePanelHeapBenchmark {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 6000;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 4000;
+	/** イメージ数 */
+	private static final int IMAGE_COUNT = 8;
+	/** パネルの幅 */
+	private static final int PANEL_WIDTH = 800;
+	/** パネルの高さ */
+	private static final int PANEL_HEIGHT = 600;
+
+	private ImagePanelHeapBenchmark() {
+	}
+
+	/**
+	 * イメージを表示したパネルを保持し、ヒープの増加量を出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 * @throws Exception 計測に失敗した場合
+	 */
+	public static void main(final String[] args) throws Exception {
+		Path directory = Files.createTempDirectory("ImagePanelHeapBenchmark");
+		try {
+			final List<Path> files = new ArrayList<Path>();
+			Path first = ImagePanelTestSupport.write(ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT), "jpeg",
+					directory.resolve("image0.jpg"), false);
+			files.add(first);
+			for (int i = 1; i < IMAGE_COUNT; i++) {
+				files.add(Files.copy(first, directory.resolve("image" + i + ".jpg")));
+			}
+			System.out.println(String.format("%d images %dx%d, %d KB each", IMAGE_COUNT, IMAGE_WIDTH, IMAGE_HEIGHT,
+					Files.size(first) / 1024));
+
+			measure("full decode", files, false);
+			measure("subsampled", files, true);
+		} finally {
+			ImagePanelTestSupport.delete(directory);
+		}
+	}
+
+	private static void measure(final String aName, final List<Path> aFiles, final boolean aSubsampled) throws Exception {
+		long base = usedMemory();
+		long start = System.nanoTime();
+		List<ImagePanel> panels = new ArrayList<ImagePanel>();
+		for (final Path file : aFiles) {
+			final ImagePanel panel = ImagePanelTestSupport.createPanel(PANEL_WIDTH, PANEL_HEIGHT);
+			ImagePanelTestSupport.invoke(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					if (aSubsampled) {
+						panel.setImage(file);
+					} else {
+						panel.setImage(ImageIO.read(file.toFile()));
+					}
+					return null;
+				}
+			});
+			panels.add(panel);
+		}
+		double seconds = (System.nanoTime() - start) / 1000000000.0;
+		long used = usedMemory() - base;
+		System.out.println(String.format("%-12s heap %6d MB (%6.1f MB per image), load %.2f s", aName, used / 1024 / 1024, used
+				/ 1024.0 / 1024.0 / panels.size(), seconds));
+		panels.clear();
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
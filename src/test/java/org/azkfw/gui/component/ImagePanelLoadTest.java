@@ -0,0 +1,336 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link ImagePanel}のバックグラウンドでの読み込みをテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class ImagePanelLoadTest {
+
+	/** 連続して読み込むイメージ数 */
+	private static final int STEP_COUNT = 20;
+
+	private Path directory;
+	private Path small;
+	private Path other;
+	private AtomicInteger placeholders;
+	private ImagePanel panel;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("ImagePanelLoadTest");
+		small = ImagePanelTestSupport.write(ImagePanelTestSupport.createImage(300, 200), "png", directory.resolve("small.png"),
+				false);
+		other = ImagePanelTestSupport.write(ImagePanelTestSupport.createImage(320, 240), "png", directory.resolve("other.png"),
+				false);
+		placeholders = new AtomicInteger();
+		panel = ImagePanelTestSupport.invoke(new Callable<ImagePanel>() {
+			@Override
+			public ImagePanel call() {
+				ImagePanel panel = new ImagePanel() {
+					/** serialVersionUID */
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void paintPlaceholder(final Graphics g, final int width, final int height) {
+						placeholders.incrementAndGet();
+						super.paintPlaceholder(g, width, height);
+					}
+				};
+				panel.setSize(400, 300);
+				return panel;
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ImagePanelTestSupport.delete(directory);
+	}
+
+	/**
+	 * 読み込みが完了するまでプレースホルダーを表示し、完了後にイメージを表示することを確認する。
+	 */
+	@Test
+	public void testPlaceholder() throws Exception {
+		BlockingStream stream = new BlockingStream(small);
+		Future<BufferedImage> future = load(stream);
+		assertTrue(isLoading());
+		ImagePanelTestSupport.paint(panel);
+		assertEquals(1, placeholders.get());
+
+		stream.release();
+		BufferedImage image = future.get(30, TimeUnit.SECONDS);
+		assertEquals(300, image.getWidth());
+		awaitImage(image);
+		ImagePanelTestSupport.paint(panel);
+		assertEquals(1, placeholders.get());
+	}
+
+	/**
+	 * 読み込み中に再度イメージを設定した場合、読み込みがキャンセルされ、結果が反映されないことを確認する。
+	 */
+	@Test
+	public void testSupersede() throws Exception {
+		BlockingStream blocked = new BlockingStream(small);
+		Future<BufferedImage> first = load(blocked);
+		Future<BufferedImage> second = load(other);
+		assertTrue(first.isCancelled());
+		BufferedImage image = second.get(30, TimeUnit.SECONDS);
+		assertEquals(320, image.getWidth());
+		awaitImage(image);
+		blocked.release();
+		Thread.sleep(200);
+		assertSame(image, ImagePanelTestSupport.getField(panel, "image"));
+
+		// デコード済みのイメージの設定でもキャンセルする
+		blocked = new BlockingStream(small);
+		Future<BufferedImage> third = load(blocked);
+		final BufferedImage decoded = ImagePanelTestSupport.createImage(50, 50);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				panel.setImage(decoded);
+				return null;
+			}
+		});
+		assertTrue(third.isCancelled());
+		assertFalse(isLoading());
+		blocked.release();
+		Thread.sleep(200);
+		assertSame(decoded, ImagePanelTestSupport.getField(panel, "image"));
+	}
+
+	/**
+	 * 連続してイメージを切り替えた場合、キャンセルされた読み込みが待ち行列に残らないことを確認する。
+	 */
+	@Test
+	public void testNoStaleLoads() throws Exception {
+		final BlockingStream blocked = new BlockingStream(small);
+		final List<Future<BufferedImage>> futures = new ArrayList<Future<BufferedImage>>();
+		int queued = ImagePanelTestSupport.invoke(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				futures.add(panel.loadImage(blocked));
+				for (int i = 0; i < STEP_COUNT; i++) {
+					futures.add(panel.loadImage((0 == i % 2) ? small : other));
+				}
+				ScheduledThreadPoolExecutor loader = (ScheduledThreadPoolExecutor) ImagePanelTestSupport.getField(null, "LOADER");
+				return loader.getQueue().size();
+			}
+		});
+		assertTrue(String.valueOf(queued), 1 >= queued);
+		for (int i = 0; i < futures.size() - 1; i++) {
+			assertTrue(futures.get(i).isCancelled());
+		}
+		BufferedImage image = futures.get(futures.size() - 1).get(30, TimeUnit.SECONDS);
+		assertEquals(320, image.getWidth());
+		awaitImage(image);
+		blocked.release();
+	}
+
+	/**
+	 * 読み込みに失敗した場合、結果に原因が設定され、読み込み中の状態が解除されることを確認する。
+	 */
+	@Test
+	public void testFailure() throws Exception {
+		Path broken = Files.write(directory.resolve("broken.png"), new byte[] { 1, 2, 3 });
+		Future<BufferedImage> future = load(broken);
+		try {
+			future.get(30, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IOException);
+		}
+		ImagePanelTestSupport.await(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return !panel.isLoading();
+			}
+		});
+		assertNull(ImagePanelTestSupport.getField(panel, "image"));
+	}
+
+	/**
+	 * プログレッシブJPEG、インターレースPNGの読み込み途中のイメージが、パスごとに同じインスタンスで通知されることを確認する。
+	 */
+	@Test
+	public void testProgressive() throws Exception {
+		BufferedImage source = ImagePanelTestSupport.createImage(640, 480);
+		for (Path file : new Path[] { ImagePanelTestSupport.write(source, "jpeg", directory.resolve("progressive.jpg"), true),
+				ImagePanelTestSupport.write(source, "png", directory.resolve("interlaced.png"), true) }) {
+			final List<BufferedImage> progressed = Collections.synchronizedList(new ArrayList<BufferedImage>());
+			final List<BufferedImage> completed = Collections.synchronizedList(new ArrayList<BufferedImage>());
+			ImageLoader loader = new ImageLoader(file, null, new ImageLoader.Listener() {
+				@Override
+				public void imageLoadProgressed(final ImageLoader aLoader, final BufferedImage aImage) {
+					progressed.add(aImage);
+				}
+
+				@Override
+				public void imageLoadCompleted(final ImageLoader aLoader, final BufferedImage aImage) {
+					completed.add(aImage);
+				}
+
+				@Override
+				public void imageLoadFailed(final ImageLoader aLoader, final Exception aCause) {
+					fail(aCause.toString());
+				}
+			});
+			BufferedImage image = loader.call();
+			assertTrue(file + ": " + progressed.size(), 2 <= progressed.size());
+			for (BufferedImage p : progressed) {
+				assertSame(image, p);
+			}
+			assertEquals(Collections.singletonList(image), completed);
+			assertEquals(1, loader.getSubsampling());
+		}
+
+		// キャンセルした読み込みは失敗を通知しない
+		ImageLoader loader = new ImageLoader(small, null, new ImageLoader.Listener() {
+			@Override
+			public void imageLoadProgressed(final ImageLoader aLoader, final BufferedImage aImage) {
+				fail();
+			}
+
+			@Override
+			public void imageLoadCompleted(final ImageLoader aLoader, final BufferedImage aImage) {
+				fail();
+			}
+
+			@Override
+			public void imageLoadFailed(final ImageLoader aLoader, final Exception aCause) {
+				fail();
+			}
+		});
+		loader.cancel();
+		try {
+			loader.call();
+			fail();
+		} catch (CancellationException ex) {
+			assertNull(loader.getSource());
+		}
+	}
+
+	private Future<BufferedImage> load(final Object aSource) throws Exception {
+		return ImagePanelTestSupport.invoke(new Callable<Future<BufferedImage>>() {
+			@Override
+			public Future<BufferedImage> call() {
+				if (aSource instanceof Path) {
+					return panel.loadImage((Path) aSource);
+				}
+				return panel.loadImage((InputStream) aSource);
+			}
+		});
+	}
+
+	private boolean isLoading() throws Exception {
+		return ImagePanelTestSupport.invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return panel.isLoading();
+			}
+		});
+	}
+
+	private void awaitImage(final BufferedImage aImage) throws Exception {
+		ImagePanelTestSupport.await(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return !panel.isLoading() && aImage == ImagePanelTestSupport.getField(panel, "image");
+			}
+		});
+	}
+
+	/**
+	 * このクラスは、解放されるまで読み込みを止めるストリームです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private static class BlockingStream extends InputStream {
+
+		private final InputStream stream;
+		private final CountDownLatch latch;
+
+		public BlockingStream(final Path aFile) throws IOException {
+			stream = new ByteArrayInputStream(Files.readAllBytes(aFile));
+			latch = new CountDownLatch(1);
+		}
+
+		public void release() {
+			latch.countDown();
+		}
+
+		@Override
+		public int read() throws IOException {
+			await();
+			return stream.read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			await();
+			return stream.read(b, off, len);
+		}
+
+		private void await() throws InterruptedIOException {
+			try {
+				latch.await();
+			} catch (InterruptedException ex) {
+				throw new InterruptedIOException();
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * このクラスは、約50メガピクセルのイメージを表示したパネルのサイズを変更し続けた場合の描画時間を計測するクラスです。
+ * <p>
+ * 実行時間は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。ヒープは2GB程度を指定してください。
+ * サイズの変更は{@link #FRAME_INTERVAL}ミリ秒ごとに行い、各フレームの描画時間の中央値・99パーセンタイル・最大値と、
+ * 変更を止めてから高品質な縮小イメージが表示されるまでの時間を出力します。
+ * 比較のため、描画のたびにイベントディスパッチスレッドで{@link Image#getScaledInstance(int, int, int)}により縮小する場合の描画時間も出力します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class ImagePanelResizeBenchmark {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 8660;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 5773;
+	/** 計測するフレーム数 */
+	private static final int FRAME_COUNT = 120;
+	/** サイズを変更する間隔(ミリ秒) */
+	private static final long FRAME_INTERVAL = 16;
+	/** {@link Image#getScaledInstance(int, int, int)}で計測するフレーム数 */
+	private static final int BASELINE_FRAME_COUNT = 3;
+
+	private ImagePanelResizeBenchmark() {
+	}
+
+	/**
+	 * パネルのサイズを変更しながら描画し、描画時間を出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 * @throws Exception 計測に失敗した場合
+	 */
+	public static void main(final String[] args) throws Exception {
+		final BufferedImage image = ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT);
+		final ImagePanel panel = ImagePanelTestSupport.invoke(new Callable<ImagePanel>() {
+			@Override
+			public ImagePanel call() {
+				return new ImagePanel(image);
+			}
+		});
+		final BufferedImage canvas = new BufferedImage(getWidth(FRAME_COUNT), getHeight(FRAME_COUNT), BufferedImage.TYPE_INT_RGB);
+
+		long[] times = new long[FRAME_COUNT];
+		for (int i = 0; i < FRAME_COUNT; i++) {
+			final int width = getWidth(i);
+			final int height = getHeight(i);
+			times[i] = ImagePanelTestSupport.invoke(new Callable<Long>() {
+				@Override
+				public Long call() {
+					panel.setSize(width, height);
+					Graphics2D g = canvas.createGraphics();
+					long start = System.nanoTime();
+					panel.paint(g);
+					long time = System.nanoTime() - start;
+					g.dispose();
+					return time;
+				}
+			});
+			Thread.sleep(FRAME_INTERVAL);
+		}
+		print("ImagePanel", times);
+
+		// 変更を止めてから高品質な縮小イメージに置き換わるまで
+		final int lastWidth = getWidth(FRAME_COUNT - 1);
+		long start = System.nanoTime();
+		ImagePanelTestSupport.await(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return lastWidth == (Integer) ImagePanelTestSupport.getField(panel, "cashImageWidth");
+			}
+		});
+		System.out.println(String.format("smooth image after %.1f ms (scale delay %d ms)", (System.nanoTime() - start) / 1000000.0,
+				ImagePanel.SCALE_DELAY_MILLIS));
+
+		long[] baseline = new long[BASELINE_FRAME_COUNT];
+		for (int i = 0; i < BASELINE_FRAME_COUNT; i++) {
+			final int width = getWidth(i);
+			final int height = getHeight(i);
+			baseline[i] = ImagePanelTestSupport.invoke(new Callable<Long>() {
+				@Override
+				public Long call() {
+					Graphics2D g = canvas.createGraphics();
+					long start = System.nanoTime();
+					Image scaled = image.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+					g.drawImage(scaled, 0, 0, null);
+					long time = System.nanoTime() - start;
+					g.dispose();
+					scaled.flush();
+					return time;
+				}
+			});
+		}
+		print("getScaledInstance", baseline);
+	}
+
+	private static int getWidth(final int aFrame) {
+		return 800 + aFrame * 4;
+	}
+
+	private static int getHeight(final int aFrame) {
+		return 533 + aFrame * 3;
+	}
+
+	private static void print(final String aName, final long[] aTimes) {
+		long[] sorted = aTimes.clone();
+		Arrays.sort(sorted);
+		System.out.println(String.format("%-18s %4d frames %8.2f ms median %8.2f ms p99 %8.2f ms max", aName, sorted.length,
+				sorted[sorted.length / 2] / 1000000.0, sorted[(sorted.length * 99 - 1) / 100] / 1000000.0,
+				sorted[sorted.length - 1] / 1000000.0));
+	}
+}
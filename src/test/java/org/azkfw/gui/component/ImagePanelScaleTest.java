@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link ImagePanel}のパネルに収める表示でのバックグラウンドの縮小をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class ImagePanelScaleTest {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 2000;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 1500;
+
+	private BufferedImage image;
+	private ImagePanel panel;
+
+	@Before
+	public void setUp() throws Exception {
+		image = ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT);
+		panel = ImagePanelTestSupport.createPanel(400, 300);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				panel.setImage(image);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * 描画では縮小せずに元のイメージを表示し、縮小したイメージはバックグラウンドで作成されることを確認する。
+	 */
+	@Test
+	public void testScaleInBackground() throws Exception {
+		Object[] values = ImagePanelTestSupport.paint(panel, "cashImage", "scaleTask");
+		assertNull(values[0]);
+		assertNotNull(values[1]);
+
+		awaitScaled(400, 300);
+		BufferedImage cash = (BufferedImage) ImagePanelTestSupport.getField(panel, "cashImage");
+		assertEquals(400, cash.getWidth());
+		assertEquals(300, cash.getHeight());
+
+		// 同じサイズの描画では縮小し直さない
+		values = ImagePanelTestSupport.paint(panel, "cashImage", "scaleTask");
+		assertSame(cash, values[0]);
+		assertNull(values[1]);
+	}
+
+	/**
+	 * サイズの変更が続く間は開始待ちの縮小がキャンセルされ、最後のサイズの縮小のみが反映されることを確認する。
+	 */
+	@Test
+	public void testResizeSupersedesScale() throws Exception {
+		ImagePanelTestSupport.paint(panel);
+		awaitScaled(400, 300);
+		Image first = (Image) ImagePanelTestSupport.getField(panel, "cashImage");
+
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		for (int i = 1; i <= 10; i++) {
+			ImagePanelTestSupport.setSize(panel, 400 + i * 20, 300 + i * 15);
+			Object[] values = ImagePanelTestSupport.paint(panel, "scaleTask", "cashImage");
+			tasks.add((Future<?>) values[0]);
+			// 縮小が終わるまでは直前の縮小イメージを拡大して表示する
+			assertSame(first, values[1]);
+		}
+		for (int i = 0; i < tasks.size() - 1; i++) {
+			assertTrue(tasks.get(i).isCancelled());
+		}
+		awaitScaled(600, 450);
+		assertFalse(tasks.get(tasks.size() - 1).isCancelled());
+
+		// イメージを設定し直すと開始待ちの縮小はキャンセルされる
+		ImagePanelTestSupport.setSize(panel, 500, 375);
+		final Future<?> pending = (Future<?>) ImagePanelTestSupport.paint(panel, "scaleTask")[0];
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				panel.setImage(ImagePanelTestSupport.createImage(100, 100));
+				return null;
+			}
+		});
+		assertTrue(pending.isCancelled());
+		assertNull(ImagePanelTestSupport.getField(panel, "cashImage"));
+	}
+
+	/**
+	 * 割り込まれた縮小は途中で中断することを確認する。
+	 */
+	@Test
+	public void testScaleInterrupted() throws Exception {
+		Method method = ImagePanel.class.getDeclaredMethod("scale", Image.class, int.class, int.class, int.class, int.class);
+		method.setAccessible(true);
+		BufferedImage scaled = (BufferedImage) method.invoke(null, image, IMAGE_WIDTH, IMAGE_HEIGHT, 123, 45);
+		assertEquals(123, scaled.getWidth());
+		assertEquals(45, scaled.getHeight());
+
+		Thread.currentThread().interrupt();
+		try {
+			assertNull(method.invoke(null, image, IMAGE_WIDTH, IMAGE_HEIGHT, 123, 45));
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private void awaitScaled(final int aWidth, final int aHeight) throws Exception {
+		ImagePanelTestSupport.await(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return aWidth == (Integer) ImagePanelTestSupport.getField(panel, "cashImageWidth")
+						&& aHeight == (Integer) ImagePanelTestSupport.getField(panel, "cashImageHeight");
+			}
+		});
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link ImagePanel}の表示サイズに合わせた間引きデコードをテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class ImagePanelSubsamplingTest {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 2400;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 1800;
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("ImagePanelSubsamplingTest");
+		file = ImagePanelTestSupport.write(ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT), "jpeg",
+				directory.resolve("image.jpg"), false);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ImagePanelTestSupport.delete(directory);
+	}
+
+	/**
+	 * 表示サイズ以上になる最大の間引き間隔を選択し、デコードしたイメージが表示サイズを下回らないことを確認する。
+	 */
+	@Test
+	public void testSubsampling() throws Exception {
+		ImageSource source = new ImageSource(file);
+		assertEquals(IMAGE_WIDTH, source.getWidth());
+		assertEquals(IMAGE_HEIGHT, source.getHeight());
+
+		assertEquals(6, source.getSubsampling(400, 300));
+		assertEquals(3, source.getSubsampling(800, 600));
+		// 縦横で異なる場合は小さい方に合わせる
+		assertEquals(4, source.getSubsampling(500, 300));
+		assertEquals(2, source.getSubsampling(1000, 100));
+		assertEquals(1, source.getSubsampling(IMAGE_WIDTH, IMAGE_HEIGHT));
+		assertEquals(1, source.getSubsampling(IMAGE_WIDTH * 2, IMAGE_HEIGHT * 2));
+		assertEquals(1, source.getSubsampling(0, 0));
+
+		for (int width = 150; width < IMAGE_WIDTH; width += 250) {
+			int height = width * 2 / 3;
+			int subsampling = source.getSubsampling(width, height);
+			BufferedImage decoded = source.decode(subsampling);
+			assertEquals((IMAGE_WIDTH + subsampling - 1) / subsampling, decoded.getWidth());
+			assertEquals((IMAGE_HEIGHT + subsampling - 1) / subsampling, decoded.getHeight());
+			assertTrue(width + "x" + height, decoded.getWidth() >= width && decoded.getHeight() >= height);
+			// 1段階粗くすると表示サイズを下回る
+			assertTrue(width + "x" + height, IMAGE_WIDTH / (subsampling + 1) < width || IMAGE_HEIGHT / (subsampling + 1) < height);
+		}
+	}
+
+	/**
+	 * ファイル・ストリームのいずれもパネルのサイズに合わせて間引いてデコードすることを確認する。
+	 */
+	@Test
+	public void testSetImage() throws Exception {
+		final ImagePanel panel = ImagePanelTestSupport.createPanel(400, 300);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				panel.setImage(file);
+				return null;
+			}
+		});
+		assertDecoded(panel, 6, 400, 300);
+
+		ImagePanelTestSupport.setSize(panel, 800, 600);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				try (InputStream stream = Files.newInputStream(file)) {
+					panel.setImage(stream);
+				}
+				return null;
+			}
+		});
+		assertDecoded(panel, 3, 800, 600);
+
+		// デコード済みのイメージを設定した場合は間引かない
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				panel.setImage(ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT));
+				return null;
+			}
+		});
+		assertNull(ImagePanelTestSupport.getField(panel, "imageSource"));
+	}
+
+	/**
+	 * パネルが大きくなった場合のみ高い解像度でデコードし直すことを確認する。
+	 */
+	@Test
+	public void testRedecodeOnGrow() throws Exception {
+		final ImagePanel panel = ImagePanelTestSupport.createPanel(400, 300);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				panel.setImage(file);
+				return null;
+			}
+		});
+		// 縮小するだけの場合はデコードし直さない
+		ImagePanelTestSupport.setSize(panel, 200, 150);
+		assertNull(ImagePanelTestSupport.paint(panel, "decodeTask")[0]);
+
+		ImagePanelTestSupport.setSize(panel, 1000, 750);
+		Object[] values = ImagePanelTestSupport.paint(panel, "decodeTask", "decodeSubsampling");
+		assertTrue(null != values[0]);
+		assertEquals(2, values[1]);
+		ImagePanelTestSupport.await(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return null == ImagePanelTestSupport.getField(panel, "decodeTask");
+			}
+		});
+		assertDecoded(panel, 2, 1200, 900);
+
+		// 小さくしても解像度は下げない
+		Object image = ImagePanelTestSupport.getField(panel, "image");
+		ImagePanelTestSupport.setSize(panel, 400, 300);
+		values = ImagePanelTestSupport.paint(panel, "decodeTask", "image");
+		assertNull(values[0]);
+		assertSame(image, values[1]);
+	}
+
+	private static void assertDecoded(final ImagePanel aPanel, final int aSubsampling, final int aWidth, final int aHeight)
+			throws Exception {
+		assertEquals(aSubsampling, ImagePanelTestSupport.getField(aPanel, "imageSubsampling"));
+		BufferedImage image = (BufferedImage) ImagePanelTestSupport.getField(aPanel, "image");
+		assertEquals(aWidth, image.getWidth());
+		assertEquals(aHeight, image.getHeight());
+	}
+}
@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.swing.SwingUtilities;
+
+/**
+ * このクラスは、イメージパネルのテスト用の補助クラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+final class ImagePanelTestSupport {
+
+	private ImagePanelTestSupport() {
+	}
+
+	/**
+	 * 座標から色が決まるイメージを生成する。
+	 * 
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 * @return イメージ
+	 * @see #getPixel(int, int)
+	 */
+	public static BufferedImage createImage(final int aWidth, final int aHeight) {
+		BufferedImage image = new BufferedImage(aWidth, aHeight, BufferedImage.TYPE_INT_RGB);
+		int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		for (int y = 0; y < aHeight; y++) {
+			for (int x = 0; x < aWidth; x++) {
+				data[y * aWidth + x] = getPixel(x, y);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * {@link #createImage(int, int)}で生成したイメージの色を取得する。
+	 * 
+	 * @param aX X座標
+	 * @param aY Y座標
+	 * @return 色(RGB)
+	 */
+	public static int getPixel(final int aX, final int aY) {
+		return ((aX & 0xFF) << 16) | ((aY & 0xFF) << 8) | (((aX >> 8) * 16 + (aY >> 8)) & 0xFF);
+	}
+
+	/**
+	 * イメージをファイルに書き込む。
+	 * 
+	 * @param aImage イメージ
+	 * @param aFormat 形式名
+	 * @param aFile ファイル
+	 * @param aProgressive プログレッシブJPEG、インターレースPNGで書き込む場合、<code>true</code>
+	 * @return ファイル
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public static Path write(final BufferedImage aImage, final String aFormat, final Path aFile, final boolean aProgressive)
+			throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName(aFormat).next();
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(Files.newOutputStream(aFile))) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (aProgressive) {
+				param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+			}
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(aImage, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return aFile;
+	}
+
+	/**
+	 * ディレクトリを直下のファイルとともに削除する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public static void delete(final Path aDirectory) throws IOException {
+		if (null == aDirectory || !Files.exists(aDirectory)) {
+			return;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+			for (Path path : stream) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(aDirectory);
+	}
+
+	/**
+	 * 指定サイズのパネルをイベントディスパッチスレッドで生成する。
+	 * 
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 * @return パネル
+	 * @throws Exception 生成に失敗した場合
+	 */
+	public static ImagePanel createPanel(final int aWidth, final int aHeight) throws Exception {
+		return invoke(new Callable<ImagePanel>() {
+			@Override
+			public ImagePanel call() {
+				ImagePanel panel = new ImagePanel();
+				panel.setSize(aWidth, aHeight);
+				return panel;
+			}
+		});
+	}
+
+	/**
+	 * パネルのサイズを変更する。
+	 * 
+	 * @param aPanel パネル
+	 * @param aWidth 幅
+	 * @param aHeight 高さ
+	 * @throws Exception 変更に失敗した場合
+	 */
+	public static void setSize(final ImagePanel aPanel, final int aWidth, final int aHeight) throws Exception {
+		invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				aPanel.setSize(aWidth, aHeight);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * パネルをオフスクリーンに描画し、同じイベントディスパッチスレッドの処理の中でフィールドの値を取得する。
+	 * 
+	 * @param aPanel パネル
+	 * @param aNames フィールド名
+	 * @return 描画直後のフィールドの値
+	 * @throws Exception 描画に失敗した場合
+	 */
+	public static Object[] paint(final ImagePanel aPanel, final String... aNames) throws Exception {
+		return invoke(new Callable<Object[]>() {
+			@Override
+			public Object[] call() throws Exception {
+				BufferedImage canvas = new BufferedImage(Math.max(1, aPanel.getWidth()), Math.max(1, aPanel.getHeight()),
+						BufferedImage.TYPE_INT_RGB);
+				Graphics2D g = canvas.createGraphics();
+				try {
+					aPanel.paint(g);
+				} finally {
+					g.dispose();
+				}
+				Object[] values = new Object[aNames.length];
+				for (int i = 0; i < aNames.length; i++) {
+					values[i] = getValue(aPanel, aNames[i]);
+				}
+				return values;
+			}
+		});
+	}
+
+	/**
+	 * パネルのフィールドの値をイベントディスパッチスレッドで取得する。
+	 * 
+	 * @param aPanel パネル
+	 * @param aName フィールド名
+	 * @return 値
+	 * @throws Exception 取得に失敗した場合
+	 */
+	public static Object getField(final ImagePanel aPanel, final String aName) throws Exception {
+		return invoke(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return getValue(aPanel, aName);
+			}
+		});
+	}
+
+	/**
+	 * 条件を満たすまでイベントディスパッチスレッドで確認を繰り返す。
+	 * 
+	 * @param aCondition 条件
+	 * @throws Exception 確認に失敗した場合
+	 */
+	public static void await(final Callable<Boolean> aCondition) throws Exception {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (!invoke(aCondition)) {
+			if (deadline < System.currentTimeMillis()) {
+				throw new AssertionError("Timed out");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * イベントディスパッチスレッドで処理を実行し、完了するまで待機する。
+	 * <p>
+	 * イベントディスパッチスレッドから呼び出した場合は、そのまま実行します。
+	 * </p>
+	 * 
+	 * @param aCallable 処理
+	 * @return 処理結果
+	 * @throws Exception 処理に失敗した場合
+	 */
+	public static <T> T invoke(final Callable<T> aCallable) throws Exception {
+		if (SwingUtilities.isEventDispatchThread()) {
+			return aCallable.call();
+		}
+		FutureTask<T> task = new FutureTask<T>(aCallable);
+		SwingUtilities.invokeAndWait(task);
+		return task.get();
+	}
+
+	private static Object getValue(final Object aObject, final String aName) throws Exception {
+		Field field = ImagePanel.class.getDeclaredField(aName);
+		field.setAccessible(true);
+		return field.get(aObject);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * このクラスは、約50メガピクセルのイメージを拡大・縮小表示で連続してズームした場合のフレームレートを計測するクラスです。
+ * <p>
+ * 実行時間は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。ヒープは2GB程度を指定してください。
+ * 表示倍率を1.0から1/64まで縮小して1.0に戻す間、オフスクリーンに描画します。
+ * 1回目は縮小したイメージを作成しながら、2回目は作成済みの状態で計測し、描画時間から求めたフレームレートと最大の描画時間を出力します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class ImagePanelZoomBenchmark {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 8660;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 5773;
+	/** パネルの幅 */
+	private static final int PANEL_WIDTH = 1600;
+	/** パネルの高さ */
+	private static final int PANEL_HEIGHT = 1000;
+	/** 1フレームあたりの表示倍率の変化 */
+	private static final double ZOOM_STEP = 1.05;
+	/** 最小の表示倍率 */
+	private static final double MIN_ZOOM = 1.0 / 64.0;
+
+	private ImagePanelZoomBenchmark() {
+	}
+
+	/**
+	 * 表示倍率を変更しながら描画し、フレームレートを出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 * @throws Exception 計測に失敗した場合
+	 */
+	public static void main(final String[] args) throws Exception {
+		final BufferedImage image = ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT);
+		final ImagePanel panel = ImagePanelTestSupport.invoke(new Callable<ImagePanel>() {
+			@Override
+			public ImagePanel call() {
+				ImagePanel panel = new ImagePanel(image);
+				panel.setSize(PANEL_WIDTH, PANEL_HEIGHT);
+				return panel;
+			}
+		});
+		final BufferedImage canvas = new BufferedImage(PANEL_WIDTH, PANEL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+		List<Double> zooms = new ArrayList<Double>();
+		for (double zoom = 1.0; zoom > MIN_ZOOM; zoom /= ZOOM_STEP) {
+			zooms.add(zoom);
+		}
+		for (int i = zooms.size() - 1; i >= 0; i--) {
+			zooms.add(zooms.get(i));
+		}
+
+		for (String pass : new String[] { "cold", "warm" }) {
+			long[] times = new long[zooms.size()];
+			for (int i = 0; i < times.length; i++) {
+				final double zoom = zooms.get(i);
+				times[i] = ImagePanelTestSupport.invoke(new Callable<Long>() {
+					@Override
+					public Long call() {
+						panel.setZoom(zoom);
+						Graphics2D g = canvas.createGraphics();
+						long start = System.nanoTime();
+						panel.paint(g);
+						long time = System.nanoTime() - start;
+						g.dispose();
+						return time;
+					}
+				});
+			}
+			long total = 0;
+			for (long time : times) {
+				total += time;
+			}
+			long[] sorted = times.clone();
+			Arrays.sort(sorted);
+			System.out.println(String.format("%s %4d frames %8.1f fps %8.2f ms median %8.2f ms max, pyramid %d MB", pass,
+					times.length, times.length / (total / 1000000000.0), sorted[sorted.length / 2] / 1000000.0,
+					sorted[sorted.length - 1] / 1000000.0, panel.getPyramidUsedBytes() / 1024 / 1024));
+
+			// 作成中のレベルが揃うまで待つ
+			long used = -1;
+			while (used != panel.getPyramidUsedBytes()) {
+				used = panel.getPyramidUsedBytes();
+				Thread.sleep(500);
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JPanel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link ImagePyramid}のレベルの選択と推定メモリ量の上限による破棄をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class ImagePyramidTest {
+
+	/** イメージのサイズ */
+	private static final int SIZE = 1024;
+	/** レベル1の推定メモリ量 */
+	private static final long LEVEL1 = 4L * 512 * 512;
+	/** レベル2の推定メモリ量 */
+	private static final long LEVEL2 = 4L * 256 * 256;
+	/** レベル3の推定メモリ量 */
+	private static final long LEVEL3 = 4L * 128 * 128;
+
+	private BufferedImage image;
+	private ExecutorService executor;
+	private ImagePyramid pyramid;
+
+	@Before
+	public void setUp() throws Exception {
+		image = ImagePanelTestSupport.createImage(SIZE, SIZE);
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != pyramid) {
+			pyramid.dispose();
+		}
+		executor.shutdownNow();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 表示倍率以上の解像度を持つ最も小さいレベルを選択することを確認する。
+	 */
+	@Test
+	public void testLevel() throws Exception {
+		pyramid = create(Long.MAX_VALUE);
+		assertEquals(0, pyramid.getLevel(2.0));
+		assertEquals(0, pyramid.getLevel(1.0));
+		assertEquals(0, pyramid.getLevel(0.6));
+		assertEquals(1, pyramid.getLevel(0.5));
+		assertEquals(1, pyramid.getLevel(0.3));
+		assertEquals(2, pyramid.getLevel(0.25));
+		// 1pixelより小さくはしない
+		assertEquals(10, pyramid.getLevel(ImagePanel.MIN_ZOOM / 16));
+		assertEquals(1, pyramid.getLevelWidth(10));
+
+		// 作成するまでは最も近い詳細なレベルで描画する
+		assertEquals(0, pyramid.find(3));
+		awaitLevel(3);
+		assertEquals(3, pyramid.find(3));
+		assertEquals(3, pyramid.find(4));
+		assertEquals(128, ((BufferedImage) pyramid.get(3)).getWidth());
+	}
+
+	/**
+	 * 上限を超えた場合に参照の古いレベルから破棄し、推定メモリ量が上限を超えないことを確認する。
+	 */
+	@Test
+	public void testEvictUnderBudget() throws Exception {
+		pyramid = create(LEVEL1 + LEVEL2);
+		// 途中のレベルも保持する
+		assertEquals(0, pyramid.find(2));
+		awaitLevel(2);
+		assertEquals(LEVEL1 + LEVEL2, pyramid.getUsedBytes());
+
+		// レベル2を参照した後にレベル3を作成すると、参照の古いレベル1を破棄する
+		assertEquals(2, pyramid.find(3));
+		awaitLevel(3);
+		assertEquals(LEVEL2 + LEVEL3, pyramid.getUsedBytes());
+		assertNull(pyramid.get(1));
+		assertNotNull(pyramid.get(2));
+
+		// 上限を下げると参照の古いレベルから破棄する
+		assertNotNull(pyramid.get(3));
+		pyramid.setBudget(LEVEL3);
+		assertEquals(LEVEL3, pyramid.getUsedBytes());
+		assertNull(pyramid.get(2));
+		assertNotNull(pyramid.get(3));
+		pyramid.setBudget(0);
+		assertEquals(0, pyramid.getUsedBytes());
+	}
+
+	/**
+	 * 上限より大きいレベルは作成・保持しないことを確認する。
+	 */
+	@Test
+	public void testLevelLargerThanBudget() throws Exception {
+		pyramid = create(LEVEL2);
+		assertEquals(0, pyramid.find(1));
+		assertEquals(0, pyramid.find(2));
+		awaitLevel(2);
+		assertEquals(LEVEL2, pyramid.getUsedBytes());
+		assertNull(pyramid.get(1));
+		assertEquals(0, pyramid.find(1));
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}).get();
+		assertNull(pyramid.get(1));
+		assertEquals(LEVEL2, pyramid.getUsedBytes());
+	}
+
+	/**
+	 * パネルの表示倍率を変更しても、推定メモリ量が上限を超えないことを確認する。
+	 */
+	@Test
+	public void testPanelBudget() throws Exception {
+		long budget = LEVEL1 / 2;
+		final ImagePanel panel = ImagePanelTestSupport.createPanel(400, 300);
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				panel.setImage(ImagePanelTestSupport.createImage(2048, 1536));
+				return null;
+			}
+		});
+		panel.setPyramidBudget(budget);
+		for (double zoom = 0.5; zoom > 0.01; zoom /= 2.0) {
+			setZoom(panel, zoom);
+			final ImagePyramid p = (ImagePyramid) ImagePanelTestSupport.paint(panel, "pyramid")[0];
+			final int level = p.getLevel(zoom);
+			if (4L * p.getLevelWidth(level) * p.getLevelHeight(level) <= budget) {
+				ImagePanelTestSupport.await(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return null != p.get(level);
+					}
+				});
+			}
+			assertTrue(panel.getPyramidUsedBytes() <= budget);
+		}
+		assertTrue(0 < panel.getPyramidUsedBytes());
+
+		panel.setPyramidBudget(0);
+		assertEquals(0, panel.getPyramidUsedBytes());
+	}
+
+	private ImagePyramid create(final long aBudget) {
+		return new ImagePyramid(image, SIZE, SIZE, false, aBudget, executor, new JPanel());
+	}
+
+	private void awaitLevel(final int aLevel) throws Exception {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (null == pyramid.get(aLevel)) {
+			if (deadline < System.currentTimeMillis()) {
+				throw new AssertionError("Level timed out: " + aLevel);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static void setZoom(final ImagePanel aPanel, final double aZoom) throws Exception {
+		ImagePanelTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				aPanel.setZoom(aZoom);
+				return null;
+			}
+		});
+	}
+}
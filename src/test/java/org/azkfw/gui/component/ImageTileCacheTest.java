@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link ImageTileCache}のタイルの読み込みと推定メモリ量の上限による破棄をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class ImageTileCacheTest {
+
+	/** イメージの幅 */
+	private static final int IMAGE_WIDTH = 2000;
+	/** イメージの高さ */
+	private static final int IMAGE_HEIGHT = 1500;
+	/** 全体が収まるタイルの推定メモリ量 */
+	private static final long TILE_BYTES = 4L * ImageTileCache.TILE_SIZE * ImageTileCache.TILE_SIZE;
+
+	private Path directory;
+	private ImageTileCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("ImageTileCacheTest");
+		Path file = ImagePanelTestSupport.write(ImagePanelTestSupport.createImage(IMAGE_WIDTH, IMAGE_HEIGHT), "png",
+				directory.resolve("image.png"), false);
+		cache = new ImageTileCache(new ImageSource(file), 2, Long.MAX_VALUE, new JPanel());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != cache) {
+			cache.dispose();
+		}
+		ImagePanelTestSupport.delete(directory);
+	}
+
+	/**
+	 * レベルとタイルの範囲が、間引き間隔と元のイメージの領域に対応することを確認する。
+	 */
+	@Test
+	public void testDecodeRegion() throws Exception {
+		assertEquals(2, cache.getMaxLevel());
+		assertEquals(0, cache.getLevel(1.0));
+		assertEquals(0, cache.getLevel(0.6));
+		assertEquals(1, cache.getLevel(0.5));
+		assertEquals(2, cache.getLevel(0.01));
+		assertEquals(1000, cache.getLevelWidth(1));
+		assertEquals(375, cache.getLevelHeight(2));
+
+		cache.request(Arrays.asList(ImageTileCache.toKey(0, 1, 1), ImageTileCache.toKey(0, 3, 2),
+				ImageTileCache.toKey(1, 1, 0), ImageTileCache.toKey(2, 0, 0)));
+		assertTile(0, 1, 1, 512, 512);
+		assertTile(0, 3, 2, IMAGE_WIDTH - 3 * 512, IMAGE_HEIGHT - 2 * 512);
+		assertTile(1, 1, 0, 1000 - 512, 512);
+		assertTile(2, 0, 0, 500, 375);
+		assertEquals(4, cache.getDecodeCount());
+	}
+
+	/**
+	 * 上限を超えた場合に参照の古いタイルから破棄し、推定メモリ量が上限を超えないことを確認する。
+	 */
+	@Test
+	public void testEvictUnderBudget() throws Exception {
+		long budget = 3 * TILE_BYTES;
+		cache.setBudget(budget);
+		for (int x = 0; x < 4; x++) {
+			cache.request(Collections.singletonList(ImageTileCache.toKey(0, x, 0)));
+			awaitTile(0, x, 0);
+			assertTrue(cache.getUsedBytes() <= budget);
+		}
+		// 最初のタイルを破棄する
+		long lastBytes = 4L * (IMAGE_WIDTH - 3 * 512) * 512;
+		assertEquals(3, cache.getTileCount());
+		assertEquals(2 * TILE_BYTES + lastBytes, cache.getUsedBytes());
+		assertNull(cache.getTile(0, 0, 0));
+
+		// 参照したタイルは残し、参照の古いタイルを破棄する
+		assertNotNull(cache.getTile(0, 1, 0));
+		cache.request(Collections.singletonList(ImageTileCache.toKey(0, 0, 1)));
+		awaitTile(0, 0, 1);
+		assertEquals(3, cache.getTileCount());
+		assertNull(cache.getTile(0, 2, 0));
+		assertNotNull(cache.getTile(0, 1, 0));
+		assertNotNull(cache.getTile(0, 3, 0));
+		assertEquals(2 * TILE_BYTES + lastBytes, cache.getUsedBytes());
+		assertEquals(5, cache.getDecodeCount());
+
+		// 上限を下げると参照の古いタイルから破棄する
+		cache.setBudget(TILE_BYTES);
+		assertEquals(1, cache.getTileCount());
+		assertEquals(lastBytes, cache.getUsedBytes());
+		assertNotNull(cache.getTile(0, 3, 0));
+	}
+
+	/**
+	 * 表示範囲から外れたタイルの読み込みはキャンセルされ、登録されないことを確認する。
+	 */
+	@Test
+	public void testCancel() throws Exception {
+		List<Long> keys = new ArrayList<Long>();
+		for (int y = 0; y < 3; y++) {
+			for (int x = 0; x < 4; x++) {
+				keys.add(ImageTileCache.toKey(0, x, y));
+			}
+		}
+		cache.request(keys);
+		cache.request(Collections.singletonList(ImageTileCache.toKey(2, 0, 0)));
+		awaitTile(2, 0, 0);
+		// キャンセル前に読み込みを始めたタイルが完了するまで待つ
+		Thread.sleep(500);
+		assertEquals(1, cache.getDecodeCount());
+		assertEquals(1, cache.getTileCount());
+		assertEquals(4L * 500 * 375, cache.getUsedBytes());
+	}
+
+	private void assertTile(final int aLevel, final int aX, final int aY, final int aWidth, final int aHeight) throws Exception {
+		BufferedImage tile = awaitTile(aLevel, aX, aY);
+		assertEquals(aWidth, tile.getWidth());
+		assertEquals(aHeight, tile.getHeight());
+		int span = ImageTileCache.TILE_SIZE << aLevel;
+		for (int y = 0; y < aHeight; y += 37) {
+			for (int x = 0; x < aWidth; x += 37) {
+				int expected = ImagePanelTestSupport.getPixel(aX * span + (x << aLevel), aY * span + (y << aLevel));
+				assertEquals(aLevel + ":" + x + "," + y, expected, tile.getRGB(x, y) & 0xFFFFFF);
+			}
+		}
+	}
+
+	private BufferedImage awaitTile(final int aLevel, final int aX, final int aY) throws Exception {
+		long deadline = System.currentTimeMillis() + 30000;
+		BufferedImage tile;
+		while (null == (tile = cache.getTile(aLevel, aX, aY))) {
+			if (deadline < System.currentTimeMillis()) {
+				throw new AssertionError("Tile timed out: " + aLevel + ":" + aX + "," + aY);
+			}
+			Thread.sleep(10);
+		}
+		return tile;
+	}
+}
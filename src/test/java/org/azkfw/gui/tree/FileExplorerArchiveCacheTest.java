@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerArchiveCache}とツリー上でのアーカイブの展開をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerArchiveCacheTest {
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerArchiveCacheTest");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * ツリー上でzipファイルをディレクトリとして展開でき、中のファイルはパス単位のリスナーのみに通知されることを確認する。
+	 */
+	@Test
+	public void testBrowseZip() throws Exception {
+		Path zip = createZip("test.zip", "a.txt", "dir/b.txt", "dir/c.txt");
+		Files.createFile(directory.resolve("plain.txt"));
+
+		final List<String> files = Collections.synchronizedList(new ArrayList<String>());
+		final List<Path> paths = Collections.synchronizedList(new ArrayList<Path>());
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		tree.addFileExplorerTreeListener(new FileExplorerTreeAdapter() {
+			@Override
+			public void fileExplorerTreeAppendedFile(final FileExplorerTreeEvent event, final File aFile) {
+				files.add(aFile.getName());
+			}
+		});
+		tree.addFileExplorerTreeListener(new FileExplorerTreePathAdapter() {
+			@Override
+			public void fileExplorerTreeAppendedPath(final FileExplorerTreeEvent event, final Path aPath) {
+				paths.add(aPath);
+			}
+		});
+
+		TreePath root = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, root);
+		assertEquals(Arrays.asList("plain.txt", "test.zip"), FileExplorerTreeTestSupport.getChildNames(tree, root));
+
+		TreePath zipPath = FileExplorerTreeTestSupport.getChildPath(tree, root, "test.zip");
+		FileExplorerTreeTestSupport.expand(tree, zipPath);
+		assertEquals(Arrays.asList("dir", "a.txt"), FileExplorerTreeTestSupport.getChildNames(tree, zipPath));
+		TreePath dirPath = FileExplorerTreeTestSupport.getChildPath(tree, zipPath, "dir");
+		FileExplorerTreeTestSupport.expand(tree, dirPath);
+		assertEquals(Arrays.asList("b.txt", "c.txt"), FileExplorerTreeTestSupport.getChildNames(tree, dirPath));
+
+		FileExplorerArchiveCache cache = (FileExplorerArchiveCache) FileExplorerTreeTestSupport.getField(tree, "archiveCache");
+		assertEquals(1, cache.getMountCount());
+
+		// アーカイブ内のファイルはファイル単位のリスナーに通知されない
+		Collections.sort(files);
+		assertEquals(Arrays.asList("plain.txt", "test.zip"), files);
+		List<String> archived = new ArrayList<String>();
+		for (Path path : paths) {
+			if (path.getFileSystem() != FileSystems.getDefault()) {
+				archived.add(path.toString());
+			}
+		}
+		Collections.sort(archived);
+		assertEquals(Arrays.asList("/a.txt", "/dir", "/dir/b.txt", "/dir/c.txt"), archived);
+		assertTrue(Files.exists(zip));
+	}
+
+	/**
+	 * 参照が解放されたアーカイブのみ、保持数を超えた分が参照の古い順に閉じられることを確認する。
+	 */
+	@Test
+	public void testEviction() throws Exception {
+		Path zip1 = createZip("1.zip", "a.txt");
+		Path zip2 = createZip("2.zip", "b.txt");
+		Path zip3 = createZip("3.zip", "c.txt");
+		FileExplorerArchiveCache cache = new FileExplorerArchiveCache(1);
+		try {
+			Path root1 = cache.mount(zip1);
+			Path root2 = cache.mount(zip2);
+			// 参照中のアーカイブは保持数を超えても閉じない
+			assertEquals(2, cache.getMountCount());
+			assertTrue(Files.exists(root1.resolve("a.txt")));
+
+			cache.release(zip1);
+			assertEquals(1, cache.getMountCount());
+			assertFalse(root1.getFileSystem().isOpen());
+			assertTrue(root2.getFileSystem().isOpen());
+
+			// 解放済みでも保持数以内であれば再利用する
+			cache.release(zip2);
+			assertSame(root2.getFileSystem(), cache.mount(zip2).getFileSystem());
+			cache.release(zip2);
+
+			Path root3 = cache.mount(zip3);
+			assertFalse(root2.getFileSystem().isOpen());
+			assertNotSame(root1.getFileSystem(), cache.mount(zip1).getFileSystem());
+			assertTrue(root3.getFileSystem().isOpen());
+		} finally {
+			cache.close();
+		}
+		assertEquals(0, cache.getMountCount());
+	}
+
+	private Path createZip(final String aName, final String... aEntries) throws Exception {
+		Path zip = directory.resolve(aName);
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip.toFile()))) {
+			for (String entry : aEntries) {
+				out.putNextEntry(new ZipEntry(entry));
+				out.write(entry.getBytes("UTF-8"));
+				out.closeEntry();
+			}
+		}
+		return zip;
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.azkfw.gui.tree.FileExplorerCompare.Item;
+import org.azkfw.gui.tree.FileExplorerCompare.Status;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerCompare}の比較結果の分類をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerCompareTest {
+
+	/** 比較用バッファを超えるファイルのサイズ(byte) */
+	private static final int LARGE_SIZE = 300 * 1024;
+
+	/** 基準の最終更新日時(ミリ秒) */
+	private static final long TIME = 1400000000000L;
+
+	private Path directory;
+	private Path left;
+	private Path right;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerCompareTest");
+		left = Files.createDirectory(directory.resolve("left"));
+		right = Files.createDirectory(directory.resolve("right"));
+
+		write(left, "same.txt", "abc", TIME);
+		write(right, "same.txt", "abc", TIME);
+		write(right, "added.txt", "abc", TIME);
+		write(left, "removed.txt", "abc", TIME);
+		write(left, "size.txt", "abc", TIME);
+		write(right, "size.txt", "abcd", TIME);
+		write(left, "kind", "abc", TIME);
+		Files.createDirectory(right.resolve("kind"));
+		write(left, "touched.txt", "abc", TIME);
+		write(right, "touched.txt", "abc", TIME + 60000);
+		write(left, "content.txt", "abc", TIME);
+		write(right, "content.txt", "abd", TIME + 60000);
+
+		// 比較用バッファの2ブロック目のみ異なる
+		byte[] data = new byte[LARGE_SIZE];
+		write(left, "large.bin", data, TIME);
+		data[LARGE_SIZE - 1] = 1;
+		write(right, "large.bin", data, TIME + 60000);
+
+		write(left, "same/same.txt", "abc", TIME);
+		write(right, "same/same.txt", "abc", TIME);
+		write(left, "deep/a/b/x.txt", "abc", TIME);
+		write(right, "deep/a/b/x.txt", "abcd", TIME);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * ディレクトリの一覧を突き合わせ、属性と内容から各ファイルが分類されることを確認する。
+	 */
+	@Test
+	public void testClassify() throws Exception {
+		FileExplorerCompare compare = new FileExplorerCompare(left, right);
+		List<Item> items = compare.list("");
+
+		Map<String, Status> actual = new LinkedHashMap<String, Status>();
+		for (Item item : items) {
+			if (null == item.getStatus()) {
+				// 内容の比較が必要なファイルはサイズが同じで最終更新日時のみ異なる
+				assertEquals(item.getLeft().getSize(), item.getRight().getSize());
+				assertTrue(item.getLeft().getLastModified() != item.getRight().getLastModified());
+				compare.compareContent("", item);
+			}
+			actual.put(item.getName(), item.getStatus());
+		}
+
+		Map<String, Status> expected = new LinkedHashMap<String, Status>();
+		expected.put("added.txt", Status.ADDED);
+		expected.put("content.txt", Status.CONTENT);
+		expected.put("deep", Status.SAME);
+		expected.put("kind", Status.CHANGED);
+		expected.put("large.bin", Status.CONTENT);
+		expected.put("removed.txt", Status.REMOVED);
+		expected.put("same", Status.SAME);
+		expected.put("same.txt", Status.SAME);
+		expected.put("size.txt", Status.CHANGED);
+		expected.put("touched.txt", Status.TOUCHED);
+		assertEquals(expected, actual);
+		assertEquals(Arrays.asList(expected.keySet().toArray()), Arrays.asList(actual.keySet().toArray()));
+	}
+
+	/**
+	 * 配下全体を比較し、分類ごとの件数と差異を含むディレクトリが上位へ伝わることを確認する。
+	 */
+	@Test
+	public void testCompareAll() throws Exception {
+		FileExplorerCompare compare = new FileExplorerCompare(left, right);
+		assertNull(compare.getDirectoryStatus(""));
+		compare.start();
+		long deadline = System.currentTimeMillis() + 30000;
+		while (!compare.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(compare.isFinished());
+
+		// same.txt, same, deep, same/same.txt, deep/a, deep/a/b
+		assertEquals(6, compare.getCount(Status.SAME));
+		assertEquals(1, compare.getCount(Status.ADDED));
+		assertEquals(1, compare.getCount(Status.REMOVED));
+		// size.txt, kind, deep/a/b/x.txt
+		assertEquals(3, compare.getCount(Status.CHANGED));
+		assertEquals(1, compare.getCount(Status.TOUCHED));
+		// content.txt, large.bin
+		assertEquals(2, compare.getCount(Status.CONTENT));
+		assertEquals(14, compare.getComparedCount());
+
+		assertEquals(Status.CHANGED, compare.getDirectoryStatus(""));
+		assertEquals(Status.CHANGED, compare.getDirectoryStatus("deep"));
+		assertEquals(Status.CHANGED, compare.getDirectoryStatus("deep/a"));
+		assertEquals(Status.CHANGED, compare.getDirectoryStatus("deep/a/b"));
+		assertEquals(Status.SAME, compare.getDirectoryStatus("same"));
+	}
+
+	private static void write(final Path aRoot, final String aPath, final String aData, final long aTime)
+			throws IOException {
+		write(aRoot, aPath, aData.getBytes("UTF-8"), aTime);
+	}
+
+	private static void write(final Path aRoot, final String aPath, final byte[] aData, final long aTime)
+			throws IOException {
+		Path file = aRoot.resolve(aPath);
+		Files.createDirectories(file.getParent());
+		Files.write(file, aData);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(aTime));
+	}
+}
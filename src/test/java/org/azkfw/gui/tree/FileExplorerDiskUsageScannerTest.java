@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerDiskUsageScanner}の集計結果を確認するクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerDiskUsageScannerTest {
+
+	/** 集計するディレクトリの階層ごとの子ディレクトリ数 */
+	private static final int FAN_OUT = 10;
+	/** 末端のディレクトリごとのファイル数 */
+	private static final int FILES_PER_DIRECTORY = 1000;
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerDiskUsageScannerTest");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 10万ファイル・111ディレクトリの合成ツリーを集計し、合計と1秒あたりのファイル数を確認する。
+	 */
+	@Test
+	public void testThroughput() throws Exception {
+		long expected = 0;
+		int index = 0;
+		for (int i = 0; i < FAN_OUT; i++) {
+			for (int j = 0; j < FAN_OUT; j++) {
+				Path leaf = Files.createDirectories(directory.resolve("d" + i).resolve("d" + j));
+				for (int k = 0; k < FILES_PER_DIRECTORY; k++) {
+					long size = index++ % 4096;
+					try (RandomAccessFile file = new RandomAccessFile(leaf.resolve("f" + k).toFile(), "rw")) {
+						file.setLength(size);
+					}
+					expected += size;
+				}
+			}
+		}
+		long files = (long) FAN_OUT * FAN_OUT * FILES_PER_DIRECTORY;
+		long directories = FAN_OUT + FAN_OUT * FAN_OUT;
+
+		FileExplorerDiskUsageScanner scanner = new FileExplorerDiskUsageScanner(directory);
+		scanner.start();
+		long deadline = System.currentTimeMillis() + 60000;
+		while (!scanner.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(scanner.isFinished());
+
+		FileExplorerDiskUsage usage = scanner.getUsage();
+		assertEquals(expected, usage.getSize());
+		assertEquals(files, usage.getFileCount());
+		assertEquals(directories, usage.getDirectoryCount());
+		assertEquals(0, usage.getFileSize());
+		long leafSize = 0;
+		for (FileExplorerDiskUsage child : usage.getChildren()) {
+			for (FileExplorerDiskUsage leaf : child.getChildren()) {
+				assertEquals(leaf.getSize(), leaf.getFileSize());
+				leafSize += leaf.getFileSize();
+			}
+		}
+		assertEquals(expected, leafSize);
+	}
+
+	/**
+	 * ディレクトリ用のソーターが読み込みごとに一度だけ取得され、変更の反映でも使い回されることを確認する。
+	 */
+	@Test
+	public void testSorterSnapshotPerLoad() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			Files.createFile(directory.resolve("f" + i));
+		}
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		final AtomicInteger count = new AtomicInteger();
+		final FileExplorerTreeSorter sorter = new FileExplorerTreeSorter() {
+			@Override
+			FileExplorerTreeSorter forDirectory(final Path aDirectory) {
+				count.incrementAndGet();
+				return this;
+			}
+
+			@Override
+			protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+				return entry1.getName().compareTo(entry2.getName());
+			}
+		};
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSorter(sorter);
+				return null;
+			}
+		});
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(1, count.get());
+
+		Files.createFile(directory.resolve("f50"));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!FileExplorerTreeTestSupport.getChildNames(tree, path).contains("f50")
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(FileExplorerTreeTestSupport.list(directory), FileExplorerTreeTestSupport.getChildNames(tree, path));
+		assertEquals(1, count.get());
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerDuplicateFinder}と{@link FileExplorerDuplicateMenuAdapter}をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerDuplicateFinderTest {
+
+	/** 大きなファイルのサイズ(byte) */
+	private static final long LARGE_SIZE = 80L * 1024 * 1024;
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerDuplicateFinderTest");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 先頭・末尾のブロックが同じで途中だけ異なる大きなファイルを、全体のハッシュで区別することを確認する。
+	 */
+	@Test
+	public void testLargeFiles() throws Exception {
+		createLarge("a.bin", -1);
+		createLarge("b.bin", -1);
+		createLarge("c.bin", LARGE_SIZE / 2);
+
+		FileExplorerDuplicateFinder finder = new FileExplorerDuplicateFinder(directory, 2);
+		final List<List<String>> groups = Collections.synchronizedList(new ArrayList<List<String>>());
+		finder.addListener(new FileExplorerDuplicateListener() {
+			@Override
+			public void fileExplorerDuplicateFound(final FileExplorerDuplicateFinder aFinder, final long aSize,
+					final List<Path> aPaths) {
+				List<String> names = new ArrayList<String>();
+				for (Path path : aPaths) {
+					names.add(path.getFileName().toString());
+				}
+				Collections.sort(names);
+				groups.add(names);
+			}
+
+			@Override
+			public void fileExplorerDuplicateFinished(final FileExplorerDuplicateFinder aFinder, final boolean aCancelled) {
+			}
+		});
+		finder.start();
+		long deadline = System.currentTimeMillis() + 60000;
+		while (!finder.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(finder.isFinished());
+		// 通知を待つ
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				return null;
+			}
+		});
+
+		assertEquals(1, groups.size());
+		assertEquals(Arrays.asList("a.bin", "b.bin"), groups.get(0));
+		assertTrue(3 * LARGE_SIZE <= finder.getHashedBytes());
+	}
+
+	/**
+	 * 重複ファイルのメニューが読み込み済みの属性で判断され、ファイルシステムにアクセスしないことを確認する。
+	 */
+	@Test
+	public void testMenuUsesCachedEntry() {
+		FileExplorerDuplicateMenuAdapter adapter = new FileExplorerDuplicateMenuAdapter();
+		File missing = directory.resolve("missing").toFile();
+
+		FileExplorerEntry dir = new FileExplorerEntry("missing", 0x01, 0, 0);
+		assertNotNull(adapter.fileExplorerTreeMenuFile(new FileExplorerTreeEvent(null, dir), missing));
+
+		File file = directory.toFile();
+		FileExplorerEntry entry = new FileExplorerEntry(file.getName(), 0x02, 0, 0);
+		assertNull(adapter.fileExplorerTreeMenuFile(new FileExplorerTreeEvent(null, entry), file));
+		assertNull(adapter.fileExplorerTreeMenuFile(new FileExplorerTreeEvent(null), file));
+	}
+
+	private void createLarge(final String aName, final long aDiffer) throws Exception {
+		try (RandomAccessFile file = new RandomAccessFile(directory.resolve(aName).toFile(), "rw")) {
+			file.setLength(LARGE_SIZE);
+			file.seek(0);
+			file.write(1);
+			file.seek(LARGE_SIZE - 1);
+			file.write(1);
+			if (0 <= aDiffer) {
+				file.seek(aDiffer);
+				file.write(1);
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerEntryList}をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerEntryListTest {
+
+	/**
+	 * ページ単位の取り出しと途中への挿入・削除で、要素の属性と順序、名前の文字数の合計が維持されることを確認する。
+	 */
+	@Test
+	public void testPaging() {
+		List<FileExplorerEntry> expected = new ArrayList<FileExplorerEntry>();
+		for (int i = 0; i < 1000; i++) {
+			expected.add(entry(String.format("file%04d", i), i));
+		}
+		FileExplorerEntryList list = new FileExplorerEntryList(expected);
+		assertEntries(expected, list);
+
+		// 先頭ページをノードとして生成した後の状態
+		list.subList(0, 100).clear();
+		expected.subList(0, 100).clear();
+		assertEntries(expected, list);
+
+		FileExplorerEntry added = entry("file0500a", -1);
+		int index = Collections.binarySearch(list, added, FileExplorerTreeSorter.getNameSorter());
+		assertTrue(0 > index);
+		list.add(-(index + 1), added);
+		expected.add(-(index + 1), added);
+		list.remove(0);
+		expected.remove(0);
+		assertEntries(expected, list);
+		assertEquals("file0101", list.getName(0));
+	}
+
+	private static FileExplorerEntry entry(final String aName, final long aSize) {
+		return new FileExplorerEntry(aName, 0x02, aSize, aSize * 1000);
+	}
+
+	private static void assertEntries(final List<FileExplorerEntry> aExpected, final FileExplorerEntryList aList) {
+		assertEquals(aExpected.size(), aList.size());
+		long nameLength = 0;
+		for (int i = 0; i < aExpected.size(); i++) {
+			nameLength += aExpected.get(i).getName().length();
+			FileExplorerEntry entry = aList.get(i);
+			assertEquals(aExpected.get(i).getName(), entry.getName());
+			assertEquals(aExpected.get(i).getSize(), entry.getSize());
+			assertEquals(aExpected.get(i).getLastModified(), entry.getLastModified());
+			assertTrue(entry.isFile());
+		}
+		assertEquals(nameLength, aList.getNameLength());
+	}
+}
@@ -0,0 +1,530 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.DirectoryStream.Filter;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchEvent.Modifier;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * このクラスは、すべてのアクセスが応答しないファイルシステムを模したテスト用のクラスです。
+ * <p>
+ * ディレクトリ一覧・属性の取得・監視の登録は{@link #release()}が呼び出されるか割り込まれるまで待機します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+final class FileExplorerHangingFileSystem extends FileSystem {
+
+	/** 区切り文字 */
+	private static final String SEPARATOR = "/";
+
+	private final HangingProvider provider;
+
+	/** 応答を再開する場合、カウントが0になる */
+	private final CountDownLatch released;
+	/** 待機したアクセスの回数 */
+	private final AtomicInteger hangCount;
+
+	/**
+	 * コンストラクタ
+	 */
+	public FileExplorerHangingFileSystem() {
+		provider = new HangingProvider();
+		released = new CountDownLatch(1);
+		hangCount = new AtomicInteger(0);
+	}
+
+	/**
+	 * 待機したアクセスの回数を取得する。
+	 * 
+	 * @return 回数
+	 */
+	public int getHangCount() {
+		return hangCount.get();
+	}
+
+	/**
+	 * 待機中のアクセスを失敗させ、以降のアクセスを即座に失敗させる。
+	 */
+	public void release() {
+		released.countDown();
+	}
+
+	private void hang() throws IOException {
+		hangCount.incrementAndGet();
+		try {
+			released.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException iex = new InterruptedIOException();
+			iex.initCause(ex);
+			throw iex;
+		}
+		throw new IOException("released");
+	}
+
+	@Override
+	public FileSystemProvider provider() {
+		return provider;
+	}
+
+	@Override
+	public void close() {
+		release();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return true;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public String getSeparator() {
+		return SEPARATOR;
+	}
+
+	@Override
+	public Iterable<Path> getRootDirectories() {
+		return Collections.<Path> singletonList(new HangingPath(SEPARATOR));
+	}
+
+	@Override
+	public Iterable<FileStore> getFileStores() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Set<String> supportedFileAttributeViews() {
+		return Collections.singleton("basic");
+	}
+
+	@Override
+	public Path getPath(final String first, final String... more) {
+		StringBuilder s = new StringBuilder(first);
+		for (String name : more) {
+			s.append(SEPARATOR).append(name);
+		}
+		return new HangingPath(s.toString());
+	}
+
+	@Override
+	public PathMatcher getPathMatcher(final String syntaxAndPattern) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public UserPrincipalLookupService getUserPrincipalLookupService() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public WatchService newWatchService() {
+		return new HangingWatchService();
+	}
+
+	@Override
+	public String toString() {
+		return "hanging";
+	}
+
+	/**
+	 * このクラスは、応答しないファイルシステムのプロバイダークラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class HangingProvider extends FileSystemProvider {
+
+		@Override
+		public String getScheme() {
+			return "hanging";
+		}
+
+		@Override
+		public FileSystem newFileSystem(final URI uri, final Map<String, ?> env) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public FileSystem getFileSystem(final URI uri) {
+			return FileExplorerHangingFileSystem.this;
+		}
+
+		@Override
+		public Path getPath(final URI uri) {
+			return new HangingPath(uri.getPath());
+		}
+
+		@Override
+		public SeekableByteChannel newByteChannel(final Path path, final Set<? extends OpenOption> options,
+				final FileAttribute<?>... attrs) throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public DirectoryStream<Path> newDirectoryStream(final Path dir, final Filter<? super Path> filter) throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public void createDirectory(final Path dir, final FileAttribute<?>... attrs) throws IOException {
+			throw new IOException("read only");
+		}
+
+		@Override
+		public void delete(final Path path) throws IOException {
+			throw new IOException("read only");
+		}
+
+		@Override
+		public void copy(final Path source, final Path target, final CopyOption... options) throws IOException {
+			throw new IOException("read only");
+		}
+
+		@Override
+		public void move(final Path source, final Path target, final CopyOption... options) throws IOException {
+			throw new IOException("read only");
+		}
+
+		@Override
+		public boolean isSameFile(final Path path, final Path path2) {
+			return path.equals(path2);
+		}
+
+		@Override
+		public boolean isHidden(final Path path) {
+			return false;
+		}
+
+		@Override
+		public FileStore getFileStore(final Path path) throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public void checkAccess(final Path path, final AccessMode... modes) throws IOException {
+			hang();
+		}
+
+		@Override
+		public <V extends FileAttributeView> V getFileAttributeView(final Path path, final Class<V> type,
+				final LinkOption... options) {
+			return null;
+		}
+
+		@Override
+		public <A extends BasicFileAttributes> A readAttributes(final Path path, final Class<A> type,
+				final LinkOption... options) throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public Map<String, Object> readAttributes(final Path path, final String attributes, final LinkOption... options)
+				throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public void setAttribute(final Path path, final String attribute, final Object value, final LinkOption... options)
+				throws IOException {
+			throw new IOException("read only");
+		}
+	}
+
+	/**
+	 * このクラスは、応答しないファイルシステムの監視サービスクラスです。
+	 * <p>
+	 * イベントは発生せず、閉じられるまで待機します。
+	 * </p>
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private static class HangingWatchService implements WatchService {
+
+		private final CountDownLatch closed = new CountDownLatch(1);
+
+		@Override
+		public void close() {
+			closed.countDown();
+		}
+
+		@Override
+		public WatchKey poll() {
+			if (0 == closed.getCount()) {
+				throw new ClosedWatchServiceException();
+			}
+			return null;
+		}
+
+		@Override
+		public WatchKey poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+			if (closed.await(timeout, unit)) {
+				throw new ClosedWatchServiceException();
+			}
+			return null;
+		}
+
+		@Override
+		public WatchKey take() throws InterruptedException {
+			closed.await();
+			throw new ClosedWatchServiceException();
+		}
+	}
+
+	/**
+	 * このクラスは、応答しないファイルシステムのパスクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private class HangingPath implements Path {
+
+		/** パス文字列 */
+		private final String path;
+		/** 名前一覧 */
+		private final List<String> names;
+
+		public HangingPath(final String aPath) {
+			names = new ArrayList<String>();
+			for (String name : aPath.split(SEPARATOR)) {
+				if (0 < name.length()) {
+					names.add(name);
+				}
+			}
+			path = (aPath.startsWith(SEPARATOR) ? SEPARATOR : "") + join(names);
+		}
+
+		private String join(final List<String> aNames) {
+			StringBuilder s = new StringBuilder();
+			for (String name : aNames) {
+				if (0 < s.length()) {
+					s.append(SEPARATOR);
+				}
+				s.append(name);
+			}
+			return s.toString();
+		}
+
+		@Override
+		public FileSystem getFileSystem() {
+			return FileExplorerHangingFileSystem.this;
+		}
+
+		@Override
+		public boolean isAbsolute() {
+			return path.startsWith(SEPARATOR);
+		}
+
+		@Override
+		public Path getRoot() {
+			return (isAbsolute()) ? new HangingPath(SEPARATOR) : null;
+		}
+
+		@Override
+		public Path getFileName() {
+			return (names.isEmpty()) ? null : new HangingPath(names.get(names.size() - 1));
+		}
+
+		@Override
+		public Path getParent() {
+			if (names.isEmpty()) {
+				return null;
+			}
+			String parent = join(names.subList(0, names.size() - 1));
+			return new HangingPath((isAbsolute()) ? SEPARATOR + parent : parent);
+		}
+
+		@Override
+		public int getNameCount() {
+			return names.size();
+		}
+
+		@Override
+		public Path getName(final int index) {
+			return new HangingPath(names.get(index));
+		}
+
+		@Override
+		public Path subpath(final int beginIndex, final int endIndex) {
+			return new HangingPath(join(names.subList(beginIndex, endIndex)));
+		}
+
+		@Override
+		public boolean startsWith(final Path other) {
+			return startsWith(other.toString());
+		}
+
+		@Override
+		public boolean startsWith(final String other) {
+			return path.equals(other) || path.startsWith(other.endsWith(SEPARATOR) ? other : other + SEPARATOR);
+		}
+
+		@Override
+		public boolean endsWith(final Path other) {
+			return endsWith(other.toString());
+		}
+
+		@Override
+		public boolean endsWith(final String other) {
+			return path.equals(other) || path.endsWith(SEPARATOR + other);
+		}
+
+		@Override
+		public Path normalize() {
+			return this;
+		}
+
+		@Override
+		public Path resolve(final Path other) {
+			if (other.isAbsolute()) {
+				return other;
+			}
+			return new HangingPath(path + SEPARATOR + other.toString());
+		}
+
+		@Override
+		public Path resolve(final String other) {
+			return resolve(new HangingPath(other));
+		}
+
+		@Override
+		public Path resolveSibling(final Path other) {
+			Path parent = getParent();
+			return (null != parent) ? parent.resolve(other) : other;
+		}
+
+		@Override
+		public Path resolveSibling(final String other) {
+			return resolveSibling(new HangingPath(other));
+		}
+
+		@Override
+		public Path relativize(final Path other) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public URI toUri() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Path toAbsolutePath() {
+			return (isAbsolute()) ? this : new HangingPath(SEPARATOR + path);
+		}
+
+		@Override
+		public Path toRealPath(final LinkOption... options) {
+			return toAbsolutePath();
+		}
+
+		@Override
+		public File toFile() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public WatchKey register(final WatchService watcher, final Kind<?>[] events, final Modifier... modifiers)
+				throws IOException {
+			hang();
+			return null;
+		}
+
+		@Override
+		public WatchKey register(final WatchService watcher, final Kind<?>... events) throws IOException {
+			return register(watcher, events, new Modifier[0]);
+		}
+
+		@Override
+		public Iterator<Path> iterator() {
+			List<Path> paths = new ArrayList<Path>(names.size());
+			for (String name : names) {
+				paths.add(new HangingPath(name));
+			}
+			return paths.iterator();
+		}
+
+		@Override
+		public int compareTo(final Path other) {
+			return path.compareTo(other.toString());
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof HangingPath && path.equals(((HangingPath) obj).path);
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return path;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import javax.swing.JLabel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerIconProvider}をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerIconProviderTest {
+
+	private FileExplorerIconProvider provider;
+
+	@Before
+	public void setUp() {
+		provider = new FileExplorerIconProvider();
+	}
+
+	@After
+	public void tearDown() {
+		provider.dispose();
+	}
+
+	/**
+	 * システムアイコンがない種類は一度だけ取得し、以降はキャッシュから返すことを確認する。
+	 */
+	@Test
+	public void testMissingIconIsCached() throws Exception {
+		File file = new File("FileExplorerIconProviderTest-missing", "missing.zzz");
+		JLabel label = new JLabel();
+
+		assertNull(provider.getIcon(file, FileExplorerIconProvider.KIND_FILE, label));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (0 == provider.size() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, provider.size());
+
+		for (int i = 0; i < 100; i++) {
+			assertNull(provider.getIcon(file, FileExplorerIconProvider.KIND_FILE, label));
+		}
+		assertEquals(1, provider.getMissCount());
+		assertEquals(100, provider.getHitCount());
+	}
+}
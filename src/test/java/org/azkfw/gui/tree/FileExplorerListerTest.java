@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerLister}がファイル属性を一度の走査で取得することを確認するクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerListerTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 200;
+	/** ディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 10;
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerListerTest");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			Files.write(directory.resolve("f" + i), new byte[i]);
+		}
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			Files.createDirectory(directory.resolve("d" + i));
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 一覧の取得が、ディレクトリの走査1回とファイルごとの属性の読み込み1回で行われることを確認する。
+	 */
+	@Test
+	public void testOneCallPerEntry() throws Exception {
+		Files.createFile(directory.resolve(".hidden"));
+		FileExplorerLister lister = new FileExplorerLister();
+		List<FileExplorerEntry> entries = lister.list(directory);
+
+		assertEquals(FILE_COUNT + DIRECTORY_COUNT + 1, entries.size());
+		assertEquals(1 + entries.size(), lister.getCallCount());
+
+		Map<String, FileExplorerEntry> map = new HashMap<String, FileExplorerEntry>();
+		for (FileExplorerEntry entry : entries) {
+			map.put(entry.getName(), entry);
+		}
+		assertTrue(map.get("d0").isDirectory());
+		assertFalse(map.get("d0").isFile());
+		assertTrue(map.get("f10").isFile());
+		assertEquals(10, map.get("f10").getSize());
+		assertTrue(map.get(".hidden").isHidden());
+		assertFalse(map.get("f10").isHidden());
+	}
+
+	/**
+	 * リンク先のないシンボリックリンクは、リンク自体の属性を読み込み直して一覧に含めることを確認する。
+	 */
+	@Test
+	public void testBrokenLink() throws Exception {
+		Path link = directory.resolve("link");
+		try {
+			Files.createSymbolicLink(link, directory.resolve("missing"));
+		} catch (UnsupportedOperationException | IOException ex) {
+			Assume.assumeTrue(false);
+		}
+		FileExplorerLister lister = new FileExplorerLister();
+		List<FileExplorerEntry> entries = lister.list(directory);
+
+		assertEquals(FILE_COUNT + DIRECTORY_COUNT + 1, entries.size());
+		// リンクのみ2回読み込む
+		assertEquals(1 + entries.size() + 1, lister.getCallCount());
+	}
+
+	/**
+	 * ツリーの展開で一覧を一度だけ取得し、描画ではファイルシステムにアクセスしないことを確認する。
+	 */
+	@Test
+	public void testTreeDoesNotTouchFileSystemWhenPainting() throws Exception {
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(FILE_COUNT + DIRECTORY_COUNT, FileExplorerTreeTestSupport.getChildNames(tree, path).size());
+
+		// 最終更新日時の取得(キャッシュ・先読みの検証用)を除き、走査1回とファイルごとの1回
+		int calls = tree.getLastListingCallCount();
+		assertTrue(String.valueOf(calls), 1 + FILE_COUNT + DIRECTORY_COUNT <= calls);
+		assertTrue(String.valueOf(calls), 2 + FILE_COUNT + DIRECTORY_COUNT >= calls);
+
+		final long total = tree.getTotalListingCallCount();
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSize(400, tree.getRowHeight() * tree.getRowCount() + 100);
+				BufferedImage image = new BufferedImage(tree.getWidth(), tree.getHeight(), BufferedImage.TYPE_INT_RGB);
+				Graphics2D g = image.createGraphics();
+				try {
+					tree.paint(g);
+				} finally {
+					g.dispose();
+				}
+				for (int row = 0; row < tree.getRowCount(); row++) {
+					tree.getPathForRow(row).getLastPathComponent().toString();
+				}
+				return null;
+			}
+		});
+		assertEquals(total, tree.getTotalListingCallCount());
+	}
+}
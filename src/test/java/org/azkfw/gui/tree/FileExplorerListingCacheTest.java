@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerListingCache}をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerListingCacheTest {
+
+	private Path directory;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerListingCacheTest");
+		file = directory.resolve("listing.cache").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 読み込んだキャッシュファイルを同じファイルへ保存し直せることを確認する。
+	 */
+	@Test
+	public void testSaveOverLoadedFile() throws Exception {
+		Path dir1 = directory.resolve("dir1");
+		Path dir2 = directory.resolve("dir2");
+
+		FileExplorerListingCache cache = new FileExplorerListingCache(file);
+		cache.put(dir1, 1000, entries("a", "b"));
+		cache.save();
+
+		cache = new FileExplorerListingCache(file);
+		cache.load();
+		assertEquals(1, cache.getDirectoryCount());
+		// 読み込んだ内容を参照したまま保存する
+		cache.put(dir2, 2000, entries("c"));
+		cache.save();
+		cache.put(dir2, 3000, entries("d", "e", "f"));
+		cache.save();
+
+		cache = new FileExplorerListingCache(file);
+		cache.load();
+		assertEquals(2, cache.getDirectoryCount());
+		FileExplorerListingCache.Listing listing = cache.get(dir1, new FileExplorerNameTable());
+		assertEquals(1000, listing.getModified());
+		assertEquals("[a, b]", listing.getEntries().toString());
+		listing = cache.get(dir2, null);
+		assertEquals(3000, listing.getModified());
+		assertEquals("[d, e, f]", listing.getEntries().toString());
+		assertEquals(4, listing.getEntries().get(1).getSize());
+		assertNull(cache.get(directory.resolve("dir3"), null));
+	}
+
+	/**
+	 * 長さ・件数が破損したキャッシュファイルを、配列を確保せずに空のキャッシュとして読み込むことを確認する。
+	 */
+	@Test
+	public void testCorruptLength() throws Exception {
+		Path dir1 = directory.resolve("dir1");
+		FileExplorerListingCache cache = new FileExplorerListingCache(file);
+		cache.put(dir1, 1000, entries("a", "b"));
+		cache.save();
+		int pathLength = dir1.toAbsolutePath().toString().getBytes("UTF-8").length;
+
+		// ディレクトリ数・パスの長さ・ファイル数・一覧の長さの位置
+		int[] offsets = { 8, 12, 16 + pathLength + 8, 16 + pathLength + 12 };
+		for (int offset : offsets) {
+			for (int value : new int[] { Integer.MAX_VALUE, -1 }) {
+				byte[] original = Files.readAllBytes(file.toPath());
+				try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+					raf.seek(offset);
+					raf.writeInt(value);
+				}
+				cache = new FileExplorerListingCache(file);
+				cache.load();
+				assertEquals("offset " + offset + ", value " + value, 0, cache.getDirectoryCount());
+				Files.write(file.toPath(), original);
+			}
+		}
+
+		cache = new FileExplorerListingCache(file);
+		cache.load();
+		assertEquals("[a, b]", cache.get(dir1, null).getEntries().toString());
+	}
+
+	/**
+	 * ツリーの破棄時に、キャッシュの保存がイベントディスパッチスレッドを止めないことを確認する。
+	 */
+	@Test
+	public void testDisposeSavesInBackground() throws Exception {
+		Path dir1 = Files.createDirectory(directory.resolve("dir1"));
+		Files.createFile(dir1.resolve("a.txt"));
+		final FileExplorerListingCache cache = new FileExplorerListingCache(file);
+		final FileExplorerTree tree = FileExplorerTreeTestSupport.createTree(dir1);
+		tree.setListingCache(cache);
+		FileExplorerTreeTestSupport.expand(tree, FileExplorerTreeTestSupport.getRootPath(tree));
+
+		// 保存できない間も破棄が完了することを確認する
+		synchronized (cache) {
+			FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+				@Override
+				public Void call() {
+					tree.dispose();
+					return null;
+				}
+			});
+			assertTrue(!file.exists());
+		}
+		assertTrue(tree.awaitDisposed(10000));
+		assertTrue(file.isFile());
+
+		FileExplorerListingCache loaded = new FileExplorerListingCache(file);
+		loaded.load();
+		assertEquals("[a.txt]", loaded.get(dir1, null).getEntries().toString());
+	}
+
+	private static List<FileExplorerEntry> entries(final String... aNames) {
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>();
+		for (String name : aNames) {
+			entries.add(new FileExplorerEntry(name, 0x02, name.charAt(0) - 'a', 0));
+		}
+		return entries;
+	}
+}
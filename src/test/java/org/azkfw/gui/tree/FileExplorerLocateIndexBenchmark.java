@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * このクラスは、1000万件のファイル名の索引の検索にかかる時間を計測するクラスです。
+ * <p>
+ * 実行時間は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。
+ * ファイルシステムは巡回せず、合成した名前から索引を作成します。ヒープは4GB程度を指定してください。
+ * 各条件は1回目(ウォームアップ)を除いた実行時間の中央値と最大値を出力します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class FileExplorerLocateIndexBenchmark {
+
+	/** ディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 10000;
+	/** ディレクトリごとのファイル数 */
+	private static final int FILES_PER_DIRECTORY = 1000;
+	/** 名前に使用する単語 */
+	private static final String[] WORDS = { "report", "img", "backup", "data", "invoice", "log", "readme", "photo" };
+	/** 名前に使用する拡張子 */
+	private static final String[] EXTENSIONS = { ".txt", ".jpg", ".log", ".csv", ".dat" };
+	/** 検索条件 */
+	private static final FileExplorerTreeFilter[] FILTERS = {
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "report_00"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "0123456"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "_99999"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "nomatch"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "ba"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "x"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.GLOB, "invoice_*77*.csv"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.GLOB, "*_000123?.log"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.REGEX, "^img_00[0-9]{5}\\.jpg$") };
+	/** 計測する実行回数 */
+	private static final int ITERATION = 11;
+
+	private FileExplorerLocateIndexBenchmark() {
+	}
+
+	/**
+	 * 1000万件の索引を作成して検索し、実行時間を出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 * @throws Exception 計測に失敗した場合
+	 */
+	public static void main(final String[] args) throws Exception {
+		Path root = Paths.get("/benchmark").toAbsolutePath();
+		FileExplorerLocateIndex index = new FileExplorerLocateIndex(Collections.singletonList(root));
+		try {
+			long start = System.nanoTime();
+			index.replace(createBuilder(root));
+			long used = usedMemory();
+			System.out.println(String.format("build %d entries, %d names: %.1f s, heap %d MB", index.getEntryCount(),
+					index.getNameCount(), (System.nanoTime() - start) / 1000000000.0, used / 1024 / 1024));
+
+			for (FileExplorerTreeFilter filter : FILTERS) {
+				long[] times = new long[ITERATION];
+				int count = 0;
+				for (int i = 0; i < ITERATION; i++) {
+					start = System.nanoTime();
+					count = index.find(filter, FileExplorerLocateIndex.DEFAULT_LIMIT).size();
+					times[i] = System.nanoTime() - start;
+				}
+				long[] warm = Arrays.copyOfRange(times, 1, ITERATION);
+				Arrays.sort(warm);
+				System.out.println(String.format("find %-30s %8.2f ms median %8.2f ms max (%d results)", filter,
+						warm[warm.length / 2] / 1000000.0, warm[warm.length - 1] / 1000000.0, count));
+			}
+		} finally {
+			index.dispose();
+		}
+	}
+
+	private static FileExplorerLocateIndex.Builder createBuilder(final Path aRoot) {
+		FileExplorerLocateIndex.Builder builder = new FileExplorerLocateIndex.Builder(new Path[] { aRoot });
+		List<FileExplorerLocateIndex.Child> directories = new ArrayList<FileExplorerLocateIndex.Child>(DIRECTORY_COUNT);
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			directories.add(new FileExplorerLocateIndex.Child(String.format("dir%05d", i), true, -1));
+		}
+		int start = builder.add(0, directories);
+		int index = 0;
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			List<FileExplorerLocateIndex.Child> files = new ArrayList<FileExplorerLocateIndex.Child>(FILES_PER_DIRECTORY);
+			for (int j = 0; j < FILES_PER_DIRECTORY; j++, index++) {
+				String name = String.format("%s_%07d%s", WORDS[index % WORDS.length], index, EXTENSIONS[index
+						% EXTENSIONS.length]);
+				files.add(new FileExplorerLocateIndex.Child(name, false, -1));
+			}
+			Collections.sort(files);
+			builder.add(start + i, files);
+		}
+		return builder;
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
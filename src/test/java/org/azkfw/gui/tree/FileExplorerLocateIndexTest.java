@@ -0,0 +1,268 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerLocateIndex}の検索・保存・監視による反映をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerLocateIndexTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 2000;
+	/** ディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 20;
+	/** 名前に使用する単語 */
+	private static final String[] WORDS = { "Report", "img", "backup", "IMG", "data", "ab", "readme" };
+	/** 名前に使用する拡張子 */
+	private static final String[] EXTENSIONS = { ".txt", ".jpg", ".log", ".TXT", "" };
+
+	/** 検索条件 */
+	private static final FileExplorerTreeFilter[] FILTERS = {
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "a"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "ab"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "img"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "REPORT_1"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, ".txt"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "123"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "dir1"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "日本"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "xyz"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.GLOB, "*.log"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.GLOB, "img_1?.jpg"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.GLOB, "back*_5*"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.REGEX, "^data_[0-9]+$"),
+			new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.REGEX, ".") };
+
+	private Path directory;
+	private Path root;
+	private File file;
+	private FileExplorerLocateIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerLocateIndexTest");
+		root = Files.createDirectory(directory.resolve("root"));
+		file = directory.resolve("locate.idx").toFile();
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			Files.createDirectory(root.resolve("dir" + i));
+		}
+		for (int i = 0; i < FILE_COUNT; i++) {
+			String name = WORDS[i % WORDS.length] + "_" + i + EXTENSIONS[i % EXTENSIONS.length];
+			Files.createFile(root.resolve("dir" + (i % DIRECTORY_COUNT)).resolve(name));
+		}
+		Files.createFile(root.resolve("a"));
+		Files.createFile(root.resolve("AB"));
+		Files.createFile(root.resolve("日本語.txt"));
+		// 異なるディレクトリの同じ名前
+		Files.createFile(root.resolve("dir0").resolve("readme"));
+		Files.createFile(root.resolve("dir1").resolve("readme"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != index) {
+			index.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * トライグラムによる検索結果が、すべての名前を照合した結果と一致することを確認する。
+	 */
+	@Test
+	public void testFind() throws Exception {
+		index = crawl(file);
+		assertEquals(walk().size(), index.getEntryCount());
+		for (FileExplorerTreeFilter filter : FILTERS) {
+			assertEquals(filter.toString(), match(filter), toSet(index.find(filter, Integer.MAX_VALUE)));
+		}
+
+		// 最大件数で打ち切る
+		FileExplorerTreeFilter filter = new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "img");
+		List<Path> limited = index.find(filter, 5);
+		assertEquals(5, limited.size());
+		assertTrue(match(filter).containsAll(limited));
+	}
+
+	/**
+	 * 保存した索引を読み込み、同じ検索結果が得られることを確認する。
+	 * <p>
+	 * ルートディレクトリが異なる索引、破損した索引は読み込まないことを確認します。
+	 * </p>
+	 */
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		FileExplorerLocateIndex crawled = crawl(file);
+		crawled.dispose();
+		assertTrue(file.isFile());
+
+		index = new FileExplorerLocateIndex(Collections.singletonList(root), file);
+		assertTrue(index.load());
+		assertEquals(crawled.getEntryCount(), index.getEntryCount());
+		assertEquals(crawled.getNameCount(), index.getNameCount());
+		for (FileExplorerTreeFilter filter : FILTERS) {
+			assertEquals(filter.toString(), toSet(crawled.find(filter, Integer.MAX_VALUE)),
+					toSet(index.find(filter, Integer.MAX_VALUE)));
+		}
+
+		FileExplorerLocateIndex other = new FileExplorerLocateIndex(Collections.singletonList(root.resolve("dir0")), file);
+		assertFalse(other.load());
+		other.dispose();
+
+		// 先頭の配列(識別子・バージョン・ルートディレクトリ数・ルートディレクトリの後)の長さを破損させる
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(4 + 4 + 4 + 4 + 2 * root.toAbsolutePath().normalize().toString().length());
+			raf.writeInt(Integer.MAX_VALUE);
+		}
+		FileExplorerLocateIndex corrupted = new FileExplorerLocateIndex(Collections.singletonList(root), file);
+		assertFalse(corrupted.load());
+		corrupted.dispose();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() / 2);
+		}
+		corrupted = new FileExplorerLocateIndex(Collections.singletonList(root), file);
+		assertFalse(corrupted.load());
+		corrupted.dispose();
+	}
+
+	/**
+	 * 巡回後に追加・削除したファイル・ディレクトリが、監視により検索結果に反映されることを確認する。
+	 */
+	@Test
+	public void testWatch() throws Exception {
+		index = crawl(null);
+		FileExplorerTreeFilter added = new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "added");
+		FileExplorerTreeFilter img = new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "img_");
+
+		// ファイルの追加
+		Files.createFile(root.resolve("dir3").resolve("added_file.txt"));
+		awaitMatch(added);
+
+		// 配下を含むディレクトリの追加
+		Path dir = Files.createDirectory(root.resolve("added_dir"));
+		Files.createFile(dir.resolve("added_child.txt"));
+		awaitMatch(added);
+		Files.createFile(dir.resolve("added_later.txt"));
+		awaitMatch(added);
+
+		// ファイルの削除
+		Files.delete(root.resolve("dir1").resolve("img_1.jpg"));
+		awaitMatch(img);
+
+		// 配下を含むディレクトリの削除
+		FileExplorerTreeTestSupport.delete(root.resolve("dir8"));
+		awaitMatch(img);
+		FileExplorerTreeTestSupport.delete(dir);
+		awaitMatch(added);
+		assertTrue(0 < index.getPendingCount());
+	}
+
+	private FileExplorerLocateIndex crawl(final File aFile) throws Exception {
+		FileExplorerLocateIndex result = new FileExplorerLocateIndex(Collections.singletonList(root), aFile);
+		result.start();
+		long deadline = System.currentTimeMillis() + 30000;
+		while (!result.isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(result.isFinished());
+		return result;
+	}
+
+	/**
+	 * 検索結果が、すべての名前を照合した結果と一致するまで待機する。
+	 */
+	private void awaitMatch(final FileExplorerTreeFilter aFilter) throws Exception {
+		Set<Path> expected = match(aFilter);
+		Set<Path> actual = null;
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			actual = toSet(index.find(aFilter, Integer.MAX_VALUE));
+			if (expected.equals(actual)) {
+				return;
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(aFilter.toString(), expected, actual);
+	}
+
+	private Set<Path> match(final FileExplorerTreeFilter aFilter) throws IOException {
+		Set<Path> result = new HashSet<Path>();
+		for (Path path : walk()) {
+			String name = path.getFileName().toString();
+			if (aFilter.matches(name.toLowerCase(Locale.ENGLISH), name)) {
+				result.add(path);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * ルートディレクトリ配下のすべてのファイル・ディレクトリを取得する。
+	 */
+	private Set<Path> walk() throws IOException {
+		final Set<Path> paths = new HashSet<Path>();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+				if (!root.equals(dir)) {
+					paths.add(dir.toAbsolutePath());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+				paths.add(file.toAbsolutePath());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return paths;
+	}
+
+	private static Set<Path> toSet(final List<Path> aPaths) {
+		Set<Path> result = new HashSet<Path>(aPaths);
+		assertEquals(aPaths.size(), result.size());
+		return result;
+	}
+}
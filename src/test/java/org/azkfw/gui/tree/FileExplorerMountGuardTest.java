@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、応答しないファイルシステムを展開した場合の動作をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerMountGuardTest {
+
+	/** アクセスの期限(ミリ秒) */
+	private static final long TIMEOUT = 300;
+	/** イベントディスパッチスレッドの許容する応答時間(ミリ秒) */
+	private static final long EDT_LATENCY = 100;
+
+	private FileExplorerHangingFileSystem fileSystem;
+	private Path root;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		fileSystem = new FileExplorerHangingFileSystem();
+		root = fileSystem.getPath("/mnt");
+		tree = FileExplorerTreeTestSupport.createTree(root);
+		tree.setFileSystemTimeout(TIMEOUT);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		fileSystem.release();
+	}
+
+	/**
+	 * 応答しないマウントの展開がタイムアウトし、続けてタイムアウトした場合に縮退状態となることを確認する。
+	 * <p>
+	 * 待機中もイベントディスパッチスレッドが応答することを確認します。
+	 * </p>
+	 */
+	@Test
+	public void testHungMount() throws Exception {
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+
+		// 1回目: タイムアウトしてエラーノードを表示する
+		long elapsed = expandUntilFailed(path);
+		assertTrue("elapsed " + elapsed, TIMEOUT <= elapsed);
+		assertEquals(1, fileSystem.getHangCount());
+		assertFalse(tree.isFileSystemDegraded(root));
+
+		// 2回目: 続けてタイムアウトしたため縮退状態になる
+		collapse(path);
+		elapsed = expandUntilFailed(path);
+		assertTrue("elapsed " + elapsed, TIMEOUT <= elapsed);
+		assertEquals(2, fileSystem.getHangCount());
+		assertTrue(tree.isFileSystemDegraded(root));
+
+		// 3回目: 縮退中はファイルシステムにアクセスせずに即座に失敗する
+		collapse(path);
+		elapsed = expandUntilFailed(path);
+		assertTrue("elapsed " + elapsed, elapsed < TIMEOUT);
+		assertEquals(2, fileSystem.getHangCount());
+	}
+
+	/**
+	 * 応答しないマウントが使用するスレッド数が上限に収まり、他のマウントへのアクセスを妨げないことを確認する。
+	 */
+	@Test
+	public void testThreadsBoundedPerMount() throws Exception {
+		final FileExplorerMountGuard guard = new FileExplorerMountGuard();
+		guard.setTimeout(TIMEOUT);
+		final CountDownLatch hang = new CountDownLatch(1);
+		final Set<Thread> started = Collections.newSetFromMap(new IdentityHashMap<Thread, Boolean>());
+		final Path hungPath = Paths.get("/hung/mount/dir");
+		try {
+			List<Thread> callers = new ArrayList<Thread>();
+			for (int i = 0; i < FileExplorerMountGuard.MAX_THREADS_PER_MOUNT * 3; i++) {
+				Thread caller = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							guard.call(hungPath, new Callable<Void>() {
+								@Override
+								public Void call() {
+									synchronized (started) {
+										started.add(Thread.currentThread());
+									}
+									// 割り込みに応答しないアクセスを模倣する
+									while (true) {
+										try {
+											hang.await();
+											return null;
+										} catch (InterruptedException ex) {
+											continue;
+										}
+									}
+								}
+							}, null);
+						} catch (IOException ex) {
+							// タイムアウト
+						}
+					}
+				});
+				caller.start();
+				callers.add(caller);
+			}
+
+			// 応答しないマウントのスレッドが埋まっていても、他のマウントにはアクセスできる
+			Thread.sleep(TIMEOUT / 3);
+			long start = System.currentTimeMillis();
+			String result = guard.call(Paths.get("/other/mount/dir"), new Callable<String>() {
+				@Override
+				public String call() {
+					return "ok";
+				}
+			}, null);
+			assertEquals("ok", result);
+			assertTrue(System.currentTimeMillis() - start < TIMEOUT);
+
+			for (Thread caller : callers) {
+				caller.join(10 * TIMEOUT);
+				assertFalse(caller.isAlive());
+			}
+			synchronized (started) {
+				assertEquals(FileExplorerMountGuard.MAX_THREADS_PER_MOUNT, started.size());
+			}
+			assertTrue(guard.isDegraded(hungPath));
+		} finally {
+			hang.countDown();
+			guard.dispose();
+		}
+	}
+
+	/**
+	 * マウントのキーがパスのルートと先頭の階層から推定されることを確認する。
+	 */
+	@Test
+	public void testMountKey() throws Exception {
+		assertEquals(FileExplorerMountGuard.getMountKey(Paths.get("/mnt/nfs/a/b")),
+				FileExplorerMountGuard.getMountKey(Paths.get("/mnt/nfs/c")));
+		assertFalse(FileExplorerMountGuard.getMountKey(Paths.get("/mnt/nfs/a")).equals(
+				FileExplorerMountGuard.getMountKey(Paths.get("/mnt/smb/a"))));
+		assertEquals(fileSystem, FileExplorerMountGuard.getMountKey(root.resolve("a/b/c")));
+	}
+
+	/**
+	 * ノードを展開し、エラーノードが表示されるまでの時間を計測する。
+	 * <p>
+	 * 待機中はイベントディスパッチスレッドの応答時間を確認します。
+	 * </p>
+	 * 
+	 * @param aPath ツリーパス
+	 * @return 経過時間(ミリ秒)
+	 */
+	private long expandUntilFailed(final TreePath aPath) throws Exception {
+		long start = System.currentTimeMillis();
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.expandPath(aPath);
+				return null;
+			}
+		});
+		long latency = 0;
+		while (!isFailed(aPath)) {
+			if (start + 10 * TIMEOUT < System.currentTimeMillis()) {
+				throw new AssertionError("Not failed: " + FileExplorerTreeTestSupport.getChildNames(tree, aPath));
+			}
+			long t = System.nanoTime();
+			FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+				@Override
+				public Void call() {
+					return null;
+				}
+			});
+			latency = Math.max(latency, (System.nanoTime() - t) / 1000000);
+			Thread.sleep(10);
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue("EDT latency " + latency, latency < EDT_LATENCY);
+		return elapsed;
+	}
+
+	private boolean isFailed(final TreePath aPath) throws Exception {
+		List<String> names = FileExplorerTreeTestSupport.getChildNames(tree, aPath);
+		return 1 == names.size() && names.get(0).startsWith("応答がありません");
+	}
+
+	private void collapse(final TreePath aPath) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.collapsePath(aPath);
+				return null;
+			}
+		});
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerPrefetcher}をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerPrefetcherTest {
+
+	private Path directory;
+	private FileExplorerLister lister;
+	private FileExplorerPrefetcher prefetcher;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerPrefetcherTest");
+		Files.createFile(directory.resolve("a.txt"));
+		FileExplorerNameTable nameTable = new FileExplorerNameTable();
+		lister = new FileExplorerLister(nameTable, null);
+		prefetcher = new FileExplorerPrefetcher(nameTable, null, 1, 1024 * 1024);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		prefetcher.dispose();
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 先読み後に更新されていないディレクトリは、先読みした一覧を使用することを確認する。
+	 */
+	@Test
+	public void testTakeUnchanged() throws Exception {
+		prefetcher.prefetch(Collections.singletonList(directory));
+		List<FileExplorerEntry> entries = prefetcher.take(directory, lister.getLastModified(directory));
+		assertNotNull(entries);
+		assertEquals(1, entries.size());
+		assertEquals(1, prefetcher.getHitCount());
+	}
+
+	/**
+	 * 先読み後、監視対象に登録するまでに更新されたディレクトリは、先読みした一覧を破棄することを確認する。
+	 */
+	@Test
+	public void testTakeChangedBeforeRegistration() throws Exception {
+		prefetcher.prefetch(Collections.singletonList(directory));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (0 == prefetcher.getUsedBytes() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		// 先読みの完了後、登録前にファイルを追加する(最終更新日時の精度に依存しないよう日時を進める)
+		Files.createFile(directory.resolve("b.txt"));
+		long modified = lister.getLastModified(directory) + 10000;
+		Files.setLastModifiedTime(directory, FileTime.fromMillis(modified));
+
+		assertNull(prefetcher.take(directory, lister.getLastModified(directory)));
+		assertEquals(0, prefetcher.getHitCount());
+		assertEquals(1, prefetcher.getMissCount());
+	}
+
+	/**
+	 * 最終更新日時を取得できない場合、先読みした一覧を使用しないことを確認する。
+	 */
+	@Test
+	public void testTakeWithoutModified() throws Exception {
+		prefetcher.prefetch(Collections.singletonList(directory));
+		assertNull(prefetcher.take(directory, -1));
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTreeBatchListener}によるディレクトリ単位の判定をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeBatchListenerTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 100;
+
+	private Path directory;
+	private FileExplorerTree tree;
+	private TreePath path;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeBatchListenerTest");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			Files.createFile(directory.resolve(name(i)));
+		}
+		Files.createFile(directory.resolve(".hidden"));
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		path = FileExplorerTreeTestSupport.getRootPath(tree);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * ビットセットで立てたインデックスのファイルのみがノードに追加・通知されることを確認する。
+	 */
+	@Test
+	public void testMask() throws Exception {
+		RecordingListener listener = new RecordingListener() {
+			@Override
+			protected boolean accept(final int aNumber) {
+				return 0 == aNumber % 2;
+			}
+		};
+		tree.addFileExplorerTreeListener(listener);
+		FileExplorerTreeTestSupport.expand(tree, path);
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < FILE_COUNT; i += 2) {
+			expected.add(name(i));
+		}
+		assertEquals(1, listener.appendingCount);
+		assertEquals(FILE_COUNT, listener.offered.size());
+		assertTrue(!listener.offered.contains(".hidden"));
+		assertEquals(expected, FileExplorerTreeTestSupport.getChildNames(tree, path));
+		Collections.sort(listener.appended);
+		assertEquals(expected, listener.appended);
+	}
+
+	/**
+	 * ビットセットとファイル単位のリスナーの判定がともに許可したファイルのみ追加されることを確認する。
+	 */
+	@Test
+	public void testMaskWithFileListener() throws Exception {
+		tree.addFileExplorerTreeListener(new RecordingListener() {
+			@Override
+			protected boolean accept(final int aNumber) {
+				return 0 == aNumber % 2;
+			}
+		});
+		tree.addFileExplorerTreeListener(new FileExplorerTreeAdapter() {
+			@Override
+			public boolean fileExplorerTreeAppendingFile(final FileExplorerTreeEvent event, final File aFile) {
+				return 0 == number(aFile.getName()) % 3;
+			}
+		});
+		FileExplorerTreeTestSupport.expand(tree, path);
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < FILE_COUNT; i += 6) {
+			expected.add(name(i));
+		}
+		assertEquals(expected, FileExplorerTreeTestSupport.getChildNames(tree, path));
+	}
+
+	/**
+	 * <code>null</code>を返した場合は全ファイル、例外が発生した場合はファイルが追加されないことを確認する。
+	 */
+	@Test
+	public void testNullAndException() throws Exception {
+		RecordingListener listener = new RecordingListener() {
+			@Override
+			public BitSet fileExplorerTreeAppendingFiles(final FileExplorerTreeEvent event, final List<File> aFiles) {
+				super.fileExplorerTreeAppendingFiles(event, aFiles);
+				return null;
+			}
+		};
+		tree.addFileExplorerTreeListener(listener);
+		Path sub = Files.createDirectory(directory.resolve("sub"));
+		Files.createFile(sub.resolve("a.txt"));
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(FILE_COUNT + 1, FileExplorerTreeTestSupport.getChildNames(tree, path).size());
+		assertEquals(FILE_COUNT + 1, listener.appended.size());
+
+		tree.removeFileExplorerTreeListener(listener);
+		tree.addFileExplorerTreeListener(new FileExplorerTreeBatchAdapter() {
+			@Override
+			public BitSet fileExplorerTreeAppendingFiles(final FileExplorerTreeEvent event, final List<File> aFiles) {
+				throw new IllegalStateException("test");
+			}
+		});
+		TreePath subPath = FileExplorerTreeTestSupport.getChildPath(tree, path, "sub");
+		FileExplorerTreeTestSupport.expand(tree, subPath);
+		assertEquals(0, FileExplorerTreeTestSupport.getChildNames(tree, subPath).size());
+	}
+
+	private static String name(final int aNumber) {
+		return String.format("file%03d.txt", aNumber);
+	}
+
+	private static int number(final String aName) {
+		return Integer.parseInt(aName.substring(4, 7));
+	}
+
+	/**
+	 * このクラスは、判定・通知の内容を記録するリスナーです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	private static class RecordingListener extends FileExplorerTreeBatchAdapter {
+
+		private volatile int appendingCount;
+		private final List<String> offered = Collections.synchronizedList(new ArrayList<String>());
+		private final List<String> appended = Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public BitSet fileExplorerTreeAppendingFiles(final FileExplorerTreeEvent event, final List<File> aFiles) {
+			appendingCount++;
+			BitSet accepts = new BitSet(aFiles.size());
+			for (int i = 0; i < aFiles.size(); i++) {
+				String name = aFiles.get(i).getName();
+				offered.add(name);
+				if (name.startsWith("file") && accept(number(name))) {
+					accepts.set(i);
+				}
+			}
+			return accepts;
+		}
+
+		@Override
+		public void fileExplorerTreeAppendedFiles(final FileExplorerTreeEvent event, final List<File> aFiles) {
+			for (File file : aFiles) {
+				appended.add(file.getName());
+			}
+		}
+
+		protected boolean accept(final int aNumber) {
+			return true;
+		}
+	}
+}
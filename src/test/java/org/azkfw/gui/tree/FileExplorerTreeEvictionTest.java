@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTree}のメモリ量の上限による折りたたまれたサブツリーの破棄をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeEvictionTest {
+
+	/** サブディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 5;
+	/** サブディレクトリごとのファイル数 */
+	private static final int FILE_COUNT = 100;
+
+	private Path directory;
+	private FileExplorerTree tree;
+	private TreePath root;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeEvictionTest");
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			Path dir = Files.createDirectory(directory.resolve("dir" + i));
+			for (int j = 0; j < FILE_COUNT; j++) {
+				Files.createFile(dir.resolve(String.format("file%05d.txt", j)));
+			}
+		}
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		root = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, root);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 上限を超えた場合、折りたたんだ順(再度展開したものは後回し)にサブツリーが破棄されることを確認する。
+	 */
+	@Test
+	public void testEvictLeastRecentlyCollapsed() throws Exception {
+		long before = tree.getRetainedMemory();
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			expandAndCollapse("dir" + i);
+		}
+		long subtree = (tree.getRetainedMemory() - before) / DIRECTORY_COUNT;
+		// dir0を再度参照し、最も新しくする
+		expandAndCollapse("dir0");
+		int nodes = tree.getRetainedNodeCount();
+
+		// 2.5サブツリー分を超えるため、古い順に3件を破棄する
+		setMemoryBudget(tree.getRetainedMemory() - subtree * 5 / 2);
+		assertEquals(3, tree.getEvictionCount());
+		assertEquals(3 * FILE_COUNT, tree.getEvictedNodeCount());
+		assertEquals(nodes - 3 * FILE_COUNT, tree.getRetainedNodeCount());
+		assertTrue(tree.getRetainedMemory() <= tree.getMemoryBudget());
+		assertEquals(FILE_COUNT, getChildCount("dir0"));
+		assertEquals(0, getChildCount("dir1"));
+		assertEquals(0, getChildCount("dir2"));
+		assertEquals(0, getChildCount("dir3"));
+		assertEquals(FILE_COUNT, getChildCount("dir4"));
+
+		// 破棄したディレクトリは次の展開で再度読み込まれる
+		TreePath path = FileExplorerTreeTestSupport.getChildPath(tree, root, "dir1");
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(FileExplorerTreeTestSupport.list(directory.resolve("dir1")),
+				FileExplorerTreeTestSupport.getChildNames(tree, path));
+	}
+
+	/**
+	 * 展開中のディレクトリと、選択中のノードの上位のディレクトリが破棄されないことを確認する。
+	 */
+	@Test
+	public void testKeepExpandedAndSelected() throws Exception {
+		final TreePath expanded = FileExplorerTreeTestSupport.getChildPath(tree, root, "dir0");
+		FileExplorerTreeTestSupport.expand(tree, expanded);
+		final TreePath selectedParent = FileExplorerTreeTestSupport.getChildPath(tree, root, "dir1");
+		FileExplorerTreeTestSupport.expand(tree, selectedParent);
+		final TreePath selected = FileExplorerTreeTestSupport.getChildPath(tree, selectedParent, "file00050.txt");
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSelectionPath(selected);
+				return null;
+			}
+		});
+		// 折りたたむと、選択は折りたたんだディレクトリへ移る
+		collapse(selectedParent);
+		expandAndCollapse("dir2");
+
+		setMemoryBudget(1);
+		assertEquals(1, tree.getEvictionCount());
+		assertEquals(FILE_COUNT, getChildCount("dir0"));
+		assertEquals(FILE_COUNT, getChildCount("dir1"));
+		assertEquals(0, getChildCount("dir2"));
+		assertTrue(FileExplorerTreeTestSupport.invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return tree.isExpanded(expanded) && selectedParent.equals(tree.getSelectionPath());
+			}
+		}));
+	}
+
+	/**
+	 * 推定メモリ量に展開済みディレクトリの状態・ノード未生成の一覧・名前索引が含まれることを確認する。
+	 */
+	@Test
+	public void testRetainedMemoryEstimate() throws Exception {
+		int page = FILE_COUNT / 4;
+		// 名前はすべて"file00000.txt"と同じ長さ
+		int chars = "file00000.txt".length();
+		tree.setPageSize(page);
+		long before = tree.getRetainedMemory();
+		FileExplorerTreeTestSupport.expand(tree, FileExplorerTreeTestSupport.getChildPath(tree, root, "dir0"));
+		long expected = FileExplorerTree.ESTIMATED_DIRECTORY_BYTES
+				+ page * (FileExplorerTree.ESTIMATED_NODE_BYTES + 2 * chars)
+				+ (FILE_COUNT - page) * (FileExplorerTree.ESTIMATED_PAGE_ENTRY_BYTES + 2 * chars);
+		assertEquals(expected, tree.getRetainedMemory() - before);
+
+		before = tree.getRetainedMemory();
+		final int nodes = tree.getRetainedNodeCount();
+		setFilter(new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "file"));
+		assertEquals((long) FileExplorerTree.ESTIMATED_INDEX_BYTES * nodes, tree.getRetainedMemory() - before);
+		setFilter(null);
+		assertEquals(before, tree.getRetainedMemory());
+	}
+
+	private void expandAndCollapse(final String aName) throws Exception {
+		TreePath path = FileExplorerTreeTestSupport.getChildPath(tree, root, aName);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		collapse(path);
+	}
+
+	private void collapse(final TreePath aPath) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.collapsePath(aPath);
+				return null;
+			}
+		});
+	}
+
+	private void setMemoryBudget(final long aBytes) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setMemoryBudget(aBytes);
+				return null;
+			}
+		});
+	}
+
+	private void setFilter(final FileExplorerTreeFilter aFilter) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setFilter(aFilter);
+				return null;
+			}
+		});
+	}
+
+	private int getChildCount(final String aName) throws Exception {
+		return FileExplorerTreeTestSupport.getChildNames(tree, FileExplorerTreeTestSupport.getChildPath(tree, root, aName))
+				.size();
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import javax.swing.tree.TreePath;
+
+/**
+ * このクラスは、100万件のノードの絞り込みにかかる時間を計測するクラスです。
+ * <p>
+ * 実行時間は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。
+ * 最初の絞り込みは名前索引の生成を含むため、2回目以降と分けて出力します。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class FileExplorerTreeFilterBenchmark {
+
+	/** ノード数 */
+	private static final int NODE_COUNT = 1000000;
+	/** 絞り込む文字列 */
+	private static final String[] TEXTS = { "12345", "99999", "0000000", "file00", "7.txt" };
+	/** 計測する実行回数 */
+	private static final int ITERATION = 5;
+
+	private FileExplorerTreeFilterBenchmark() {
+	}
+
+	/**
+	 * 100万件のノードを絞り込み、実行時間を出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 * @throws Exception 計測に失敗した場合
+	 */
+	public static void main(final String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		Path directory = Files.createTempDirectory("FileExplorerTreeFilterBenchmark");
+		final FileExplorerTree tree = FileExplorerTreeTestSupport.createTree(directory);
+		try {
+			TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+			FileExplorerTreeTestSupport.openLoaded(path, directory, FileExplorerTreeFilterTest.createEntries(NODE_COUNT));
+
+			long start = System.nanoTime();
+			setFilter(tree, TEXTS[0]);
+			System.out.println(String.format("filter %-10s %8.1f ms (first, builds the index; %d matches of %d nodes)",
+					TEXTS[0], (System.nanoTime() - start) / 1000000.0, tree.getFilterMatchCount(), NODE_COUNT));
+
+			for (String text : TEXTS) {
+				start = System.nanoTime();
+				for (int i = 0; i < ITERATION; i++) {
+					setFilter(tree, text);
+				}
+				System.out.println(String.format("filter %-10s %8.1f ms/op (%d matches of %d nodes)", text,
+						(System.nanoTime() - start) / 1000000.0 / ITERATION, tree.getFilterMatchCount(), NODE_COUNT));
+			}
+
+			start = System.nanoTime();
+			setFilter(tree, null);
+			System.out.println(String.format("filter %-10s %8.1f ms (clear)", "-", (System.nanoTime() - start) / 1000000.0));
+		} finally {
+			tree.dispose();
+			FileExplorerTreeTestSupport.delete(directory);
+		}
+	}
+
+	private static void setFilter(final FileExplorerTree aTree, final String aText) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				aTree.setFilter((null == aText) ? null : new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING,
+						aText));
+				return null;
+			}
+		});
+	}
+}
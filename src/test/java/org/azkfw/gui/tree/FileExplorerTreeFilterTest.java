@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTree}の絞り込みをテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeFilterTest {
+
+	/** 大量のノードを絞り込む場合のノード数 */
+	private static final int LARGE_COUNT = 1000000;
+	/** 通常ファイルのフラグ */
+	private static final int FLAG_FILE = 0x02;
+
+	private Path directory;
+	private FileExplorerTree tree;
+	private TreePath path;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeFilterTest");
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		path = FileExplorerTreeTestSupport.getRootPath(tree);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 名前索引が絞り込み中のみ保持され、絞り込み中に追加されたノードが索引に反映されることを確認する。
+	 */
+	@Test
+	public void testIndexOnlyWhileFiltering() throws Exception {
+		for (String name : new String[] { "apple.txt", "banana.txt", "cherry.txt" }) {
+			Files.createFile(directory.resolve(name));
+		}
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertNull(FileExplorerTreeTestSupport.getField(tree, "nameIndex"));
+
+		setFilter(new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, "an"));
+		assertNotNull(FileExplorerTreeTestSupport.getField(tree, "nameIndex"));
+		assertEquals(Arrays.asList("banana.txt"), FileExplorerTreeTestSupport.getChildNames(tree, path));
+
+		Files.createFile(directory.resolve("mango.txt"));
+		long timeout = System.currentTimeMillis() + 10000;
+		List<String> names = null;
+		while (System.currentTimeMillis() < timeout) {
+			names = FileExplorerTreeTestSupport.getChildNames(tree, path);
+			if (2 == names.size()) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(Arrays.asList("banana.txt", "mango.txt"), names);
+
+		setFilter(null);
+		assertNull(FileExplorerTreeTestSupport.getField(tree, "nameIndex"));
+		assertEquals(4, FileExplorerTreeTestSupport.getChildNames(tree, path).size());
+	}
+
+	/**
+	 * 100万件のノードを絞り込み、一致したノードのみ表示されることを確認する。
+	 * <p>
+	 * 実行時間は{@link FileExplorerTreeFilterBenchmark}で計測します。
+	 * </p>
+	 */
+	@Test
+	public void testMillionNodes() throws Exception {
+		List<FileExplorerEntry> entries = createEntries(LARGE_COUNT);
+		FileExplorerTreeTestSupport.openLoaded(path, directory, entries);
+		assertEquals(LARGE_COUNT, tree.getRetainedNodeCount());
+		assertNull(FileExplorerTreeTestSupport.getField(tree, "nameIndex"));
+
+		for (String text : new String[] { "12345", "99999", "0000000" }) {
+			setFilter(new FileExplorerTreeFilter(FileExplorerTreeFilter.Mode.SUBSTRING, text));
+			List<String> expected = new ArrayList<String>();
+			for (FileExplorerEntry entry : entries) {
+				if (entry.getName().contains(text)) {
+					expected.add(entry.getName());
+				}
+			}
+			assertEquals(expected.size(), tree.getFilterMatchCount());
+			assertEquals(expected, FileExplorerTreeTestSupport.getChildNames(tree, path));
+		}
+		assertEquals(LARGE_COUNT, ((FileExplorerNameIndex) FileExplorerTreeTestSupport.getField(tree, "nameIndex"))
+				.getNodeCount());
+
+		setFilter(null);
+		assertNull(FileExplorerTreeTestSupport.getField(tree, "nameIndex"));
+		assertEquals(LARGE_COUNT, FileExplorerTreeTestSupport.getChildNames(tree, path).size());
+	}
+
+	/**
+	 * 名前順のファイル属性一覧を生成する。
+	 * 
+	 * @param aCount ファイル数
+	 * @return ファイル属性一覧
+	 */
+	static List<FileExplorerEntry> createEntries(final int aCount) {
+		long now = System.currentTimeMillis();
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(aCount);
+		for (int i = 0; i < aCount; i++) {
+			entries.add(new FileExplorerEntry(String.format("file%07d.txt", i), FLAG_FILE, i, now));
+		}
+		return entries;
+	}
+
+	private void setFilter(final FileExplorerTreeFilter aFilter) throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setFilter(aFilter);
+				return null;
+			}
+		});
+	}
+}
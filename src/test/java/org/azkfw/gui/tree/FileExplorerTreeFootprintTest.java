@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.MutableTreeNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、ファイルエクスプローラツリーのノードあたりのメモリ使用量をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeFootprintTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 100000;
+	/** 通常ファイルのフラグ */
+	private static final int FLAG_FILE = 0x02;
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeFootprintTest");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 10万件のファイルのノードあたりのメモリ使用量を、変更前のノード構成と比較する。
+	 * <p>
+	 * ノード・ファイル属性・名前の文字列に加え、絞り込み中に生成される名前索引を計測します。
+	 * ツリーの表示行のキャッシュは含みません。
+	 * 名前索引は絞り込み中のみ保持されるため、絞り込んでいない場合のノードの構成が小さいことを確認します。
+	 * 名前索引を含めた絞り込み中の合計は、変更前の構成より大きくなります。
+	 * </p>
+	 */
+	@Test
+	public void testBytesPerNode() throws Exception {
+		long now = System.currentTimeMillis();
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(FILE_COUNT);
+		for (int i = 0; i < FILE_COUNT; i++) {
+			entries.add(new FileExplorerEntry(String.format("file%06d.txt", i), FLAG_FILE, i, now));
+		}
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+
+		long base = usedMemory();
+		DefaultMutableTreeNode baseline = createBaseline(entries);
+		long baselineBytes = (usedMemory() - base) / FILE_COUNT;
+		assertEquals(FILE_COUNT, baseline.getChildCount());
+		baseline = null;
+
+		FileExplorerNameTable nameTable = new FileExplorerNameTable();
+		base = usedMemory();
+		DefaultMutableTreeNode current = createCurrent(entries, nameTable);
+		long currentBytes = (usedMemory() - base) / FILE_COUNT;
+		assertEquals(FILE_COUNT, current.getChildCount());
+
+		FileExplorerNameIndex nameIndex = new FileExplorerNameIndex();
+		base = usedMemory();
+		for (int i = 0; i < current.getChildCount(); i++) {
+			DefaultMutableTreeNode node = (DefaultMutableTreeNode) current.getChildAt(i);
+			nameIndex.add(((FileExplorerEntry) node.getUserObject()).getName(), node);
+		}
+		long indexBytes = (usedMemory() - base) / FILE_COUNT;
+		assertEquals(FILE_COUNT, nameIndex.getNodeCount());
+		// 計測中に一覧・ノード・名前テーブルが回収されないよう、計測後まで参照する
+		assertEquals(FILE_COUNT, entries.size());
+		assertEquals(FILE_COUNT, current.getChildCount());
+		assertEquals("file000000.txt", nameTable.intern("file000000.txt"));
+
+		assertTrue(String.format("current %d >= baseline %d", currentBytes, baselineBytes), currentBytes < baselineBytes);
+		assertTrue(String.format("index %d bytes/node", indexBytes), 0 < indexBytes);
+	}
+
+	/**
+	 * 変更前の構成(名前の文字列・{@link File}・ファイル属性を持つノード)で子ノードを生成する。
+	 * 
+	 * @param aEntries ファイル属性一覧
+	 * @return 親ノード
+	 */
+	private DefaultMutableTreeNode createBaseline(final List<FileExplorerEntry> aEntries) {
+		File dir = directory.toFile();
+		DefaultMutableTreeNode parent = new DefaultMutableTreeNode("ROOT");
+		for (FileExplorerEntry entry : aEntries) {
+			// 変更前は名前テーブルを使用しないため、名前ごとに文字列を生成する
+			String name = new String(entry.getName());
+			parent.add(new BaselineNode(new File(dir, name), copy(entry, name)));
+		}
+		return parent;
+	}
+
+	/**
+	 * 現在の構成(ファイル属性をユーザーオブジェクトとするノード)で子ノードを生成する。
+	 * 
+	 * @param aEntries ファイル属性一覧
+	 * @param aNameTable 名前テーブル
+	 * @return 親ノード
+	 * @throws Exception 生成に失敗した場合
+	 */
+	private DefaultMutableTreeNode createCurrent(final List<FileExplorerEntry> aEntries, final FileExplorerNameTable aNameTable)
+			throws Exception {
+		Class<?> clazz = Class.forName(FileExplorerTree.class.getName() + "$FileExplorerFileTreeNode");
+		Constructor<?> constructor = clazz.getDeclaredConstructor(FileExplorerTree.class, FileExplorerEntry.class);
+		constructor.setAccessible(true);
+		DefaultMutableTreeNode parent = new DefaultMutableTreeNode("ROOT");
+		for (FileExplorerEntry entry : aEntries) {
+			String name = aNameTable.intern(new String(entry.getName()));
+			parent.add((MutableTreeNode) constructor.newInstance(tree, copy(entry, name)));
+		}
+		return parent;
+	}
+
+	private static FileExplorerEntry copy(final FileExplorerEntry aEntry, final String aName) {
+		return new FileExplorerEntry(aName, aEntry.getFlags(), aEntry.getSize(), aEntry.getLastModified());
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(50);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+
+	/**
+	 * このクラスは、変更前のファイル用のツリーノードと同じフィールドを持つクラスです。
+	 * 
+	 * @since 1.0.0
+	 * @version 1.0.0 2014/11/20
+	 * @author kawakicchi
+	 */
+	@SuppressWarnings("unused")
+	private static class BaselineNode extends DefaultMutableTreeNode {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		private boolean openFlag;
+		private transient Object loader;
+		private DefaultMutableTreeNode loadingNode;
+		private File directory;
+		private Map<String, FileExplorerEntry> pendingChanges;
+		private List<FileExplorerEntry> pageEntries;
+		private DefaultMutableTreeNode moreNode;
+
+		private File file;
+		private FileExplorerEntry entry;
+
+		public BaselineNode(final File aFile, final FileExplorerEntry aEntry) {
+			super(aEntry.getName());
+			file = aFile;
+			entry = aEntry;
+		}
+	}
+}
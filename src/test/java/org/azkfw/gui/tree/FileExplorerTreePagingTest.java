@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTree}のページングをテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreePagingTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 1000;
+
+	/** ページあたりの子ノード数 */
+	private static final int PAGE_SIZE = 100;
+
+	private Path directory;
+	private FileExplorerTree tree;
+	private TreePath path;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreePagingTest");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			Files.createFile(directory.resolve(String.format("file%05d.txt", i)));
+		}
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		tree.setPageSize(PAGE_SIZE);
+		path = FileExplorerTreeTestSupport.getRootPath(tree);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * ページを生成しては折りたたむ操作を繰り返しても、保持する子ノード数が1ページ分を超えないことを確認する。
+	 */
+	@Test
+	public void testRetainedNodeCountBounded() throws Exception {
+		for (int round = 0; round < 10; round++) {
+			FileExplorerTreeTestSupport.expand(tree, path);
+			assertEquals(PAGE_SIZE, tree.getRetainedNodeCount());
+			for (int i = 0; i < 5; i++) {
+				FileExplorerTreeTestSupport.invokeNode(path, "loadNextPage");
+			}
+			assertEquals(PAGE_SIZE * 6, tree.getRetainedNodeCount());
+			collapse();
+			assertEquals(PAGE_SIZE, tree.getRetainedNodeCount());
+		}
+
+		FileExplorerTreeTestSupport.expand(tree, path);
+		for (int i = 0; i < FILE_COUNT / PAGE_SIZE; i++) {
+			FileExplorerTreeTestSupport.invokeNode(path, "loadNextPage");
+		}
+		assertEquals(FileExplorerTreeTestSupport.list(directory), FileExplorerTreeTestSupport.getChildNames(tree, path));
+	}
+
+	/**
+	 * 選択中のノードを含む子ノードまでは、折りたたんだ後も維持されることを確認する。
+	 */
+	@Test
+	public void testSelectedNodeRetained() throws Exception {
+		FileExplorerTreeTestSupport.expand(tree, path);
+		FileExplorerTreeTestSupport.invokeNode(path, "loadNextPage");
+		FileExplorerTreeTestSupport.invokeNode(path, "loadNextPage");
+		final TreePath selected = FileExplorerTreeTestSupport.getChildPath(tree, path, "file00150.txt");
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSelectionPath(selected);
+				return null;
+			}
+		});
+		collapse();
+		assertEquals(151, tree.getRetainedNodeCount());
+
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertSame(selected.getLastPathComponent(),
+				FileExplorerTreeTestSupport.getChildPath(tree, path, "file00150.txt").getLastPathComponent());
+		List<String> names = FileExplorerTreeTestSupport.getChildNames(tree, path);
+		assertEquals(152, names.size());
+		assertTrue(names.get(151).contains("849"));
+	}
+
+	private void collapse() throws Exception {
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.collapsePath(path);
+				return null;
+			}
+		});
+	}
+}
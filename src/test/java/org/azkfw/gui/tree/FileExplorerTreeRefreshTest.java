@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、展開済みディレクトリの再読み込みをテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeRefreshTest {
+
+	/** ファイル数 */
+	private static final int FILE_COUNT = 50000;
+	/** 展開するサブディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 10;
+	/** 削除・追加するファイル数(それぞれ全体の0.5%) */
+	private static final int CHANGE_COUNT = FILE_COUNT / 200;
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeRefreshTest");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			Files.createFile(directory.resolve(String.format("file%05d.txt", i)));
+		}
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			Path dir = Files.createDirectory(directory.resolve(String.format("dir%02d", i)));
+			Files.createFile(dir.resolve("child.txt"));
+		}
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		// 再読み込みによるマージのみを確認するため、監視による反映は止める
+		FileExplorerTreeTestSupport.closeWatcher(tree);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 1%のファイルが変更されたディレクトリを再読み込みし、変更された行のみ通知されることを確認する。
+	 */
+	@Test
+	public void testRefreshChangedRowsOnly() throws Exception {
+		final TreePath root = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, root);
+		final List<TreePath> expanded = new ArrayList<TreePath>();
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			TreePath path = FileExplorerTreeTestSupport.getChildPath(tree, root, String.format("dir%02d", i));
+			FileExplorerTreeTestSupport.expand(tree, path);
+			expanded.add(path);
+		}
+
+		for (int i = 0; i < CHANGE_COUNT; i++) {
+			Files.delete(directory.resolve(String.format("file%05d.txt", i * 200)));
+			Files.createFile(directory.resolve(String.format("file%05d.new", i * 200)));
+		}
+
+		final AtomicInteger inserted = new AtomicInteger(0);
+		final AtomicInteger removed = new AtomicInteger(0);
+		final AtomicInteger structureChanged = new AtomicInteger(0);
+		final AtomicInteger otherInserted = new AtomicInteger(0);
+		final AtomicInteger otherRemoved = new AtomicInteger(0);
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.getModel().addTreeModelListener(new TreeModelListener() {
+					@Override
+					public void treeNodesInserted(final TreeModelEvent event) {
+						if (root.equals(event.getTreePath())) {
+							inserted.addAndGet(event.getChildIndices().length);
+						} else {
+							otherInserted.addAndGet(event.getChildIndices().length);
+						}
+					}
+
+					@Override
+					public void treeNodesRemoved(final TreeModelEvent event) {
+						if (root.equals(event.getTreePath())) {
+							removed.addAndGet(event.getChildIndices().length);
+						} else {
+							otherRemoved.addAndGet(event.getChildIndices().length);
+						}
+					}
+
+					@Override
+					public void treeNodesChanged(final TreeModelEvent event) {
+					}
+
+					@Override
+					public void treeStructureChanged(final TreeModelEvent event) {
+						structureChanged.incrementAndGet();
+					}
+				});
+				return null;
+			}
+		});
+
+		FileExplorerTreeTestSupport.refresh(tree, root);
+
+		assertEquals(CHANGE_COUNT, inserted.get());
+		assertEquals(CHANGE_COUNT, removed.get());
+		assertEquals(0, otherInserted.get());
+		assertEquals(0, otherRemoved.get());
+		assertEquals(0, structureChanged.get());
+		assertEquals(FileExplorerTreeTestSupport.list(directory), FileExplorerTreeTestSupport.getChildNames(tree, root));
+
+		for (final TreePath path : expanded) {
+			TreePath current = FileExplorerTreeTestSupport.getChildPath(tree, root, path.getLastPathComponent().toString());
+			assertSame(path.getLastPathComponent(), current.getLastPathComponent());
+			assertTrue(FileExplorerTreeTestSupport.invoke(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return tree.isExpanded(path);
+				}
+			}));
+		}
+	}
+}
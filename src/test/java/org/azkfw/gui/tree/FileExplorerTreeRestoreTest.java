@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTree}の展開・選択状態の復元をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeRestoreTest {
+
+	/** 復元するディレクトリ数 */
+	private static final int DIRECTORY_COUNT = 6;
+	/** イベントディスパッチスレッドの許容する応答時間(ミリ秒) */
+	private static final long EDT_LATENCY = 100;
+
+	private Path directory;
+	private FileExplorerTree tree;
+	private TreePath root;
+
+	/** 一覧の読み込みを止めるラッチ */
+	private CountDownLatch block;
+	/** 読み込みを止めるディレクトリ名の接頭辞 */
+	private volatile String blockPrefix;
+	/** 読み込みを開始したディレクトリ数 */
+	private AtomicInteger listed;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerTreeRestoreTest");
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			Files.createFile(Files.createDirectory(directory.resolve("a" + i)).resolve("child.txt"));
+		}
+		Files.createFile(Files.createDirectory(directory.resolve("b0")).resolve("child.txt"));
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+		root = FileExplorerTreeTestSupport.getRootPath(tree);
+
+		block = new CountDownLatch(1);
+		blockPrefix = "a";
+		listed = new AtomicInteger();
+		final FileExplorerTreeSorter sorter = new FileExplorerTreeSorter() {
+			@Override
+			FileExplorerTreeSorter forDirectory(final Path aDirectory) {
+				// 一覧の読み込み後、復元用のスレッドで呼び出される
+				String name = aDirectory.getFileName().toString();
+				if (name.startsWith(blockPrefix)) {
+					listed.incrementAndGet();
+					try {
+						block.await();
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return this;
+			}
+
+			@Override
+			protected int compareEntry(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+				return entry1.getName().compareTo(entry2.getName());
+			}
+		};
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSorter(sorter);
+				return null;
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		block.countDown();
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 読み込みが終わらない間もイベントディスパッチスレッドが応答し、読み込み後に展開・選択状態が反映されることを確認する。
+	 */
+	@Test
+	public void testRestoreWithoutBlockingEdt() throws Exception {
+		FileExplorerTreeState state = createState("a");
+		final Future<?> future = restore(state);
+
+		assertEdtResponsive();
+		assertFalse(future.isDone());
+		assertFalse(isExpanded("a0"));
+		assertTrue(noRestoreThread());
+
+		block.countDown();
+		future.get(30, TimeUnit.SECONDS);
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			assertTrue(isExpanded("a" + i));
+		}
+		assertEquals(Arrays.asList("child.txt"),
+				FileExplorerTreeTestSupport.getChildNames(tree, FileExplorerTreeTestSupport.getChildPath(tree, root, "a0")));
+		assertEquals(FileExplorerTreeTestSupport.getChildPath(tree, root, "a0"), getSelectionPath());
+	}
+
+	/**
+	 * 続けて復元した場合、先の復元がキャンセルされ、未着手の読み込みが実行されないことを確認する。
+	 */
+	@Test
+	public void testSecondRestoreCancelsFirst() throws Exception {
+		Future<?> first = restore(createState("a"));
+		// ディレクトリ読み込み用のエグゼキューターのスレッド数まで読み込みが進む
+		long deadline = System.currentTimeMillis() + 10000;
+		while (listed.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		int started = listed.get();
+		assertTrue(0 < started && started < DIRECTORY_COUNT);
+
+		Future<?> second = restore(createState("b"));
+		assertTrue(first.isCancelled());
+		second.get(30, TimeUnit.SECONDS);
+		// 止めていた読み込みは割り込みで終了し、残りは実行されない
+		Thread.sleep(EDT_LATENCY);
+		assertEquals(started, listed.get());
+
+		assertTrue(isExpanded("b0"));
+		for (int i = 0; i < DIRECTORY_COUNT; i++) {
+			assertFalse(isExpanded("a" + i));
+		}
+		assertEquals(FileExplorerTreeTestSupport.getChildPath(tree, root, "b0"), getSelectionPath());
+	}
+
+	/**
+	 * ルートと、接頭辞が一致するディレクトリを展開し、先頭のディレクトリを選択した状態を生成する。
+	 */
+	private FileExplorerTreeState createState(final String aPrefix) throws Exception {
+		String rootName = root.getLastPathComponent().toString();
+		FileExplorerTreeState state = new FileExplorerTreeState();
+		state.addExpanded(Arrays.asList(rootName));
+		List<String> names = FileExplorerTreeTestSupport.list(directory);
+		boolean selected = false;
+		for (String name : names) {
+			if (name.startsWith(aPrefix)) {
+				state.addExpanded(Arrays.asList(rootName, name));
+				if (!selected) {
+					state.addSelected(Arrays.asList(rootName, name));
+					selected = true;
+				}
+			}
+		}
+		return state;
+	}
+
+	private Future<?> restore(final FileExplorerTreeState aState) throws Exception {
+		long start = System.currentTimeMillis();
+		Future<?> future = FileExplorerTreeTestSupport.invoke(new Callable<Future<?>>() {
+			@Override
+			public Future<?> call() {
+				return tree.restoreExpansionState(aState);
+			}
+		});
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue("elapsed " + elapsed, elapsed < EDT_LATENCY);
+		return future;
+	}
+
+	private void assertEdtResponsive() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			long start = System.currentTimeMillis();
+			FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+				@Override
+				public Void call() {
+					return null;
+				}
+			});
+			long elapsed = System.currentTimeMillis() - start;
+			assertTrue("elapsed " + elapsed, elapsed < EDT_LATENCY);
+			Thread.sleep(20);
+		}
+	}
+
+	private static boolean noRestoreThread() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("FileExplorerTree-restore")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isExpanded(final String aName) throws Exception {
+		final TreePath path = FileExplorerTreeTestSupport.getChildPath(tree, root, aName);
+		return FileExplorerTreeTestSupport.invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return tree.isExpanded(path);
+			}
+		});
+	}
+
+	private TreePath getSelectionPath() throws Exception {
+		return FileExplorerTreeTestSupport.invoke(new Callable<TreePath>() {
+			@Override
+			public TreePath call() {
+				return tree.getSelectionPath();
+			}
+		});
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * このクラスは、{@link FileExplorerTreeSorter}のソーターごとの実行時間を計測するクラスです。
+ * <p>
+ * 実行時間は環境に依存するため、単体テストには含めず{@link #main(String[])}から実行します。
+ * 照合順序は{@link java.text.Collator}で都度比較する場合を基準とします。
+ * </p>
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public final class FileExplorerTreeSorterBenchmark {
+
+	/** 計測前の実行回数 */
+	private static final int WARMUP = 3;
+	/** 計測する実行回数 */
+	private static final int ITERATION = 5;
+
+	private FileExplorerTreeSorterBenchmark() {
+	}
+
+	/**
+	 * 10万件の名前を各ソーターでソートし、平均実行時間を出力する。
+	 * 
+	 * @param args 引数(未使用)
+	 */
+	public static void main(final String[] args) {
+		final List<FileExplorerEntry> entries = FileExplorerTreeSorterTest.createEntries();
+		final Comparator<FileExplorerEntry> plainCollator = FileExplorerTreeSorterTest.createPlainCollator();
+
+		// 都度比較する照合順序は遅いため、1回のみ計測する
+		print("collator(Collections.sort)", measure(new Runnable() {
+			@Override
+			public void run() {
+				Collections.sort(new ArrayList<FileExplorerEntry>(entries), plainCollator);
+			}
+		}, 0, 1));
+		for (Map.Entry<String, FileExplorerTreeSorter> sorter : FileExplorerTreeSorterTest.createSorters().entrySet()) {
+			final FileExplorerTreeSorter s = sorter.getValue();
+			print(sorter.getKey(), measure(new Runnable() {
+				@Override
+				public void run() {
+					s.sort(new ArrayList<FileExplorerEntry>(entries));
+				}
+			}, WARMUP, ITERATION));
+		}
+	}
+
+	/**
+	 * 計測前に実行した後、平均実行時間を計測する。
+	 * 
+	 * @param aTask 処理
+	 * @param aWarmup 計測前の実行回数
+	 * @param aIteration 計測する実行回数
+	 * @return 平均実行時間(ミリ秒)
+	 */
+	private static double measure(final Runnable aTask, final int aWarmup, final int aIteration) {
+		for (int i = 0; i < aWarmup; i++) {
+			aTask.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < aIteration; i++) {
+			aTask.run();
+		}
+		return (System.nanoTime() - start) / 1000000.0 / aIteration;
+	}
+
+	private static void print(final String aName, final double aMillis) {
+		System.out.println(String.format("sort %-28s %8.1f ms/op (%d names)", aName, aMillis,
+				FileExplorerTreeSorterTest.NAME_COUNT));
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerTreeSorter}の並び順を確認するクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerTreeSorterTest {
+
+	/** 名前数 */
+	static final int NAME_COUNT = 100000;
+
+	/** 名前の接頭辞 */
+	private static final String[] PREFIXES = { "file", "File", "FILE", "report_", "IMG_", "ファイル", "データ", "ﾃﾞｰﾀ", "資料",
+			"Éclair", "eclair" };
+	/** 名前の拡張子 */
+	private static final String[] EXTENSIONS = { ".txt", ".jpg", ".JPG", ".xlsx", "" };
+
+	/**
+	 * 自然順で数値部分が数値として比較されることを確認する。
+	 */
+	@Test
+	public void testNaturalOrder() {
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>();
+		for (String name : new String[] { "file10", "file2", "File1", "file02", "dir" }) {
+			entries.add(new FileExplorerEntry(name, name.startsWith("dir") ? 0x01 : 0x02, 0, 0));
+		}
+		FileExplorerTreeSorter.getNaturalSorter().sort(entries);
+		assertEquals(Arrays.asList("dir", "File1", "file2", "file02", "file10"), names(entries));
+	}
+
+	/**
+	 * 10万件の名前を各ソーターでソートし、並び順を確認する。
+	 * <p>
+	 * 照合キーを事前に計算するソーターは、{@link Collator}で都度比較する場合と同じ並び順になることを確認します。
+	 * 実行時間の比較は{@link FileExplorerTreeSorterBenchmark}で行います。
+	 * </p>
+	 */
+	@Test
+	public void testOrdering() {
+		List<FileExplorerEntry> entries = createEntries();
+		for (Map.Entry<String, FileExplorerTreeSorter> sorter : createSorters().entrySet()) {
+			FileExplorerTreeSorter s = sorter.getValue();
+			List<FileExplorerEntry> lst = new ArrayList<FileExplorerEntry>(entries);
+			s.sort(lst);
+			for (int i = 1; i < lst.size(); i++) {
+				assertTrue(sorter.getKey() + " at " + i, 0 >= s.compare(lst.get(i - 1), lst.get(i)));
+			}
+		}
+
+		List<FileExplorerEntry> expected = new ArrayList<FileExplorerEntry>(entries);
+		Collections.sort(expected, createPlainCollator());
+		List<FileExplorerEntry> actual = new ArrayList<FileExplorerEntry>(entries);
+		FileExplorerTreeSorter.createCollationSorter(Locale.JAPANESE).sort(actual);
+		assertEquals(names(expected), names(actual));
+	}
+
+	/**
+	 * 比較するソーターを生成する。
+	 * 
+	 * @return 名前とソーターのマップ
+	 */
+	static Map<String, FileExplorerTreeSorter> createSorters() {
+		Map<String, FileExplorerTreeSorter> sorters = new LinkedHashMap<String, FileExplorerTreeSorter>();
+		sorters.put("name", FileExplorerTreeSorter.getNameSorter());
+		sorters.put("natural", FileExplorerTreeSorter.getNaturalSorter());
+		sorters.put("size", FileExplorerTreeSorter.getSizeSorter());
+		sorters.put("lastModified", FileExplorerTreeSorter.getLastModifiedSorter());
+		sorters.put("collationKey", FileExplorerTreeSorter.createCollationSorter(Locale.JAPANESE));
+		return sorters;
+	}
+
+	/**
+	 * {@link Collator}で都度比較するコンパレーターを生成する。
+	 * 
+	 * @return コンパレーター
+	 */
+	static Comparator<FileExplorerEntry> createPlainCollator() {
+		final Collator collator = Collator.getInstance(Locale.JAPANESE);
+		return new Comparator<FileExplorerEntry>() {
+			@Override
+			public int compare(final FileExplorerEntry entry1, final FileExplorerEntry entry2) {
+				if (entry1.isFile() != entry2.isFile()) {
+					return (entry1.isFile()) ? 1 : -1;
+				}
+				int result = collator.compare(entry1.getName(), entry2.getName());
+				return (0 != result) ? result : entry1.getName().compareTo(entry2.getName());
+			}
+		};
+	}
+
+	/**
+	 * ランダムな名前・属性のファイル属性一覧を生成する。
+	 * 
+	 * @return ファイル属性一覧
+	 */
+	static List<FileExplorerEntry> createEntries() {
+		Random random = new Random(0);
+		long now = System.currentTimeMillis();
+		List<FileExplorerEntry> entries = new ArrayList<FileExplorerEntry>(NAME_COUNT);
+		for (int i = 0; i < NAME_COUNT; i++) {
+			String name = PREFIXES[random.nextInt(PREFIXES.length)] + random.nextInt(NAME_COUNT)
+					+ EXTENSIONS[random.nextInt(EXTENSIONS.length)] + "#" + i;
+			int flags = (0 == random.nextInt(10)) ? 0x01 : 0x02;
+			entries.add(new FileExplorerEntry(name, flags, random.nextInt(1 << 20), now - random.nextInt(1 << 30)));
+		}
+		return entries;
+	}
+
+	static List<String> names(final List<FileExplorerEntry> aEntries) {
+		List<String> names = new ArrayList<String>(aEntries.size());
+		for (FileExplorerEntry entry : aEntries) {
+			names.add(entry.getName());
+		}
+		return names;
+	}
+}
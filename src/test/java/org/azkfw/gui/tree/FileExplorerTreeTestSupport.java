@@ -0,0 +1,370 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+/**
+ * このクラスは、ファイルエクスプローラツリーのテスト用の補助クラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+final class FileExplorerTreeTestSupport {
+
+	/** 読み込み中ノードの表示名 */
+	private static final String LOADING = "読み込み中…";
+
+	private FileExplorerTreeTestSupport() {
+	}
+
+	/**
+	 * 指定ディレクトリをルートに表示するツリーを生成する。
+	 * 
+	 * @param aRoot ルートディレクトリ
+	 * @return ツリー
+	 * @throws Exception 生成に失敗した場合
+	 */
+	public static FileExplorerTree createTree(final Path aRoot) throws Exception {
+		return invoke(new Callable<FileExplorerTree>() {
+			@Override
+			public FileExplorerTree call() {
+				FileExplorerTree tree = new FileExplorerTree(new FileExplorerTreeRootProvider() {
+					@Override
+					public List<Path> getRoots() {
+						return Collections.singletonList(aRoot);
+					}
+				});
+				tree.addFileExplorerTreeListener(new FileExplorerTreeAdapter() {
+				});
+				return tree;
+			}
+		});
+	}
+
+	/**
+	 * ルートディレクトリのノードのツリーパスを取得する。
+	 * 
+	 * @param aTree ツリー
+	 * @return ツリーパス
+	 * @throws Exception 取得に失敗した場合
+	 */
+	public static TreePath getRootPath(final FileExplorerTree aTree) throws Exception {
+		return invoke(new Callable<TreePath>() {
+			@Override
+			public TreePath call() {
+				Object root = aTree.getModel().getRoot();
+				return new TreePath(new Object[] { root, aTree.getModel().getChild(root, 0) });
+			}
+		});
+	}
+
+	/**
+	 * ノードを展開し、読み込みが完了するまで待機する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aPath ツリーパス
+	 * @throws Exception 展開に失敗した場合
+	 */
+	public static void expand(final FileExplorerTree aTree, final TreePath aPath) throws Exception {
+		invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				aTree.expandPath(aPath);
+				return null;
+			}
+		});
+		long deadline = System.currentTimeMillis() + 30000;
+		while (isLoading(aTree, aPath)) {
+			if (deadline < System.currentTimeMillis()) {
+				throw new AssertionError("Loading timed out: " + aPath);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * 子ノードが読み込み中か判断する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aPath ツリーパス
+	 * @return 読み込み中の場合、<code>true</code>
+	 * @throws Exception 判断に失敗した場合
+	 */
+	public static boolean isLoading(final FileExplorerTree aTree, final TreePath aPath) throws Exception {
+		return invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				TreeNode node = (TreeNode) aPath.getLastPathComponent();
+				for (int i = 0; i < node.getChildCount(); i++) {
+					if (LOADING.equals(node.getChildAt(i).toString())) {
+						return Boolean.TRUE;
+					}
+				}
+				return Boolean.FALSE;
+			}
+		});
+	}
+
+	/**
+	 * 展開済みのノードを再読み込みし、読み込みが完了するまで待機する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aPath ツリーパス
+	 * @throws Exception 再読み込みに失敗した場合
+	 */
+	public static void refresh(final FileExplorerTree aTree, final TreePath aPath) throws Exception {
+		invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Object node = aPath.getLastPathComponent();
+				Method method = findMethod(node.getClass(), "refresh");
+				method.invoke(node);
+				return null;
+			}
+		});
+		long deadline = System.currentTimeMillis() + 30000;
+		while (isRefreshing(aTree, aPath)) {
+			if (deadline < System.currentTimeMillis()) {
+				throw new AssertionError("Refresh timed out: " + aPath);
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * ノードの引数のないメソッドをイベントディスパッチスレッドで呼び出す。
+	 * 
+	 * @param aPath ノードのツリーパス
+	 * @param aName メソッド名
+	 * @throws Exception 呼び出しに失敗した場合
+	 */
+	public static void invokeNode(final TreePath aPath, final String aName) throws Exception {
+		invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Object node = aPath.getLastPathComponent();
+				findMethod(node.getClass(), aName).invoke(node);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * 読み込み済みの一覧から子ノードを生成し、展開済みの状態にする。
+	 * <p>
+	 * ファイルを作成せずに大量の子ノードを生成する場合に使用します。
+	 * </p>
+	 * 
+	 * @param aPath ノードのツリーパス
+	 * @param aDirectory ノードのディレクトリ
+	 * @param aEntries ソート済みのファイル属性一覧
+	 * @throws Exception 生成に失敗した場合
+	 */
+	public static void openLoaded(final TreePath aPath, final Path aDirectory, final List<FileExplorerEntry> aEntries)
+			throws Exception {
+		invoke(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Object node = aPath.getLastPathComponent();
+				for (Class<?> clazz = node.getClass(); null != clazz; clazz = clazz.getSuperclass()) {
+					for (Method method : clazz.getDeclaredMethods()) {
+						if (method.getName().equals("openLoaded")) {
+							method.setAccessible(true);
+							method.invoke(node, aDirectory, aEntries, Boolean.TRUE, null);
+							return null;
+						}
+					}
+				}
+				throw new NoSuchMethodException("openLoaded");
+			}
+		});
+	}
+
+	private static boolean isRefreshing(final FileExplorerTree aTree, final TreePath aPath) throws Exception {
+		return invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				Object node = aPath.getLastPathComponent();
+				return (Boolean) findMethod(node.getClass(), "isLoading").invoke(node);
+			}
+		});
+	}
+
+	/**
+	 * ツリーのディレクトリ監視を停止する。
+	 * <p>
+	 * 再読み込みのみでノードが更新されることを確認する場合に使用します。
+	 * </p>
+	 * 
+	 * @param aTree ツリー
+	 * @throws Exception 停止に失敗した場合
+	 */
+	public static void closeWatcher(final FileExplorerTree aTree) throws Exception {
+		((FileExplorerWatcher) getField(aTree, "watcher")).close();
+	}
+
+	/**
+	 * ツリーのフィールドの値を取得する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aName フィールド名
+	 * @return 値
+	 * @throws Exception 取得に失敗した場合
+	 */
+	public static Object getField(final FileExplorerTree aTree, final String aName) throws Exception {
+		Field field = FileExplorerTree.class.getDeclaredField(aName);
+		field.setAccessible(true);
+		return field.get(aTree);
+	}
+
+	private static Method findMethod(final Class<?> aClass, final String aName) throws NoSuchMethodException {
+		for (Class<?> clazz = aClass; null != clazz; clazz = clazz.getSuperclass()) {
+			for (Method method : clazz.getDeclaredMethods()) {
+				if (method.getName().equals(aName) && 0 == method.getParameterTypes().length) {
+					method.setAccessible(true);
+					return method;
+				}
+			}
+		}
+		throw new NoSuchMethodException(aName);
+	}
+
+	/**
+	 * 子ノードの表示名一覧を取得する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aPath ツリーパス
+	 * @return 表示名一覧
+	 * @throws Exception 取得に失敗した場合
+	 */
+	public static List<String> getChildNames(final FileExplorerTree aTree, final TreePath aPath) throws Exception {
+		return invoke(new Callable<List<String>>() {
+			@Override
+			public List<String> call() {
+				Object node = aPath.getLastPathComponent();
+				int count = aTree.getModel().getChildCount(node);
+				List<String> names = new ArrayList<String>(count);
+				for (int i = 0; i < count; i++) {
+					names.add(aTree.getModel().getChild(node, i).toString());
+				}
+				return names;
+			}
+		});
+	}
+
+	/**
+	 * 名前が一致する子ノードのツリーパスを取得する。
+	 * 
+	 * @param aTree ツリー
+	 * @param aPath 親ノードのツリーパス
+	 * @param aName 名前
+	 * @return ツリーパス。存在しない場合、<code>null</code>
+	 * @throws Exception 取得に失敗した場合
+	 */
+	public static TreePath getChildPath(final FileExplorerTree aTree, final TreePath aPath, final String aName)
+			throws Exception {
+		return invoke(new Callable<TreePath>() {
+			@Override
+			public TreePath call() {
+				Object node = aPath.getLastPathComponent();
+				for (int i = 0; i < aTree.getModel().getChildCount(node); i++) {
+					Object child = aTree.getModel().getChild(node, i);
+					if (aName.equals(child.toString())) {
+						return aPath.pathByAddingChild(child);
+					}
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * ディレクトリ内のファイル名一覧を名前順に取得する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @return ファイル名一覧
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public static List<String> list(final Path aDirectory) throws IOException {
+		List<String> names = new ArrayList<String>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(aDirectory)) {
+			for (Path path : stream) {
+				names.add(path.getFileName().toString());
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * ディレクトリを子孫とともに削除する。
+	 * 
+	 * @param aDirectory ディレクトリ
+	 * @throws IOException IO操作に起因する問題が発生した場合
+	 */
+	public static void delete(final Path aDirectory) throws IOException {
+		if (null == aDirectory || !Files.exists(aDirectory)) {
+			return;
+		}
+		Files.walkFileTree(aDirectory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(final Path dir, final IOException ex) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * イベントディスパッチスレッドで処理を実行し、完了するまで待機する。
+	 * 
+	 * @param aCallable 処理
+	 * @return 処理結果
+	 * @throws Exception 処理に失敗した場合
+	 */
+	public static <T> T invoke(final Callable<T> aCallable) throws Exception {
+		FutureTask<T> task = new FutureTask<T>(aCallable);
+		SwingUtilities.invokeAndWait(task);
+		return task.get();
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.azkfw.gui.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * このクラスは、{@link FileExplorerWatcher}によるツリーへの変更の反映をテストするクラスです。
+ * 
+ * @since 1.0.0
+ * @version 1.0.0 2014/11/20
+ * @author kawakicchi
+ */
+public class FileExplorerWatcherTest {
+
+	/** ファイルを作成・削除し続ける時間(ミリ秒) */
+	private static final long CHURN_MILLIS = 3000;
+
+	/** 作成・削除するファイル名の種類 */
+	private static final int NAME_COUNT = 2000;
+
+	private Path directory;
+	private FileExplorerTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("FileExplorerWatcherTest");
+		tree = FileExplorerTreeTestSupport.createTree(directory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (null != tree) {
+			tree.dispose();
+		}
+		FileExplorerTreeTestSupport.delete(directory);
+	}
+
+	/**
+	 * 大量のファイルを作成・削除した後、子ノードがディレクトリの内容と一致することを確認する。
+	 */
+	@Test
+	public void testChurn() throws Exception {
+		for (int i = 0; i < NAME_COUNT / 2; i++) {
+			Files.createFile(directory.resolve(name(i)));
+		}
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(FileExplorerTreeTestSupport.list(directory), FileExplorerTreeTestSupport.getChildNames(tree, path));
+
+		Random random = new Random(0);
+		long deadline = System.currentTimeMillis() + CHURN_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			Path file = directory.resolve(name(random.nextInt(NAME_COUNT)));
+			try {
+				if (Files.exists(file)) {
+					Files.delete(file);
+				} else {
+					Files.createFile(file);
+				}
+			} catch (NoSuchFileException ex) {
+				// 競合した操作は無視する
+			}
+		}
+
+		List<String> expected = FileExplorerTreeTestSupport.list(directory);
+		List<String> actual = new ArrayList<String>();
+		long timeout = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < timeout) {
+			actual = FileExplorerTreeTestSupport.getChildNames(tree, path);
+			if (expected.equals(actual)) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * サイズ順の場合、サイズが変更されたファイルが並び順の位置へ移動することを確認する。
+	 */
+	@Test
+	public void testReorderBySize() throws Exception {
+		write("a.txt", 1);
+		write("b.txt", 2);
+		write("c.txt", 3);
+		tree.setSorter(FileExplorerTreeSorter.getSizeSorter());
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(Arrays.asList("a.txt", "b.txt", "c.txt"), FileExplorerTreeTestSupport.getChildNames(tree, path));
+
+		write("a.txt", 10);
+		awaitChildNames(path, Arrays.asList("b.txt", "c.txt", "a.txt"));
+		write("c.txt", 0);
+		awaitChildNames(path, Arrays.asList("c.txt", "b.txt", "a.txt"));
+	}
+
+	/**
+	 * 更新日時順の場合、更新日時が変更されたディレクトリが展開・選択状態を維持したまま移動することを確認する。
+	 */
+	@Test
+	public void testReorderByLastModified() throws Exception {
+		long now = System.currentTimeMillis();
+		Path dir1 = Files.createDirectory(directory.resolve("dir1"));
+		Path dir2 = Files.createDirectory(directory.resolve("dir2"));
+		Files.createFile(dir1.resolve("child.txt"));
+		Files.setLastModifiedTime(dir1, FileTime.fromMillis(now - 20000));
+		Files.setLastModifiedTime(dir2, FileTime.fromMillis(now - 10000));
+		tree.setSorter(FileExplorerTreeSorter.getLastModifiedSorter());
+		final TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(Arrays.asList("dir1", "dir2"), FileExplorerTreeTestSupport.getChildNames(tree, path));
+
+		final TreePath dirPath = FileExplorerTreeTestSupport.getChildPath(tree, path, "dir1");
+		FileExplorerTreeTestSupport.expand(tree, dirPath);
+		final TreePath childPath = FileExplorerTreeTestSupport.getChildPath(tree, dirPath, "child.txt");
+		FileExplorerTreeTestSupport.invoke(new Callable<Void>() {
+			@Override
+			public Void call() {
+				tree.setSelectionPath(childPath);
+				return null;
+			}
+		});
+
+		Files.setLastModifiedTime(dir1, FileTime.fromMillis(now));
+		awaitChildNames(path, Arrays.asList("dir2", "dir1"));
+		assertSame(dirPath.getLastPathComponent(), FileExplorerTreeTestSupport.getChildPath(tree, path, "dir1")
+				.getLastPathComponent());
+		assertTrue(FileExplorerTreeTestSupport.invoke(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return tree.isExpanded(dirPath) && childPath.equals(tree.getSelectionPath());
+			}
+		}));
+	}
+
+	/**
+	 * 既存のファイルの変更では追加の通知が行われず、新しいファイルのみがイベントディスパッチスレッド以外から通知されることを確認する。
+	 */
+	@Test
+	public void testAppendedOnlyNewFiles() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			write(name(i), 1);
+		}
+		final List<String> appended = Collections.synchronizedList(new ArrayList<String>());
+		final AtomicBoolean onEdt = new AtomicBoolean();
+		tree.addFileExplorerTreeListener(new FileExplorerTreeAdapter() {
+			@Override
+			public void fileExplorerTreeAppendedFile(final FileExplorerTreeEvent event, final File aFile) {
+				if (SwingUtilities.isEventDispatchThread()) {
+					onEdt.set(true);
+				}
+				appended.add(aFile.getName());
+			}
+		});
+		TreePath path = FileExplorerTreeTestSupport.getRootPath(tree);
+		FileExplorerTreeTestSupport.expand(tree, path);
+		assertEquals(10, appended.size());
+
+		write(name(0), 100);
+		write("new.txt", 1);
+		awaitChildNames(path, FileExplorerTreeTestSupport.list(directory));
+		FileExplorerTreeTestSupport.refresh(tree, path);
+
+		long timeout = System.currentTimeMillis() + 10000;
+		while (appended.size() < 11 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(50);
+		}
+		// 遅れて届く重複した通知を待つ
+		Thread.sleep(500);
+		List<String> actual = new ArrayList<String>(appended);
+		Collections.sort(actual);
+		assertEquals(FileExplorerTreeTestSupport.list(directory), actual);
+		assertFalse(onEdt.get());
+	}
+
+	private void write(final String aName, final int aSize) throws IOException {
+		Files.write(directory.resolve(aName), new byte[aSize]);
+	}
+
+	private void awaitChildNames(final TreePath aPath, final List<String> aExpected) throws Exception {
+		List<String> actual = null;
+		long timeout = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < timeout) {
+			actual = FileExplorerTreeTestSupport.getChildNames(tree, aPath);
+			if (aExpected.equals(actual)) {
+				return;
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(aExpected, actual);
+	}
+
+	private static String name(final int aIndex) {
+		return String.format("file%05d.txt", aIndex);
+	}
+}